@@ -7,8 +7,21 @@ import model.Utilisateur;
 
 import java.util.ArrayList;
 
+// 📦 Importation du point d'accès HTTP local aux métriques du pool
+import metrics.MetricsHttpServer;
+import metrics.QueryMetricsTracer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 // 📦 Importation du UserRepository, qui contient toutes les méthodes pour interagir avec la base de données
 import repository.UserRepository;
+import repository.RepositoryException;
+import repository.SchemaMigrations;
+import repository.UserImporter;
 
 // 📦 Importation de la classe List, qui permet de stocker plusieurs objets dans une liste
 import java.util.List;
@@ -26,9 +39,44 @@ public class ConsoleMenu {
         // On lui passe la DataSource HikariCP pour qu'il puisse accéder à la base de données
         UserRepository repo = new UserRepository(HikariDataSourceExample.getDataSource());
 
+        // 🔭 Mesure de chaque requête (obtention, exécution, mapping) dans le registre de métriques ;
+        // les requêtes de plus de 100 ms sont affichées dans le journal des requêtes lentes
+        repo.setTracer(new QueryMetricsTracer(HikariDataSourceExample.getMetriques(), 100, TimeUnit.MILLISECONDS));
+
+        // 🗃️ Migrations du schéma (table, index sur email...) si -Ddb.migrate=true
+        if (HikariDataSourceExample.getConfiguration().isMigration()) {
+            try {
+                System.out.println("🗃️ Migrations appliquées : " + SchemaMigrations.migrer(HikariDataSourceExample.getDataSource()));
+            } catch (SQLException e) {
+                System.out.println("❌ Erreur pendant les migrations : " + e.getMessage());
+            }
+        }
+
+        // 🔥 Préchauffage avant d'afficher le menu : les connexions sont ouvertes et les requêtes préparées
+        // maintenant, pas lors de la première action de l'utilisateur (désactivable avec -Ddb.warmup=false)
+        if (HikariDataSourceExample.getConfiguration().isPrechauffage()) {
+            try {
+                System.out.println("🔥 Pool préchauffé : " + HikariDataSourceExample.prechauffer(UserRepository.requetesAPreparer()));
+            } catch (SQLException e) {
+                System.out.println("❌ Erreur pendant le préchauffage : " + e.getMessage());
+            }
+        }
+
         // 🧾 Création d'un Scanner pour lire les entrées clavier de l'utilisateur
         Scanner scanner = new Scanner(System.in);
 
+        // 🌐 Si -Dmetrics.port=<port> est fourni, les métriques du pool sont servies sur http://127.0.0.1:<port>/metrics
+        MetricsHttpServer serveurMetriques = null;
+        Integer portMetriques = Integer.getInteger("metrics.port");
+        if (portMetriques != null) {
+            try {
+                serveurMetriques = new MetricsHttpServer(HikariDataSourceExample.getMetriques(), portMetriques);
+                System.out.println("📊 Métriques : http://127.0.0.1:" + serveurMetriques.getPort() + "/metrics");
+            } catch (IOException e) {
+                System.out.println("❌ Erreur au démarrage du serveur de métriques : " + e.getMessage());
+            }
+        }
+
         // 🔁 Boucle infinie : le menu s'affiche tant que l'utilisateur ne choisit pas "0" pour quitter
         while (true) {
 
@@ -40,6 +88,9 @@ public class ConsoleMenu {
             System.out.println("4. Modifier un utilisateur");
             System.out.println("5. Supprimer un utilisateur");
             System.out.println(("6. Ajouter plusieurs utilisateurs (transaction)\");"));
+            System.out.println("7. Afficher les métriques (pool et requêtes)");
+            System.out.println("8. Rechercher par email (ou début d'email)");
+            System.out.println("9. Importer un fichier (CSV ou NDJSON)");
             System.out.println("0. Quitter");
 
             // 🧭 Demande du choix à l'utilisateur
@@ -56,13 +107,13 @@ public class ConsoleMenu {
 
                 case 1:
                     // 📋 Cas 1 : afficher tous les utilisateurs
-                    // Appel à la méthode findAll() du repository pour récupérer tous les utilisateurs
-                    List<Utilisateur> utilisateurs = repo.findAll();
-
-                    // 🔄 Parcours de la liste des utilisateurs
-                    for (Utilisateur u : utilisateurs) {
-                        // 🖨️ Affichage des informations de chaque utilisateur
-                        System.out.println("👤 " + u.getId() + " - " + u.getNom() + " - " + u.getEmail());
+                    // Parcours en flux page par page : la table n'est jamais chargée entièrement en mémoire
+                    try {
+                        repo.forEachUtilisateur(u ->
+                                // 🖨️ Affichage des informations de chaque utilisateur
+                                System.out.println("👤 " + u.getId() + " - " + u.getNom() + " - " + u.getEmail()));
+                    } catch (RepositoryException e) {
+                        System.out.println("❌ " + e.getMessage());
                     }
                     break;
 
@@ -209,8 +260,61 @@ public class ConsoleMenu {
                     // Le mot-clé 'break' termine l'exécution du bloc 'switch' et renvoie le contrôle à la boucle principale du menu.
                     break;
 
+                case 7:
+                    // 📊 Cas 7 : afficher les métriques du pool (connexions actives/inactives,
+                    // threads en attente, temps d'obtention et d'utilisation des connexions, timeouts)
+                    // et des requêtes (durée de chaque phase par opération, lignes, échecs, requêtes lentes)
+                    HikariDataSourceExample.getMetriques().afficher();
+                    break;
+
+                case 8:
+                    // 📧 Cas 8 : email exact, sinon les 20 premiers emails qui commencent par la saisie
+                    System.out.print("Email (ou début d'email) : ");
+                    String emailRecherche = scanner.nextLine().trim();
+                    Utilisateur parEmail = repo.findByEmail(emailRecherche);
+                    if (parEmail != null) {
+                        System.out.println("✅ Trouvé : " + parEmail.getId() + " - " + parEmail.getNom() + " - " + parEmail.getEmail());
+                    } else {
+                        List<Utilisateur> parPrefixe = repo.findByEmailPrefix(emailRecherche, 20);
+                        if (parPrefixe.isEmpty()) {
+                            System.out.println("❌ Aucun utilisateur trouvé avec cet email.");
+                        }
+                        for (Utilisateur u : parPrefixe) {
+                            System.out.println("👤 " + u.getId() + " - " + u.getNom() + " - " + u.getEmail());
+                        }
+                    }
+                    break;
+
+                case 9:
+                    // 📥 Cas 9 : import d'un fichier "nom,email" (CSV) ou d'objets JSON (un par ligne) ;
+                    // relancer l'import du même fichier reprend après les lots déjà en base
+                    System.out.print("Chemin du fichier : ");
+                    Path fichierImport = Path.of(scanner.nextLine().trim());
+                    try {
+                        AtomicLong dernierAffichage = new AtomicLong(System.nanoTime());
+                        UserImporter.Bilan bilan = new UserImporter(HikariDataSourceExample.getDataSource())
+                                .importer(fichierImport, progression -> {
+                                    // 📊 Au plus un affichage par seconde
+                                    long maintenant = System.nanoTime();
+                                    long dernier = dernierAffichage.get();
+                                    if (maintenant - dernier >= 1_000_000_000L && dernierAffichage.compareAndSet(dernier, maintenant)) {
+                                        System.out.println("⏳ " + progression);
+                                    }
+                                });
+                        System.out.println("✅ " + bilan);
+                        if (!bilan.rejetsParMotif().isEmpty()) {
+                            System.out.println("🧾 Détail des rejets : " + fichierImport + ".rejets");
+                        }
+                    } catch (IOException e) {
+                        System.out.println("❌ Erreur pendant l'import : " + e.getMessage());
+                    }
+                    break;
+
                 case 0:
                     // 🚪 Cas 0 : quitter le programme
+                    if (serveurMetriques != null) {
+                        serveurMetriques.close(); // 🌐 Arrêt du serveur de métriques
+                    }
                     System.out.println("👋 Au revoir !");
                     return; // 🔚 On sort de la méthode main → fin du programme
 
@@ -7,42 +7,62 @@ import java.sql.Connection;
 // SQLException est l'exception levée si une erreur survient lors de l'accès à la base
 import java.sql.SQLException;
 
-// MysqlDataSource est une implémentation concrète de DataSource fournie par le driver MySQL
-import com.mysql.cj.jdbc.MysqlDataSource;
+// Table partagée entre threads, pour garder un pool par profil
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Configuration externe, profil de réglages du driver MySQL et petit pool sans dépendance
+import config.DatabaseConfig;
+import config.DriverProfile;
+import config.MiniPoolDataSource;
 
 // Déclaration de la classe principale
 public class SimpleDataSource {
 
-    // Constante contenant l'URL de connexion JDBC
-    // jdbc:mysql:// → protocole JDBC pour MySQL
-    // localhost:3306 → adresse du serveur MySQL (local) et port
-    // JDBC → nom de la base de données
-    // serverTimezone=Europe/Paris → corrige les erreurs de fuseau horaire
-    // useSSL=false → désactive SSL (utile en local pour éviter les avertissements)
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/JDBC?serverTimezone=Europe/Paris&useSSL=false";
-
-    // Nom d'utilisateur pour se connecter à la base MySQL
-    private static final String DB_USER = "JDBC";
+    // Un pool par profil du driver, créé au premier appel puis réutilisé par tous les suivants
+    // (auparavant, chaque appel construisait une nouvelle MysqlDataSource, et chaque getConnection()
+    // ouvrait une nouvelle connexion TCP avec authentification)
+    private static final Map<DriverProfile, MiniPoolDataSource> POOLS = new ConcurrentHashMap<>();
 
-    // Mot de passe associé à l'utilisateur
-    private static final String DB_PASSWORD = "copilot";
+    // Classe interne "holder" : la configuration (propriétés système, variables d'environnement,
+    // fichier database.properties) est lue une seule fois, au premier appel, et pas à chaque
+    // getDataSource() (qui ne fait alors qu'une recherche dans POOLS).
+    // URL, utilisateur et mot de passe en viennent aussi (db.url, db.user, db.password) : ce pool et
+    // celui de HikariDataSourceExample visent toujours la même base. Sans réglage, c'est la base
+    // locale "JDBC" (voir DatabaseConfig.URL_PAR_DEFAUT).
+    private static final class Configuration {
+        private static final DatabaseConfig CONFIGURATION = DatabaseConfig.charger();
+    }
 
-    // Méthode statique qui retourne une DataSource configurée
+    // Méthode statique qui retourne une DataSource configurée,
+    // avec le profil du driver choisi par db.profile (PERFORMANCE par défaut, voir DatabaseConfig)
     public static DataSource getDataSource() {
-        // On crée une instance de MysqlDataSource (spécifique à MySQL)
-        MysqlDataSource dataSource = new MysqlDataSource();
-
-        // On configure l'URL de connexion
-        dataSource.setURL(DB_URL);
+        return getDataSource(Configuration.CONFIGURATION.getProfil());
+    }
 
-        // On configure le nom d'utilisateur
-        dataSource.setUser(DB_USER);
+    // Même DataSource avec un profil du driver donné.
+    // C'est un petit pool (MiniPoolDataSource, sans HikariCP) : les connexions fermées par l'appelant
+    // y retournent et sont reprises par le getConnection() suivant. Taille, inactivité et attente
+    // maximales sont celles du pool de l'application (db.pool.max, db.pool.idleTimeoutMs,
+    // db.pool.connectionTimeoutMs). Aucune connexion n'est ouverte avant le premier getConnection().
+    public static DataSource getDataSource(DriverProfile profil) {
+        return POOLS.computeIfAbsent(profil,
+                p -> new MiniPoolDataSource(creerSource(p), Configuration.CONFIGURATION));
+    }
 
-        // On configure le mot de passe
-        dataSource.setPassword(DB_PASSWORD);
+    // Ferme les pools ouverts (fin d'un outil de traitement par lots, par exemple)
+    public static void fermer() {
+        POOLS.values().forEach(MiniPoolDataSource::close);
+        POOLS.clear();
+    }
 
-        // On retourne l'objet DataSource prêt à l'emploi
-        return dataSource;
+    // DataSource MySQL non poolée : une connexion physique à chaque getConnection().
+    // L'URL de la configuration est complétée par les propriétés du profil (cachePrepStmts,
+    // useServerPrepStmts...) ; utilisateur et mot de passe sont ceux de la configuration.
+    private static DataSource creerSource(DriverProfile profil) {
+        DatabaseConfig configuration = Configuration.CONFIGURATION;
+        return profil.creerMysqlDataSource(configuration.getUrl(), configuration.getUtilisateur(),
+                configuration.getMotDePasse());
     }
 
     // Méthode principale pour tester la connexion à la base
@@ -0,0 +1,135 @@
+// 📦 Déclaration du package des benchmarks JMH
+package benchmark;
+
+// 📦 Importation de la configuration et des pools de l'application (HikariCP et petit pool sans dépendance)
+import config.DatabaseConfig;
+import config.HikariDataSourceExample;
+import config.MiniPoolDataSource;
+
+// 📦 Importation de la classe Utilisateur, du chargeur en masse et des migrations du schéma
+import model.Utilisateur;
+import repository.SchemaMigrations;
+import repository.UserBulkLoader;
+import repository.UserOutbox;
+
+// 📦 DataSource non poolée fournie par H2 (équivalent embarqué de MysqlDataSource)
+import org.h2.jdbcx.JdbcDataSource;
+
+// 📦 Serveur TCP de H2 : même base, mais atteinte à travers une vraie socket
+import org.h2.tools.Server;
+
+// 📦 Importation des classes JDBC et utilitaires
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.net.ServerSocket;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// 🧱 Base de données H2 en mémoire (mode MySQL) utilisée par les benchmarks.
+// Elle tourne dans le même processus : aucun serveur MySQL n'est nécessaire.
+public final class BaseEmbarquee {
+
+    // 🔐 Identifiants de la base embarquée
+    public static final String UTILISATEUR = "sa";
+    public static final String MOT_DE_PASSE = "";
+
+    // 🧭 Les façons d'obtenir des connexions dans l'application
+    public enum TypeSource {
+        // 🏊 Pool HikariCP construit comme HikariDataSourceExample.getDataSource()
+        HIKARI,
+        // 🔌 Une nouvelle connexion physique à chaque getConnection() (DataSource du driver, sans pool)
+        SIMPLE,
+        // 🪶 Petit pool sans dépendance devant la source SIMPLE, comme SimpleDataSource.getDataSource()
+        // (SimpleDataSource est dans le package par défaut et lié à MySQL : on utilise son équivalent H2)
+        MINI_POOL
+    }
+
+    // 🌐 Serveur TCP partagé par tous les benchmarks de la JVM (démarré à la demande)
+    private static Server serveurTcp;
+
+    // 🚫 Classe utilitaire : pas d'instance
+    private BaseEmbarquee() {}
+
+    // 🔗 URL JDBC d'une base en mémoire nommée, conservée tant que la JVM tourne
+    public static String url(String nomBase) {
+        return "jdbc:h2:mem:" + nomBase + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    }
+
+    // 🔗 URL JDBC de la même base en mémoire, mais atteinte par le réseau local (serveur TCP de H2).
+    // Chaque requête fait alors un vrai aller-retour sur une socket, comme avec MySQL :
+    // utile pour comparer un coût côté Java à une latence de requête réaliste.
+    public static String urlTcp(String nomBase) throws SQLException {
+        return "jdbc:h2:tcp://localhost:" + portTcp() + "/mem:" + nomBase
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    }
+
+    // 🌐 Démarre le serveur TCP de H2 sur un port libre (une seule fois) et retourne son port
+    private static synchronized int portTcp() throws SQLException {
+        if (serveurTcp == null) {
+            int port;
+            try (ServerSocket libre = new ServerSocket(0)) {
+                port = libre.getLocalPort();
+            } catch (IOException e) {
+                throw new SQLException("Aucun port libre pour le serveur H2", e);
+            }
+            // -ifNotExists : la base en mémoire peut être créée par le premier client ;
+            // -tcpDaemon : le serveur n'empêche pas la JVM de s'arrêter
+            serveurTcp = Server.createTcpServer("-tcpPort", Integer.toString(port), "-ifNotExists", "-tcpDaemon").start();
+        }
+        return serveurTcp.getPort();
+    }
+
+    // 🏗️ Crée la base, la table "utilisateurs" et y insère le nombre de lignes demandé
+    public static void creer(String url, int lignes) throws SQLException {
+        creer(source(TypeSource.SIMPLE, url), lignes);
+    }
+
+    // 🏗️ Même chose à travers une DataSource donnée (par exemple vers une vraie base MySQL).
+    // Le schéma est celui des migrations de l'application (table, index sur email, outbox).
+    public static void creer(DataSource ds, int lignes) throws SQLException {
+        try (Connection conn = ds.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS utilisateurs");
+            stmt.execute("DROP TABLE IF EXISTS " + UserOutbox.TABLE);
+            stmt.execute("DROP TABLE IF EXISTS schema_version");
+        }
+        SchemaMigrations.migrer(ds);
+        new UserBulkLoader(ds).charger(genererUtilisateurs(lignes));
+    }
+
+    // 🧪 Génère des utilisateurs de test (sans ID : la base les attribue)
+    public static List<Utilisateur> genererUtilisateurs(int nombre) {
+        List<Utilisateur> utilisateurs = new ArrayList<>(nombre);
+        for (int i = 0; i < nombre; i++) {
+            utilisateurs.add(new Utilisateur(0, "Utilisateur " + i, "utilisateur" + i + "@exemple.fr"));
+        }
+        return utilisateurs;
+    }
+
+    // 🔌 DataSource du type demandé vers la base embarquée
+    public static DataSource source(TypeSource type, String url) {
+        if (type == TypeSource.HIKARI) {
+            return HikariDataSourceExample.creerDataSource(url, UTILISATEUR, MOT_DE_PASSE);
+        }
+        if (type == TypeSource.MINI_POOL) {
+            return new MiniPoolDataSource(source(TypeSource.SIMPLE, url), DatabaseConfig.charger());
+        }
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL(url);
+        ds.setUser(UTILISATEUR);
+        ds.setPassword(MOT_DE_PASSE);
+        return ds;
+    }
+
+    // 🧹 Ferme le pool s'il y en a un, puis détruit la base en mémoire
+    public static void detruire(DataSource ds, String url) throws Exception {
+        if (ds instanceof AutoCloseable fermable) {
+            fermable.close();
+        }
+        try (Connection conn = source(TypeSource.SIMPLE, url).getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("SHUTDOWN");
+        }
+    }
+}
@@ -0,0 +1,123 @@
+// 📦 Déclaration du package des benchmarks JMH
+package benchmark;
+
+// 📦 Importation de la classe Utilisateur, du repository et du chargeur en masse
+import model.Utilisateur;
+import repository.UserBulkLoader;
+import repository.UserRepository;
+
+// 📦 Importation des annotations et du lanceur JMH
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// 📦 Importation des classes JDBC et utilitaires
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+// ⏱️ Débit d'insertion (lignes/ms) : 1000 utilisateurs insérés
+//  - saveUnParUn : 1000 appels à save() (un aller-retour et un commit par ligne) ;
+//  - saveAll : un batch JDBC, une transaction ;
+//  - chargeurBatch : UserBulkLoader (paquets de 1000, un commit par paquet, batch JDBC) ;
+//  - chargeurMultiLignes : UserBulkLoader avec un seul "INSERT ... VALUES (?, ?), (?, ?), ...".
+// Base par TCP : chaque aller-retour évité compte, comme avec un serveur MySQL.
+// ⚠️ La base embarquée n'écrit rien sur disque au commit : sur MySQL (un fsync par commit),
+// l'écart entre saveUnParUn et les chargements en masse est plus grand.
+//
+// Lancement : java -cp <classpath> benchmark.BulkLoadBenchmark
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkLoadBenchmark {
+
+    // 📏 Lignes insérées par opération
+    private static final int LIGNES = 1000;
+
+    private String url;
+    private DataSource dataSource;
+    private UserRepository repository;
+    private UserBulkLoader chargeurBatch;
+    private UserBulkLoader chargeurMultiLignes;
+
+    @Setup(Level.Trial)
+    public void preparer() throws SQLException {
+        url = BaseEmbarquee.urlTcp("bench_bulk_load");
+        BaseEmbarquee.creer(url, 0);
+        dataSource = BaseEmbarquee.source(BaseEmbarquee.TypeSource.HIKARI, url);
+        repository = new UserRepository(dataSource);
+        chargeurBatch = new UserBulkLoader(dataSource);
+        chargeurMultiLignes = new UserBulkLoader(dataSource, LIGNES, UserBulkLoader.ModeCommit.PAR_CHUNK, true);
+    }
+
+    // 🧹 La table grossit à chaque opération : on la vide après chaque itération
+    @TearDown(Level.Iteration)
+    public void nettoyer() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("DELETE FROM utilisateurs")) {
+            stmt.executeUpdate();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void fermer() throws Exception {
+        BaseEmbarquee.detruire(dataSource, url);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LIGNES)
+    public int saveUnParUn() {
+        int inseres = 0;
+        for (Utilisateur u : BaseEmbarquee.genererUtilisateurs(LIGNES)) {
+            if (repository.save(u)) {
+                inseres++;
+            }
+        }
+        return inseres;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LIGNES)
+    public boolean saveAll() {
+        return repository.saveAll(BaseEmbarquee.genererUtilisateurs(LIGNES));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LIGNES)
+    public long chargeurBatch() {
+        return chargeurBatch.charger(BaseEmbarquee.genererUtilisateurs(LIGNES)).getLignesInserees();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LIGNES)
+    public long chargeurMultiLignes() {
+        return chargeurMultiLignes.charger(BaseEmbarquee.genererUtilisateurs(LIGNES)).getLignesInserees();
+    }
+
+    // 🚪 Point d'entrée
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BulkLoadBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
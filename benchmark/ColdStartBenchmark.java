@@ -0,0 +1,131 @@
+// 📦 Déclaration du package des benchmarks JMH
+package benchmark;
+
+// 📦 Importation de la configuration externe, du préchauffage et du repository
+import config.DatabaseConfig;
+import config.HikariDataSourceExample;
+import config.PoolWarmup;
+import metrics.MetricsRegistry;
+import model.Utilisateur;
+import repository.UserRepository;
+
+// 📦 Importation des annotations et du lanceur JMH
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// 📦 Importation des classes JDBC et utilitaires
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// ⏱️ Pic de latence au démarrage : les premières requêtes concurrentes sur un pool tout neuf.
+// À chaque mesure, un nouveau pool est créé (configuration DatabaseConfig, base H2 via TCP pour
+// que l'ouverture d'une connexion coûte un vrai aller-retour), puis 'concurrence' findById
+// sont lancés en même temps et le temps jusqu'à la dernière réponse est mesuré.
+//  - prechauffage=false : le pool ouvre ses connexions pendant ces premières requêtes ;
+//  - prechauffage=true  : PoolWarmup a ouvert minimumIdle connexions et préparé les requêtes avant.
+//
+// Lancement : java -cp <classpath> benchmark.ColdStartBenchmark
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ColdStartBenchmark {
+
+    // 🔥 Préchauffage du pool avant les premières requêtes
+    @Param({"false", "true"})
+    public boolean prechauffage;
+
+    // 👥 Nombre de requêtes simultanées au démarrage (et taille du pool)
+    @Param({"8"})
+    public int concurrence;
+
+    private String url;
+    private DatabaseConfig configuration;
+    private HikariDataSource dataSource;
+    private UserRepository repository;
+
+    // 🧵 Un thread virtuel par requête : elles partent vraiment en même temps, quel que soit le nombre de cœurs
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void creerBase() throws SQLException {
+        url = BaseEmbarquee.urlTcp("bench_demarrage");
+        BaseEmbarquee.creer(url, 1000);
+        Properties proprietes = new Properties();
+        proprietes.setProperty("db.url", url);
+        proprietes.setProperty("db.user", BaseEmbarquee.UTILISATEUR);
+        proprietes.setProperty("db.password", BaseEmbarquee.MOT_DE_PASSE);
+        proprietes.setProperty("db.pool.max", Integer.toString(concurrence));
+        configuration = DatabaseConfig.charger(proprietes, Map.of());
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    // 🆕 Un pool neuf avant chaque mesure
+    @Setup(Level.Iteration)
+    public void demarrerPool() throws SQLException {
+        dataSource = HikariDataSourceExample.creerDataSource(configuration, new MetricsRegistry());
+        repository = new UserRepository(dataSource);
+        if (prechauffage) {
+            PoolWarmup.prechauffer(dataSource, configuration.getMinIdle(), UserRepository.requetesAPreparer());
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void arreterPool() {
+        dataSource.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void detruireBase() throws Exception {
+        executor.close();
+        BaseEmbarquee.detruire(null, url);
+    }
+
+    // 🚀 Premières requêtes simultanées après le démarrage
+    @Benchmark
+    public List<Utilisateur> premieresRequetes() {
+        List<CompletableFuture<Utilisateur>> futures = new ArrayList<>(concurrence);
+        for (int i = 0; i < concurrence; i++) {
+            int id = i + 1;
+            futures.add(CompletableFuture.supplyAsync(() -> repository.findById(id), executor));
+        }
+        List<Utilisateur> utilisateurs = new ArrayList<>(concurrence);
+        for (CompletableFuture<Utilisateur> f : futures) {
+            utilisateurs.add(f.join());
+        }
+        return utilisateurs;
+    }
+
+    // 🚪 Point d'entrée
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ColdStartBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
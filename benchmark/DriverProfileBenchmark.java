@@ -0,0 +1,123 @@
+// 📦 Déclaration du package des benchmarks JMH
+package benchmark;
+
+// 📦 Importation de la fabrique du pool, du profil du driver et du repository
+import config.DriverProfile;
+import config.HikariDataSourceExample;
+import model.Utilisateur;
+import repository.UserRepository;
+
+// 📦 Importation des annotations et du lanceur JMH
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// 📦 Importation des classes JDBC et utilitaires
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// ⏱️ Gain par appel du profil PERFORMANCE du driver MySQL (cache des requêtes préparées, préparation
+// côté serveur, métadonnées en cache...) sur findById et update, pour les deux DataSources :
+//  - source=HIKARI : pool HikariCP, les connexions (et donc leurs caches) sont réutilisées ;
+//  - source=SIMPLE : MysqlDataSource non poolée, une connexion physique par appel : seuls les
+//    réglages de session (cacheServerConfiguration...) peuvent jouer, le cache par connexion est perdu.
+//
+// Les propriétés de Connector/J n'existent pas pour H2 : ce benchmark a besoin d'un vrai serveur MySQL.
+// ⚠️ La table "utilisateurs" de la base donnée est supprimée puis recréée : utiliser une base dédiée.
+//
+// Lancement :
+//   java -Dbench.mysql.url=jdbc:mysql://localhost:3306/BENCH -Dbench.mysql.user=JDBC -Dbench.mysql.password=copilot \
+//        -cp <classpath> benchmark.DriverProfileBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DriverProfileBenchmark {
+
+    // 🎛️ Profil du driver
+    @Param({"STANDARD", "PERFORMANCE"})
+    public DriverProfile profil;
+
+    // 🔌 Type de DataSource utilisé
+    @Param({"HIKARI", "SIMPLE"})
+    public BaseEmbarquee.TypeSource source;
+
+    // 📏 Nombre de lignes dans la table
+    @Param({"10000"})
+    public int lignes;
+
+    private DataSource dataSource;
+    private UserRepository repository;
+
+    @Setup(Level.Trial)
+    public void preparer() throws SQLException {
+        String url = System.getProperty("bench.mysql.url");
+        if (url == null) {
+            throw new IllegalStateException("Base MySQL dédiée requise : -Dbench.mysql.url=jdbc:mysql://hote:3306/base");
+        }
+        String utilisateur = System.getProperty("bench.mysql.user", "JDBC");
+        String motDePasse = System.getProperty("bench.mysql.password", "");
+
+        if (source == BaseEmbarquee.TypeSource.HIKARI) {
+            HikariConfig config = HikariDataSourceExample.creerConfig(url, utilisateur, motDePasse);
+            profil.appliquer(config);
+            dataSource = new HikariDataSource(config);
+        } else {
+            dataSource = profil.creerMysqlDataSource(url, utilisateur, motDePasse);
+        }
+        BaseEmbarquee.creer(dataSource, lignes);
+        repository = new UserRepository(dataSource);
+    }
+
+    @TearDown(Level.Trial)
+    public void fermer() {
+        if (dataSource instanceof HikariDataSource pool) {
+            pool.close();
+        }
+    }
+
+    // 🔍 Lecture d'un utilisateur par ID
+    @Benchmark
+    public Utilisateur findById() {
+        return repository.findById(idAuHasard());
+    }
+
+    // ✏️ Mise à jour d'un utilisateur existant
+    @Benchmark
+    public boolean update() {
+        int id = idAuHasard();
+        return repository.update(new Utilisateur(id, "Utilisateur " + id, "utilisateur" + id + "@exemple.fr"));
+    }
+
+    private int idAuHasard() {
+        return 1 + ThreadLocalRandom.current().nextInt(lignes);
+    }
+
+    // 🚪 Point d'entrée
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(DriverProfileBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,107 @@
+// 📦 Déclaration du package des benchmarks JMH
+package benchmark;
+
+// 📦 Importation du repository, de l'index des emails et de la classe Utilisateur
+import model.Utilisateur;
+import repository.UserRepository;
+import repository.cache.EmailIndex;
+
+// 📦 Importation des annotations et du lanceur JMH
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// 📦 Importation des classes JDBC et utilitaires
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// ⏱️ Trois façons de savoir si un email existe, sur une table de N utilisateurs :
+//  - filtreFindAll : findAll() puis filtre en Java (ce que faisait le parcours de connexion) ;
+//  - findByEmail : requête sur l'index idx_utilisateurs_email (base atteinte par TCP, comme MySQL) ;
+//  - indexMemoire : EmailIndex.contient, sans requête (objectif : moins d'une microseconde).
+// La moitié des emails cherchés existent, l'autre moitié non.
+//
+// Lancement : java -cp <classpath> benchmark.EmailLookupBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmailLookupBenchmark {
+
+    // 📏 Nombre de lignes dans la table
+    @Param({"100000"})
+    public int lignes;
+
+    private String url;
+    private DataSource dataSource;
+    private UserRepository repo;
+    private EmailIndex index;
+
+    @Setup(Level.Trial)
+    public void preparer() throws SQLException {
+        url = BaseEmbarquee.urlTcp("bench_email");
+        BaseEmbarquee.creer(url, lignes);
+        dataSource = BaseEmbarquee.source(BaseEmbarquee.TypeSource.HIKARI, url);
+        repo = new UserRepository(dataSource);
+        index = EmailIndex.charger(repo);
+    }
+
+    @TearDown(Level.Trial)
+    public void fermer() throws Exception {
+        BaseEmbarquee.detruire(dataSource, url);
+    }
+
+    // 🐢 Toute la table en mémoire, puis filtre (une seule mesure suffit à voir l'ordre de grandeur)
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean filtreFindAll() {
+        String email = emailAuHasard();
+        List<Utilisateur> tous = repo.findAll();
+        return tous.stream().anyMatch(u -> email.equals(u.getEmail()));
+    }
+
+    // 🔍 Une requête sur l'index de la colonne email
+    @Benchmark
+    public boolean findByEmail() {
+        return repo.findByEmail(emailAuHasard()) != null;
+    }
+
+    // ⚡ Recherche par dichotomie dans l'index en mémoire
+    @Benchmark
+    public boolean indexMemoire() {
+        return index.contient(emailAuHasard());
+    }
+
+    // 📧 Email généré par BaseEmbarquee : indices 0 à 2N-1, donc une chance sur deux d'exister
+    private String emailAuHasard() {
+        return "utilisateur" + ThreadLocalRandom.current().nextInt(2 * lignes) + "@exemple.fr";
+    }
+
+    // 🚪 Point d'entrée
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(EmailLookupBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
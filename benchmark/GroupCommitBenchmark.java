@@ -0,0 +1,108 @@
+// 📦 Déclaration du package des benchmarks JMH
+package benchmark;
+
+// 📦 Importation de la classe Utilisateur, du repository et du writer regroupé
+import model.Utilisateur;
+import repository.GroupCommitUserWriter;
+import repository.UserRepository;
+
+// 📦 Importation des annotations et du lanceur JMH
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// 📦 Importation des classes JDBC et utilitaires
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+// ⏱️ Débit d'écriture (insertions/ms) sous forte concurrence (32 threads, pool HikariCP de 10 connexions,
+// base par TCP), chaque appelant attendant que SA ligne soit validée :
+//  - direct : UserRepository.save(), une connexion, un aller-retour et un commit par insertion ;
+//  - groupCommit : GroupCommitUserWriter.save(...).join(), insertions regroupées en un batch et un commit.
+// À la fin, la taille moyenne des lots est affichée (commits économisés).
+// ⚠️ Le gain du regroupement vient des commits économisés (un fsync chacun sur MySQL). La base embarquée
+// n'écrit rien sur disque au commit et envoie les éléments d'un batch un par un par TCP : ici, une seule
+// connexion d'écriture contre dix en parallèle, "direct" reste devant (environ 11,6 contre 7,7 insertions/ms,
+// lots de 32). Le chiffre à retenir est celui mesuré contre le serveur MySQL cible, pas celui-ci.
+//
+// Lancement : java -cp <classpath> benchmark.GroupCommitBenchmark
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class GroupCommitBenchmark {
+
+    private String url;
+    private DataSource dataSource;
+    private UserRepository direct;
+    private GroupCommitUserWriter groupCommit;
+
+    @Setup(Level.Trial)
+    public void preparer() throws SQLException {
+        url = BaseEmbarquee.urlTcp("bench_group_commit");
+        BaseEmbarquee.creer(url, 0);
+        dataSource = BaseEmbarquee.source(BaseEmbarquee.TypeSource.HIKARI, url);
+        direct = new UserRepository(dataSource);
+        groupCommit = new GroupCommitUserWriter(dataSource);
+    }
+
+    // 🧹 La table grossit à chaque opération : on la vide après chaque itération
+    @TearDown(Level.Iteration)
+    public void nettoyer() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("DELETE FROM utilisateurs")) {
+            stmt.executeUpdate();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void fermer() throws Exception {
+        System.out.printf("%n📮 %d écritures en %d lots (%.1f par lot, %d lots rejoués)%n",
+                groupCommit.getEcritures(), groupCommit.getLots(), groupCommit.getTailleMoyenneLot(),
+                groupCommit.getLotsRejoues());
+        groupCommit.close();
+        BaseEmbarquee.detruire(dataSource, url);
+    }
+
+    @Benchmark
+    public boolean direct() {
+        return direct.save(nouvelUtilisateur());
+    }
+
+    @Benchmark
+    public boolean groupCommit() {
+        return groupCommit.save(nouvelUtilisateur()).join();
+    }
+
+    private static Utilisateur nouvelUtilisateur() {
+        return new Utilisateur(0, "Utilisateur", "utilisateur@exemple.fr");
+    }
+
+    // 🚪 Point d'entrée
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(GroupCommitBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
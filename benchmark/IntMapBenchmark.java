@@ -0,0 +1,145 @@
+// 📦 Déclaration du package des benchmarks JMH
+package benchmark;
+
+// 📦 Importation de la table à clés int et de la classe Utilisateur
+import model.Utilisateur;
+import repository.cache.ConcurrentIntObjectMap;
+
+// 📦 Importation des annotations et du lanceur JMH
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// 📦 Importation des classes utilitaires Java
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// ⏱️ ConcurrentIntObjectMap face à HashMap<Integer, …> et ConcurrentHashMap<Integer, …>.
+//
+//  - remplir* : construit une table de N utilisateurs déjà existants, dimensionnée d'avance.
+//    Avec le profileur gc, "gc.alloc.rate.norm" (octets par opération) donne donc l'empreinte
+//    mémoire de la structure elle-même (cases, nœuds, Integer), hors objets Utilisateur.
+//  - get* : lecture d'un ID au hasard ; l'allocation par opération doit être nulle pour la table int.
+//
+// Lancement : java -cp <classpath> benchmark.IntMapBenchmark
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IntMapBenchmark {
+
+    // 📏 Nombre d'utilisateurs rangés dans chaque table
+    @Param({"100000", "1000000"})
+    public int taille;
+
+    private Utilisateur[] utilisateurs;
+    private ConcurrentIntObjectMap<Utilisateur> tableInt;
+    private HashMap<Integer, Utilisateur> hashMap;
+    private ConcurrentHashMap<Integer, Utilisateur> concurrentHashMap;
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        utilisateurs = new Utilisateur[taille];
+        for (int i = 0; i < taille; i++) {
+            // 🔑 ID à partir de 1 000 000 : hors du cache des Integer de -128 à 127
+            utilisateurs[i] = new Utilisateur(1_000_000 + i, "Utilisateur " + i, "u" + i + "@exemple.fr");
+        }
+        tableInt = remplirTableInt();
+        hashMap = remplirHashMap();
+        concurrentHashMap = remplirConcurrentHashMap();
+    }
+
+    // 💾 Empreinte : construction d'une table int de N entrées
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ConcurrentIntObjectMap<Utilisateur> remplirTableInt() {
+        ConcurrentIntObjectMap<Utilisateur> table = new ConcurrentIntObjectMap<>(taille);
+        for (Utilisateur u : utilisateurs) {
+            table.put(u.getId(), u);
+        }
+        return table;
+    }
+
+    // 💾 Empreinte : construction d'un HashMap<Integer, Utilisateur> de N entrées
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public HashMap<Integer, Utilisateur> remplirHashMap() {
+        HashMap<Integer, Utilisateur> table = new HashMap<>((int) (taille / 0.75f) + 1);
+        for (Utilisateur u : utilisateurs) {
+            table.put(u.getId(), u);
+        }
+        return table;
+    }
+
+    // 💾 Empreinte : construction d'un ConcurrentHashMap<Integer, Utilisateur> de N entrées
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ConcurrentHashMap<Integer, Utilisateur> remplirConcurrentHashMap() {
+        ConcurrentHashMap<Integer, Utilisateur> table = new ConcurrentHashMap<>(taille);
+        for (Utilisateur u : utilisateurs) {
+            table.put(u.getId(), u);
+        }
+        return table;
+    }
+
+    // 🔍 Lecture d'un ID au hasard dans la table int
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Utilisateur getTableInt() {
+        return tableInt.get(idAuHasard());
+    }
+
+    // 🔍 Lecture d'un ID au hasard dans le HashMap (la clé est boxée à chaque appel)
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Utilisateur getHashMap() {
+        return lire(hashMap, idAuHasard());
+    }
+
+    // 🔍 Lecture d'un ID au hasard dans le ConcurrentHashMap
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Utilisateur getConcurrentHashMap() {
+        return lire(concurrentHashMap, idAuHasard());
+    }
+
+    private int idAuHasard() {
+        return 1_000_000 + ThreadLocalRandom.current().nextInt(taille);
+    }
+
+    private static Utilisateur lire(Map<Integer, Utilisateur> table, int id) {
+        return table.get(id);
+    }
+
+    // 🚪 Point d'entrée : lance les benchmarks avec le profileur d'allocation
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(IntMapBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,106 @@
+// 📦 Déclaration du package des benchmarks JMH
+package benchmark;
+
+// 📦 Importation des annotations et du lanceur JMH
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// 📦 Importation des classes JDBC et utilitaires
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+// ⏱️ Coût d'un emprunt de connexion (getConnection() puis close()) selon la source :
+//  - HIKARI : pool HikariCP de l'application ;
+//  - MINI_POOL : MiniPoolDataSource, le petit pool sans dépendance de SimpleDataSource ;
+//  - SIMPLE : aucun pool, une connexion TCP ouverte et authentifiée à chaque fois (l'ancien
+//    SimpleDataSource), pour l'ordre de grandeur.
+// Mesuré sur un thread, puis sur 16 threads qui se disputent le pool (db.pool.max connexions).
+// demarrage mesure la création de la source et sa première connexion : HikariCP ouvre tout son
+// minimum de connexions au démarrage, MiniPoolDataSource une seule.
+//
+// Lancement : java -cp <classpath> benchmark.PoolAcquireBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PoolAcquireBenchmark {
+
+    @Param({"HIKARI", "MINI_POOL", "SIMPLE"})
+    public BaseEmbarquee.TypeSource source;
+
+    private String url;
+    private DataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void preparer() throws SQLException {
+        url = BaseEmbarquee.urlTcp("bench_pool");
+        BaseEmbarquee.creer(url, 10);
+        dataSource = BaseEmbarquee.source(source, url);
+    }
+
+    @TearDown(Level.Trial)
+    public void fermer() throws Exception {
+        BaseEmbarquee.detruire(dataSource, url);
+    }
+
+    // 🔌 Un emprunt sans concurrence
+    @Benchmark
+    @Threads(1)
+    public void emprunt(Blackhole trou) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            trou.consume(conn);
+        }
+    }
+
+    // 🔌 Un emprunt sous concurrence (16 threads)
+    @Benchmark
+    @Threads(16)
+    public void empruntConcurrent(Blackhole trou) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            trou.consume(conn);
+        }
+    }
+
+    // 🚀 Création de la source et première connexion, puis fermeture
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void demarrage(Blackhole trou) throws Exception {
+        DataSource ds = BaseEmbarquee.source(source, url);
+        try (Connection conn = ds.getConnection()) {
+            trou.consume(conn);
+        }
+        if (ds instanceof AutoCloseable fermable) {
+            fermable.close();
+        }
+    }
+
+    // 🚪 Point d'entrée
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PoolAcquireBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,185 @@
+// 📦 Déclaration du package des benchmarks JMH
+package benchmark;
+
+// 📦 Importation des classes Utilisateur (modifiable et immuable), des façons de convertir une ligne et du cache
+import model.Utilisateur;
+import model.UtilisateurImmuable;
+import repository.RowMapper;
+import repository.UserRepository;
+import repository.UtilisateurRowMapper;
+import repository.cache.UserCache;
+
+// 📦 Importation des annotations et du lanceur JMH
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// 📦 Importation des classes JDBC et utilitaires
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// ⏱️ Grand parcours de table (type findAll) : lecture des colonnes par nom ou par position.
+//  - parNom : UserRepository.mapResultSetToUtilisateur (rs.getString("nom") à chaque ligne) ;
+//  - parPosition : UtilisateurRowMapper (positions lues une fois dans les métadonnées) ;
+//  - findAll : le chemin complet du repository, qui utilise UtilisateurRowMapper ;
+//  - parPositionImmuable, findAllImmuables : mêmes lectures en UtilisateurImmuable ;
+//  - miseEnCache, miseEnCacheImmuable : parcours dont chaque ligne est rangée dans un UserCache.
+// Lire "gc.alloc.rate.norm" (octets par opération, à diviser par 'lignes') : construire un Utilisateur
+// en une fois ou un UtilisateurImmuable alloue la même chose (un objet de 24 octets par ligne) ; ce qui
+// disparaît avec l'immuable, ce sont les copies défensives de ceux qui gardent ou partagent les lignes
+// (la copie de UserCache.mettre, environ 24 octets par ligne sur miseEnCache, puis une copie par hit).
+//
+// Lancement : java -cp <classpath> benchmark.RowMapperBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RowMapperBenchmark {
+
+    // 🧾 Même requête pour les deux variantes : seule la conversion des lignes change
+    private static final String SQL = "SELECT " + UtilisateurRowMapper.COLONNES + " FROM utilisateurs";
+
+    // 📏 Nombre de lignes parcourues à chaque opération
+    @Param({"100000"})
+    public int lignes;
+
+    private String url;
+    private DataSource dataSource;
+    private UserRepository repository;
+
+    @Setup(Level.Trial)
+    public void preparer() throws SQLException {
+        url = BaseEmbarquee.url("bench_rowmapper");
+        BaseEmbarquee.creer(url, lignes);
+        dataSource = BaseEmbarquee.source(BaseEmbarquee.TypeSource.HIKARI, url);
+        repository = new UserRepository(dataSource);
+    }
+
+    @TearDown(Level.Trial)
+    public void fermer() throws Exception {
+        BaseEmbarquee.detruire(dataSource, url);
+    }
+
+    // 🏷️ Conversion par nom de colonne
+    @Benchmark
+    public List<Utilisateur> parNom() throws SQLException {
+        List<Utilisateur> utilisateurs = new ArrayList<>(lignes);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                utilisateurs.add(UserRepository.mapResultSetToUtilisateur(rs));
+            }
+        }
+        return utilisateurs;
+    }
+
+    // 🔢 Conversion par position de colonne
+    @Benchmark
+    public List<Utilisateur> parPosition() throws SQLException {
+        List<Utilisateur> utilisateurs = new ArrayList<>(lignes);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            UtilisateurRowMapper mapper = UtilisateurRowMapper.pour(rs);
+            while (rs.next()) {
+                utilisateurs.add(mapper.mapRow(rs));
+            }
+        }
+        return utilisateurs;
+    }
+
+    // 📋 Chemin complet du repository
+    @Benchmark
+    public List<Utilisateur> findAll() {
+        return repository.findAll();
+    }
+
+    // 🧊 Conversion par position, en utilisateurs immuables
+    @Benchmark
+    public List<UtilisateurImmuable> parPositionImmuable() throws SQLException {
+        List<UtilisateurImmuable> utilisateurs = new ArrayList<>(lignes);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            RowMapper<UtilisateurImmuable> mapper = UtilisateurRowMapper.pour(rs).immuable();
+            while (rs.next()) {
+                utilisateurs.add(mapper.mapRow(rs));
+            }
+        }
+        return utilisateurs;
+    }
+
+    // 🧊 Chemin complet du repository, en utilisateurs immuables
+    @Benchmark
+    public List<UtilisateurImmuable> findAllImmuables() {
+        return repository.findAllImmuables();
+    }
+
+    // 🧠 Parcours rangé dans un cache : chaque Utilisateur y est copié
+    @Benchmark
+    public UserCache miseEnCache() throws SQLException {
+        UserCache cache = nouveauCache();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            UtilisateurRowMapper mapper = UtilisateurRowMapper.pour(rs);
+            while (rs.next()) {
+                cache.mettre(mapper.mapRow(rs));
+            }
+        }
+        return cache;
+    }
+
+    // 🧠 Parcours rangé dans un cache : chaque UtilisateurImmuable y est rangé tel quel
+    @Benchmark
+    public UserCache miseEnCacheImmuable() throws SQLException {
+        UserCache cache = nouveauCache();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            RowMapper<UtilisateurImmuable> mapper = UtilisateurRowMapper.pour(rs).immuable();
+            while (rs.next()) {
+                cache.mettre(mapper.mapRow(rs));
+            }
+        }
+        return cache;
+    }
+
+    // 🧠 Cache assez grand pour toute la table
+    private UserCache nouveauCache() {
+        return new UserCache(lignes, 5, 5, TimeUnit.MINUTES);
+    }
+
+    // 🚪 Point d'entrée : lance les benchmarks avec le profileur d'allocation
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RowMapperBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,109 @@
+// 📦 Déclaration du package des benchmarks JMH
+package benchmark;
+
+// 📦 Importation des repositories et de la classe Utilisateur
+import model.Utilisateur;
+import repository.CoalescingUserRepository;
+import repository.UserRepository;
+
+// 📦 Importation des annotations et du lanceur JMH
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// 📦 Importation des classes JDBC et utilitaires
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// ⏱️ findById sous forte concurrence (32 threads, pool HikariCP de 10 connexions, base par TCP) :
+//  - direct : UserRepository, une requête et une connexion par appel ;
+//  - singleFlight : CoalescingUserRepository, appels identiques partagés et ID distincts regroupés.
+// Deux profils de clés :
+//  - CHAUDE : 90 % des appels sur 10 ID (utilisateurs populaires sortis du cache) ;
+//  - UNIFORME : ID au hasard dans toute la table (seul le regroupement en lots joue).
+// À la fin, le taux de regroupement est affiché (appels servis sans requête propre).
+//
+// Lancement : java -cp <classpath> benchmark.SingleFlightBenchmark
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class SingleFlightBenchmark {
+
+    // 📏 Nombre de lignes dans la table
+    @Param({"100000"})
+    public int lignes;
+
+    // 🔥 Répartition des ID demandés
+    @Param({"CHAUDE", "UNIFORME"})
+    public String cles;
+
+    private String url;
+    private DataSource dataSource;
+    private UserRepository direct;
+    private CoalescingUserRepository singleFlight;
+
+    @Setup(Level.Trial)
+    public void preparer() throws SQLException {
+        url = BaseEmbarquee.urlTcp("bench_single_flight");
+        BaseEmbarquee.creer(url, lignes);
+        dataSource = BaseEmbarquee.source(BaseEmbarquee.TypeSource.HIKARI, url);
+        direct = new UserRepository(dataSource);
+        singleFlight = new CoalescingUserRepository(dataSource);
+    }
+
+    @TearDown(Level.Trial)
+    public void fermer() throws Exception {
+        System.out.printf("%n🪢 %d appels, %d regroupés, %d requêtes (%.1f ID par requête)%n",
+                singleFlight.getAppels(), singleFlight.getRegroupes(), singleFlight.getRequetes(),
+                singleFlight.getTailleMoyenneLot());
+        singleFlight.close();
+        BaseEmbarquee.detruire(dataSource, url);
+    }
+
+    @Benchmark
+    public Utilisateur direct() {
+        return direct.findById(idAuHasard());
+    }
+
+    @Benchmark
+    public Utilisateur singleFlight() {
+        return singleFlight.findById(idAuHasard());
+    }
+
+    private int idAuHasard() {
+        ThreadLocalRandom hasard = ThreadLocalRandom.current();
+        if ("CHAUDE".equals(cles) && hasard.nextInt(10) < 9) {
+            return 1 + hasard.nextInt(10);
+        }
+        return 1 + hasard.nextInt(lignes);
+    }
+
+    // 🚪 Point d'entrée
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SingleFlightBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,105 @@
+// 📦 Déclaration du package des benchmarks JMH
+package benchmark;
+
+// 📦 Importation du repository, du tracer de métriques et de la classe Utilisateur
+import metrics.MetricsRegistry;
+import metrics.QueryMetricsTracer;
+import model.Utilisateur;
+import repository.UserRepository;
+
+// 📦 Importation des annotations et du lanceur JMH
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// 📦 Importation des classes JDBC et utilitaires
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// ⏱️ Coût de la mesure des requêtes (QueryMetricsTracer) sur findById, le chemin le plus court du repository.
+//  - sansTrace : aucun tracer branché ;
+//  - avecTrace : tracer branché, 4 histogrammes et 3 compteurs mis à jour par appel, seuil lent jamais atteint.
+// Les deux repositories partagent le même pool et la même base embarquée ; l'écart entre les deux
+// scores est le surcoût de la mesure (objectif : quelques pour cent au plus).
+//  - acces=MEMOIRE : base dans le processus, requête de quelques microsecondes (pire cas pour le surcoût) ;
+//  - acces=TCP : même base à travers une socket locale, aller-retour réseau comme avec MySQL.
+//
+// Lancement : java -cp <classpath> benchmark.TracingBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TracingBenchmark {
+
+    // 📏 Nombre de lignes dans la table
+    @Param({"10000"})
+    public int lignes;
+
+    // 🌐 Base atteinte dans le processus ou par le réseau local
+    @Param({"MEMOIRE", "TCP"})
+    public String acces;
+
+    private String url;
+    private DataSource dataSource;
+    private UserRepository sansTrace;
+    private UserRepository avecTrace;
+
+    @Setup(Level.Trial)
+    public void preparer() throws SQLException {
+        url = "TCP".equals(acces) ? BaseEmbarquee.urlTcp("bench_tracing") : BaseEmbarquee.url("bench_tracing");
+        BaseEmbarquee.creer(url, lignes);
+        dataSource = BaseEmbarquee.source(BaseEmbarquee.TypeSource.HIKARI, url);
+        sansTrace = new UserRepository(dataSource);
+        avecTrace = new UserRepository(dataSource);
+        avecTrace.setTracer(new QueryMetricsTracer(new MetricsRegistry(), Long.MAX_VALUE, TimeUnit.NANOSECONDS));
+    }
+
+    @TearDown(Level.Trial)
+    public void fermer() throws Exception {
+        BaseEmbarquee.detruire(dataSource, url);
+    }
+
+    // 🔍 findById sans mesure
+    @Benchmark
+    public Utilisateur sansTrace() {
+        return sansTrace.findById(idAuHasard());
+    }
+
+    // 🔭 findById mesuré
+    @Benchmark
+    public Utilisateur avecTrace() {
+        return avecTrace.findById(idAuHasard());
+    }
+
+    private int idAuHasard() {
+        return 1 + ThreadLocalRandom.current().nextInt(lignes);
+    }
+
+    // 🚪 Point d'entrée : lance les benchmarks avec le profileur d'allocation
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TracingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,111 @@
+// 📦 Déclaration du package des benchmarks JMH
+package benchmark;
+
+// 📦 Importation du repository, de l'unité de travail et de la classe Utilisateur
+import model.Utilisateur;
+import repository.UnitOfWork;
+import repository.UserRepository;
+
+// 📦 Importation des annotations et du lanceur JMH
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// 📦 Importation des classes JDBC et utilitaires
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// ⏱️ Une opération en plusieurs étapes (findById → update → update → findByEmail), sous concurrence
+// (32 threads, pool HikariCP de 10 connexions, base par TCP) :
+//  - appelsSepares : chaque appel emprunte sa connexion (4 emprunts, une transaction par écriture) ;
+//  - uniteDeTravail : les 4 appels dans une UnitOfWork (1 emprunt, 1 commit).
+// Avec l'outbox, chaque écriture est une transaction (écriture + note) : l'unité en fait une seule.
+// ⚠️ La base embarquée n'écrit rien sur disque au commit : sur MySQL (un fsync par commit avec
+// innodb_flush_log_at_trx_commit=1), l'écart dû aux commits évités est plus grand.
+//
+// Lancement : java -cp <classpath> benchmark.UnitOfWorkBenchmark
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class UnitOfWorkBenchmark {
+
+    // 📏 Nombre de lignes dans la table
+    @Param({"100000"})
+    public int lignes;
+
+    // 📰 Écritures notées dans l'outbox (une transaction par écriture hors unité)
+    @Param({"false", "true"})
+    public boolean outbox;
+
+    private String url;
+    private DataSource dataSource;
+    private UserRepository repo;
+
+    @Setup(Level.Trial)
+    public void preparer() throws SQLException {
+        url = BaseEmbarquee.urlTcp("bench_unit_of_work");
+        BaseEmbarquee.creer(url, lignes);
+        dataSource = BaseEmbarquee.source(BaseEmbarquee.TypeSource.HIKARI, url);
+        repo = new UserRepository(dataSource);
+        repo.setOutbox(outbox);
+    }
+
+    @TearDown(Level.Trial)
+    public void fermer() throws Exception {
+        BaseEmbarquee.detruire(dataSource, url);
+    }
+
+    @Benchmark
+    public Utilisateur appelsSepares() {
+        return etapes(idAuHasard());
+    }
+
+    @Benchmark
+    public Utilisateur uniteDeTravail() throws SQLException {
+        int id = idAuHasard();
+        return UnitOfWork.executer(dataSource, () -> etapes(id));
+    }
+
+    // 🔁 L'opération mesurée : lecture, deux écritures, relecture par email
+    private Utilisateur etapes(int id) {
+        Utilisateur u = repo.findById(id);
+        u.setNom(u.getNom() + "*");
+        repo.update(u);
+        u.setNom(u.getNom().substring(0, u.getNom().length() - 1));
+        repo.update(u);
+        return repo.findByEmail(u.getEmail());
+    }
+
+    private int idAuHasard() {
+        return 1 + ThreadLocalRandom.current().nextInt(lignes);
+    }
+
+    // 🚪 Point d'entrée
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(UnitOfWorkBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,164 @@
+// 📦 Déclaration du package des benchmarks JMH
+package benchmark;
+
+// 📦 Importation de la classe Utilisateur et du repository mesuré
+import model.Utilisateur;
+import repository.UserRepository;
+
+// 📦 Importation des annotations et du lanceur JMH
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// 📦 Importation des classes JDBC et utilitaires
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// ⏱️ Benchmarks JMH des chemins critiques de UserRepository, sur les deux DataSources de l'application.
+//
+// Dépendances (module benchmark uniquement) : org.openjdk.jmh:jmh-core, jmh-generator-annprocess, com.h2database:h2.
+// Lancement : java -cp <classpath> benchmark.UserRepositoryBenchmark
+//   → débit (ops/ms), percentiles de latence (mode SampleTime) et allocation par opération (profileur gc).
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserRepositoryBenchmark {
+
+    // 🧭 DataSource mesurée : pool HikariCP ou connexion neuve à chaque appel
+    @Param({"HIKARI", "SIMPLE"})
+    public BaseEmbarquee.TypeSource source;
+
+    // 📏 Nombre de lignes dans la table au début de chaque essai
+    @Param({"10000"})
+    public int lignes;
+
+    // 📏 Nombre d'utilisateurs insérés par appel à saveAll
+    @Param({"100"})
+    public int tailleLot;
+
+    private String url;
+    private DataSource dataSource;
+    private UserRepository repository;
+    private List<Utilisateur> lot;
+    private int[] idsFanOut;
+
+    // 📖 Connexion et ResultSet défilant, gardés ouverts pour mesurer le mapping seul
+    private Connection connexionMapping;
+    private Statement stmtMapping;
+    private ResultSet rsMapping;
+
+    @Setup(Level.Trial)
+    public void preparer() throws SQLException {
+        url = BaseEmbarquee.url("bench_repository_" + source);
+        BaseEmbarquee.creer(url, lignes);
+        dataSource = BaseEmbarquee.source(source, url);
+        repository = new UserRepository(dataSource);
+        lot = BaseEmbarquee.genererUtilisateurs(tailleLot);
+        idsFanOut = ThreadLocalRandom.current().ints(tailleLot, 1, lignes + 1).toArray();
+
+        connexionMapping = dataSource.getConnection();
+        stmtMapping = connexionMapping.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        rsMapping = stmtMapping.executeQuery("SELECT * FROM utilisateurs");
+    }
+
+    // 🧹 Les insertions font grossir la table : on revient à la taille initiale après chaque itération
+    @TearDown(Level.Iteration)
+    public void nettoyer() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("DELETE FROM utilisateurs WHERE id > ?")) {
+            stmt.setInt(1, lignes);
+            stmt.executeUpdate();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void fermer() throws Exception {
+        rsMapping.close();
+        stmtMapping.close();
+        connexionMapping.close();
+        BaseEmbarquee.detruire(dataSource, url);
+    }
+
+    // 🔍 Lecture d'un utilisateur au hasard par sa clé primaire
+    @Benchmark
+    public Utilisateur findById() {
+        return repository.findById(ThreadLocalRandom.current().nextInt(1, lignes + 1));
+    }
+
+    // 🔍 Lecture de 'tailleLot' utilisateurs par autant d'appels à findById
+    @Benchmark
+    public void findByIdEnBoucle(Blackhole bh) {
+        for (int id : idsFanOut) {
+            bh.consume(repository.findById(id));
+        }
+    }
+
+    // 🔍🔍 Lecture des mêmes 'tailleLot' utilisateurs en un seul appel à findByIds
+    @Benchmark
+    public List<Utilisateur> findByIds() {
+        return repository.findByIds(idsFanOut);
+    }
+
+    // 📋 Lecture de toute la table dans une liste
+    @Benchmark
+    public List<Utilisateur> findAll() {
+        return repository.findAll();
+    }
+
+    // ➕ Insertion d'un utilisateur
+    @Benchmark
+    public boolean save() {
+        return repository.save(new Utilisateur(0, "Bench", "bench@exemple.fr"));
+    }
+
+    // 📦 Insertion d'un lot d'utilisateurs en une transaction
+    @Benchmark
+    public boolean saveAll() {
+        return repository.saveAll(lot);
+    }
+
+    // 🧩 Conversion d'une ligne déjà lue en Utilisateur (sans aller-retour réseau)
+    @Benchmark
+    public void mapResultSetToUtilisateur(Blackhole bh) throws SQLException {
+        if (!rsMapping.next()) {
+            rsMapping.beforeFirst();
+            rsMapping.next();
+        }
+        bh.consume(UserRepository.mapResultSetToUtilisateur(rsMapping));
+    }
+
+    // 🚪 Point d'entrée : lance tous les benchmarks de cette classe avec le profileur d'allocation
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(UserRepositoryBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
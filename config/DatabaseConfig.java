@@ -0,0 +1,292 @@
+// Déclaration du package dans lequel se trouve cette classe.
+package config;
+
+// Importation des classes d'entrée/sortie pour lire un fichier de propriétés.
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Importation des classes utilitaires Java.
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+// Configuration de la base et du pool, lue hors du code.
+//
+// Chaque réglage est cherché, dans cet ordre :
+//  1. propriété système           : -Ddb.pool.max=20
+//  2. variable d'environnement    : DB_POOL_MAX=20 (majuscules, '.' remplacé par '_')
+//  3. fichier de propriétés       : celui désigné par db.config / DB_CONFIG, sinon "database.properties"
+//                                   à la racine du classpath s'il existe
+//  4. valeur par défaut (celles qui étaient écrites en dur dans HikariDataSourceExample).
+//
+// Réglages reconnus :
+//  db.url, db.user, db.password, db.pool.name,
+//  db.pool.max, db.pool.minIdle, db.pool.idleTimeoutMs, db.pool.connectionTimeoutMs,
+//  db.concurrence (nombre de requêtes simultanées attendues), db.warmup (true/false),
+//  db.migrate (true : applique les migrations du schéma au démarrage, voir SchemaMigrations),
+//  db.profile (profil du driver MySQL : STANDARD ou PERFORMANCE, voir DriverProfile),
+//  db.replicas (URLs des réplicas de lecture, séparées par des virgules ; mêmes identifiants et
+//  réglages de pool que la primaire), db.replicas.selection (TOUR_DE_ROLE ou MOINS_CHARGE),
+//  db.replicas.fenetreMs (lecture de ses propres écritures, voir RoutingDataSource),
+//  db.shards (URLs des shards de la table utilisateurs, séparées par des virgules, dans l'ordre
+//  des shards ; voir ShardedUserRepository).
+//
+// Taille du pool : si db.pool.max n'est pas fixé, elle est calculée à partir du nombre de cœurs
+// (voir tailleRecommandee). Si db.pool.minIdle n'est pas fixé, il vaut MIN_IDLE_PAR_DEFAUT (borné par
+// max) : les mêmes réglages servent au pool de la primaire et à celui de chaque réplica et de chaque
+// shard, et un pool de taille fixe y garderait max connexions ouvertes par base, même sans trafic.
+// Pour un pool de taille fixe (aucune connexion ouverte pendant le trafic), fixer db.pool.minIdle = max.
+public final class DatabaseConfig {
+
+    // Valeurs par défaut de l'application.
+    public static final String URL_PAR_DEFAUT = "jdbc:mysql://localhost:3306/JDBC?serverTimezone=Europe/Paris&useSSL=false";
+    public static final String UTILISATEUR_PAR_DEFAUT = "JDBC";
+    public static final String MOT_DE_PASSE_PAR_DEFAUT = "copilot";
+    public static final String NOM_POOL_PAR_DEFAUT = "MonPoolHikari";
+    public static final long IDLE_TIMEOUT_PAR_DEFAUT = 60000; // 60 secondes
+    public static final long CONNECTION_TIMEOUT_PAR_DEFAUT = 30000; // 30 secondes
+    public static final long FENETRE_LECTURE_ECRITURE_PAR_DEFAUT = 1000; // 1 seconde
+    public static final int MIN_IDLE_PAR_DEFAUT = 2; // connexions gardées ouvertes par pool
+
+    // Nom du fichier de propriétés cherché sur le classpath.
+    public static final String FICHIER_PAR_DEFAUT = "database.properties";
+
+    private final String url;
+    private final String utilisateur;
+    private final String motDePasse;
+    private final String nomPool;
+    private final int tailleMax;
+    private final int minIdle;
+    private final long idleTimeoutMs;
+    private final long connectionTimeoutMs;
+    private final boolean prechauffage;
+    private final boolean migration;
+    private final DriverProfile profil;
+    private final List<String> replicas;
+    private final RoutingDataSource.Selection selectionReplica;
+    private final long fenetreLectureEcritureMs;
+    private final List<String> shards;
+
+    private DatabaseConfig(Sources sources, int coeurs) {
+        this.url = sources.texte("db.url", URL_PAR_DEFAUT);
+        this.utilisateur = sources.texte("db.user", UTILISATEUR_PAR_DEFAUT);
+        this.motDePasse = sources.texte("db.password", MOT_DE_PASSE_PAR_DEFAUT);
+        this.nomPool = sources.texte("db.pool.name", NOM_POOL_PAR_DEFAUT);
+        int concurrence = sources.entier("db.concurrence", 0);
+        this.tailleMax = sources.entier("db.pool.max", tailleRecommandee(coeurs, concurrence));
+        this.minIdle = sources.entier("db.pool.minIdle", Math.min(MIN_IDLE_PAR_DEFAUT, tailleMax));
+        this.idleTimeoutMs = sources.entier("db.pool.idleTimeoutMs", IDLE_TIMEOUT_PAR_DEFAUT);
+        this.connectionTimeoutMs = sources.entier("db.pool.connectionTimeoutMs", CONNECTION_TIMEOUT_PAR_DEFAUT);
+        this.prechauffage = Boolean.parseBoolean(sources.texte("db.warmup", "true"));
+        this.migration = Boolean.parseBoolean(sources.texte("db.migrate", "false"));
+        this.profil = sources.profil("db.profile", DriverProfile.PERFORMANCE);
+        this.replicas = sources.liste("db.replicas");
+        this.selectionReplica = sources.selection("db.replicas.selection", RoutingDataSource.Selection.TOUR_DE_ROLE);
+        this.fenetreLectureEcritureMs = sources.entier("db.replicas.fenetreMs", FENETRE_LECTURE_ECRITURE_PAR_DEFAUT);
+        this.shards = sources.liste("db.shards");
+
+        if (tailleMax <= 0) {
+            throw new IllegalArgumentException("db.pool.max doit être positif : " + tailleMax);
+        }
+        if (minIdle < 0 || minIdle > tailleMax) {
+            throw new IllegalArgumentException("db.pool.minIdle doit être entre 0 et db.pool.max : " + minIdle);
+        }
+        if (fenetreLectureEcritureMs < 0) {
+            throw new IllegalArgumentException("db.replicas.fenetreMs doit être positif ou nul : " + fenetreLectureEcritureMs);
+        }
+    }
+
+    // Charge la configuration depuis les propriétés système, l'environnement et le fichier de propriétés.
+    public static DatabaseConfig charger() {
+        return charger(System.getProperties(), System.getenv());
+    }
+
+    // Même chose avec des sources choisies par l'appelant (tests, outils).
+    public static DatabaseConfig charger(Properties systeme, Map<String, String> environnement) {
+        Sources sources = new Sources(systeme, environnement, null);
+        Properties fichier = lireFichier(sources.texte("db.config", null));
+        return new DatabaseConfig(new Sources(systeme, environnement, fichier), Runtime.getRuntime().availableProcessors());
+    }
+
+    // Taille de pool recommandée : (cœurs × 2) + 1, la formule de HikariCP pour un disque SSD
+    // (les threads qui attendent une réponse laissent le processeur aux autres).
+    // Inutile d'avoir plus de connexions que de requêtes simultanées attendues : la taille est
+    // plafonnée à db.concurrence si ce réglage est donné (valeur > 0).
+    public static int tailleRecommandee(int coeurs, int concurrenceAttendue) {
+        int selonCpu = Math.max(1, coeurs) * 2 + 1;
+        return concurrenceAttendue > 0 ? Math.min(selonCpu, concurrenceAttendue) : selonCpu;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getUtilisateur() {
+        return utilisateur;
+    }
+
+    public String getMotDePasse() {
+        return motDePasse;
+    }
+
+    public String getNomPool() {
+        return nomPool;
+    }
+
+    public int getTailleMax() {
+        return tailleMax;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public long getIdleTimeoutMs() {
+        return idleTimeoutMs;
+    }
+
+    public long getConnectionTimeoutMs() {
+        return connectionTimeoutMs;
+    }
+
+    // true si le pool doit être préchauffé au démarrage (db.warmup, true par défaut).
+    public boolean isPrechauffage() {
+        return prechauffage;
+    }
+
+    // true si les migrations du schéma doivent être appliquées au démarrage (db.migrate, false par défaut :
+    // en production, elles sont plutôt lancées une fois, au déploiement).
+    public boolean isMigration() {
+        return migration;
+    }
+
+    // Profil du driver MySQL appliqué aux DataSources (db.profile, PERFORMANCE par défaut).
+    public DriverProfile getProfil() {
+        return profil;
+    }
+
+    // URLs des réplicas de lecture (vide : pas de séparation lecture/écriture).
+    public List<String> getReplicas() {
+        return replicas;
+    }
+
+    public RoutingDataSource.Selection getSelectionReplica() {
+        return selectionReplica;
+    }
+
+    // Durée pendant laquelle un thread relit sur la primaire après avoir écrit.
+    public long getFenetreLectureEcritureMs() {
+        return fenetreLectureEcritureMs;
+    }
+
+    // URLs des shards, dans l'ordre (vide : pas de répartition).
+    public List<String> getShards() {
+        return shards;
+    }
+
+    // Le mot de passe n'est jamais affiché.
+    @Override
+    public String toString() {
+        return "DatabaseConfig{url=" + url + ", utilisateur=" + utilisateur + ", pool=" + nomPool
+                + ", max=" + tailleMax + ", minIdle=" + minIdle + ", idleTimeoutMs=" + idleTimeoutMs
+                + ", connectionTimeoutMs=" + connectionTimeoutMs + ", prechauffage=" + prechauffage
+                + ", migration=" + migration + ", profil=" + profil
+                + (replicas.isEmpty() ? "" : ", replicas=" + replicas + ", selection=" + selectionReplica
+                        + ", fenetreMs=" + fenetreLectureEcritureMs)
+                + (shards.isEmpty() ? "" : ", shards=" + shards) + "}";
+    }
+
+    // Lit le fichier donné, sinon database.properties sur le classpath ; vide si aucun n'existe.
+    private static Properties lireFichier(String chemin) {
+        Properties proprietes = new Properties();
+        try {
+            if (chemin != null) {
+                try (Reader lecteur = Files.newBufferedReader(Path.of(chemin), StandardCharsets.UTF_8)) {
+                    proprietes.load(lecteur);
+                }
+            } else {
+                try (InputStream in = DatabaseConfig.class.getClassLoader().getResourceAsStream(FICHIER_PAR_DEFAUT)) {
+                    if (in != null) {
+                        proprietes.load(in);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Fichier de configuration illisible : " + e.getMessage(), e);
+        }
+        return proprietes;
+    }
+
+    // Recherche d'un réglage dans les trois sources, par ordre de priorité.
+    private record Sources(Properties systeme, Map<String, String> environnement, Properties fichier) {
+
+        String texte(String cle, String parDefaut) {
+            String valeur = systeme.getProperty(cle);
+            if (valeur == null) {
+                valeur = environnement.get(cle.toUpperCase().replace('.', '_'));
+            }
+            if (valeur == null && fichier != null) {
+                valeur = fichier.getProperty(cle);
+            }
+            // Une valeur vide est gardée (mot de passe vide), seulement débarrassée de ses espaces.
+            return valeur == null ? parDefaut : valeur.trim();
+        }
+
+        int entier(String cle, int parDefaut) {
+            long valeur = entier(cle, (long) parDefaut);
+            if (valeur < Integer.MIN_VALUE || valeur > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(cle + " est hors limites : " + valeur);
+            }
+            return (int) valeur;
+        }
+
+        long entier(String cle, long parDefaut) {
+            String valeur = texte(cle, null);
+            if (valeur == null || valeur.isEmpty()) {
+                return parDefaut;
+            }
+            try {
+                return Long.parseLong(valeur);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(cle + " n'est pas un nombre : " + valeur, e);
+            }
+        }
+
+        List<String> liste(String cle) {
+            String valeur = texte(cle, "");
+            return Arrays.stream(valeur.split(","))
+                    .map(String::trim)
+                    .filter(element -> !element.isEmpty())
+                    .toList();
+        }
+
+        RoutingDataSource.Selection selection(String cle, RoutingDataSource.Selection parDefaut) {
+            String valeur = texte(cle, null);
+            if (valeur == null || valeur.isEmpty()) {
+                return parDefaut;
+            }
+            try {
+                return RoutingDataSource.Selection.valueOf(valeur.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(cle + " doit valoir TOUR_DE_ROLE ou MOINS_CHARGE : " + valeur, e);
+            }
+        }
+
+        DriverProfile profil(String cle, DriverProfile parDefaut) {
+            String valeur = texte(cle, null);
+            if (valeur == null || valeur.isEmpty()) {
+                return parDefaut;
+            }
+            try {
+                return DriverProfile.valueOf(valeur.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(cle + " doit valoir STANDARD ou PERFORMANCE : " + valeur, e);
+            }
+        }
+    }
+}
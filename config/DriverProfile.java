@@ -0,0 +1,98 @@
+// Déclaration du package dans lequel se trouve cette énumération.
+package config;
+
+// Importation de la configuration HikariCP et de la DataSource du driver MySQL.
+import com.mysql.cj.jdbc.MysqlDataSource;
+import com.zaxxer.hikari.HikariConfig;
+
+// Importation des classes utilitaires Java.
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Profil de réglages du driver MySQL (Connector/J), appliqué aux deux DataSources de l'application.
+//
+// STANDARD : réglages par défaut du driver. Chaque prepareStatement(sql) est analysé côté client
+// à chaque appel, et rien n'est gardé d'un appel à l'autre.
+//
+// PERFORMANCE : réglages recommandés par HikariCP pour MySQL :
+//  - cachePrepStmts / prepStmtCacheSize / prepStmtCacheSqlLimit : cache, par connexion, des requêtes
+//    préparées ; un prepareStatement(sql) déjà vu sur la connexion ne coûte plus rien ;
+//  - useServerPrepStmts : la requête est préparée une fois par le serveur, puis seuls les paramètres
+//    circulent (protocole binaire) ;
+//  - rewriteBatchedStatements : un executeBatch() d'INSERT devient un seul INSERT multi-lignes ;
+//  - cacheResultSetMetadata : les métadonnées des résultats (noms et types des colonnes) sont gardées ;
+//  - cacheServerConfiguration, useLocalSessionState, elideSetAutoCommits : évitent les allers-retours
+//    de lecture de la configuration du serveur et de l'état de session (autocommit, isolation...) ;
+//  - maintainTimeStats=false : pas d'appel d'horloge du driver à chaque requête.
+//
+// Ces propriétés n'ont de sens que pour MySQL : sur une autre URL (H2 des benchmarks), le profil
+// ne change rien.
+public enum DriverProfile {
+
+    STANDARD(Map.of()),
+
+    PERFORMANCE(proprietesPerformance());
+
+    private final Map<String, String> proprietes;
+
+    DriverProfile(Map<String, String> proprietes) {
+        this.proprietes = proprietes;
+    }
+
+    // Propriétés du driver de ce profil (nom → valeur).
+    public Map<String, String> getProprietes() {
+        return proprietes;
+    }
+
+    // Ajoute les propriétés du profil à une configuration HikariCP (propriétés de la DataSource du driver).
+    public void appliquer(HikariConfig config) {
+        if (estMysql(config.getJdbcUrl())) {
+            proprietes.forEach(config::addDataSourceProperty);
+        }
+    }
+
+    // Ajoute les propriétés du profil à une URL JDBC MySQL, sauf celles que l'URL fixe déjà.
+    public String appliquer(String jdbcUrl) {
+        if (!estMysql(jdbcUrl)) {
+            return jdbcUrl;
+        }
+        StringBuilder url = new StringBuilder(jdbcUrl);
+        char separateur = jdbcUrl.indexOf('?') < 0 ? '?' : '&';
+        for (Map.Entry<String, String> p : proprietes.entrySet()) {
+            if (!jdbcUrl.contains(p.getKey() + "=")) {
+                url.append(separateur).append(p.getKey()).append('=').append(p.getValue());
+                separateur = '&';
+            }
+        }
+        return url.toString();
+    }
+
+    // DataSource MySQL non poolée (une connexion physique par getConnection()) avec ce profil.
+    public MysqlDataSource creerMysqlDataSource(String jdbcUrl, String utilisateur, String motDePasse) {
+        MysqlDataSource dataSource = new MysqlDataSource();
+        dataSource.setURL(appliquer(jdbcUrl));
+        dataSource.setUser(utilisateur);
+        dataSource.setPassword(motDePasse);
+        return dataSource;
+    }
+
+    private static boolean estMysql(String jdbcUrl) {
+        return jdbcUrl != null && jdbcUrl.startsWith("jdbc:mysql:");
+    }
+
+    private static Map<String, String> proprietesPerformance() {
+        Map<String, String> p = new LinkedHashMap<>();
+        p.put("cachePrepStmts", "true");
+        p.put("prepStmtCacheSize", "250");
+        p.put("prepStmtCacheSqlLimit", "2048");
+        p.put("useServerPrepStmts", "true");
+        p.put("rewriteBatchedStatements", "true");
+        p.put("cacheResultSetMetadata", "true");
+        p.put("cacheServerConfiguration", "true");
+        p.put("useLocalSessionState", "true");
+        p.put("elideSetAutoCommits", "true");
+        p.put("maintainTimeStats", "false");
+        return Collections.unmodifiableMap(p);
+    }
+}
@@ -10,6 +10,10 @@ import com.zaxxer.hikari.HikariConfig;
 // Elle représente le pool de connexions lui-même.
 import com.zaxxer.hikari.HikariDataSource;
 
+// Importation des métriques : registre en mémoire et branchement sur HikariCP.
+import metrics.HikariMetricsTrackerFactory;
+import metrics.MetricsRegistry;
+
 // Importation de l'interface DataSource de JDBC.
 // Elle définit un moyen standard d'obtenir des connexions à une base de données.
 import javax.sql.DataSource;
@@ -22,36 +26,135 @@ import java.sql.Connection;
 // Elle est utilisée pour gérer les erreurs liées à la base de données.
 import java.sql.SQLException;
 
+// Importation des classes utilitaires (requêtes à préparer pendant le préchauffage, pools des réplicas).
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 // Déclaration de la classe publique nommée HikariDataSourceExample.
 // Elle contient toute la logique pour configurer et tester le pool de connexions.
 public class HikariDataSourceExample {
 
-    // Déclaration d'une variable statique et finale nommée dataSource.
-    // "static" signifie qu'elle appartient à la classe et non à une instance.
-    // "final" signifie qu'on ne pourra pas la modifier après l'initialisation.
-    // Elle est de type DataSource, donc elle permet d'obtenir des connexions.
-    private static final DataSource dataSource;
+    // Classe interne "holder" : la JVM ne la charge qu'au premier appel de getDataSource().
+    // Ainsi, utiliser creerDataSource() (par exemple vers une base embarquée) n'ouvre pas
+    // le pool MySQL de l'application.
+    private static final class Holder {
+
+        // Configuration lue hors du code : propriétés système (-Ddb.url=...), variables
+        // d'environnement (DB_URL=...) ou fichier database.properties (voir DatabaseConfig).
+        // Sans aucun réglage, on retrouve la base locale "JDBC" (utilisateur "JDBC").
+        private static final DatabaseConfig configuration = DatabaseConfig.charger();
+
+        // Déclaration d'une variable statique et finale nommée dataSource.
+        // "static" signifie qu'elle appartient à la classe et non à une instance.
+        // "final" signifie qu'on ne pourra pas la modifier après l'initialisation.
+        // Elle est de type DataSource, donc elle permet d'obtenir des connexions.
+        // Le pool de l'application publie ses métriques dans le registre global.
+        // Si des réplicas sont configurés (db.replicas), les lectures leur sont envoyées.
+        private static final DataSource dataSource = configuration.getReplicas().isEmpty()
+                ? creerDataSource(configuration, MetricsRegistry.global())
+                : creerRoutage(configuration, MetricsRegistry.global());
+    }
+
+    // Méthode publique et statique qui construit un pool HikariCP avec les réglages de l'application,
+    // vers n'importe quelle URL JDBC (utilisée aussi par les benchmarks sur une base embarquée).
+    public static HikariDataSource creerDataSource(String jdbcUrl, String utilisateur, String motDePasse) {
+        return new HikariDataSource(creerConfig(jdbcUrl, utilisateur, motDePasse));
+    }
+
+    // Même pool, instrumenté : jauges (connexions actives, inactives, threads en attente),
+    // histogrammes (obtention, utilisation) et compteur de timeouts publiés dans le registre donné.
+    // Le pool est aussi exposé en JMX (MBeans "com.zaxxer.hikari:type=Pool (MonPoolHikari)"),
+    // ainsi que le registre ("metrics:type=MetricsRegistry").
+    public static HikariDataSource creerDataSource(String jdbcUrl, String utilisateur, String motDePasse,
+                                                   MetricsRegistry registre) {
+        return instrumenter(creerConfig(jdbcUrl, utilisateur, motDePasse), registre);
+    }
+
+    // Pool instrumenté construit à partir d'une configuration externe (URL, identifiants, taille, timeouts).
+    public static HikariDataSource creerDataSource(DatabaseConfig configuration, MetricsRegistry registre) {
+        return creerPool(configuration, configuration.getUrl(), configuration.getNomPool(), registre);
+    }
+
+    // Séparation lecture/écriture : un pool vers la primaire (db.url) et un pool par réplica (db.replicas),
+    // nommés "<pool>-replica-<n>", tous avec les réglages de la configuration (voir RoutingDataSource).
+    public static RoutingDataSource creerRoutage(DatabaseConfig configuration, MetricsRegistry registre) {
+        HikariDataSource primaire = creerDataSource(configuration, registre);
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < configuration.getReplicas().size(); i++) {
+            replicas.add(creerPool(configuration, configuration.getReplicas().get(i),
+                    configuration.getNomPool() + "-replica-" + i, registre));
+        }
+        return new RoutingDataSource(primaire, replicas, configuration.getSelectionReplica(),
+                configuration.getFenetreLectureEcritureMs(), TimeUnit.MILLISECONDS);
+    }
+
+    // Un pool par shard (db.shards), nommés "<pool>-shard-<n>", avec les réglages de la configuration.
+    // Sur MySQL, chaque connexion du shard i règle son AUTO_INCREMENT pour n'attribuer que des id
+    // qui reviennent à ce shard : pas i + 1, puis i + 1 + N, i + 1 + 2N... (voir ShardedUserRepository).
+    public static List<HikariDataSource> creerShards(DatabaseConfig configuration, MetricsRegistry registre) {
+        List<String> urls = configuration.getShards();
+        List<HikariDataSource> shards = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            HikariConfig config = configurerPool(configuration, urls.get(i), configuration.getNomPool() + "-shard-" + i);
+            if (urls.get(i).startsWith("jdbc:mysql:")) {
+                config.setConnectionInitSql("SET SESSION auto_increment_increment = " + urls.size()
+                        + ", auto_increment_offset = " + (i + 1));
+            }
+            shards.add(instrumenter(config, registre));
+        }
+        return shards;
+    }
+
+    // Pool instrumenté vers une URL donnée, avec les réglages de la configuration.
+    private static HikariDataSource creerPool(DatabaseConfig configuration, String url, String nomPool,
+                                              MetricsRegistry registre) {
+        return instrumenter(configurerPool(configuration, url, nomPool), registre);
+    }
+
+    // Configuration d'un pool vers une URL donnée, avec les réglages de la configuration.
+    private static HikariConfig configurerPool(DatabaseConfig configuration, String url, String nomPool) {
+        HikariConfig config = creerConfig(url, configuration.getUtilisateur(), configuration.getMotDePasse());
 
-    // Bloc statique : ce bloc est exécuté une seule fois quand la classe est chargée.
-    // Il sert ici à configurer et initialiser le pool de connexions HikariCP.
-    static {
+        // Les réglages externes remplacent les valeurs par défaut de creerConfig.
+        config.setMaximumPoolSize(configuration.getTailleMax());
+        config.setMinimumIdle(configuration.getMinIdle());
+        config.setIdleTimeout(configuration.getIdleTimeoutMs());
+        config.setConnectionTimeout(configuration.getConnectionTimeoutMs());
+        config.setPoolName(nomPool);
+
+        // Profil du driver MySQL (cache des requêtes préparées, préparation côté serveur...).
+        configuration.getProfil().appliquer(config);
+
+        return config;
+    }
+
+    // Branche les métriques et les MBeans sur une configuration, puis démarre le pool.
+    private static HikariDataSource instrumenter(HikariConfig config, MetricsRegistry registre) {
+        // Branchement des métriques du pool sur le registre.
+        config.setMetricsTrackerFactory(new HikariMetricsTrackerFactory(registre));
+
+        // Publication des MBeans HikariCP (HikariPoolMXBean, HikariConfigMXBean).
+        config.setRegisterMbeans(true);
+
+        registre.enregistrerJmx(config.getPoolName());
+        return new HikariDataSource(config);
+    }
+
+    // Méthode publique et statique qui prépare la configuration HikariCP avec les réglages de l'application.
+    public static HikariConfig creerConfig(String jdbcUrl, String utilisateur, String motDePasse) {
         // Création d'une instance de HikariConfig.
         // C'est l'objet qui va contenir tous les paramètres du pool.
         HikariConfig config = new HikariConfig();
 
-        // Définition de l'URL JDBC pour se connecter à la base MySQL.
-        // "localhost" = base sur ton ordinateur.
-        // "3306" = port par défaut de MySQL.
-        // "JDBC" = nom de ta base de données.
-        // "serverTimezone=Europe/Paris" = fuseau horaire.
-        // "useSSL=false" = désactivation du chiffrement SSL.
-        config.setJdbcUrl("jdbc:mysql://localhost:3306/JDBC?serverTimezone=Europe/Paris&useSSL=false");
+        // Définition de l'URL JDBC pour se connecter à la base.
+        config.setJdbcUrl(jdbcUrl);
 
         // Définition du nom d'utilisateur pour se connecter à la base.
-        config.setUsername("JDBC");
+        config.setUsername(utilisateur);
 
         // Définition du mot de passe associé à l'utilisateur.
-        config.setPassword("copilot");
+        config.setPassword(motDePasse);
 
         // Définition du nombre maximum de connexions dans le pool.
         // Cela limite le nombre de connexions simultanées à la base.
@@ -72,16 +175,49 @@ public class HikariDataSourceExample {
         // Utile pour identifier le pool dans les logs ou les outils de monitoring.
         config.setPoolName("MonPoolHikari");
 
-        // Création de la DataSource Hikari à partir de la configuration.
-        // Cela initialise le pool de connexions avec tous les paramètres définis.
-        dataSource = new HikariDataSource(config);
+        // On retourne la configuration ; la DataSource Hikari sera créée à partir d'elle.
+        return config;
     }
 
     // Méthode publique et statique pour récupérer la DataSource.
     // Elle permet à d'autres classes d'accéder au pool de connexions.
     public static DataSource getDataSource() {
-        // On retourne simplement la DataSource créée dans le bloc statique.
-        return dataSource;
+        // On retourne la DataSource créée au chargement de la classe Holder.
+        return Holder.dataSource;
+    }
+
+    // Méthode publique et statique pour récupérer la configuration du pool de l'application.
+    public static DatabaseConfig getConfiguration() {
+        return Holder.configuration;
+    }
+
+    // Préchauffage du pool de l'application, à appeler au démarrage, avant d'accepter le trafic :
+    // minimumIdle connexions sont ouvertes et chaque requête donnée y est préparée (voir PoolWarmup).
+    // Les premières requêtes ne paient ainsi ni l'ouverture d'une connexion ni la préparation.
+    // Avec des réplicas, chaque pool est préchauffé directement (pas à travers le routage, qui enverrait
+    // tout sur la connexion primaire déjà ouverte) : la primaire avec toutes les requêtes, chaque réplica
+    // avec les lectures seulement.
+    public static PoolWarmup.Rapport prechauffer(List<String> requetes) throws SQLException {
+        int minIdle = Holder.configuration.getMinIdle();
+        if (!(getDataSource() instanceof RoutingDataSource routage)) {
+            return PoolWarmup.prechauffer(getDataSource(), minIdle, requetes);
+        }
+        long debut = System.nanoTime();
+        PoolWarmup.Rapport primaire = PoolWarmup.prechauffer(routage.getPrimaire(), minIdle, requetes);
+        int connexions = primaire.connexions();
+        int preparees = primaire.requetesPreparees();
+        List<String> lectures = requetes.stream().filter(RoutingDataSource::estLecture).toList();
+        for (DataSource replica : routage.getReplicas()) {
+            PoolWarmup.Rapport rapport = PoolWarmup.prechauffer(replica, minIdle, lectures);
+            connexions += rapport.connexions();
+            preparees += rapport.requetesPreparees();
+        }
+        return new PoolWarmup.Rapport(connexions, preparees, (System.nanoTime() - debut) / 1_000_000);
+    }
+
+    // Méthode publique et statique pour récupérer le registre où le pool publie ses métriques.
+    public static MetricsRegistry getMetriques() {
+        return MetricsRegistry.global();
     }
 
     // Méthode principale : point d'entrée de l'application.
@@ -92,6 +228,9 @@ public class HikariDataSourceExample {
         try (Connection conn = getDataSource().getConnection()) {
             // Si la connexion est réussie, on affiche un message de succès.
             System.out.println("✅ Connexion réussie avec HikariCP !");
+
+            // On affiche les métriques du pool (connexions, temps d'obtention...).
+            getMetriques().afficher();
         } catch (SQLException e) {
             // Si une erreur survient, on affiche le message d'erreur.
             System.out.println("❌ Erreur : " + e.getMessage());
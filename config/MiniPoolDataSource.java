@@ -0,0 +1,438 @@
+// Déclaration du package dans lequel se trouve cette classe.
+package config;
+
+// Importation des classes JDBC.
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+
+// Importation des classes de réflexion (connexion "proxy").
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+// Importation des classes de concurrence.
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+// Petit pool de connexions, sans dépendance, pour les outils qui ne peuvent pas embarquer HikariCP
+// (voir SimpleDataSource). Il se place devant une DataSource qui ouvre une connexion physique
+// à chaque appel (MysqlDataSource, JdbcDataSource de H2...).
+//
+//  - Démarrage quasi gratuit : aucune connexion ni aucun thread à la construction. Les connexions
+//    sont ouvertes à la demande, au plus 'tailleMax' à la fois.
+//  - Sac sans verrou : les connexions libres sont dans une ConcurrentLinkedDeque, utilisée en pile
+//    (la dernière rendue est la première reprise, donc la plus "chaude"). La limite est tenue par
+//    un sémaphore : un permis par connexion empruntée. Sans attente, emprunter coûte deux CAS.
+//  - Validation à l'emprunt : une connexion restée libre plus de VALIDATION_APRES_MS est testée
+//    (isValid, un ping pour MySQL) ; si elle ne répond plus, elle est jetée et remplacée.
+//  - Éviction des connexions inactives : une connexion libre depuis plus de 'inactiviteMaxMs' est
+//    fermée par une tâche de fond (un seul thread démon, partagé, lancé à la première connexion).
+//  - À la restitution : transaction en cours annulée, autocommit, isolation et lecture seule remis
+//    à leur valeur d'origine. Une connexion qui a levé une erreur de connexion (SQLState 08...) est
+//    jetée au lieu d'être rendue.
+//
+// Limites (par rapport à HikariCP) : pas de nombre minimal de connexions libres, pas de durée de vie
+// maximale, pas de détection de fuite ; les Statement laissés ouverts par l'appelant ne sont pas
+// fermés à la restitution ; Statement.getConnection() retourne la connexion réelle.
+public final class MiniPoolDataSource implements DataSource, AutoCloseable {
+
+    // Une connexion restée libre moins longtemps que ça n'est pas revalidée (même réglage que HikariCP).
+    public static final long VALIDATION_APRES_MS = 500;
+
+    // Délai de réponse accordé à isValid.
+    private static final int TIMEOUT_VALIDATION_SECONDES = 5;
+
+    // Thread de fond partagé par tous les pools, créé au premier besoin.
+    private static final class Nettoyeur {
+        static final ScheduledExecutorService EXECUTEUR = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "mini-pool-eviction");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private final DataSource source;
+    private final int tailleMax;
+    private final long inactiviteMaxNanos;
+    private final long attenteMaxNanos;
+    private final long validationApresNanos = TimeUnit.MILLISECONDS.toNanos(VALIDATION_APRES_MS);
+
+    // Connexions libres (en tête : la dernière rendue) et permis d'emprunt.
+    private final ConcurrentLinkedDeque<Entree> libres = new ConcurrentLinkedDeque<>();
+    private final Semaphore permis;
+
+    // Connexions physiques ouvertes (empruntées + libres).
+    private final AtomicInteger ouvertes = new AtomicInteger();
+
+    // Compteurs.
+    private final LongAdder creees = new LongAdder();
+    private final LongAdder invalidees = new LongAdder();
+    private final LongAdder evincees = new LongAdder();
+
+    private volatile ScheduledFuture<?> eviction;
+    private volatile boolean ferme;
+
+    // Pool réglé comme le pool HikariCP de l'application : db.pool.max, db.pool.idleTimeoutMs,
+    // db.pool.connectionTimeoutMs (voir DatabaseConfig).
+    public MiniPoolDataSource(DataSource source, DatabaseConfig configuration) {
+        this(source, configuration.getTailleMax(), configuration.getIdleTimeoutMs(),
+                configuration.getConnectionTimeoutMs());
+    }
+
+    // source : DataSource non poolée ; tailleMax : connexions ouvertes au plus ;
+    // inactiviteMaxMs : durée au-delà de laquelle une connexion libre est fermée (0 : jamais) ;
+    // attenteMaxMs : attente maximale d'une connexion quand les 'tailleMax' sont empruntées.
+    public MiniPoolDataSource(DataSource source, int tailleMax, long inactiviteMaxMs, long attenteMaxMs) {
+        if (tailleMax <= 0) {
+            throw new IllegalArgumentException("tailleMax doit être positive : " + tailleMax);
+        }
+        if (inactiviteMaxMs < 0 || attenteMaxMs < 0) {
+            throw new IllegalArgumentException("les durées doivent être positives ou nulles");
+        }
+        this.source = source;
+        this.tailleMax = tailleMax;
+        this.inactiviteMaxNanos = TimeUnit.MILLISECONDS.toNanos(inactiviteMaxMs);
+        this.attenteMaxNanos = TimeUnit.MILLISECONDS.toNanos(attenteMaxMs);
+        this.permis = new Semaphore(tailleMax);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (ferme) {
+            throw new SQLException("Pool fermé");
+        }
+        if (!permis.tryAcquire()) {
+            try {
+                if (!permis.tryAcquire(attenteMaxNanos, TimeUnit.NANOSECONDS)) {
+                    throw new SQLTransientConnectionException("Aucune connexion libre après "
+                            + TimeUnit.NANOSECONDS.toMillis(attenteMaxNanos) + " ms (" + tailleMax + " au plus)");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Attente d'une connexion interrompue", e);
+            }
+        }
+        try {
+            Entree entree = emprunter();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] {Connection.class}, new Pret(entree));
+        } catch (SQLException | RuntimeException e) {
+            permis.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String utilisateur, String motDePasse) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Les identifiants sont ceux de la DataSource d'origine");
+    }
+
+    // Connexion libre la plus récente (revalidée si elle a attendu), sinon une nouvelle connexion.
+    // Appelée avec un permis : la limite 'tailleMax' est donc respectée.
+    private Entree emprunter() throws SQLException {
+        Entree entree;
+        while ((entree = libres.pollFirst()) != null) {
+            if (System.nanoTime() - entree.rendueLe < validationApresNanos || valide(entree)) {
+                return entree;
+            }
+            invalidees.increment();
+            jeter(entree);
+        }
+        return ouvrir();
+    }
+
+    private boolean valide(Entree entree) {
+        try {
+            return entree.connexion.isValid(TIMEOUT_VALIDATION_SECONDES);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Entree ouvrir() throws SQLException {
+        Connection conn = source.getConnection();
+        ouvertes.incrementAndGet();
+        creees.increment();
+        try {
+            demarrerEviction();
+            return new Entree(conn);
+        } catch (SQLException | RuntimeException e) {
+            jeter(conn);
+            throw e;
+        }
+    }
+
+    // Restitution d'une connexion empruntée (fermeture de sa connexion "proxy").
+    private void rendre(Entree entree, boolean cassee) {
+        try {
+            if (ferme || cassee || !reinitialiser(entree)) {
+                jeter(entree);
+            } else {
+                entree.rendueLe = System.nanoTime();
+                libres.offerFirst(entree);
+                // Pool fermé pendant la restitution : close() a pu vider la pile avant notre ajout.
+                if (ferme && libres.remove(entree)) {
+                    jeter(entree);
+                }
+            }
+        } finally {
+            permis.release();
+        }
+    }
+
+    // Remet la connexion dans l'état où le pool l'a ouverte ; false si elle ne le supporte pas.
+    private static boolean reinitialiser(Entree entree) {
+        Connection conn = entree.connexion;
+        try {
+            if (!entree.autoCommit) {
+                conn.rollback();
+            }
+            if (entree.autoCommit != entree.autoCommitInitial) {
+                conn.setAutoCommit(entree.autoCommitInitial);
+                entree.autoCommit = entree.autoCommitInitial;
+            }
+            if (entree.isolationModifiee) {
+                conn.setTransactionIsolation(entree.isolationInitiale);
+                entree.isolationModifiee = false;
+            }
+            if (entree.lectureSeuleModifiee) {
+                conn.setReadOnly(entree.lectureSeuleInitiale);
+                entree.lectureSeuleModifiee = false;
+            }
+            conn.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void jeter(Entree entree) {
+        jeter(entree.connexion);
+    }
+
+    private void jeter(Connection conn) {
+        ouvertes.decrementAndGet();
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            System.out.println("❌ Erreur dans MiniPoolDataSource (fermeture) : " + e.getMessage());
+        }
+    }
+
+    // Tâche d'éviction planifiée à la première connexion ouverte (jamais si inactiviteMax vaut 0).
+    private void demarrerEviction() {
+        if (inactiviteMaxNanos == 0 || eviction != null) {
+            return;
+        }
+        synchronized (this) {
+            if (eviction == null && !ferme) {
+                long periode = Math.max(inactiviteMaxNanos / 2, TimeUnit.SECONDS.toNanos(1));
+                eviction = Nettoyeur.EXECUTEUR.scheduleWithFixedDelay(this::evincer, periode, periode,
+                        TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    // Ferme les connexions libres depuis plus de 'inactiviteMax'. Une connexion reprise entre-temps
+    // par un emprunt n'est plus dans la pile : remove() échoue et elle est laissée tranquille.
+    private void evincer() {
+        long maintenant = System.nanoTime();
+        for (Entree entree : libres) {
+            if (maintenant - entree.rendueLe > inactiviteMaxNanos && libres.remove(entree)) {
+                evincees.increment();
+                jeter(entree);
+            }
+        }
+    }
+
+    // Connexions actuellement empruntées.
+    public int getActives() {
+        return tailleMax - permis.availablePermits();
+    }
+
+    // Connexions physiques ouvertes (empruntées et libres).
+    public int getOuvertes() {
+        return ouvertes.get();
+    }
+
+    // Threads en attente d'une connexion.
+    public int getEnAttente() {
+        return permis.getQueueLength();
+    }
+
+    public int getTailleMax() {
+        return tailleMax;
+    }
+
+    // Connexions ouvertes depuis le démarrage, jetées à la validation, fermées pour inactivité.
+    public long getCreees() {
+        return creees.sum();
+    }
+
+    public long getInvalidees() {
+        return invalidees.sum();
+    }
+
+    public long getEvincees() {
+        return evincees.sum();
+    }
+
+    // Ferme les connexions libres ; les connexions empruntées seront fermées à leur restitution.
+    @Override
+    public void close() {
+        ferme = true;
+        synchronized (this) {
+            if (eviction != null) {
+                eviction.cancel(false);
+            }
+        }
+        Entree entree;
+        while ((entree = libres.pollFirst()) != null) {
+            jeter(entree);
+        }
+    }
+
+    // Une connexion physique du pool et son état de session.
+    private static final class Entree {
+
+        final Connection connexion;
+        final boolean autoCommitInitial;
+        final int isolationInitiale;
+        final boolean lectureSeuleInitiale;
+
+        // État courant suivi à travers les connexions "proxy" (lu à l'ouverture, une seule fois).
+        boolean autoCommit;
+        boolean isolationModifiee;
+        boolean lectureSeuleModifiee;
+
+        // Instant (System.nanoTime) de la dernière restitution.
+        volatile long rendueLe;
+
+        Entree(Connection connexion) throws SQLException {
+            this.connexion = connexion;
+            this.autoCommitInitial = connexion.getAutoCommit();
+            this.isolationInitiale = connexion.getTransactionIsolation();
+            this.lectureSeuleInitiale = connexion.isReadOnly();
+            this.autoCommit = autoCommitInitial;
+            this.rendueLe = System.nanoTime();
+        }
+    }
+
+    // Connexion prêtée : close() la rend au pool ; les réglages de session sont notés pour être
+    // remis à zéro à la restitution.
+    private final class Pret implements InvocationHandler {
+
+        private final Entree entree;
+        private boolean fermee;
+        private boolean cassee;
+
+        Pret(Entree entree) {
+            this.entree = entree;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method methode, Object[] args) throws Throwable {
+            switch (methode.getName()) {
+                case "close":
+                    if (!fermee) {
+                        fermee = true;
+                        rendre(entree, cassee);
+                    }
+                    return null;
+                case "isClosed":
+                    return fermee;
+                case "toString":
+                    return "MiniPoolDataSource.Connexion{" + entree.connexion + "}";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    break;
+            }
+            if (fermee) {
+                throw new SQLException("Connexion fermée");
+            }
+            Object resultat = appeler(methode, args);
+            switch (methode.getName()) {
+                case "setAutoCommit":
+                    entree.autoCommit = (Boolean) args[0];
+                    break;
+                case "setTransactionIsolation":
+                    entree.isolationModifiee = true;
+                    break;
+                case "setReadOnly":
+                    entree.lectureSeuleModifiee = true;
+                    break;
+                default:
+                    break;
+            }
+            return resultat;
+        }
+
+        // Appel sur la connexion réelle, en remontant l'exception d'origine (SQLException...).
+        // Une erreur de connexion (SQLState 08...) condamne la connexion physique.
+        private Object appeler(Method methode, Object[] args) throws Throwable {
+            try {
+                return methode.invoke(entree.connexion, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException sql && sql.getSQLState() != null && sql.getSQLState().startsWith("08")) {
+                    cassee = true;
+                }
+                throw cause;
+            }
+        }
+    }
+
+    // Méthodes de DataSource sans objet pour un pool : elles s'adressent à la source.
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return source.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        source.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int secondes) throws SQLException {
+        source.setLoginTimeout(secondes);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return source.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return source.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return source.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || source.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,64 @@
+// Déclaration du package dans lequel se trouve cette classe.
+package config;
+
+// Importation des classes JDBC.
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+// Importation des classes utilitaires Java.
+import java.util.ArrayList;
+import java.util.List;
+
+// Préchauffage d'un pool avant d'accepter le trafic.
+//
+// Sans lui, les premières requêtes après un démarrage paient l'ouverture des connexions physiques
+// (TCP, authentification MySQL, négociation) et la première préparation de chaque requête.
+// Ici, on emprunte d'un coup 'connexions' connexions (le pool doit donc toutes les ouvrir), puis
+// chaque requête est préparée une fois sur chacune d'elles. Avec le cache de requêtes préparées
+// du driver (cachePrepStmts), les requêtes préparées restent en cache sur la connexion.
+public final class PoolWarmup {
+
+    // Classe utilitaire : pas d'instance.
+    private PoolWarmup() {}
+
+    // Bilan du préchauffage.
+    public record Rapport(int connexions, int requetesPreparees, long dureeMillis) {
+        @Override
+        public String toString() {
+            return connexions + " connexions ouvertes, " + requetesPreparees + " requêtes préparées en " + dureeMillis + " ms";
+        }
+    }
+
+    // Ouvre 'connexions' connexions en même temps et prépare chaque requête sur chacune d'elles.
+    // Les connexions sont ensuite rendues au pool, prêtes à l'emploi.
+    public static Rapport prechauffer(DataSource dataSource, int connexions, List<String> requetes) throws SQLException {
+        long debut = System.nanoTime();
+        List<Connection> empruntees = new ArrayList<>(connexions);
+        int preparees = 0;
+        try {
+            // On garde toutes les connexions empruntées : le pool ne peut pas rendre deux fois la même.
+            for (int i = 0; i < connexions; i++) {
+                empruntees.add(dataSource.getConnection());
+            }
+            for (Connection conn : empruntees) {
+                for (String sql : requetes) {
+                    PreparedStatement stmt = conn.prepareStatement(sql);
+                    stmt.close();
+                    preparees++;
+                }
+            }
+        } finally {
+            // Retour des connexions au pool, même si une préparation a échoué.
+            for (Connection conn : empruntees) {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    System.out.println("❌ Erreur dans prechauffer : " + e.getMessage());
+                }
+            }
+        }
+        return new Rapport(empruntees.size(), preparees, (System.nanoTime() - debut) / 1_000_000);
+    }
+}
@@ -0,0 +1,454 @@
+// Déclaration du package dans lequel se trouve cette classe.
+package config;
+
+// Importation des classes JDBC.
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+// Importation des classes de réflexion (connexion "proxy").
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+// Importation des classes utilitaires Java.
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+// DataSource qui sépare les lectures et les écritures : les SELECT partent vers un ensemble de
+// réplicas, tout le reste vers la base primaire. Elle se branche derrière n'importe quel code
+// qui attend une DataSource, par exemple new UserRepository(routage).
+//
+// Chaque getConnection() retourne une connexion "aiguilleuse" qui n'ouvre rien tout de suite.
+// La connexion réelle est choisie à chaque prepareStatement(sql), selon la requête :
+//  - SELECT (sans FOR UPDATE / FOR SHARE / LOCK IN SHARE MODE) → un réplica ;
+//  - toute autre requête, createStatement() et prepareCall() → la primaire ;
+//  - une fois setAutoCommit(false) appelé, tout va sur la primaire (une transaction n'est pas répartie),
+//    sauf en lecture seule (setReadOnly(true), par exemple une UnitOfWork en lecture seule) : les lectures
+//    de la transaction partent alors toutes sur un même réplica, qui la valide ou l'annule ;
+//  - lecture de ses propres écritures : pendant 'fenetre' après une écriture faite par le même thread,
+//    ses lectures vont aussi sur la primaire (les réplicas peuvent être en retard). Une écriture compte
+//    quand elle est exécutée (execute*), pas quand elle est préparée : préparer un INSERT sans l'exécuter
+//    (préchauffage du cache de requêtes, par exemple) ne renvoie pas les lectures suivantes sur la primaire.
+// Une même connexion aiguilleuse peut donc tenir une connexion réplica et une connexion primaire ;
+// les deux sont rendues à leur pool à sa fermeture.
+//
+// Choix du réplica : à tour de rôle, ou le moins chargé (celui qui a le moins de connexions
+// empruntées à travers ce routage). Un réplica qui refuse la connexion est sauté ; si aucun ne
+// répond, la lecture part sur la primaire.
+//
+// Réglages de session : l'autocommit, la lecture seule et l'isolation sont retenus par la connexion
+// aiguilleuse et appliqués à chaque connexion réelle, qu'elle soit déjà ouverte ou ouverte plus tard.
+// Les lire, comme isValid(), n'ouvre aucune connexion ; getMetaData() et getTransactionIsolation() (si
+// elle n'a pas été fixée) utilisent une connexion déjà ouverte, sinon celle des lectures.
+//
+// Limites : Statement.getConnection() retourne la connexion réelle, pas la connexion aiguilleuse ;
+// les autres réglages de session (catalogue, schéma, informations client...) ne concernent que la primaire.
+public final class RoutingDataSource implements DataSource, AutoCloseable {
+
+    // Façon de choisir le réplica d'une lecture.
+    public enum Selection {
+        TOUR_DE_ROLE,
+        MOINS_CHARGE
+    }
+
+    // Lectures qui posent un verrou : elles doivent aller sur la primaire.
+    private static final Pattern LECTURE_VERROUILLANTE =
+            Pattern.compile("\\bFOR\\s+(UPDATE|SHARE)\\b|\\bLOCK\\s+IN\\s+SHARE\\s+MODE\\b", Pattern.CASE_INSENSITIVE);
+
+    private final DataSource primaire;
+    private final DataSource[] replicas;
+    private final Selection selection;
+    private final long fenetreNanos;
+
+    // Prochain réplica (tour de rôle) et nombre de connexions empruntées par réplica (moins chargé).
+    private final AtomicInteger prochain = new AtomicInteger();
+    private final AtomicIntegerArray enCours;
+
+    // Instant (System.nanoTime) de la dernière écriture du thread courant ; 0 si aucune.
+    private final ThreadLocal<long[]> derniereEcriture = ThreadLocal.withInitial(() -> new long[1]);
+
+    // primaire : base des écritures ; replicas : bases des lectures (liste vide : tout va sur la primaire) ;
+    // fenetre : durée pendant laquelle un thread relit sur la primaire après une écriture (0 : jamais).
+    public RoutingDataSource(DataSource primaire, List<? extends DataSource> replicas, Selection selection,
+                             long fenetre, TimeUnit unite) {
+        if (fenetre < 0) {
+            throw new IllegalArgumentException("fenetre doit être positive ou nulle : " + fenetre);
+        }
+        this.primaire = primaire;
+        this.replicas = replicas.toArray(new DataSource[0]);
+        this.selection = selection;
+        this.fenetreNanos = unite.toNanos(fenetre);
+        this.enCours = new AtomicIntegerArray(this.replicas.length);
+    }
+
+    @Override
+    public Connection getConnection() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, new Aiguillage());
+    }
+
+    @Override
+    public Connection getConnection(String utilisateur, String motDePasse) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Les identifiants sont ceux des DataSources primaire et réplicas");
+    }
+
+    public DataSource getPrimaire() {
+        return primaire;
+    }
+
+    public List<DataSource> getReplicas() {
+        return List.of(replicas);
+    }
+
+    // Nombre de connexions actuellement empruntées sur chaque réplica à travers ce routage.
+    public int getEnCours(int replica) {
+        return enCours.get(replica);
+    }
+
+    // true si le thread courant a écrit il y a moins de 'fenetre' : ses lectures vont sur la primaire.
+    public boolean isEcritureRecente() {
+        long derniere = derniereEcriture.get()[0];
+        return derniere != 0 && System.nanoTime() - derniere < fenetreNanos;
+    }
+
+    // Ferme la primaire et les réplicas qui peuvent l'être (pools HikariCP).
+    @Override
+    public void close() {
+        fermer(primaire);
+        for (DataSource replica : replicas) {
+            fermer(replica);
+        }
+    }
+
+    private static void fermer(DataSource ds) {
+        if (ds instanceof AutoCloseable fermable) {
+            try {
+                fermable.close();
+            } catch (Exception e) {
+                System.out.println("❌ Erreur dans RoutingDataSource.close : " + e.getMessage());
+            }
+        }
+    }
+
+    // true si la requête peut être servie par un réplica.
+    static boolean estLecture(String sql) {
+        int debut = 0;
+        while (debut < sql.length() && (Character.isWhitespace(sql.charAt(debut)) || sql.charAt(debut) == '(')) {
+            debut++;
+        }
+        return sql.regionMatches(true, debut, "SELECT", 0, 6) && !LECTURE_VERROUILLANTE.matcher(sql).find();
+    }
+
+    private void marquerEcriture() {
+        derniereEcriture.get()[0] = System.nanoTime();
+    }
+
+    // Index du réplica à essayer en premier.
+    private int choisirReplica() {
+        int depart = Math.floorMod(prochain.getAndIncrement(), replicas.length);
+        if (selection == Selection.TOUR_DE_ROLE) {
+            return depart;
+        }
+        // Le moins chargé ; à égalité, le premier à partir de 'depart' (les ex æquo se partagent les lectures).
+        int meilleur = depart;
+        for (int i = 1; i < replicas.length; i++) {
+            int candidat = (depart + i) % replicas.length;
+            if (enCours.get(candidat) < enCours.get(meilleur)) {
+                meilleur = candidat;
+            }
+        }
+        return meilleur;
+    }
+
+    // Connexion aiguilleuse : ouvre à la demande une connexion réplica et/ou primaire.
+    private final class Aiguillage implements InvocationHandler {
+
+        private Connection connexionPrimaire;
+        private Connection connexionReplica;
+        private int indexReplica = -1;
+        private boolean autoCommit = true;
+        private boolean lectureSeule;
+        // Connection.TRANSACTION_* fixée par l'appelant, ou -1 : celle des connexions réelles
+        private int isolation = -1;
+        private boolean ecriture;
+        private boolean fermee;
+
+        @Override
+        public Object invoke(Object proxy, Method methode, Object[] args) throws Throwable {
+            switch (methode.getName()) {
+                case "close":
+                    fermer();
+                    return null;
+                case "isClosed":
+                    return fermee;
+                case "getAutoCommit":
+                    return autoCommit;
+                case "setAutoCommit":
+                    verifierOuverte();
+                    autoCommit = (Boolean) args[0];
+                    surLesConnexionsOuvertes(methode, args);
+                    return null;
+                case "isReadOnly":
+                    return lectureSeule;
+                case "setReadOnly":
+                    verifierOuverte();
+                    lectureSeule = (Boolean) args[0];
+                    surLesConnexionsOuvertes(methode, args);
+                    return null;
+                case "getTransactionIsolation":
+                    return isolation != -1 ? isolation : appeler(ouverteOuLecture(), methode, args);
+                case "setTransactionIsolation":
+                    verifierOuverte();
+                    isolation = (Integer) args[0];
+                    surLesConnexionsOuvertes(methode, args);
+                    return null;
+                case "isValid":
+                    // Sans connexion ouverte, rien à vérifier : chaque pool valide ses connexions au prêt.
+                    if (fermee) {
+                        return false;
+                    }
+                    return (connexionPrimaire == null || connexionPrimaire.isValid((Integer) args[0]))
+                            && (connexionReplica == null || connexionReplica.isValid((Integer) args[0]));
+                case "getMetaData":
+                    return appeler(ouverteOuLecture(), methode, args);
+                case "getWarnings":
+                    return connexionPrimaire != null ? connexionPrimaire.getWarnings()
+                            : connexionReplica != null ? connexionReplica.getWarnings() : null;
+                case "clearWarnings":
+                    surLesConnexionsOuvertes(methode, args);
+                    return null;
+                case "commit":
+                case "rollback":
+                    if (args != null && args.length > 0) {
+                        // Retour à un point de sauvegarde : les points de sauvegarde sont posés sur la primaire.
+                        return appeler(primaire(), methode, args);
+                    }
+                    // La transaction est sur la connexion qui l'a servie (primaire, ou réplica en lecture seule) ;
+                    // rien à faire si aucune n'a été ouverte.
+                    if (connexionReplica != null && !autoCommit) {
+                        appeler(connexionReplica, methode, args);
+                    }
+                    return connexionPrimaire == null ? null : appeler(connexionPrimaire, methode, args);
+                case "prepareStatement":
+                    if (estLecture((String) args[0])) {
+                        return appeler(pourLecture(), methode, args);
+                    }
+                    return suivreEcriture(appeler(pourEcriture(), methode, args), methode.getReturnType());
+                case "createStatement":
+                case "prepareCall":
+                    // Requête inconnue à ce stade : on la traite comme une écriture.
+                    return suivreEcriture(appeler(pourEcriture(), methode, args), methode.getReturnType());
+                case "toString":
+                    return "RoutingDataSource.Connexion{primaire=" + connexionPrimaire + ", replica=" + connexionReplica + "}";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    // Autres réglages de session, points de sauvegarde... : sur la primaire.
+                    return appeler(primaire(), methode, args);
+            }
+        }
+
+        // Transaction en cours sur la primaire (écrite, ou pas en lecture seule) : elle n'est pas répartie.
+        private Connection pourLecture() throws SQLException {
+            boolean transactionPrimaire = !autoCommit && (!lectureSeule || connexionPrimaire != null);
+            if (transactionPrimaire || replicas.length == 0 || isEcritureRecente()) {
+                return primaire();
+            }
+            if (connexionReplica == null) {
+                ouvrirReplica();
+            }
+            return connexionReplica != null ? connexionReplica : primaire();
+        }
+
+        private Connection pourEcriture() throws SQLException {
+            return primaire();
+        }
+
+        // Requête d'écriture préparée : la fenêtre de relecture part de sa première exécution.
+        private Object suivreEcriture(Object requete, Class<?> type) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, methode, args) -> {
+                if (methode.getName().startsWith("execute")) {
+                    ecriture = true;
+                    marquerEcriture();
+                }
+                return appeler(requete, methode, args);
+            });
+        }
+
+        private Connection primaire() throws SQLException {
+            verifierOuverte();
+            if (connexionPrimaire == null) {
+                Connection conn = primaire.getConnection();
+                try {
+                    appliquerReglages(conn);
+                } catch (SQLException e) {
+                    fermerSansErreur(conn, e);
+                    throw e;
+                }
+                connexionPrimaire = conn;
+            }
+            return connexionPrimaire;
+        }
+
+        // Connexion déjà ouverte (primaire d'abord), sinon celle qui servirait une lecture.
+        private Connection ouverteOuLecture() throws SQLException {
+            verifierOuverte();
+            return connexionPrimaire != null ? connexionPrimaire
+                    : connexionReplica != null ? connexionReplica : pourLecture();
+        }
+
+        // Réglages de session retenus, appliqués à une connexion réelle qui vient d'être ouverte.
+        private void appliquerReglages(Connection conn) throws SQLException {
+            if (lectureSeule) {
+                conn.setReadOnly(true);
+            }
+            if (isolation != -1) {
+                conn.setTransactionIsolation(isolation);
+            }
+            if (!autoCommit) {
+                conn.setAutoCommit(false);
+            }
+        }
+
+        // Même appel sur chaque connexion réelle déjà ouverte (réplica puis primaire).
+        private void surLesConnexionsOuvertes(Method methode, Object[] args) throws Throwable {
+            if (connexionReplica != null) {
+                appeler(connexionReplica, methode, args);
+            }
+            if (connexionPrimaire != null) {
+                appeler(connexionPrimaire, methode, args);
+            }
+        }
+
+        private void fermerSansErreur(Connection conn, SQLException erreur) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                erreur.addSuppressed(e);
+            }
+        }
+
+        // Essaie les réplicas à partir de celui choisi ; laisse connexionReplica à null si aucun ne répond.
+        private void ouvrirReplica() throws SQLException {
+            verifierOuverte();
+            int premier = choisirReplica();
+            for (int i = 0; i < replicas.length; i++) {
+                int index = (premier + i) % replicas.length;
+                enCours.incrementAndGet(index);
+                try {
+                    Connection conn = replicas[index].getConnection();
+                    try {
+                        appliquerReglages(conn);
+                    } catch (SQLException e) {
+                        fermerSansErreur(conn, e);
+                        throw e;
+                    }
+                    connexionReplica = conn;
+                    indexReplica = index;
+                    return;
+                } catch (SQLException e) {
+                    enCours.decrementAndGet(index);
+                    System.out.println("❌ Erreur dans RoutingDataSource (réplica " + index + ") : " + e.getMessage());
+                }
+            }
+        }
+
+        private void verifierOuverte() throws SQLException {
+            if (fermee) {
+                throw new SQLException("Connexion fermée");
+            }
+        }
+
+        private void fermer() throws SQLException {
+            if (fermee) {
+                return;
+            }
+            fermee = true;
+            // La fenêtre de relecture part de la fin de l'écriture (après le commit), pas de son début.
+            if (ecriture) {
+                marquerEcriture();
+            }
+            SQLException erreur = null;
+            if (connexionReplica != null) {
+                enCours.decrementAndGet(indexReplica);
+                try {
+                    connexionReplica.close();
+                } catch (SQLException e) {
+                    erreur = e;
+                }
+            }
+            if (connexionPrimaire != null) {
+                try {
+                    connexionPrimaire.close();
+                } catch (SQLException e) {
+                    if (erreur == null) {
+                        erreur = e;
+                    } else {
+                        erreur.addSuppressed(e);
+                    }
+                }
+            }
+            if (erreur != null) {
+                throw erreur;
+            }
+        }
+
+        // Appel sur la connexion réelle, en remontant l'exception d'origine (SQLException...).
+        private Object appeler(Object cible, Method methode, Object[] args) throws Throwable {
+            try {
+                return methode.invoke(cible, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // Méthodes de DataSource sans objet pour un routage : elles s'adressent à la primaire.
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primaire.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primaire.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int secondes) throws SQLException {
+        primaire.setLoginTimeout(secondes);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primaire.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primaire.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return primaire.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primaire.isWrapperFor(iface);
+    }
+}
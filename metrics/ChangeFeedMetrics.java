@@ -0,0 +1,31 @@
+// 📦 Déclaration du package des métriques
+package metrics;
+
+// 📦 Importation du flux de changements à observer
+import repository.UserChangeFeed;
+
+// 📰 Publie les mesures d'un UserChangeFeed dans un MetricsRegistry, sous l'étiquette flux="<nom>" :
+//  - sync_retard_ms : âge du dernier cycle réussi (-1 avant le premier) ;
+//  - sync_duree_cycle_ms : durée du dernier cycle ;
+//  - sync_dernier_seq : plus grand seq lu dans l'outbox ;
+//  - sync_trous_ouverts : seq sautés encore attendus (transactions pas encore validées) ;
+//  - sync_trous_abandonnes_total : seq jamais apparus (transactions annulées ou trop longues) ;
+//  - sync_cycles_total, sync_changements_total, sync_echecs_total.
+// Une alerte sur sync_retard_ms (par exemple au-delà de 10 intervalles) signale un flux arrêté.
+public final class ChangeFeedMetrics {
+
+    // 🚫 Classe utilitaire : pas d'instance
+    private ChangeFeedMetrics() {}
+
+    public static void publier(MetricsRegistry registre, String nom, UserChangeFeed flux) {
+        String etiquettes = "flux=\"" + nom + "\"";
+        registre.jauge("sync_retard_ms", etiquettes, flux::getRetardMillis);
+        registre.jauge("sync_duree_cycle_ms", etiquettes, () -> flux.getDureeDernierCycleNanos() / 1_000_000);
+        registre.jauge("sync_dernier_seq", etiquettes, flux::getDernierSeq);
+        registre.jauge("sync_trous_ouverts", etiquettes, flux::getTrousOuverts);
+        registre.jauge("sync_trous_abandonnes_total", etiquettes, flux::getTrousAbandonnes);
+        registre.jauge("sync_cycles_total", etiquettes, flux::getCycles);
+        registre.jauge("sync_changements_total", etiquettes, flux::getChangements);
+        registre.jauge("sync_echecs_total", etiquettes, flux::getEchecs);
+    }
+}
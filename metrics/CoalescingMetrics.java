@@ -0,0 +1,27 @@
+// 📦 Déclaration du package des métriques
+package metrics;
+
+// 📦 Importation du repository à observer
+import repository.CoalescingUserRepository;
+
+// 🪢 Publie les compteurs d'un CoalescingUserRepository dans un MetricsRegistry, sous l'étiquette
+// repository="<nom>" :
+//  - single_flight_appels_total : lectures par ID reçues ;
+//  - single_flight_regroupes_total : lectures servies par une requête déjà en vol (sans requête à elles) ;
+//  - single_flight_requetes_total : requêtes (lots) envoyées à la base ;
+//  - single_flight_ids_total : ID lus par ces requêtes (ids_total / requetes_total = taille moyenne d'un lot) ;
+//  - single_flight_en_vol : lectures en cours.
+public final class CoalescingMetrics {
+
+    // 🚫 Classe utilitaire : pas d'instance
+    private CoalescingMetrics() {}
+
+    public static void publier(MetricsRegistry registre, String nom, CoalescingUserRepository repository) {
+        String etiquettes = "repository=\"" + nom + "\"";
+        registre.jauge("single_flight_appels_total", etiquettes, repository::getAppels);
+        registre.jauge("single_flight_regroupes_total", etiquettes, repository::getRegroupes);
+        registre.jauge("single_flight_requetes_total", etiquettes, repository::getRequetes);
+        registre.jauge("single_flight_ids_total", etiquettes, repository::getIdsLus);
+        registre.jauge("single_flight_en_vol", etiquettes, repository::getEnVol);
+    }
+}
@@ -0,0 +1,81 @@
+// 📦 Déclaration du package des métriques
+package metrics;
+
+// 📦 Points d'extension de HikariCP pour la collecte de métriques
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+// 📦 Importation des classes utilitaires
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// 🏊 Branche un pool HikariCP sur un MetricsRegistry (config.setMetricsTrackerFactory(...)).
+//
+// Pour chaque pool (étiquette pool="<nom du pool>") :
+//  - jauges : connexions actives, inactives, totales, threads en attente, min et max ;
+//  - histogrammes : temps d'obtention d'une connexion (attente dans le pool), durée d'utilisation
+//    (emprunt → restitution), durée de création d'une connexion physique ;
+//  - compteur : obtentions tombées en timeout (connectionTimeout dépassé).
+// Un temps d'obtention élevé avec une base rapide signifie que les threads attendent le pool, pas MySQL.
+// Les métriques du pool sont retirées du registre à sa fermeture.
+public class HikariMetricsTrackerFactory implements MetricsTrackerFactory {
+
+    private final MetricsRegistry registre;
+
+    // 🏗️ Constructeur : registre dans lequel publier les métriques
+    public HikariMetricsTrackerFactory(MetricsRegistry registre) {
+        this.registre = registre;
+    }
+
+    // 🧩 Appelé par HikariCP au démarrage du pool
+    @Override
+    public IMetricsTracker create(String nomPool, PoolStats stats) {
+        String etiquettes = "pool=\"" + nomPool + "\"";
+
+        registre.jauge("hikari_connexions_actives", etiquettes, stats::getActiveConnections);
+        registre.jauge("hikari_connexions_inactives", etiquettes, stats::getIdleConnections);
+        registre.jauge("hikari_connexions_totales", etiquettes, stats::getTotalConnections);
+        registre.jauge("hikari_threads_en_attente", etiquettes, stats::getPendingThreads);
+        registre.jauge("hikari_connexions_max", etiquettes, stats::getMaxConnections);
+        registre.jauge("hikari_connexions_min", etiquettes, stats::getMinConnections);
+
+        return new Tracker(registre, etiquettes,
+                registre.histogramme("hikari_obtention_ms", etiquettes),
+                registre.histogramme("hikari_utilisation_ms", etiquettes),
+                registre.histogramme("hikari_creation_ms", etiquettes),
+                registre.compteur("hikari_timeouts_total", etiquettes));
+    }
+
+    // 📈 Reçoit les événements d'un pool (appelé sur le chemin de getConnection()/close() : rien ne bloque)
+    private record Tracker(MetricsRegistry registre, String etiquettes, LatencyHistogram obtention,
+                           LatencyHistogram utilisation, LatencyHistogram creation,
+                           LongAdder timeouts) implements IMetricsTracker {
+
+        @Override
+        public void recordConnectionAcquiredNanos(long nanos) {
+            obtention.enregistrer(nanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long millis) {
+            utilisation.enregistrer(millis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void recordConnectionCreatedMillis(long millis) {
+            creation.enregistrer(millis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+
+        // 🚪 Pool fermé : ses séries disparaissent du registre
+        @Override
+        public void close() {
+            registre.retirer(etiquettes);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+// 📦 Déclaration du package des métriques
+package metrics;
+
+// 📦 Compteurs atomiques sans verrou
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// ⏱️ Histogramme de durées (en nanosecondes), sans verrou et sans allocation à l'enregistrement.
+//
+// Les valeurs sont rangées dans des cases "log-linéaires" : chaque puissance de 2 est découpée
+// en 8 cases égales. L'erreur relative sur un percentile est donc d'au plus 12,5 %, quelle que soit
+// l'échelle (de la nanoseconde à plusieurs heures), avec un tableau fixe de 488 compteurs.
+// Le nombre, la somme et le maximum, eux, sont exacts.
+public class LatencyHistogram {
+
+    // 🧮 Nombre de cases par puissance de 2 (2^3 = 8)
+    private static final int BITS_SOUS_CASE = 3;
+    private static final int SOUS_CASES = 1 << BITS_SOUS_CASE;
+
+    // 📏 Nombre total de cases : valeurs 0..7 en direct, puis 8 cases pour chaque exposant de 3 à 62
+    private static final int CASES = (63 - BITS_SOUS_CASE + 1) * SOUS_CASES;
+
+    // 🧮 Un compteur par case ; le nombre total de valeurs est la somme des cases (calculée à la lecture)
+    private final AtomicLongArray compteurs = new AtomicLongArray(CASES);
+    private final LongAdder somme = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    // ➕ Enregistre une durée en nanosecondes (une valeur négative compte pour 0)
+    public void enregistrer(long nanos) {
+        long v = Math.max(0, nanos);
+        compteurs.getAndIncrement(indexPour(v));
+        somme.add(v);
+        // 🔝 Mise à jour du maximum sans écriture si la valeur ne le dépasse pas
+        long actuel = max.get();
+        while (v > actuel && !max.compareAndSet(actuel, v)) {
+            actuel = max.get();
+        }
+    }
+
+    // ➕ Enregistre une durée exprimée dans une autre unité
+    public void enregistrer(long duree, TimeUnit unite) {
+        enregistrer(unite.toNanos(duree));
+    }
+
+    // 📊 Nombre de valeurs enregistrées
+    public long getNombre() {
+        long total = 0;
+        for (int i = 0; i < CASES; i++) {
+            total += compteurs.get(i);
+        }
+        return total;
+    }
+
+    // 📊 Somme des valeurs enregistrées (ns)
+    public long getSomme() {
+        return somme.sum();
+    }
+
+    // 📊 Plus grande valeur enregistrée (ns)
+    public long getMax() {
+        return max.get();
+    }
+
+    // 📊 Moyenne (ns), 0 si aucune valeur
+    public double getMoyenne() {
+        long n = getNombre();
+        return n == 0 ? 0 : (double) getSomme() / n;
+    }
+
+    // 📊 Percentile approché (ns) : quantile entre 0 et 1, par exemple 0.99.
+    // La valeur retournée est la borne haute de la case, plafonnée au maximum exact.
+    public long getPercentile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("quantile hors de [0, 1] : " + quantile);
+        }
+        // 📸 Copie des compteurs : le rang est calculé sur la copie, cohérente avec le parcours
+        long[] copie = new long[CASES];
+        long total = 0;
+        for (int i = 0; i < CASES; i++) {
+            copie[i] = compteurs.get(i);
+            total += copie[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rang = Math.max(1, (long) Math.ceil(quantile * total));
+        long cumul = 0;
+        for (int i = 0; i < CASES; i++) {
+            cumul += copie[i];
+            if (cumul >= rang) {
+                return Math.min(borneHaute(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    // 🧽 Remet l'histogramme à zéro (les enregistrements concurrents peuvent être partiellement perdus)
+    public void reinitialiser() {
+        for (int i = 0; i < CASES; i++) {
+            compteurs.set(i, 0);
+        }
+        somme.reset();
+        max.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d moy=%.1fµs p50=%.1fµs p99=%.1fµs max=%.1fµs",
+                getNombre(), getMoyenne() / 1_000.0, getPercentile(0.50) / 1_000.0,
+                getPercentile(0.99) / 1_000.0, getMax() / 1_000.0);
+    }
+
+    // 🗂️ Case d'une valeur : exposant (position du bit de poids fort) puis 3 bits suivants
+    static int indexPour(long v) {
+        if (v < SOUS_CASES) {
+            return (int) v;
+        }
+        int exposant = 63 - Long.numberOfLeadingZeros(v);
+        int sousCase = (int) (v >>> (exposant - BITS_SOUS_CASE)) & (SOUS_CASES - 1);
+        return (exposant - BITS_SOUS_CASE + 1) * SOUS_CASES + sousCase;
+    }
+
+    // 🗂️ Plus grande valeur rangée dans une case
+    static long borneHaute(int index) {
+        if (index < SOUS_CASES) {
+            return index;
+        }
+        int exposant = index / SOUS_CASES + BITS_SOUS_CASE - 1;
+        int sousCase = index % SOUS_CASES;
+        long largeur = 1L << (exposant - BITS_SOUS_CASE);
+        long basse = (long) (SOUS_CASES + sousCase) << (exposant - BITS_SOUS_CASE);
+        return basse + largeur - 1;
+    }
+}
@@ -0,0 +1,54 @@
+// 📦 Déclaration du package des métriques
+package metrics;
+
+// 📦 Serveur HTTP intégré au JDK (module jdk.httpserver) : aucune dépendance à ajouter
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// 📦 Importation des classes d'entrée/sortie et réseau
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+// 🌐 Petit point d'accès HTTP local : GET http://127.0.0.1:<port>/metrics renvoie l'export texte du registre.
+// Il n'écoute que sur l'interface de bouclage : rien n'est exposé hors de la machine.
+// Lisible avec curl, un navigateur ou un collecteur Prometheus local.
+public class MetricsHttpServer implements AutoCloseable {
+
+    private final HttpServer serveur;
+
+    // 🏗️ Démarre le serveur ; port 0 = port libre choisi par le système (voir getPort())
+    public MetricsHttpServer(MetricsRegistry registre, int port) throws IOException {
+        this.serveur = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        serveur.createContext("/metrics", echange -> repondre(echange, registre));
+        serveur.start();
+    }
+
+    // 🔌 Port d'écoute effectif
+    public int getPort() {
+        return serveur.getAddress().getPort();
+    }
+
+    // 🚪 Arrête le serveur (sans attendre les échanges en cours)
+    @Override
+    public void close() {
+        serveur.stop(0);
+    }
+
+    private static void repondre(HttpExchange echange, MetricsRegistry registre) throws IOException {
+        try (echange) {
+            if (!"GET".equals(echange.getRequestMethod())) {
+                echange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] corps = registre.exporterTexte().getBytes(StandardCharsets.UTF_8);
+            echange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            echange.sendResponseHeaders(200, corps.length);
+            try (OutputStream out = echange.getResponseBody()) {
+                out.write(corps);
+            }
+        }
+    }
+}
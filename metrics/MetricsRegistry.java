@@ -0,0 +1,196 @@
+// 📦 Déclaration du package des métriques
+package metrics;
+
+// 📦 Importation des classes JMX (exposition du registre dans jconsole / VisualVM)
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+// 📦 Importation des classes utilitaires et de concurrence
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// 📊 Registre de métriques en mémoire : compteurs, jauges et histogrammes de durées.
+//
+// Chaque métrique a un nom et des étiquettes optionnelles au format {cle="valeur",...},
+// par exemple hikari_connexions_actives{pool="MonPoolHikari"}.
+// Le registre ne dépend d'aucun service extérieur :
+//  - exporterTexte() produit un texte lisible (format d'exposition Prometheus) ;
+//  - afficher() l'écrit sur la console ;
+//  - enregistrerJmx() l'expose en JMX ;
+//  - MetricsHttpServer le sert en HTTP sur la machine locale.
+// Les sources de métriques (par exemple HikariMetricsTrackerFactory) reçoivent le registre à utiliser :
+// on peut en brancher un par pool, ou partager le registre global().
+public class MetricsRegistry implements MetricsRegistryMXBean {
+
+    // 🌍 Registre partagé par défaut de l'application
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    // 🗂️ Métriques triées par nom complet : les séries d'un même nom sont regroupées à l'export
+    private final ConcurrentSkipListMap<String, Object> metriques = new ConcurrentSkipListMap<>();
+
+    // 🌍 Registre partagé
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    // 🔢 Compteur (créé au premier appel, le même ensuite)
+    public LongAdder compteur(String nom, String etiquettes) {
+        return obtenir(nom, etiquettes, LongAdder.class, new LongAdder());
+    }
+
+    // ⏱️ Histogramme de durées (créé au premier appel, le même ensuite)
+    public LatencyHistogram histogramme(String nom, String etiquettes) {
+        return obtenir(nom, etiquettes, LatencyHistogram.class, new LatencyHistogram());
+    }
+
+    // 🌡️ Jauge : valeur lue à chaque export (remplace une jauge de même nom)
+    public void jauge(String nom, String etiquettes, LongSupplier valeur) {
+        metriques.put(cle(nom, etiquettes), new Jauge(valeur));
+    }
+
+    // 🧽 Retire toutes les métriques portant exactement ces étiquettes (par exemple à la fermeture d'un pool)
+    public void retirer(String etiquettes) {
+        if (etiquettes == null || etiquettes.isEmpty()) {
+            throw new IllegalArgumentException("étiquettes obligatoires");
+        }
+        String suffixe = accolades(etiquettes);
+        metriques.keySet().removeIf(cle -> cle.endsWith(suffixe));
+    }
+
+    // 📄 Export texte de toutes les métriques ; durées en millisecondes.
+    // Un summary ne porte que ses quantiles, _sum et _count : le maximum d'un histogramme est publié
+    // à part, dans sa propre famille "<nom>_max" de type gauge, écrite juste après celle du summary
+    // (les lignes d'une même famille restent groupées).
+    public String exporterTexte() {
+        StringBuilder sb = new StringBuilder();
+        StringBuilder maxima = new StringBuilder();
+        String nomPrecedent = null;
+        for (Map.Entry<String, Object> e : metriques.entrySet()) {
+            String cle = e.getKey();
+            int accolade = cle.indexOf('{');
+            String nom = accolade < 0 ? cle : cle.substring(0, accolade);
+            String etiquettes = accolade < 0 ? "" : cle.substring(accolade + 1, cle.length() - 1);
+            Object m = e.getValue();
+            if (!nom.equals(nomPrecedent)) {
+                ecrireMaxima(sb, nomPrecedent, maxima);
+                sb.append("# TYPE ").append(nom).append(' ').append(type(m)).append('\n');
+                nomPrecedent = nom;
+            }
+            if (m instanceof LatencyHistogram h) {
+                for (double q : new double[] {0.5, 0.9, 0.99, 0.999}) {
+                    ligne(sb, nom, ajouterEtiquette(etiquettes, "quantile=\"" + q + "\""), millis(h.getPercentile(q)));
+                }
+                ligne(sb, nom + "_sum", accolades(etiquettes), millis(h.getSomme()));
+                ligne(sb, nom + "_count", accolades(etiquettes), Long.toString(h.getNombre()));
+                ligne(maxima, nom + "_max", accolades(etiquettes), millis(h.getMax()));
+            } else {
+                ligne(sb, nom, accolades(etiquettes), Long.toString(valeur(m)));
+            }
+        }
+        ecrireMaxima(sb, nomPrecedent, maxima);
+        return sb.toString();
+    }
+
+    // 📈 Famille "<nom>_max" (gauge) des histogrammes de la famille 'nom', s'il y en a
+    private static void ecrireMaxima(StringBuilder sb, String nom, StringBuilder maxima) {
+        if (maxima.isEmpty()) {
+            return;
+        }
+        sb.append("# TYPE ").append(nom).append("_max gauge\n").append(maxima);
+        maxima.setLength(0);
+    }
+
+    // 🖨️ Affiche l'export texte sur la console
+    public void afficher() {
+        System.out.print(exporterTexte());
+    }
+
+    // ☕ JMX : export texte complet
+    @Override
+    public String getTexte() {
+        return exporterTexte();
+    }
+
+    // ☕ JMX : une valeur par série (compteurs, jauges ; pour les histogrammes nombre, p50, p99 et max en ms)
+    @Override
+    public Map<String, Double> getValeurs() {
+        Map<String, Double> valeurs = new TreeMap<>();
+        for (Map.Entry<String, Object> e : metriques.entrySet()) {
+            Object m = e.getValue();
+            if (m instanceof LatencyHistogram h) {
+                valeurs.put(e.getKey() + "_count", (double) h.getNombre());
+                valeurs.put(e.getKey() + "_p50_ms", h.getPercentile(0.50) / 1e6);
+                valeurs.put(e.getKey() + "_p99_ms", h.getPercentile(0.99) / 1e6);
+                valeurs.put(e.getKey() + "_max_ms", h.getMax() / 1e6);
+            } else {
+                valeurs.put(e.getKey(), (double) valeur(m));
+            }
+        }
+        return valeurs;
+    }
+
+    // ☕ Enregistre ce registre dans le serveur JMX de la JVM (ignoré s'il y est déjà)
+    public void enregistrerJmx(String nom) {
+        try {
+            MBeanServer serveur = ManagementFactory.getPlatformMBeanServer();
+            serveur.registerMBean(this, new ObjectName("metrics:type=MetricsRegistry,name=" + ObjectName.quote(nom)));
+        } catch (InstanceAlreadyExistsException e) {
+            // ✅ Déjà exposé sous ce nom
+        } catch (JMException e) {
+            System.out.println("❌ Erreur dans enregistrerJmx : " + e.getMessage());
+        }
+    }
+
+    // 🧩 Retourne la métrique existante ou enregistre la nouvelle ; refuse un nom déjà pris par un autre type
+    private <T> T obtenir(String nom, String etiquettes, Class<T> type, T nouvelle) {
+        Object m = metriques.putIfAbsent(cle(nom, etiquettes), nouvelle);
+        if (m == null) {
+            return nouvelle;
+        }
+        if (!type.isInstance(m)) {
+            throw new IllegalArgumentException("métrique " + cle(nom, etiquettes) + " déjà enregistrée comme " + type(m));
+        }
+        return type.cast(m);
+    }
+
+    private static String cle(String nom, String etiquettes) {
+        return nom + accolades(etiquettes);
+    }
+
+    private static String accolades(String etiquettes) {
+        return etiquettes == null || etiquettes.isEmpty() ? "" : "{" + etiquettes + "}";
+    }
+
+    private static String ajouterEtiquette(String etiquettes, String etiquette) {
+        return "{" + (etiquettes.isEmpty() ? "" : etiquettes + ",") + etiquette + "}";
+    }
+
+    private static void ligne(StringBuilder sb, String nom, String etiquettes, String valeur) {
+        sb.append(nom).append(etiquettes).append(' ').append(valeur).append('\n');
+    }
+
+    private static String millis(long nanos) {
+        return Double.toString(nanos / 1e6);
+    }
+
+    private static String type(Object m) {
+        if (m instanceof LatencyHistogram) {
+            return "summary";
+        }
+        return m instanceof LongAdder ? "counter" : "gauge";
+    }
+
+    private static long valeur(Object m) {
+        return m instanceof LongAdder c ? c.sum() : ((Jauge) m).valeur.getAsLong();
+    }
+
+    // 🌡️ Jauge : fonction lue à l'export
+    private record Jauge(LongSupplier valeur) {
+    }
+}
@@ -0,0 +1,15 @@
+// 📦 Déclaration du package des métriques
+package metrics;
+
+// 📦 Importation de l'interface Map
+import java.util.Map;
+
+// ☕ Vue JMX d'un MetricsRegistry (lisible dans jconsole ou VisualVM)
+public interface MetricsRegistryMXBean {
+
+    // 📄 Export texte complet du registre
+    String getTexte();
+
+    // 🔢 Valeur de chaque série (durées en millisecondes)
+    Map<String, Double> getValeurs();
+}
@@ -0,0 +1,97 @@
+// 📦 Déclaration du package des métriques
+package metrics;
+
+// 📦 Importation du point d'extension de UserRepository
+import repository.QueryTrace;
+import repository.QueryTracer;
+
+// 📦 Importation des classes utilitaires et de concurrence
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// 🔭 Tracer de UserRepository qui publie ses mesures dans un MetricsRegistry.
+//
+// Par opération (étiquette operation="findById", "save"...) :
+//  - histogrammes : obtention de la connexion, exécution, mapping, durée totale ;
+//  - compteurs : lignes lues ou modifiées, échecs, requêtes lentes.
+// Journal des requêtes lentes : au-delà du seuil, une ligne avec le SQL, la forme des paramètres
+// (types et tailles, jamais les valeurs) et le détail des phases est envoyée au journal
+// (la console par défaut).
+//
+// Utilisation : repo.setTracer(new QueryMetricsTracer(registre, 50, TimeUnit.MILLISECONDS));
+public class QueryMetricsTracer implements QueryTracer {
+
+    private final MetricsRegistry registre;
+
+    // 🐢 Seuil du journal des requêtes lentes (ns)
+    private volatile long seuilLentNanos;
+
+    // 📝 Destination du journal des requêtes lentes
+    private volatile Consumer<String> journal = System.out::println;
+
+    // 🗂️ Séries de chaque opération, résolues une seule fois (pas de recherche dans le registre à chaque requête)
+    private final ConcurrentHashMap<String, Series> series = new ConcurrentHashMap<>();
+
+    // 🏗️ Constructeur : registre de publication et seuil du journal des requêtes lentes
+    public QueryMetricsTracer(MetricsRegistry registre, long seuilLent, TimeUnit unite) {
+        this.registre = registre;
+        this.seuilLentNanos = enNanos(seuilLent, unite);
+    }
+
+    // ⚙️ Change le seuil du journal des requêtes lentes (Long.MAX_VALUE pour le couper)
+    public void setSeuilLent(long seuil, TimeUnit unite) {
+        this.seuilLentNanos = enNanos(seuil, unite);
+    }
+
+    // ⚙️ Change la destination du journal des requêtes lentes
+    public void setJournal(Consumer<String> journal) {
+        this.journal = journal;
+    }
+
+    @Override
+    public void requeteTerminee(QueryTrace trace) {
+        Series s = series.computeIfAbsent(trace.getOperation(), this::creerSeries);
+        s.obtention.enregistrer(trace.getObtentionNanos());
+        s.execution.enregistrer(trace.getExecutionNanos());
+        s.mapping.enregistrer(trace.getMappingNanos());
+        s.totale.enregistrer(trace.getTotalNanos());
+        s.lignes.add(trace.getLignes());
+        if (!trace.isReussie()) {
+            s.echecs.increment();
+        }
+        if (trace.getTotalNanos() >= seuilLentNanos) {
+            s.lentes.increment();
+            journal.accept(String.format(
+                    "🐢 Requête lente %s (%.3f ms%s) : %s %s | obtention=%.3f ms exécution=%.3f ms mapping=%.3f ms lignes=%d",
+                    trace.getOperation(), trace.getTotalNanos() / 1e6, trace.isReussie() ? "" : ", échec",
+                    trace.getSql(), trace.getFormeParametres(), trace.getObtentionNanos() / 1e6,
+                    trace.getExecutionNanos() / 1e6, trace.getMappingNanos() / 1e6, trace.getLignes()));
+        }
+    }
+
+    private static long enNanos(long seuil, TimeUnit unite) {
+        if (seuil < 0) {
+            throw new IllegalArgumentException("seuil négatif : " + seuil);
+        }
+        return unite.toNanos(seuil);
+    }
+
+    private Series creerSeries(String operation) {
+        String etiquettes = "operation=\"" + operation + "\"";
+        return new Series(
+                registre.histogramme("requete_obtention_ms", etiquettes),
+                registre.histogramme("requete_execution_ms", etiquettes),
+                registre.histogramme("requete_mapping_ms", etiquettes),
+                registre.histogramme("requete_totale_ms", etiquettes),
+                registre.compteur("requete_lignes_total", etiquettes),
+                registre.compteur("requete_echecs_total", etiquettes),
+                registre.compteur("requete_lentes_total", etiquettes));
+    }
+
+    // 📈 Métriques d'une opération
+    private record Series(LatencyHistogram obtention, LatencyHistogram execution, LatencyHistogram mapping,
+                          LatencyHistogram totale, LongAdder lignes, LongAdder echecs, LongAdder lentes) {
+    }
+}
@@ -0,0 +1,34 @@
+// Déclaration du package dans lequel se trouve cette classe (le modèle de données).
+package model;
+
+// Version immuable d'un utilisateur, pour les lectures.
+//
+// Un Utilisateur est modifiable : un cache ou une lecture partagée entre plusieurs threads doit en
+// rendre une copie à chaque appel, sinon un appelant qui modifie son objet modifie celui des autres.
+// Un UtilisateurImmuable ne change jamais après sa construction (un record : champs finaux, construits
+// en une seule fois). Il peut donc être rendu tel quel à plusieurs appelants et lu depuis plusieurs
+// threads sans verrou ni copie.
+//
+// Pour une écriture (save, update...), enUtilisateur() donne un Utilisateur modifiable de mêmes valeurs.
+public record UtilisateurImmuable(int id, String nom, String email) {
+
+    // Version immuable d'un Utilisateur (null si l'utilisateur est null).
+    public static UtilisateurImmuable de(Utilisateur u) {
+        return u == null ? null : new UtilisateurImmuable(u.getId(), u.getNom(), u.getEmail());
+    }
+
+    // Nouvel Utilisateur modifiable, avec les mêmes valeurs.
+    public Utilisateur enUtilisateur() {
+        return new Utilisateur(id, nom, email);
+    }
+
+    // Copie avec un autre nom (l'objet d'origine ne change pas).
+    public UtilisateurImmuable avecNom(String nouveauNom) {
+        return new UtilisateurImmuable(id, nouveauNom, email);
+    }
+
+    // Copie avec un autre email (l'objet d'origine ne change pas).
+    public UtilisateurImmuable avecEmail(String nouvelEmail) {
+        return new UtilisateurImmuable(id, nom, nouvelEmail);
+    }
+}
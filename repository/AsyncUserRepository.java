@@ -0,0 +1,149 @@
+// 📦 Déclaration du package dans lequel se trouve cette classe
+package repository;
+
+// 📦 Importation de la classe Utilisateur
+import model.Utilisateur;
+
+// 📦 Interface de configuration de HikariCP : permet de lire la taille du pool
+import com.zaxxer.hikari.HikariConfigMXBean;
+
+// 📦 Importation de l'interface DataSource
+import javax.sql.DataSource;
+
+// 📦 Importation des classes JDBC et de concurrence
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+// ⚡ Version asynchrone de UserRepository.
+//  - chaque méthode retourne immédiatement un CompletableFuture ;
+//  - l'appel JDBC tourne sur un thread virtuel (Java 21) : un thread bloqué sur une requête
+//    ne monopolise pas de thread système, on peut en avoir des milliers ;
+//  - le nombre d'appels JDBC simultanés est limité à la taille du pool : les appels en trop
+//    attendent un permis (sur leur thread virtuel) au lieu de s'empiler dans getConnection() ;
+//  - une erreur SQL n'est pas affichée puis oubliée : le future se termine en erreur avec la SQLException
+//    (future.join() lève une CompletionException dont la cause est la SQLException) ;
+//  - les appels passent par les opérations redéfinissables de UserRepository (lireParId, enregistrer...) :
+//    autour d'un CachedUserRepository, les lectures utilisent le cache et les écritures l'invalident ;
+//    autour d'un CoalescingUserRepository, les lectures par ID sont regroupées.
+public class AsyncUserRepository implements AutoCloseable {
+
+    // 📏 Concurrence utilisée si la taille du pool ne peut pas être lue (taille par défaut de HikariDataSourceExample)
+    public static final int CONCURRENCE_PAR_DEFAUT = 10;
+
+    // 🧱 Repository synchrone qui fait le vrai travail JDBC
+    private final UserRepository repository;
+
+    // 🧵 Un thread virtuel par appel
+    private final ExecutorService executor;
+
+    // 🎫 Permis d'accès à la base : autant que de connexions dans le pool (file d'attente équitable)
+    private final Semaphore permis;
+
+    // 🏗️ Constructeur : la concurrence est alignée sur la taille du pool HikariCP si possible
+    public AsyncUserRepository(DataSource dataSource) {
+        this(new UserRepository(dataSource), concurrencePour(dataSource));
+    }
+
+    // 🏗️ Constructeur complet : repository à utiliser et nombre maximal d'appels JDBC simultanés
+    public AsyncUserRepository(UserRepository repository, int concurrenceMax) {
+        if (concurrenceMax <= 0) {
+            throw new IllegalArgumentException("concurrenceMax doit être positive : " + concurrenceMax);
+        }
+        this.repository = repository;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.permis = new Semaphore(concurrenceMax, true);
+    }
+
+    // 🔍 Lecture par ID ; le future contient 'null' si l'utilisateur n'existe pas
+    public CompletableFuture<Utilisateur> findById(int id) {
+        return executer(() -> repository.lireParId(id));
+    }
+
+    // 🔍🔍 Lecture de plusieurs ID (ordre de la demande, 'null' pour les absents)
+    public CompletableFuture<List<Utilisateur>> findByIds(int... ids) {
+        int[] copie = ids.clone();
+        return executer(() -> repository.lireParIds(copie));
+    }
+
+    // 📋 Lecture de toute la table
+    public CompletableFuture<List<Utilisateur>> findAll() {
+        return executer(repository::lireTout);
+    }
+
+    // ➕ Insertion ; l'ID généré est recopié sur l'objet avant la fin du future
+    public CompletableFuture<Boolean> save(Utilisateur u) {
+        return executer(() -> repository.enregistrer(u));
+    }
+
+    // ✏️ Mise à jour ; true si une ligne a été modifiée
+    public CompletableFuture<Boolean> update(Utilisateur u) {
+        return executer(() -> repository.mettreAJour(u));
+    }
+
+    // ❌ Suppression ; true si une ligne a été supprimée
+    public CompletableFuture<Boolean> delete(int id) {
+        return executer(() -> repository.effacer(id));
+    }
+
+    // 📦 Insertion en une transaction ; le future contient le nombre d'utilisateurs insérés
+    public CompletableFuture<Integer> saveAll(List<Utilisateur> utilisateurs) {
+        return executer(() -> repository.enregistrerTout(utilisateurs));
+    }
+
+    // 📊 Nombre d'appels en attente d'un permis (indicateur de saturation du pool)
+    public int getAppelsEnAttente() {
+        return permis.getQueueLength();
+    }
+
+    // 🚪 Refuse les nouveaux appels et attend la fin de ceux en cours
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    // 🧵 Lance le travail sur un thread virtuel, une fois un permis obtenu
+    private <T> CompletableFuture<T> executer(TravailSql<T> travail) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    permis.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.completeExceptionally(e);
+                    return;
+                }
+                try {
+                    future.complete(travail.executer());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    permis.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 🚪 Repository fermé
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    // 🎫 Taille du pool HikariCP, sinon la valeur par défaut
+    private static int concurrencePour(DataSource dataSource) {
+        if (dataSource instanceof HikariConfigMXBean hikari) {
+            return hikari.getMaximumPoolSize();
+        }
+        return CONCURRENCE_PAR_DEFAUT;
+    }
+
+    // 🧩 Travail JDBC qui peut lever une SQLException
+    @FunctionalInterface
+    private interface TravailSql<T> {
+        T executer() throws SQLException;
+    }
+}
@@ -0,0 +1,115 @@
+// 📦 Déclaration du package dans lequel se trouve cette classe
+package repository;
+
+// 📦 Importation des classes utilitaires Java
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// 🧾 Bilan d'un chargement en masse effectué par UserBulkLoader
+public class BulkLoadResult {
+
+    // ✅ Nombre de lignes effectivement insérées (et validées)
+    private long lignesInserees;
+
+    // ❌ Liste des paquets qui ont échoué
+    private final List<EchecChunk> echecs = new ArrayList<>();
+
+    // ⏱️ Durée totale du chargement, en nanosecondes
+    private long dureeNanos;
+
+    // Les méthodes de remplissage sont réservées au package (utilisées par UserBulkLoader)
+    void ajouterLignes(int lignes) {
+        lignesInserees += lignes;
+    }
+
+    void ajouterEchec(EchecChunk echec) {
+        echecs.add(echec);
+    }
+
+    // 🔒 En mode GLOBAL, un échec annule tout : plus aucune ligne n'est insérée
+    void annulerTout() {
+        lignesInserees = 0;
+    }
+
+    BulkLoadResult terminer(long dureeNanos) {
+        this.dureeNanos = dureeNanos;
+        return this;
+    }
+
+    // 🔎 Getter : nombre de lignes insérées
+    public long getLignesInserees() {
+        return lignesInserees;
+    }
+
+    // 🔎 Getter : paquets en échec (liste non modifiable)
+    public List<EchecChunk> getEchecs() {
+        return Collections.unmodifiableList(echecs);
+    }
+
+    // ✅ true si aucun paquet n'a échoué
+    public boolean isSucces() {
+        return echecs.isEmpty();
+    }
+
+    // ⏱️ Durée du chargement en millisecondes
+    public long getDureeMillis() {
+        return dureeNanos / 1_000_000;
+    }
+
+    // 🚀 Débit obtenu, en lignes par seconde
+    public double getLignesParSeconde() {
+        return dureeNanos == 0 ? 0 : lignesInserees * 1_000_000_000.0 / dureeNanos;
+    }
+
+    @Override
+    public String toString() {
+        return lignesInserees + " lignes insérées en " + getDureeMillis() + " ms ("
+                + Math.round(getLignesParSeconde()) + " lignes/s), " + echecs.size() + " paquet(s) en échec";
+    }
+
+    // ❌ Description d'un paquet en échec
+    public static class EchecChunk {
+
+        // 🔢 Numéro du paquet (0 pour le premier, -1 si l'erreur ne concerne pas un paquet précis)
+        private final int indexChunk;
+
+        // 👉 Position dans la liste d'origine du premier utilisateur du paquet
+        private final int premiereLigne;
+
+        // 📏 Nombre d'utilisateurs dans le paquet
+        private final int nombreLignes;
+
+        // 💬 Message de l'erreur SQL
+        private final String message;
+
+        public EchecChunk(int indexChunk, int premiereLigne, int nombreLignes, String message) {
+            this.indexChunk = indexChunk;
+            this.premiereLigne = premiereLigne;
+            this.nombreLignes = nombreLignes;
+            this.message = message;
+        }
+
+        public int getIndexChunk() {
+            return indexChunk;
+        }
+
+        public int getPremiereLigne() {
+            return premiereLigne;
+        }
+
+        public int getNombreLignes() {
+            return nombreLignes;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "paquet " + indexChunk + " (lignes " + premiereLigne + " à "
+                    + (premiereLigne + nombreLignes - 1) + ") : " + message;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+// 📦 Déclaration du package dans lequel se trouve cette classe
+package repository;
+
+// 📦 Importation de la classe Utilisateur (et de sa version immuable) et du cache mémoire
+import model.Utilisateur;
+import model.UtilisateurImmuable;
+import repository.cache.UserCache;
+
+// 📦 Importation de l'interface DataSource
+import javax.sql.DataSource;
+
+// 📦 Importation des classes JDBC et utilitaires
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 🧠 UserRepository avec un cache de lecture ("read-through") devant findById.
+// Une lecture servie par le cache n'emprunte aucune connexion au pool. findById rend une copie
+// modifiable de l'entrée ; findByIdImmuable rend l'entrée elle-même, partagée par tous les lecteurs.
+// Les écritures faites via ce repository mettent le cache à jour : save et saveAll y placent les nouveaux
+// utilisateurs (leur ID vient d'être créé, aucune autre écriture ne peut le viser) ; update, delete, upsert
+// et upsertAll invalident l'ID, et la lecture suivante le relit sous jeton. Y ranger la valeur écrite
+// ferait gagner le dernier thread arrivé au cache, pas le dernier commit : A valide v1, B valide v2,
+// B range v2 puis A range v1, et le cache sert v1 pendant tout le TTL.
+// Dans une unité de travail (UnitOfWork), le cache est mis de côté : les lectures vont en base sans le
+// remplir (elles peuvent voir des écritures non validées de l'unité) et les ID écrits ne sont invalidés
+// qu'après valider(). Les autres threads ne voient ainsi jamais de données non validées.
+// ⚠️ Les écritures faites par d'autres processus ne sont vues qu'après expiration du TTL.
+public class CachedUserRepository extends UserRepository {
+
+    // 📏 Réglages par défaut : 10 000 utilisateurs, 5 minutes de TTL, 30 secondes pour les absents
+    public static final int TAILLE_CACHE_PAR_DEFAUT = 10_000;
+    public static final long TTL_SECONDES_PAR_DEFAUT = 300;
+    public static final long TTL_NEGATIF_SECONDES_PAR_DEFAUT = 30;
+
+    // 🧠 Le cache lui-même
+    private final UserCache cache;
+
+    // 🏗️ Constructeur avec les réglages par défaut
+    public CachedUserRepository(DataSource dataSource) {
+        this(dataSource, new UserCache(TAILLE_CACHE_PAR_DEFAUT,
+                TTL_SECONDES_PAR_DEFAUT, TTL_NEGATIF_SECONDES_PAR_DEFAUT, TimeUnit.SECONDS));
+    }
+
+    // 🏗️ Constructeur avec un cache configuré par l'appelant
+    public CachedUserRepository(DataSource dataSource, UserCache cache) {
+        super(dataSource);
+        this.cache = cache;
+    }
+
+    // 📊 Accès au cache (compteurs, invalidation manuelle)
+    public UserCache getCache() {
+        return cache;
+    }
+
+    // 🔍 Lecture par ID (findById, et AsyncUserRepository) : d'abord le cache, puis la base en cas de miss
+    @Override
+    protected Utilisateur lireParId(int id) throws SQLException {
+        if (dansUniteDeTravail()) {
+            return super.lireParId(id);
+        }
+        UserCache.Entree entree = cache.lire(id);
+        if (entree != null) {
+            // ✅ Hit (positif ou négatif) : aucun aller-retour vers la base
+            return entree.copie();
+        }
+
+        // 🎟️ Jeton pris avant la lecture : si une écriture touche cet ID pendant la lecture,
+        // le résultat (peut-être lu avant elle) n'est pas mis en cache
+        // ❌ Une erreur SQL remonte avant toute mise en cache : elle n'est jamais mise en cache
+        long jeton = cache.jeton(id);
+        Utilisateur u = chercherParId(id);
+        if (u != null) {
+            cache.mettre(u, jeton);
+        } else {
+            // 🚫 L'utilisateur n'existe pas : on le mémorise pour ne pas redemander
+            cache.mettreAbsent(id, jeton);
+        }
+        return u;
+    }
+
+    // 🧊 Lecture par ID en utilisateur immuable : un hit rend l'objet du cache tel quel (ni copie
+    // ni allocation) ; un miss le lit en base et le range sans copie
+    @Override
+    public UtilisateurImmuable findByIdImmuable(int id) {
+        if (dansUniteDeTravail()) {
+            return super.findByIdImmuable(id);
+        }
+        UserCache.Entree entree = cache.lire(id);
+        if (entree != null) {
+            return entree.getUtilisateur();
+        }
+
+        long jeton = cache.jeton(id);
+        try {
+            UtilisateurImmuable u = chercherImmuableParId(id);
+            if (u != null) {
+                cache.mettre(u, jeton);
+            } else {
+                cache.mettreAbsent(id, jeton);
+            }
+            return u;
+        } catch (SQLException e) {
+            System.out.println("❌ Erreur dans findByIdImmuable : " + e.getMessage());
+            return null;
+        }
+    }
+
+    // 🔍🔍 Lecture de plusieurs ID : les hits sont servis par le cache,
+    // seuls les ID manquants partent vers la base (en une seule série de requêtes IN)
+    @Override
+    protected List<Utilisateur> lireParIds(int... ids) throws SQLException {
+        if (dansUniteDeTravail()) {
+            return super.lireParIds(ids);
+        }
+        List<Utilisateur> resultat = new ArrayList<>(ids.length);
+        int[] manquants = new int[ids.length];
+        int nombreManquants = 0;
+        for (int id : ids) {
+            UserCache.Entree entree = cache.lire(id);
+            if (entree == null) {
+                manquants[nombreManquants++] = id;
+            }
+            resultat.add(entree == null ? null : entree.copie());
+        }
+        if (nombreManquants == 0) {
+            return resultat;
+        }
+
+        // 🗄️ Lecture des ID manquants, mis en cache (positif ou négatif) puis replacés à leur position
+        // (une erreur SQL remonte avant toute mise en cache)
+        int[] aLire = Arrays.copyOf(manquants, nombreManquants);
+        long[] jetons = new long[aLire.length];
+        for (int i = 0; i < aLire.length; i++) {
+            jetons[i] = cache.jeton(aLire[i]);
+        }
+        List<Utilisateur> lus = chercherParIds(aLire);
+        for (int i = 0; i < aLire.length; i++) {
+            Utilisateur u = lus.get(i);
+            if (u != null) {
+                cache.mettre(u, jetons[i]);
+            } else {
+                cache.mettreAbsent(aLire[i], jetons[i]);
+            }
+        }
+        for (int i = 0, j = 0; i < ids.length && j < aLire.length; i++) {
+            if (resultat.get(i) == null && ids[i] == aLire[j]) {
+                resultat.set(i, lus.get(j++));
+            }
+        }
+        return resultat;
+    }
+
+    // ➕ Après une insertion réussie, le nouvel utilisateur est placé en cache
+    // (ce qui remplace une éventuelle entrée négative pour son ID)
+    @Override
+    protected boolean enregistrer(Utilisateur u) throws SQLException {
+        boolean ok = super.enregistrer(u);
+        if (dansUniteDeTravail()) {
+            invaliderApresValidation(u);
+        } else if (ok) {
+            cache.mettre(u);
+        }
+        return ok;
+    }
+
+    // ✏️ Après une mise à jour (réussie ou non), l'ID est invalidé : la prochaine lecture relit la base
+    @Override
+    protected boolean mettreAJour(Utilisateur u) throws SQLException {
+        try {
+            return super.mettreAJour(u);
+        } finally {
+            invalider(u);
+        }
+    }
+
+    // ❌ Après une suppression (réussie ou non), l'ID est retiré du cache
+    @Override
+    protected boolean effacer(int id) throws SQLException {
+        try {
+            return super.effacer(id);
+        } finally {
+            if (dansUniteDeTravail()) {
+                apresValidation(() -> cache.invalider(id));
+            } else {
+                cache.invalider(id);
+            }
+        }
+    }
+
+    // 📦 Après une insertion en lot réussie, tous les nouveaux utilisateurs sont placés en cache
+    @Override
+    protected int enregistrerTout(List<Utilisateur> utilisateurs) throws SQLException {
+        int inseres = super.enregistrerTout(utilisateurs);
+        if (dansUniteDeTravail()) {
+            utilisateurs.forEach(this::invaliderApresValidation);
+        } else {
+            for (Utilisateur u : utilisateurs) {
+                // 🔑 Seuls les utilisateurs dont l'ID généré a été récupéré peuvent être indexés
+                if (u.getId() > 0) {
+                    cache.mettre(u);
+                }
+            }
+        }
+        return inseres;
+    }
+
+    // 🔀 Après un upsert, l'ID est invalidé (une éventuelle entrée négative part avec lui) : la ligne
+    // peut aussi être écrite par un upsert concurrent sur le même email
+    @Override
+    public UpsertResult upsert(Utilisateur u) {
+        UpsertResult resultat = super.upsert(u);
+        invalider(u);
+        return resultat;
+    }
+
+    // 🔀 Même règle pour chaque utilisateur de la liste
+    @Override
+    public List<UpsertResult> upsertAll(List<Utilisateur> utilisateurs) {
+        List<UpsertResult> resultats = super.upsertAll(utilisateurs);
+        utilisateurs.forEach(this::invalider);
+        return resultats;
+    }
+
+    // 🧹 Utilisateur écrit (ou dont l'écriture a échoué) : son ID est retiré du cache, maintenant ou
+    // après le commit de l'unité de travail en cours
+    private void invalider(Utilisateur u) {
+        if (dansUniteDeTravail()) {
+            invaliderApresValidation(u);
+        } else if (u.getId() > 0) {
+            cache.invalider(u.getId());
+        }
+    }
+
+    // 🧺 Écriture dans une unité de travail : le cache n'est pas touché avant le commit, l'ID écrit est
+    // invalidé juste après (rien à faire si l'unité est annulée)
+    private void invaliderApresValidation(Utilisateur u) {
+        int id = u.getId();
+        if (id > 0) {
+            apresValidation(() -> cache.invalider(id));
+        }
+    }
+}
@@ -0,0 +1,348 @@
+// 📦 Déclaration du package dans lequel se trouve cette classe
+package repository;
+
+// 📦 Importation des classes Utilisateur et UtilisateurImmuable, et de la table à clés int
+import model.Utilisateur;
+import model.UtilisateurImmuable;
+import repository.cache.ConcurrentIntObjectMap;
+
+// 📦 Importation de l'interface DataSource
+import javax.sql.DataSource;
+
+// 📦 Importation des classes JDBC
+import java.sql.SQLException;
+
+// 📦 Importation des classes utilitaires et de concurrence
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// 🪢 UserRepository qui regroupe les lectures par ID faites en même temps ("single-flight").
+//
+// Quand un utilisateur très demandé sort des caches, des dizaines de threads appellent findById
+// pour le même ID au même instant : chacun emprunte une connexion et exécute la même requête, ce qui
+// peut vider le pool. Ici :
+//  - single-flight : un seul appel par ID est "en vol" ; les appels suivants pour cet ID attendent
+//    son résultat au lieu de lancer leur propre requête ;
+//  - micro-lots : les ID distincts demandés pendant une courte fenêtre (FENETRE_MICROS_PAR_DEFAUT)
+//    partent ensemble dans une requête "WHERE id IN (...)" (256 ID au plus), exécutée par un thread
+//    dédié ; au plus 'lotsEnParallele' lots, donc connexions, sont en cours à la fois.
+// Chaque appelant reçoit sa propre copie de l'utilisateur. Une écriture faite par ce repository
+// détache le vol en cours pour son ID : un appel qui suit l'écriture ne reçoit pas une lecture
+// commencée avant elle. Dans une unité de travail (UnitOfWork), les lectures ne sont pas regroupées :
+// elles passent par la connexion de l'unité, qui voit ses propres écritures pas encore validées.
+//
+// Compteurs : getAppels (appels reçus), getRegroupes (appels servis par un vol déjà en cours),
+// getRequetes (lots envoyés à la base), getTailleMoyenneLot (ID par requête).
+public final class CoalescingUserRepository extends UserRepository implements AutoCloseable {
+
+    // 📏 Réglages par défaut : fenêtre de 200 µs, 4 lots en parallèle
+    public static final long FENETRE_MICROS_PAR_DEFAUT = 200;
+    public static final int LOTS_EN_PARALLELE_PAR_DEFAUT = 4;
+
+    // 📏 Nombre maximal d'ID par lot (le plus grand lot "IN" de UserRepository)
+    public static final int TAILLE_LOT_MAX = 256;
+
+    // ✈️ Lecture en cours pour chaque ID
+    private final ConcurrentIntObjectMap<CompletableFuture<Utilisateur>> enVol = new ConcurrentIntObjectMap<>();
+
+    // 📬 Lectures à regrouper dans le prochain lot
+    private final BlockingQueue<Demande> file = new LinkedBlockingQueue<>();
+
+    // ⏱️ Fenêtre de regroupement et nombre de lots simultanés
+    private final long fenetreNanos;
+    private final Semaphore lotsEnCours;
+
+    // 🧵 Thread qui forme les lots
+    private final Thread regroupeur;
+
+    // 🚪 Passe à true à la fermeture
+    private volatile boolean ferme;
+
+    // 📊 Compteurs
+    private final LongAdder appels = new LongAdder();
+    private final LongAdder regroupes = new LongAdder();
+    private final LongAdder requetes = new LongAdder();
+    private final LongAdder idsLus = new LongAdder();
+
+    // 🏗️ Constructeur avec les réglages par défaut
+    public CoalescingUserRepository(DataSource dataSource) {
+        this(dataSource, FENETRE_MICROS_PAR_DEFAUT, LOTS_EN_PARALLELE_PAR_DEFAUT);
+    }
+
+    // 🏗️ Constructeur complet ; une fenêtre de 0 ne regroupe que les demandes déjà en file
+    public CoalescingUserRepository(DataSource dataSource, long fenetreMicros, int lotsEnParallele) {
+        super(dataSource);
+        if (fenetreMicros < 0 || lotsEnParallele <= 0) {
+            throw new IllegalArgumentException("réglages invalides");
+        }
+        this.fenetreNanos = TimeUnit.MICROSECONDS.toNanos(fenetreMicros);
+        this.lotsEnCours = new Semaphore(lotsEnParallele);
+        this.regroupeur = new Thread(this::boucle, "single-flight-utilisateurs");
+        this.regroupeur.setDaemon(true);
+        this.regroupeur.start();
+    }
+
+    // 🔍 Lecture par ID (findById, et AsyncUserRepository), partagée avec les appels concurrents pour le même ID
+    @Override
+    protected Utilisateur lireParId(int id) throws SQLException {
+        if (ferme || dansUniteDeTravail()) {
+            return super.lireParId(id);
+        }
+        try {
+            return copie(rejoindre(id).join());
+        } catch (CompletionException e) {
+            // ❌ Même contrat que UserRepository : l'erreur remonte, findById l'affiche et retourne null
+            throw erreur(e);
+        }
+    }
+
+    // 🧊 Même lecture partagée, rendue en utilisateur immuable
+    @Override
+    public UtilisateurImmuable findByIdImmuable(int id) {
+        if (ferme || dansUniteDeTravail()) {
+            return super.findByIdImmuable(id);
+        }
+        try {
+            return UtilisateurImmuable.de(rejoindre(id).join());
+        } catch (CompletionException e) {
+            System.out.println("❌ Erreur dans findByIdImmuable : " + e.getCause().getMessage());
+            return null;
+        }
+    }
+
+    // 🔍🔍 Lecture de plusieurs ID : chacun rejoint le vol en cours ou part dans le prochain lot.
+    // Si un lot échoue, l'erreur remonte (findByIds rend alors des null, comme UserRepository).
+    @Override
+    protected List<Utilisateur> lireParIds(int... ids) throws SQLException {
+        if (ferme || dansUniteDeTravail()) {
+            return super.lireParIds(ids);
+        }
+        List<CompletableFuture<Utilisateur>> vols = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            vols.add(rejoindre(id));
+        }
+        List<Utilisateur> resultat = new ArrayList<>(ids.length);
+        for (CompletableFuture<Utilisateur> vol : vols) {
+            try {
+                resultat.add(copie(vol.join()));
+            } catch (CompletionException e) {
+                throw erreur(e);
+            }
+        }
+        return resultat;
+    }
+
+    // ❌ Erreur d'un vol, propre à cet appelant : la SQLException du lot est partagée par tous ses appelants,
+    // chacun reçoit la sienne (même message, même état SQL), avec celle du lot pour cause
+    private static SQLException erreur(CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof SQLException sql) {
+            return new SQLException(sql.getMessage(), sql.getSQLState(), sql.getErrorCode(), sql);
+        }
+        if (cause instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        return new SQLException(cause);
+    }
+
+    // ✈️ Vol en cours pour cet ID, ou nouveau vol déposé dans la file
+    private CompletableFuture<Utilisateur> rejoindre(int id) {
+        appels.increment();
+        CompletableFuture<Utilisateur> vol = enVol.get(id);
+        if (vol == null) {
+            CompletableFuture<Utilisateur> nouveau = new CompletableFuture<>();
+            vol = enVol.putIfAbsent(id, nouveau);
+            if (vol == null) {
+                Demande demande = new Demande(id, nouveau);
+                file.add(demande);
+                // 🚪 close() a pu passer entre la vérification de 'ferme' et le dépôt : le regroupeur a peut-être
+                // déjà vidé la file et terminé. Si la demande y est encore, personne ne la traitera : on la lit ici.
+                // Sinon, le regroupeur l'a prise et complétera le vol.
+                if (ferme && file.remove(demande)) {
+                    executerLot(List.of(demande));
+                }
+                return nouveau;
+            }
+        }
+        regroupes.increment();
+        return vol;
+    }
+
+    // 🔁 Boucle du thread regroupeur : attendre une demande, ramasser la fenêtre, lancer le lot
+    private void boucle() {
+        while (!ferme || !file.isEmpty()) {
+            List<Demande> lot = new ArrayList<>();
+            try {
+                Demande premiere = file.poll(100, TimeUnit.MILLISECONDS);
+                if (premiere == null) {
+                    continue;
+                }
+                lot.add(premiere);
+
+                // ⏱️ Fenêtre de regroupement : on attend d'autres demandes jusqu'à l'échéance
+                long echeance = System.nanoTime() + fenetreNanos;
+                while (lot.size() < TAILLE_LOT_MAX) {
+                    long reste = echeance - System.nanoTime();
+                    Demande suivante = reste > 0 ? file.poll(reste, TimeUnit.NANOSECONDS) : file.poll();
+                    if (suivante == null) {
+                        break;
+                    }
+                    lot.add(suivante);
+                }
+
+                // 🚦 Au plus 'lotsEnParallele' lots en cours : on attend qu'une place se libère
+                lotsEnCours.acquire();
+            } catch (InterruptedException e) {
+                // 🚪 Interruption : on exécute le lot en cours sur ce thread puis on s'arrête
+                ferme = true;
+                executerLot(lot);
+                continue;
+            }
+            Thread.startVirtualThread(() -> {
+                try {
+                    executerLot(lot);
+                } finally {
+                    lotsEnCours.release();
+                }
+            });
+        }
+
+        // 🚪 Demandes déposées pendant l'arrêt : exécutées ici, pour ne laisser aucun appelant en attente
+        List<Demande> restantes = new ArrayList<>();
+        file.drainTo(restantes);
+        executerLot(restantes);
+    }
+
+    // 📦 Un lot : une série de requêtes IN sur une connexion, puis chaque vol reçoit son résultat
+    private void executerLot(List<Demande> lot) {
+        if (lot.isEmpty()) {
+            return;
+        }
+        requetes.increment();
+        idsLus.add(lot.size());
+        int[] ids = new int[lot.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = lot.get(i).id;
+        }
+        try {
+            List<Utilisateur> lus = chercherParIds(ids);
+            for (int i = 0; i < ids.length; i++) {
+                // 🛬 Le vol est retiré avant d'être complété : un appel arrivé ensuite relance une lecture
+                Demande demande = lot.get(i);
+                enVol.remove(demande.id, demande.resultat);
+                demande.resultat.complete(lus.get(i));
+            }
+        } catch (SQLException | RuntimeException e) {
+            for (Demande demande : lot) {
+                enVol.remove(demande.id, demande.resultat);
+                demande.resultat.completeExceptionally(e);
+            }
+        }
+    }
+
+    // ✏️ Les écritures détachent le vol en cours pour l'ID écrit
+    @Override
+    protected boolean enregistrer(Utilisateur u) throws SQLException {
+        try {
+            return super.enregistrer(u);
+        } finally {
+            enVol.remove(u.getId());
+        }
+    }
+
+    @Override
+    protected boolean mettreAJour(Utilisateur u) throws SQLException {
+        try {
+            return super.mettreAJour(u);
+        } finally {
+            enVol.remove(u.getId());
+        }
+    }
+
+    @Override
+    protected boolean effacer(int id) throws SQLException {
+        try {
+            return super.effacer(id);
+        } finally {
+            enVol.remove(id);
+        }
+    }
+
+    @Override
+    public UpsertResult upsert(Utilisateur u) {
+        UpsertResult resultat = super.upsert(u);
+        enVol.remove(u.getId());
+        return resultat;
+    }
+
+    @Override
+    public List<UpsertResult> upsertAll(List<Utilisateur> utilisateurs) {
+        List<UpsertResult> resultats = super.upsertAll(utilisateurs);
+        for (Utilisateur u : utilisateurs) {
+            enVol.remove(u.getId());
+        }
+        return resultats;
+    }
+
+    // 🧬 Copie propre à chaque appelant : un appelant qui modifie son objet ne touche pas les autres
+    private static Utilisateur copie(Utilisateur u) {
+        return u == null ? null : new Utilisateur(u.getId(), u.getNom(), u.getEmail());
+    }
+
+    // 📊 Compteurs
+    public long getAppels() {
+        return appels.sum();
+    }
+
+    public long getRegroupes() {
+        return regroupes.sum();
+    }
+
+    public long getRequetes() {
+        return requetes.sum();
+    }
+
+    public long getIdsLus() {
+        return idsLus.sum();
+    }
+
+    // 📈 Nombre moyen d'ID par requête envoyée à la base
+    public double getTailleMoyenneLot() {
+        long n = getRequetes();
+        return n == 0 ? 0 : (double) getIdsLus() / n;
+    }
+
+    // ✈️ Nombre de lectures actuellement en vol
+    public int getEnVol() {
+        return enVol.taille();
+    }
+
+    // 🚪 Traite les demandes déjà en file puis arrête le thread ; les appels suivants lisent directement
+    @Override
+    public void close() {
+        ferme = true;
+        try {
+            regroupeur.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 📄 Une lecture à faire et le future partagé par ses appelants
+    private static final class Demande {
+        final int id;
+        final CompletableFuture<Utilisateur> resultat;
+
+        Demande(int id, CompletableFuture<Utilisateur> resultat) {
+            this.id = id;
+            this.resultat = resultat;
+        }
+    }
+}
@@ -0,0 +1,428 @@
+// 📦 Déclaration du package dans lequel se trouve cette classe
+package repository;
+
+// 📦 Importation de la classe Utilisateur
+import model.Utilisateur;
+
+// 📦 Importation de l'interface DataSource
+import javax.sql.DataSource;
+
+// 📦 Importation des classes JDBC
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// 📦 Importation des classes utilitaires et de concurrence
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+// 📮 Écritures regroupées ("group commit") devant la table "utilisateurs".
+//
+// Quand beaucoup de threads font de petites écritures en même temps, chacune emprunte une connexion
+// et paie son propre commit. Ici, les écritures sont déposées dans une file ; un thread dédié les
+// ramasse pendant une courte fenêtre (ou jusqu'à une taille maximale), les envoie en batch JDBC
+// sur une seule connexion et valide le tout en une seule transaction.
+// Chaque appelant reçoit un CompletableFuture avec SON résultat (et l'ID généré pour une insertion).
+//
+// L'ordre de soumission est respecté : le lot est découpé en suites consécutives de même type
+// (INSERT, UPDATE, DELETE) exécutées dans l'ordre. Si le lot échoue, il est annulé puis chaque
+// écriture est rejouée seule : une écriture fautive n'entraîne pas les autres dans son échec.
+// Le nom et l'email sont copiés à la soumission : l'appelant peut modifier ou réutiliser son objet dès que
+// save()/update() a rendu son future. L'objet n'est gardé que pour y recopier l'ID généré d'une insertion.
+//
+// ⚠️ Cache : ces écritures ne passent pas par un CachedUserRepository. Sans setInvalidation, un
+// CachedUserRepository ou un UserCache du même processus garde l'ancienne valeur jusqu'à son TTL ;
+// avec setInvalidation(repository.getCache()::invalider), chaque ID écrit est invalidé après le commit
+// de son lot, avant que le future de l'appelant ne soit complété.
+public class GroupCommitUserWriter implements AutoCloseable {
+
+    // 📏 Réglages par défaut : lots de 500 écritures au plus, fenêtre de 2 ms, file de 10 000
+    public static final int TAILLE_LOT_PAR_DEFAUT = 500;
+    public static final long FENETRE_MICROS_PAR_DEFAUT = 2_000;
+    public static final int CAPACITE_FILE_PAR_DEFAUT = 10_000;
+
+    // 🧭 Types d'écriture
+    private enum Type { INSERT, UPDATE, DELETE }
+
+    // 🔐 Source des connexions
+    private final DataSource dataSource;
+
+    // 📏 Taille maximale d'un lot et durée de la fenêtre de regroupement
+    private final int tailleLotMax;
+    private final long fenetreNanos;
+
+    // 📬 File des écritures en attente (bornée : un appelant attend si elle est pleine)
+    private final BlockingQueue<Ecriture> file;
+
+    // 🧵 Thread qui vide la file
+    private final Thread ecrivain;
+
+    // 🚪 Passe à true à la fermeture
+    private volatile boolean ferme;
+
+    // 📰 true : chaque lot note aussi ses changements dans la table outbox (voir UserOutbox)
+    private volatile boolean outbox;
+
+    // 🧹 Appelé avec chaque ID écrit, après le commit (invalidation d'un cache) ; null : aucun
+    private volatile IntConsumer invalidation;
+
+    // 📊 Compteurs
+    private final LongAdder lots = new LongAdder();
+    private final LongAdder ecritures = new LongAdder();
+    private final LongAdder lotsRejoues = new LongAdder();
+
+    // 🏗️ Constructeur avec les réglages par défaut
+    public GroupCommitUserWriter(DataSource dataSource) {
+        this(dataSource, TAILLE_LOT_PAR_DEFAUT, FENETRE_MICROS_PAR_DEFAUT, CAPACITE_FILE_PAR_DEFAUT);
+    }
+
+    // 🏗️ Constructeur complet
+    public GroupCommitUserWriter(DataSource dataSource, int tailleLotMax, long fenetreMicros, int capaciteFile) {
+        if (tailleLotMax <= 0 || fenetreMicros < 0 || capaciteFile <= 0) {
+            throw new IllegalArgumentException("réglages invalides");
+        }
+        this.dataSource = dataSource;
+        this.tailleLotMax = tailleLotMax;
+        this.fenetreNanos = TimeUnit.MICROSECONDS.toNanos(fenetreMicros);
+        this.file = new ArrayBlockingQueue<>(capaciteFile);
+        this.ecrivain = new Thread(this::boucle, "group-commit-utilisateurs");
+        this.ecrivain.setDaemon(true);
+        this.ecrivain.start();
+    }
+
+    // ➕ Insertion ; le future vaut true une fois la ligne validée, et l'ID est alors recopié sur l'objet
+    public CompletableFuture<Boolean> save(Utilisateur u) {
+        return soumettre(new Ecriture(Type.INSERT, u, u.getId(), u.getNom(), u.getEmail()));
+    }
+
+    // ✏️ Mise à jour ; le future vaut true si une ligne a été modifiée
+    public CompletableFuture<Boolean> update(Utilisateur u) {
+        return soumettre(new Ecriture(Type.UPDATE, null, u.getId(), u.getNom(), u.getEmail()));
+    }
+
+    // ❌ Suppression ; le future vaut true si une ligne a été supprimée
+    public CompletableFuture<Boolean> delete(int id) {
+        return soumettre(new Ecriture(Type.DELETE, null, id, null, null));
+    }
+
+    // 📰 Active (ou coupe) l'outbox : les utilisateurs écrits par un lot sont notés dans
+    // "utilisateurs_changements" avant son commit, donc validés ou annulés avec lui
+    public void setOutbox(boolean outbox) {
+        this.outbox = outbox;
+    }
+
+    // 🧹 Branche l'invalidation d'un cache (par exemple cachedRepository.getCache()::invalider) :
+    // chaque ID écrit lui est passé après le commit, avant la fin du future de l'appelant
+    public void setInvalidation(IntConsumer invalidation) {
+        this.invalidation = invalidation;
+    }
+
+    // 📊 Nombre de lots validés, d'écritures traitées et de lots rejoués un par un après un échec
+    public long getLots() {
+        return lots.sum();
+    }
+
+    public long getEcritures() {
+        return ecritures.sum();
+    }
+
+    public long getLotsRejoues() {
+        return lotsRejoues.sum();
+    }
+
+    // 📈 Taille moyenne des lots : plus elle est grande, plus on a économisé de commits
+    public double getTailleMoyenneLot() {
+        long n = getLots();
+        return n == 0 ? 0 : (double) getEcritures() / n;
+    }
+
+    // 🚪 Refuse les nouvelles écritures, traite celles déjà en file puis arrête le thread
+    @Override
+    public void close() {
+        ferme = true;
+        try {
+            ecrivain.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 📬 Dépose une écriture dans la file
+    private CompletableFuture<Boolean> soumettre(Ecriture ecriture) {
+        if (ferme) {
+            ecriture.resultat.completeExceptionally(new IllegalStateException("GroupCommitUserWriter fermé"));
+            return ecriture.resultat;
+        }
+        try {
+            // ⏳ File pleine : on attend une place, sans rester bloqué si le writer est fermé entre-temps
+            while (!file.offer(ecriture, 100, TimeUnit.MILLISECONDS)) {
+                if (ferme) {
+                    ecriture.resultat.completeExceptionally(new IllegalStateException("GroupCommitUserWriter fermé"));
+                    return ecriture.resultat;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ecriture.resultat.completeExceptionally(e);
+            return ecriture.resultat;
+        }
+
+        // 🚪 close() a pu passer entre la vérification de 'ferme' et le dépôt : le thread écrivain a peut-être
+        // déjà vidé la file et terminé. Si l'écriture y est encore, personne ne la traitera : on la retire.
+        // Sinon, le thread l'a prise et complétera son future.
+        if (ferme && file.remove(ecriture)) {
+            ecriture.resultat.completeExceptionally(new IllegalStateException("GroupCommitUserWriter fermé"));
+        }
+        return ecriture.resultat;
+    }
+
+    // 🔁 Boucle du thread écrivain : attendre une écriture, ramasser la fenêtre, exécuter le lot
+    private void boucle() {
+        List<Ecriture> lot = new ArrayList<>(tailleLotMax);
+        while (!ferme || !file.isEmpty()) {
+            try {
+                Ecriture premiere = file.poll(100, TimeUnit.MILLISECONDS);
+                if (premiere == null) {
+                    continue;
+                }
+                lot.add(premiere);
+
+                // ⏱️ Fenêtre de regroupement : on attend d'autres écritures jusqu'à l'échéance
+                long echeance = System.nanoTime() + fenetreNanos;
+                while (lot.size() < tailleLotMax) {
+                    long reste = echeance - System.nanoTime();
+                    Ecriture suivante = reste > 0 ? file.poll(reste, TimeUnit.NANOSECONDS) : file.poll();
+                    if (suivante == null) {
+                        break;
+                    }
+                    lot.add(suivante);
+                }
+            } catch (InterruptedException e) {
+                // 🚪 Interruption : on termine le lot en cours puis on s'arrête
+                ferme = true;
+            }
+
+            if (!lot.isEmpty()) {
+                executerLot(lot);
+                lot.clear();
+            }
+        }
+
+        // 🚪 Écritures déposées pendant l'arrêt : elles ne seront pas exécutées
+        for (Ecriture restante; (restante = file.poll()) != null; ) {
+            restante.resultat.completeExceptionally(new IllegalStateException("GroupCommitUserWriter fermé"));
+        }
+    }
+
+    // 📦 Exécute un lot en une transaction ; en cas d'échec, rejoue chaque écriture seule
+    private void executerLot(List<Ecriture> lot) {
+        lots.increment();
+        ecritures.add(lot.size());
+        try (Connection conn = dataSource.getConnection()) {
+            boolean[] resultats = new boolean[lot.size()];
+            conn.setAutoCommit(false);
+            try {
+                // 🧩 Suites consécutives de même type, exécutées dans l'ordre de soumission
+                int debut = 0;
+                while (debut < lot.size()) {
+                    int fin = debut + 1;
+                    while (fin < lot.size() && lot.get(fin).type == lot.get(debut).type) {
+                        fin++;
+                    }
+                    executerSuite(conn, lot.subList(debut, fin), resultats, debut);
+                    debut = fin;
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                annuler(conn);
+                for (Ecriture ecriture : lot) {
+                    if (ecriture.type == Type.INSERT) {
+                        ecriture.utilisateur.setId(ecriture.id);
+                    }
+                }
+                lotsRejoues.increment();
+                rejouerUneParUne(conn, lot);
+                retablirAutoCommit(conn);
+                return;
+            }
+
+            // ✅ Lot validé : chaque appelant reçoit son propre résultat, avant de rendre la connexion.
+            // Une erreur ensuite (autocommit, fermeture) ne change plus rien : les lignes sont validées.
+            for (int i = 0; i < lot.size(); i++) {
+                if (resultats[i]) {
+                    invalider(lot.get(i));
+                }
+                lot.get(i).resultat.complete(resultats[i]);
+            }
+            retablirAutoCommit(conn);
+        } catch (SQLException e) {
+            // ❌ Pas de connexion (ou connexion perdue avant le commit) : tout le lot échoue avec cette erreur.
+            // Les futures déjà complétés (lot validé, fermeture ratée) ne changent pas.
+            for (Ecriture ecriture : lot) {
+                ecriture.resultat.completeExceptionally(e);
+            }
+        }
+    }
+
+    // 📦 Envoie une suite d'écritures de même type en un seul batch JDBC
+    private void executerSuite(Connection conn, List<Ecriture> suite, boolean[] resultats, int decalage)
+            throws SQLException {
+        Type type = suite.get(0).type;
+        String sql = sql(type);
+        int cles = type == Type.INSERT ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS;
+        try (PreparedStatement stmt = conn.prepareStatement(sql, cles)) {
+            for (Ecriture ecriture : suite) {
+                lier(stmt, ecriture);
+                stmt.addBatch();
+            }
+            int[] comptes = stmt.executeBatch();
+            for (int i = 0; i < comptes.length; i++) {
+                // ✅ SUCCESS_NO_INFO : le driver a réécrit le batch (rewriteBatchedStatements), la ligne est passée
+                resultats[decalage + i] = comptes[i] > 0 || comptes[i] == Statement.SUCCESS_NO_INFO;
+            }
+            if (type == Type.INSERT) {
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    for (Ecriture ecriture : suite) {
+                        if (!generatedKeys.next()) {
+                            break;
+                        }
+                        ecriture.utilisateur.setId(generatedKeys.getInt(1));
+                    }
+                }
+            }
+        }
+        if (outbox) {
+            int[] ids = new int[suite.size()];
+            int nombre = 0;
+            for (int i = 0; i < suite.size(); i++) {
+                if (resultats[decalage + i]) {
+                    Ecriture ecriture = suite.get(i);
+                    ids[nombre++] = type == Type.INSERT ? ecriture.utilisateur.getId() : ecriture.id;
+                }
+            }
+            UserOutbox.noter(conn, operation(type), Arrays.copyOf(ids, nombre));
+        }
+    }
+
+    // 🧾 Requête d'un type d'écriture (celles de UserRepository)
+    private static String sql(Type type) {
+        return type == Type.INSERT ? UserRepository.SQL_INSERT
+                : type == Type.UPDATE ? UserRepository.SQL_UPDATE : UserRepository.SQL_DELETE;
+    }
+
+    // 🧹 Écriture validée : son ID est passé à l'invalidation branchée, sans que son échec ne touche le lot
+    private void invalider(Ecriture ecriture) {
+        IntConsumer action = invalidation;
+        int id = ecriture.type == Type.INSERT ? ecriture.utilisateur.getId() : ecriture.id;
+        if (action == null || id <= 0) {
+            return;
+        }
+        try {
+            action.accept(id);
+        } catch (RuntimeException e) {
+            System.out.println("⚠️ Erreur lors de l'invalidation de l'ID " + id + " : " + e.getMessage());
+        }
+    }
+
+    // 📰 Type d'opération noté dans l'outbox
+    private static char operation(Type type) {
+        return type == Type.INSERT ? UserOutbox.INSERTION
+                : type == Type.UPDATE ? UserOutbox.MODIFICATION : UserOutbox.SUPPRESSION;
+    }
+
+    // 🔂 Après l'échec d'un lot : chaque écriture est exécutée et validée seule (un commit par écriture)
+    private void rejouerUneParUne(Connection conn, List<Ecriture> lot) {
+        for (Ecriture ecriture : lot) {
+            int cles = ecriture.type == Type.INSERT ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS;
+            try (PreparedStatement stmt = conn.prepareStatement(sql(ecriture.type), cles)) {
+                lier(stmt, ecriture);
+                boolean ok = stmt.executeUpdate() > 0;
+                if (ok && ecriture.type == Type.INSERT) {
+                    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            ecriture.utilisateur.setId(generatedKeys.getInt(1));
+                        }
+                    }
+                }
+                if (ok && outbox) {
+                    UserOutbox.noter(conn, operation(ecriture.type),
+                            ecriture.type == Type.INSERT ? ecriture.utilisateur.getId() : ecriture.id);
+                }
+                conn.commit();
+                if (ok) {
+                    invalider(ecriture);
+                }
+                ecriture.resultat.complete(ok);
+            } catch (SQLException e) {
+                annuler(conn);
+                if (ecriture.type == Type.INSERT) {
+                    ecriture.utilisateur.setId(ecriture.id);
+                }
+                ecriture.resultat.completeExceptionally(e);
+            }
+        }
+    }
+
+    // 🧩 Remplit les '?' de la requête pour une écriture
+    private static void lier(PreparedStatement stmt, Ecriture ecriture) throws SQLException {
+        switch (ecriture.type) {
+            case INSERT -> {
+                stmt.setString(1, ecriture.nom);
+                stmt.setString(2, ecriture.email);
+            }
+            case UPDATE -> {
+                stmt.setString(1, ecriture.nom);
+                stmt.setString(2, ecriture.email);
+                stmt.setInt(3, ecriture.id);
+            }
+            case DELETE -> stmt.setInt(1, ecriture.id);
+        }
+    }
+
+    // 🔁 Remet la connexion en autocommit ; un échec ici ne concerne plus le lot (validé ou rejoué),
+    // il est seulement signalé (le pool remet de toute façon l'autocommit en rendant la connexion)
+    private static void retablirAutoCommit(Connection conn) {
+        try {
+            conn.setAutoCommit(true);
+        } catch (SQLException e) {
+            System.out.println("⚠️ Erreur lors du retour en autocommit : " + e.getMessage());
+        }
+    }
+
+    // 🔄 Rollback sans masquer l'erreur d'origine
+    private static void annuler(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException rollbackEx) {
+            System.out.println("⚠️ Erreur lors de l'annulation du lot : " + rollbackEx.getMessage());
+        }
+    }
+
+    // 📄 Une écriture en attente et le future de son appelant.
+    // nom et email sont copiés à la soumission ; 'utilisateur' (insertion seulement) reçoit l'ID généré.
+    private static final class Ecriture {
+        final Type type;
+        final Utilisateur utilisateur;
+        final int id;
+        final String nom;
+        final String email;
+        final CompletableFuture<Boolean> resultat = new CompletableFuture<>();
+
+        Ecriture(Type type, Utilisateur utilisateur, int id, String nom, String email) {
+            this.type = type;
+            this.utilisateur = utilisateur;
+            this.id = id;
+            this.nom = nom;
+            this.email = email;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+// 📦 Déclaration du package dans lequel se trouve cette classe
+package repository;
+
+// 📦 Importation des classes JDBC
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.Collection;
+
+// ⏱️ Mesure d'une opération de UserRepository, découpée en phases :
+//  - obtention : attente d'une connexion dans le pool ;
+//  - exécution : préparation et exécution de la requête (envoi, travail de MySQL, première réponse) ;
+//  - mapping   : lecture des lignes et conversion en objets Utilisateur.
+// Les phases sont cumulées : une opération en plusieurs requêtes (findByIds) additionne ses lots.
+//
+// Utilisation dans le repository (la trace est la première ressource, donc fermée en dernier) :
+//   try (QueryTrace trace = tracer("findById", sql, id);
+//        Connection conn = trace.connexion(connexion()); ...) {
+//       ResultSet rs = trace.executee(stmt.executeQuery());  ...  trace.lignes(n);  trace.reussie();
+//   }
+// Sans tracer, la trace partagée INACTIVE ne fait rien : pas d'appel à System.nanoTime().
+public final class QueryTrace implements AutoCloseable {
+
+    // 💤 Trace utilisée quand aucun tracer n'est branché
+    static final QueryTrace INACTIVE = new QueryTrace(null, null, null, null);
+
+    private final QueryTracer tracer;
+    private final String operation;
+    private final String sql;
+    private final Object[] parametres;
+
+    private final long debut;
+    private long dernier;
+    private long obtention;
+    private long execution;
+    private long mapping;
+    private long total;
+    private int lignes;
+    private boolean reussie;
+
+    private QueryTrace(QueryTracer tracer, String operation, String sql, Object[] parametres) {
+        this.tracer = tracer;
+        this.operation = operation;
+        this.sql = sql;
+        this.parametres = parametres;
+        this.debut = tracer == null ? 0 : System.nanoTime();
+        this.dernier = debut;
+    }
+
+    // ▶️ Début d'une opération ; retourne INACTIVE si aucun tracer n'est branché
+    static QueryTrace demarrer(QueryTracer tracer, String operation, String sql, Object... parametres) {
+        return tracer == null ? INACTIVE : new QueryTrace(tracer, operation, sql, parametres);
+    }
+
+    // 🔌 Fin de la phase d'obtention de la connexion (retourne la connexion telle quelle)
+    Connection connexion(Connection conn) {
+        if (tracer != null) {
+            obtention += ecoule();
+        }
+        return conn;
+    }
+
+    // ▶️ Fin d'une exécution de requête (retourne le résultat tel quel)
+    ResultSet executee(ResultSet rs) {
+        if (tracer != null) {
+            execution += ecoule();
+        }
+        return rs;
+    }
+
+    // ▶️ Fin d'une exécution de mise à jour (retourne le nombre de lignes tel quel)
+    int executee(int lignesModifiees) {
+        if (tracer != null) {
+            execution += ecoule();
+        }
+        return lignesModifiees;
+    }
+
+    // ▶️ Fin d'une exécution de batch (retourne les résultats tels quels)
+    int[] executee(int[] resultats) {
+        if (tracer != null) {
+            execution += ecoule();
+        }
+        return resultats;
+    }
+
+    // 🧩 Fin d'une phase de lecture : n lignes lues (ou modifiées) depuis la dernière exécution
+    void lignes(int n) {
+        if (tracer != null) {
+            mapping += ecoule();
+            lignes += n;
+        }
+    }
+
+    // ✅ L'opération a abouti ; sans cet appel, la trace est rapportée comme un échec
+    void reussie() {
+        reussie = true;
+    }
+
+    // 📈 Rapporte la mesure au tracer (une fois la connexion rendue au pool).
+    // La durée totale s'arrête à la dernière phase mesurée : la restitution de la connexion n'est pas
+    // chronométrée (un appel d'horloge de moins par opération), sauf en cas d'échec.
+    @Override
+    public void close() {
+        if (tracer == null) {
+            return;
+        }
+        total = (reussie ? dernier : System.nanoTime()) - debut;
+        tracer.requeteTerminee(this);
+    }
+
+    // 🏷️ Nom de l'opération (findById, findAll, save...)
+    public String getOperation() {
+        return operation;
+    }
+
+    // 🧾 Texte SQL de la requête (celui du premier lot pour findByIds)
+    public String getSql() {
+        return sql;
+    }
+
+    // 🧩 Forme des paramètres liés, sans leurs valeurs : types et tailles, par exemple [int] ou [String(12), String(24)].
+    // Calculée à la demande (journal des requêtes lentes) : rien n'est formaté pour les requêtes rapides.
+    public String getFormeParametres() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < parametres.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            Object p = parametres[i];
+            if (p == null) {
+                sb.append("null");
+            } else if (p instanceof Integer) {
+                sb.append("int");
+            } else if (p instanceof String s) {
+                sb.append("String(").append(s.length()).append(')');
+            } else if (p instanceof int[] t) {
+                sb.append("int[").append(t.length).append(']');
+            } else if (p instanceof Collection<?> c) {
+                sb.append("lot[").append(c.size()).append(']');
+            } else {
+                sb.append(p.getClass().getSimpleName());
+            }
+        }
+        return sb.append(']').toString();
+    }
+
+    // ⏱️ Durées des phases et durée totale (ns)
+    public long getObtentionNanos() {
+        return obtention;
+    }
+
+    public long getExecutionNanos() {
+        return execution;
+    }
+
+    public long getMappingNanos() {
+        return mapping;
+    }
+
+    public long getTotalNanos() {
+        return total;
+    }
+
+    // 📏 Lignes lues (ou modifiées)
+    public int getLignes() {
+        return lignes;
+    }
+
+    // ✅ false si l'opération s'est terminée par une exception
+    public boolean isReussie() {
+        return reussie;
+    }
+
+    private long ecoule() {
+        long maintenant = System.nanoTime();
+        long duree = maintenant - dernier;
+        dernier = maintenant;
+        return duree;
+    }
+}
@@ -0,0 +1,12 @@
+// 📦 Déclaration du package dans lequel se trouve cette interface
+package repository;
+
+// 🔭 Reçoit la mesure de chaque requête de UserRepository (voir UserRepository.setTracer).
+// Elle est appelée sur le thread de l'appelant, une fois la connexion rendue au pool :
+// une implémentation doit être rapide et ne pas bloquer (pas d'entrée/sortie synchrone coûteuse).
+@FunctionalInterface
+public interface QueryTracer {
+
+    // 📈 Une opération du repository vient de se terminer (avec succès ou non)
+    void requeteTerminee(QueryTrace trace);
+}
@@ -0,0 +1,16 @@
+// 📦 Déclaration du package dans lequel se trouve cette classe
+package repository;
+
+// 🧱 Exception non vérifiée levée par le repository quand une erreur SQL
+// ne peut pas être signalée autrement (par exemple au milieu d'un Stream).
+// Elle conserve la SQLException d'origine comme cause.
+public class RepositoryException extends RuntimeException {
+
+    // 🔖 Version de sérialisation (une exception est Serializable)
+    private static final long serialVersionUID = 1L;
+
+    // 🏗️ Constructeur : un message lisible et l'erreur SQL d'origine
+    public RepositoryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,16 @@
+// 📦 Déclaration du package dans lequel se trouve cette interface
+package repository;
+
+// 📦 Importation des classes JDBC
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// 🧩 Convertit la ligne courante d'un ResultSet en objet Java.
+// Une instance est préparée pour UN ResultSet donné (voir UtilisateurRowMapper.pour) :
+// les colonnes sont repérées une seule fois, puis chaque ligne est lue par position.
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    // ➡️ Convertit la ligne sur laquelle se trouve le curseur (ne déplace pas le curseur)
+    T mapRow(ResultSet rs) throws SQLException;
+}
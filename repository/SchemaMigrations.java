@@ -0,0 +1,105 @@
+// 📦 Déclaration du package dans lequel se trouve cette classe
+package repository;
+
+// 📦 Importation de l'interface DataSource pour obtenir les connexions
+import javax.sql.DataSource;
+
+// 📦 Importation des classes JDBC
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// 📦 Importation des classes utilitaires Java
+import java.util.List;
+
+// 🗃️ Migrations du schéma de la base (table "utilisateurs" et tables associées).
+//
+// Chaque migration a un numéro de version et une ou plusieurs instructions SQL. La table
+// "schema_version" retient les versions déjà appliquées : migrer() n'exécute que les suivantes,
+// dans l'ordre, et note chacune dès qu'elle a réussi. Une migration déjà livrée ne doit jamais
+// être modifiée : on en ajoute une nouvelle à la fin de MIGRATIONS.
+//
+// ⚠️ MySQL valide implicitement chaque instruction DDL : une migration de plusieurs instructions
+// qui échoue au milieu n'est pas annulée. Les migrations sont prévues pour être lancées par un seul
+// processus à la fois (au déploiement, ou au démarrage avec -Ddb.migrate=true).
+public final class SchemaMigrations {
+
+    // 📄 Une migration : version, description, instructions SQL (MySQL et H2 en mode MySQL)
+    public record Migration(int version, String description, List<String> instructions) {}
+
+    // 📜 Toutes les migrations, par version croissante
+    public static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "table utilisateurs", List.of(
+                    "CREATE TABLE IF NOT EXISTS utilisateurs ("
+                            + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                            + "nom VARCHAR(100) NOT NULL, "
+                            + "email VARCHAR(255) NOT NULL)")),
+            // 📧 findByEmail et findByEmailPrefix : égalité et "LIKE 'debut%'" parcourent l'index
+            // au lieu de toute la table ; ORDER BY email LIMIT n s'arrête après n entrées d'index
+            new Migration(2, "index sur utilisateurs.email", List.of(
+                    "CREATE INDEX idx_utilisateurs_email ON utilisateurs (email)")),
+            new Migration(3, "outbox des changements (UserOutbox)", List.of(
+                    UserOutbox.SQL_CREATION)),
+            new Migration(4, "suivi des imports (UserImporter)", List.of(
+                    UserImporter.SQL_CREATION))
+    );
+
+    // 🧾 Requêtes de la table des versions
+    private static final String SQL_TABLE_VERSIONS = "CREATE TABLE IF NOT EXISTS schema_version ("
+            + "version INT PRIMARY KEY, "
+            + "description VARCHAR(200) NOT NULL, "
+            + "applique_le TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)";
+    private static final String SQL_VERSION = "SELECT MAX(version) FROM schema_version";
+    private static final String SQL_NOTER = "INSERT INTO schema_version (version, description) VALUES (?, ?)";
+
+    // 🚫 Classe utilitaire : pas d'instance
+    private SchemaMigrations() {}
+
+    // 🔢 Dernière version appliquée (0 si aucune)
+    public static int versionActuelle(DataSource dataSource) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            return versionActuelle(conn);
+        }
+    }
+
+    // ▶️ Applique les migrations en attente ; retourne le nombre de migrations appliquées
+    public static int migrer(DataSource dataSource) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            int version = versionActuelle(conn);
+            int appliquees = 0;
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version() <= version) {
+                    continue;
+                }
+                try (Statement stmt = conn.createStatement()) {
+                    for (String instruction : migration.instructions()) {
+                        stmt.execute(instruction);
+                    }
+                } catch (SQLException e) {
+                    throw new SQLException("Migration " + migration.version() + " (" + migration.description()
+                            + ") en échec : " + e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(SQL_NOTER)) {
+                    stmt.setInt(1, migration.version());
+                    stmt.setString(2, migration.description());
+                    stmt.executeUpdate();
+                }
+                System.out.println("🗃️ Migration " + migration.version() + " appliquée : " + migration.description());
+                appliquees++;
+            }
+            return appliquees;
+        }
+    }
+
+    // 🔢 Crée la table des versions si besoin et lit la dernière version
+    private static int versionActuelle(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(SQL_TABLE_VERSIONS);
+            try (ResultSet rs = stmt.executeQuery(SQL_VERSION)) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,368 @@
+// 📦 Déclaration du package dans lequel se trouve cette classe
+package repository;
+
+// 📦 Importation de la classe Utilisateur
+import model.Utilisateur;
+
+// 📦 Importation de l'interface DataSource
+import javax.sql.DataSource;
+
+// 📦 Importation des classes JDBC, de concurrence et utilitaires
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// 🧩 Table "utilisateurs" répartie sur plusieurs bases (shards), chacune derrière sa propre DataSource.
+//
+// 🧭 Répartition par modulo de l'id : l'utilisateur d'id 'id' vit sur le shard (id - 1) mod N.
+// 🔢 Attribution des id sans AUTO_INCREMENT unique : chaque shard garde son AUTO_INCREMENT, mais
+// entrelacé (auto_increment_increment = N, auto_increment_offset = i + 1 sur le shard i) :
+// le shard 0 donne 1, N+1, 2N+1..., le shard 1 donne 2, N+2... Un id généré désigne donc
+// toujours son propre shard (voir HikariDataSourceExample.creerShards, qui règle la session MySQL).
+// Les insertions se font dans une transaction (une unité de travail sur le shard) et leurs id sont
+// vérifiés avant le commit : un id qui tomberait sur un autre shard (shard mal réglé) annule l'insertion.
+//
+//  - findById / update / delete : un seul shard, choisi par l'id ;
+//  - save / saveAll : shard choisi à tour de rôle ; saveAll met toute la liste sur un même shard,
+//    en une seule transaction, pour rester atomique ;
+//  - findByIds : interroge les shards en parallèle (un thread virtuel par shard) ;
+//  - streamAll : fusionne au fil de l'eau les flux de chaque shard, triés par id (une page par shard en mémoire) ;
+//  - findAll : la même fusion, rassemblée dans une liste triée par id.
+public class ShardedUserRepository implements AutoCloseable {
+
+    // 🧱 Un repository par shard (mêmes requêtes, même mesure), et la DataSource de chacun
+    private final List<UserRepository> shards;
+    private final List<DataSource> sources;
+
+    // 🔁 Shard de la prochaine insertion
+    private final AtomicInteger prochainShard = new AtomicInteger();
+
+    // 🧵 Un thread virtuel par shard interrogé
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // 🏗️ Constructeur : une DataSource par shard, dans l'ordre des offsets (shard i ↔ offset i + 1)
+    public ShardedUserRepository(List<? extends DataSource> dataSources) {
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("Au moins un shard est nécessaire");
+        }
+        List<UserRepository> repositories = new ArrayList<>(dataSources.size());
+        for (DataSource ds : dataSources) {
+            repositories.add(new UserRepository(ds));
+        }
+        this.shards = List.copyOf(repositories);
+        this.sources = List.copyOf(dataSources);
+    }
+
+    // 🔢 Nombre de shards
+    public int getNombreShards() {
+        return shards.size();
+    }
+
+    // 🧭 Shard qui contient l'utilisateur d'id donné
+    public int shardPour(int id) {
+        return Math.floorMod(id - 1, shards.size());
+    }
+
+    // 🔭 Branche le même tracer sur tous les shards
+    public void setTracer(QueryTracer tracer) {
+        for (UserRepository shard : shards) {
+            shard.setTracer(tracer);
+        }
+    }
+
+    // 🔍 Lecture par ID sur le shard de l'id
+    public Utilisateur findById(int id) {
+        try {
+            return shards.get(shardPour(id)).chercherParId(id);
+        } catch (SQLException e) {
+            System.out.println("❌ Erreur dans findById : " + e.getMessage());
+            return null;
+        }
+    }
+
+    // 🔍🔍 Lecture de plusieurs ID : les ID sont regroupés par shard, et les shards interrogés en parallèle.
+    // La liste suit l'ordre des ID demandés, 'null' pour les absents.
+    public List<Utilisateur> findByIds(int... ids) {
+        try {
+            return chercherParIds(ids);
+        } catch (SQLException e) {
+            System.out.println("❌ Erreur dans findByIds : " + e.getMessage());
+            return Arrays.asList(new Utilisateur[ids.length]);
+        }
+    }
+
+    List<Utilisateur> chercherParIds(int... ids) throws SQLException {
+        // 🗂️ Positions des ID de chaque shard dans la demande
+        int n = shards.size();
+        int[] parShard = new int[n];
+        for (int id : ids) {
+            parShard[shardPour(id)]++;
+        }
+        int[][] positions = new int[n][];
+        for (int s = 0; s < n; s++) {
+            positions[s] = new int[parShard[s]];
+            parShard[s] = 0;
+        }
+        for (int i = 0; i < ids.length; i++) {
+            int s = shardPour(ids[i]);
+            positions[s][parShard[s]++] = i;
+        }
+
+        List<List<Utilisateur>> trouves = surChaqueShard((shard, s) -> {
+            if (positions[s].length == 0) {
+                return List.of();
+            }
+            int[] idsDuShard = new int[positions[s].length];
+            for (int j = 0; j < idsDuShard.length; j++) {
+                idsDuShard[j] = ids[positions[s][j]];
+            }
+            return shard.chercherParIds(idsDuShard);
+        });
+
+        // 📋 Remise dans l'ordre de la demande
+        Utilisateur[] resultat = new Utilisateur[ids.length];
+        for (int s = 0; s < n; s++) {
+            for (int j = 0; j < positions[s].length; j++) {
+                resultat[positions[s][j]] = trouves.get(s).get(j);
+            }
+        }
+        return Arrays.asList(resultat);
+    }
+
+    // 📋 Lecture de toute la table, triée par id : la fusion de streamAll, rassemblée dans une liste
+    // (seule la liste finale est en mémoire, pas une liste complète par shard en plus)
+    public List<Utilisateur> findAll() {
+        try (Stream<Utilisateur> flux = streamAll()) {
+            return flux.collect(Collectors.toCollection(ArrayList::new));
+        } catch (RepositoryException e) {
+            System.out.println("❌ Erreur dans findAll : " + e.getCause().getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    // 🌊 Parcours de toute la table en flux, dans l'ordre des id.
+    // Chaque shard est lu page par page (pagination par clé) ; les flux sont fusionnés au fur et à mesure
+    // (fusion de N flux triés) : la mémoire utilisée est d'une page par shard.
+    // ⚠️ Le flux doit être consommé (ou fermé) par l'appelant ; une erreur SQL lève une RepositoryException.
+    public Stream<Utilisateur> streamAll() {
+        return streamAll(UserRepository.TAILLE_PAGE_PAR_DEFAUT);
+    }
+
+    public Stream<Utilisateur> streamAll(int taillePage) {
+        List<Stream<Utilisateur>> flux = new ArrayList<>(shards.size());
+        for (UserRepository shard : shards) {
+            flux.add(shard.streamAll(taillePage));
+        }
+        return StreamSupport.stream(new FusionSpliterator(flux), false)
+                .onClose(() -> flux.forEach(Stream::close));
+    }
+
+    // ➕ Insertion sur le prochain shard ; l'ID généré par ce shard est recopié sur l'objet
+    public boolean save(Utilisateur u) {
+        try {
+            int s = Math.floorMod(prochainShard.getAndIncrement(), shards.size());
+            return dansUneTransaction(s, List.of(u), () -> shards.get(s).inserer(u));
+        } catch (SQLException e) {
+            System.out.println("❌ Erreur dans save : " + e.getMessage());
+            return false;
+        }
+    }
+
+    // 📦 Insertion d'une liste en une transaction, sur un seul shard (le suivant, à tour de rôle)
+    public boolean saveAll(List<Utilisateur> utilisateurs) {
+        try {
+            int s = Math.floorMod(prochainShard.getAndIncrement(), shards.size());
+            int inseres = dansUneTransaction(s, utilisateurs, () -> shards.get(s).insererTout(utilisateurs));
+            System.out.println("✅ Transaction réussie sur le shard " + s + ". " + inseres + " utilisateurs insérés.");
+            return true;
+        } catch (SQLException e) {
+            System.out.println("❌ Erreur de transaction : " + e.getMessage());
+            System.out.println("🔄 Transaction annulée (rollback).");
+            return false;
+        }
+    }
+
+    // ✏️ Mise à jour sur le shard de l'id
+    public boolean update(Utilisateur u) {
+        try {
+            return shards.get(shardPour(u.getId())).modifier(u);
+        } catch (SQLException e) {
+            System.out.println("❌ Erreur dans update : " + e.getMessage());
+            return false;
+        }
+    }
+
+    // ❌ Suppression sur le shard de l'id
+    public boolean delete(int id) {
+        try {
+            return shards.get(shardPour(id)).supprimer(id);
+        } catch (SQLException e) {
+            System.out.println("❌ Erreur dans delete : " + e.getMessage());
+            return false;
+        }
+    }
+
+    // 🚪 Attend la fin des lectures en cours (les DataSources restent à la charge de l'appelant)
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    // 🔒 Insertion sur le shard 's' dans une transaction ; les id générés sont vérifiés avant le commit.
+    // Si le thread a déjà une unité de travail ouverte sur ce shard, l'insertion s'y fond et un échec
+    // marque l'unité "à annuler" (son valider() refusera, comme pour toute opération du repository).
+    private <T> T dansUneTransaction(int s, List<Utilisateur> utilisateurs, UnitOfWork.Travail<T> insertion)
+            throws SQLException {
+        UnitOfWork.Travail<T> verifiee = () -> {
+            T resultat = insertion.executer();
+            verifierIds(s, utilisateurs);
+            return resultat;
+        };
+        DataSource source = sources.get(s);
+        try {
+            if (!UnitOfWork.estOuverte(source)) {
+                return UnitOfWork.executer(source, verifiee);
+            }
+            try {
+                return verifiee.executer();
+            } catch (SQLException | RuntimeException e) {
+                try (Connection conn = UnitOfWork.connexion(source)) {
+                    conn.rollback();
+                }
+                throw e;
+            }
+        } catch (SQLException | RuntimeException e) {
+            // 🔄 Rien n'est validé : les id recopiés ne désignent aucune ligne
+            for (Utilisateur u : utilisateurs) {
+                u.setId(0);
+            }
+            throw e;
+        }
+    }
+
+    // 🛡️ Les id générés par le shard 's' doivent désigner 's' ; sinon son AUTO_INCREMENT n'est pas
+    // entrelacé (les lignes seraient introuvables) : l'insertion échoue et sa transaction est annulée.
+    private void verifierIds(int s, List<Utilisateur> utilisateurs) throws SQLException {
+        for (Utilisateur u : utilisateurs) {
+            int id = u.getId();
+            // 🔑 Id à 0 : rien n'a été inséré pour cet utilisateur, rien à vérifier
+            if (id > 0 && shardPour(id) != s) {
+                throw new SQLException("Le shard " + s + " a généré l'id " + id + " qui appartient au shard "
+                        + shardPour(id) + " : auto_increment_increment/auto_increment_offset mal réglés");
+            }
+        }
+    }
+
+    // 🧵 Lance le même travail sur chaque shard en parallèle et retourne les résultats dans l'ordre des shards
+    private <T> List<T> surChaqueShard(TravailShard<T> travail) throws SQLException {
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        for (int s = 0; s < shards.size(); s++) {
+            UserRepository shard = shards.get(s);
+            int index = s;
+            futures.add(executor.submit(() -> travail.executer(shard, index)));
+        }
+        List<T> resultats = new ArrayList<>(futures.size());
+        for (Future<T> future : futures) {
+            resultats.add(attendre(future));
+        }
+        return resultats;
+    }
+
+    // ⏳ Résultat d'un shard ; une SQLException du shard est relancée telle quelle
+    private static <T> T attendre(Future<T> future) throws SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Lecture des shards interrompue", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sql) {
+                throw sql;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new SQLException(e.getCause());
+        }
+    }
+
+    // 🧩 Travail JDBC sur un shard
+    @FunctionalInterface
+    private interface TravailShard<T> {
+        T executer(UserRepository shard, int index) throws SQLException;
+    }
+
+    // 🔀 Fusion de N flux triés par id : on rend toujours le plus petit des N utilisateurs en tête
+    private final class FusionSpliterator extends Spliterators.AbstractSpliterator<Utilisateur> {
+
+        private final List<Iterator<Utilisateur>> iterateurs = new ArrayList<>();
+
+        // 🏆 Tête de chaque flux non épuisé, la plus petite en premier
+        private final PriorityQueue<Tete> tetes = new PriorityQueue<>(Comparator.comparingInt(t -> t.utilisateur().getId()));
+
+        private boolean demarre;
+
+        FusionSpliterator(List<Stream<Utilisateur>> flux) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+            for (Stream<Utilisateur> f : flux) {
+                iterateurs.add(f.iterator());
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Utilisateur> action) {
+            if (!demarre) {
+                demarrer();
+            }
+            Tete tete = tetes.poll();
+            if (tete == null) {
+                return false;
+            }
+            action.accept(tete.utilisateur());
+            Iterator<Utilisateur> it = tete.iterateur();
+            if (it.hasNext()) {
+                tetes.add(new Tete(it, it.next()));
+            }
+            return true;
+        }
+
+        // 🚀 Première page de chaque shard chargée en parallèle
+        private void demarrer() {
+            demarre = true;
+            List<Future<Tete>> premieres = new ArrayList<>(iterateurs.size());
+            for (Iterator<Utilisateur> it : iterateurs) {
+                premieres.add(executor.submit(() -> it.hasNext() ? new Tete(it, it.next()) : null));
+            }
+            for (Future<Tete> premiere : premieres) {
+                Tete tete;
+                try {
+                    tete = attendre(premiere);
+                } catch (SQLException e) {
+                    throw new RepositoryException("Erreur dans streamAll : " + e.getMessage(), e);
+                }
+                if (tete != null) {
+                    tetes.add(tete);
+                }
+            }
+        }
+    }
+
+    // 👉 Prochain utilisateur d'un flux, et le flux lui-même
+    private record Tete(Iterator<Utilisateur> iterateur, Utilisateur utilisateur) {}
+}
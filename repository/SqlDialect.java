@@ -0,0 +1,43 @@
+// 📦 Déclaration du package dans lequel se trouve cette classe
+package repository;
+
+// 📦 Importation des classes JDBC
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// 🗣️ Différences de SQL entre les bases utilisées par l'application.
+//
+// Le reste des requêtes du repository est du SQL commun à MySQL et à H2 (mode MySQL) ; seule
+// l'écriture "insérer ou mettre à jour" (upsert) change de forme d'une base à l'autre :
+//  - MYSQL : INSERT ... ON DUPLICATE KEY UPDATE ;
+//  - H2    : MERGE INTO ... KEY (id), la forme native de la base embarquée des benchmarks.
+public enum SqlDialect {
+
+    MYSQL("INSERT INTO utilisateurs (id, nom, email) VALUES (?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE nom = VALUES(nom), email = VALUES(email)"),
+
+    H2("MERGE INTO utilisateurs (id, nom, email) KEY (id) VALUES (?, ?, ?)");
+
+    // 🧾 Upsert d'une ligne par son id ; paramètres : id, nom, email
+    private final String sqlUpsert;
+
+    SqlDialect(String sqlUpsert) {
+        this.sqlUpsert = sqlUpsert;
+    }
+
+    public String getSqlUpsert() {
+        return sqlUpsert;
+    }
+
+    // 🔎 Dialecte de la base de cette connexion (d'après le nom du produit annoncé par le driver)
+    public static SqlDialect detecter(Connection conn) throws SQLException {
+        String produit = conn.getMetaData().getDatabaseProductName();
+        if ("H2".equalsIgnoreCase(produit)) {
+            return H2;
+        }
+        if ("MySQL".equalsIgnoreCase(produit) || "MariaDB".equalsIgnoreCase(produit)) {
+            return MYSQL;
+        }
+        throw new SQLException("Base non prise en charge : " + produit);
+    }
+}
@@ -0,0 +1,473 @@
+// 📦 Déclaration du package dans lequel se trouve cette classe
+package repository;
+
+// 📦 Importation de l'interface DataSource
+import javax.sql.DataSource;
+
+// 📦 Importation des classes JDBC
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+// 📦 Importation des classes de réflexion (connexion et requêtes "proxy")
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+// 📦 Importation des classes utilitaires Java
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 🧺 Unité de travail : une seule connexion, une seule transaction, pour une suite d'appels au repository.
+//
+// Sans unité de travail, chaque méthode de UserRepository emprunte sa propre connexion : une suite
+// findById → update → delete fait trois emprunts au pool et trois transactions (trois commits).
+// Ici la connexion est empruntée une fois et liée au thread courant, pour cette DataSource : tant que
+// l'unité est ouverte, les appels au repository faits sur ce thread la réutilisent, avec ses requêtes
+// préparées (chaque texte SQL n'est préparé qu'une fois pour toute l'unité).
+//
+//   try (UnitOfWork unite = UnitOfWork.demarrer(dataSource, Connection.TRANSACTION_READ_COMMITTED, false)) {
+//       Utilisateur u = repo.findById(42);
+//       u.setEmail("nouveau@exemple.fr");
+//       repo.update(u);
+//       repo.delete(43);
+//       unite.valider();          // sans cet appel, tout est annulé à la fermeture
+//   }
+//
+// ou, sous forme de fonction : UnitOfWork.executer(dataSource, () -> { ...; return resultat; }).
+//
+// Les transactions propres au repository (saveAll, upsertAll, écritures notées dans l'outbox) se
+// fondent dans celle de l'unité : leur commit ne valide rien (seule l'unité valide, un seul commit
+// pour toute la suite) et leur rollback marque l'unité "à annuler". Un save qui échoue retourne donc
+// false comme d'habitude, mais valider() refuse ensuite de valider : il annule tout et lève une
+// SQLException. (Des points de sauvegarde permettraient de n'annuler que l'opération en échec, au prix
+// de deux allers-retours de plus par écriture transactionnelle.)
+//
+// Isolation et lecture seule : fixées à l'ouverture (ISOLATION_DU_POOL garde celle de la connexion),
+// puis rendues à leur valeur d'origine avant le retour de la connexion au pool. En lecture seule,
+// MySQL ne crée pas d'identifiant de transaction ; derrière un RoutingDataSource, une unité en lecture
+// seule part entière sur un réplica (sauf écriture récente), les autres passent par la primaire (une
+// transaction n'est pas répartie).
+//
+// ⚠️ Limites :
+//  - l'unité ne suit que son thread : AsyncUserRepository et les threads de CoalescingUserRepository
+//    ou de GroupCommitUserWriter empruntent leurs propres connexions ;
+//  - une seule unité par DataSource et par thread (pas d'unités imbriquées sur la même base) ;
+//  - CachedUserRepository ne se sert pas de son cache dans une unité (lectures en base, sans remplir le
+//    cache) et n'invalide les ID écrits qu'après valider() (voir apresValidation) : les autres threads
+//    ne voient jamais de données non validées, et rien n'est à défaire après annuler() ;
+//  - un EmailIndex tenu à jour par un UserChangeFeed ne voit que les changements validés ; un index
+//    mis à jour à la main pendant l'unité l'est sous la responsabilité de l'appelant.
+public final class UnitOfWork implements AutoCloseable {
+
+    // 🔒 Valeur d'isolation qui garde celle de la connexion (réglage du pool)
+    public static final int ISOLATION_DU_POOL = -1;
+
+    // 🧵 Dernière unité ouverte par le thread courant (les autres suivent par 'precedente')
+    private static final ThreadLocal<UnitOfWork> COURANTE = new ThreadLocal<>();
+
+    // 🔌 Base, connexion empruntée et thread propriétaire
+    private final DataSource dataSource;
+    private final Connection connexion;
+    private final Thread proprietaire;
+
+    // 🔒 Réglages demandés à l'ouverture
+    private final int isolation;
+    private final boolean lectureSeule;
+
+    // ♻️ Réglages de la connexion à l'emprunt, rendus à la fermeture
+    private final boolean autoCommitInitial;
+    private final int isolationInitiale;
+
+    // 🧠 Requêtes préparées de l'unité, par texte SQL (et demande de clés générées)
+    private final Map<String, PreparedStatement> requetes = new HashMap<>();
+
+    // 🔔 Actions à lancer après le prochain commit (invalidation de caches...), dans l'ordre d'inscription
+    private final List<Runnable> apresValidation = new ArrayList<>();
+
+    // 🧵 Unité ouverte avant celle-ci sur le même thread (pour une autre DataSource)
+    private UnitOfWork precedente;
+
+    // ✅ true : rien d'écrit depuis le dernier valider() ; ↩️ true : une opération a annulé sa transaction ;
+    // 🚪 true une fois fermée
+    private boolean validee;
+    private boolean aAnnuler;
+    private boolean fermee;
+
+    // 📊 Appels servis et requêtes préparées / réutilisées
+    private int appels;
+    private int preparations;
+    private int reutilisations;
+
+    // 🔁 Travail exécuté dans une unité (voir executer)
+    @FunctionalInterface
+    public interface Travail<T> {
+        T executer() throws SQLException;
+    }
+
+    private UnitOfWork(DataSource dataSource, Connection connexion, int isolation, boolean lectureSeule)
+            throws SQLException {
+        this.dataSource = dataSource;
+        this.connexion = connexion;
+        this.proprietaire = Thread.currentThread();
+        this.autoCommitInitial = connexion.getAutoCommit();
+
+        // 📖 Les réglages ne sont lus (un aller-retour avec certains drivers) que s'ils doivent changer ;
+        // la lecture seule se règle avant le début de la transaction
+        this.lectureSeule = lectureSeule;
+        this.isolation = isolation;
+        this.isolationInitiale = isolation == ISOLATION_DU_POOL ? ISOLATION_DU_POOL : connexion.getTransactionIsolation();
+        if (lectureSeule) {
+            connexion.setReadOnly(true);
+        }
+        if (isolation != ISOLATION_DU_POOL && isolation != isolationInitiale) {
+            connexion.setTransactionIsolation(isolation);
+        }
+        connexion.setAutoCommit(false);
+    }
+
+    // ▶️ Ouvre une unité avec les réglages du pool, en lecture-écriture
+    public static UnitOfWork demarrer(DataSource dataSource) throws SQLException {
+        return demarrer(dataSource, ISOLATION_DU_POOL, false);
+    }
+
+    // ▶️ Ouvre une unité : emprunte une connexion et la lie au thread courant pour cette DataSource.
+    // isolation : Connection.TRANSACTION_* ou ISOLATION_DU_POOL ; lectureSeule : indication au driver.
+    public static UnitOfWork demarrer(DataSource dataSource, int isolation, boolean lectureSeule) throws SQLException {
+        if (liee(dataSource) != null) {
+            throw new IllegalStateException("Une unité de travail est déjà ouverte sur cette DataSource pour ce thread");
+        }
+        Connection conn = dataSource.getConnection();
+        UnitOfWork unite;
+        try {
+            unite = new UnitOfWork(dataSource, conn, isolation, lectureSeule);
+        } catch (SQLException | RuntimeException e) {
+            try {
+                conn.close();
+            } catch (SQLException fermetureEx) {
+                e.addSuppressed(fermetureEx);
+            }
+            throw e;
+        }
+        unite.precedente = COURANTE.get();
+        COURANTE.set(unite);
+        return unite;
+    }
+
+    // 🔁 Exécute 'travail' dans une unité validée s'il aboutit, annulée s'il lève une exception
+    public static <T> T executer(DataSource dataSource, Travail<T> travail) throws SQLException {
+        return executer(dataSource, ISOLATION_DU_POOL, false, travail);
+    }
+
+    public static <T> T executer(DataSource dataSource, int isolation, boolean lectureSeule, Travail<T> travail)
+            throws SQLException {
+        try (UnitOfWork unite = demarrer(dataSource, isolation, lectureSeule)) {
+            T resultat = travail.executer();
+            unite.valider();
+            return resultat;
+        }
+    }
+
+    // 🔍 true si le thread courant a une unité ouverte sur cette DataSource
+    public static boolean estOuverte(DataSource dataSource) {
+        return liee(dataSource) != null;
+    }
+
+    // 🔌 Connexion pour un appel du repository : celle de l'unité liée au thread, sinon une connexion du pool
+    static Connection connexion(DataSource dataSource) throws SQLException {
+        UnitOfWork unite = liee(dataSource);
+        return unite == null ? dataSource.getConnection() : unite.preter();
+    }
+
+    // 🔔 Lance 'action' après le commit de l'unité liée au thread pour cette DataSource (abandonnée si
+    // l'unité est annulée ou fermée sans valider) ; sans unité, l'action est lancée tout de suite
+    static void apresValidation(DataSource dataSource, Runnable action) {
+        UnitOfWork unite = liee(dataSource);
+        if (unite == null) {
+            action.run();
+        } else {
+            unite.apresValidation.add(action);
+        }
+    }
+
+    // 🧵 Unité du thread courant pour cette DataSource, ou null
+    private static UnitOfWork liee(DataSource dataSource) {
+        for (UnitOfWork u = COURANTE.get(); u != null; u = u.precedente) {
+            if (u.dataSource == dataSource) {
+                return u;
+            }
+        }
+        return null;
+    }
+
+    // ✅ Valide tout ce qui a été écrit dans l'unité ; elle reste ouverte pour la suite.
+    // Si une opération du repository a échoué entre-temps, tout est annulé et une SQLException est levée.
+    public void valider() throws SQLException {
+        verifier();
+        if (aAnnuler) {
+            annuler();
+            throw new SQLException("Unité de travail annulée : une opération a échoué avant valider()");
+        }
+        connexion.commit();
+        validee = true;
+
+        // 🔔 Écritures validées : les actions en attente peuvent maintenant les rendre visibles
+        List<Runnable> actions = new ArrayList<>(apresValidation);
+        apresValidation.clear();
+        for (Runnable action : actions) {
+            action.run();
+        }
+    }
+
+    // ↩️ Annule tout ce qui a été écrit depuis le dernier valider() ; l'unité reste ouverte
+    public void annuler() throws SQLException {
+        verifier();
+        connexion.rollback();
+        validee = true;
+        aAnnuler = false;
+        apresValidation.clear();
+    }
+
+    // ↩️ true si une opération a échoué depuis le dernier valider() ou annuler()
+    public boolean isAAnnuler() {
+        return aAnnuler;
+    }
+
+    // 🚪 Annule ce qui n'a pas été validé, rend les réglages d'origine et la connexion au pool
+    @Override
+    public void close() throws SQLException {
+        if (fermee) {
+            return;
+        }
+        if (Thread.currentThread() != proprietaire) {
+            throw new IllegalStateException("Une unité de travail se ferme sur le thread qui l'a ouverte");
+        }
+        fermee = true;
+        delier();
+        apresValidation.clear();
+
+        SQLException erreur = null;
+        try {
+            if (!validee) {
+                connexion.rollback();
+            }
+        } catch (SQLException e) {
+            erreur = e;
+        }
+        for (PreparedStatement stmt : requetes.values()) {
+            try {
+                stmt.close();
+            } catch (SQLException e) {
+                erreur = cumuler(erreur, e);
+            }
+        }
+        requetes.clear();
+        try {
+            connexion.setAutoCommit(autoCommitInitial);
+            if (isolation != isolationInitiale) {
+                connexion.setTransactionIsolation(isolationInitiale);
+            }
+            if (lectureSeule) {
+                connexion.setReadOnly(false);
+            }
+        } catch (SQLException e) {
+            erreur = cumuler(erreur, e);
+        }
+        try {
+            connexion.close();
+        } catch (SQLException e) {
+            erreur = cumuler(erreur, e);
+        }
+        if (erreur != null) {
+            throw erreur;
+        }
+    }
+
+    // 🧵 Retire l'unité de la chaîne du thread (normalement la dernière ouverte)
+    private void delier() {
+        UnitOfWork tete = COURANTE.get();
+        if (tete == this) {
+            if (precedente == null) {
+                COURANTE.remove();
+            } else {
+                COURANTE.set(precedente);
+            }
+            return;
+        }
+        for (UnitOfWork u = tete; u != null; u = u.precedente) {
+            if (u.precedente == this) {
+                u.precedente = precedente;
+                return;
+            }
+        }
+    }
+
+    private static SQLException cumuler(SQLException erreur, SQLException e) {
+        if (erreur == null) {
+            return e;
+        }
+        erreur.addSuppressed(e);
+        return erreur;
+    }
+
+    private void verifier() throws SQLException {
+        if (fermee) {
+            throw new SQLException("Unité de travail fermée");
+        }
+    }
+
+    // 🔌 Connexion prêtée à un appel du repository (sa fermeture ne rend rien au pool)
+    private Connection preter() throws SQLException {
+        verifier();
+        appels++;
+        validee = false;
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, new Participation());
+    }
+
+    // 📊 Nombre d'appels du repository servis par l'unité
+    public int getAppels() {
+        return appels;
+    }
+
+    // 📊 Requêtes réellement préparées sur la connexion, et préparations évitées grâce au cache de l'unité
+    public int getPreparations() {
+        return preparations;
+    }
+
+    public int getReutilisations() {
+        return reutilisations;
+    }
+
+    // 🧠 Requête préparée de l'unité pour ce texte SQL (préparée au premier appel)
+    private PreparedStatement preparee(String sql, Integer clesGenerees) throws SQLException {
+        String cle = clesGenerees == null ? sql : sql + '\u0000' + clesGenerees;
+        PreparedStatement stmt = requetes.get(cle);
+        if (stmt == null || stmt.isClosed()) {
+            stmt = clesGenerees == null ? connexion.prepareStatement(sql) : connexion.prepareStatement(sql, clesGenerees);
+            requetes.put(cle, stmt);
+            preparations++;
+        } else {
+            reutilisations++;
+        }
+        return stmt;
+    }
+
+    // 🔌 Connexion prêtée à un appel du repository.
+    //  - close() ne rend rien au pool (la connexion reste à l'unité) ;
+    //  - setAutoCommit et commit() ne font rien (seule l'unité valide) ; rollback() marque l'unité à annuler ;
+    //  - l'isolation et la lecture seule appartiennent à l'unité : leurs réglages sont ignorés ;
+    //  - prepareStatement(sql) et prepareStatement(sql, clés générées) servent les requêtes de l'unité.
+    private final class Participation implements InvocationHandler {
+
+        private boolean autoCommit = true;
+        private boolean fermee;
+
+        @Override
+        public Object invoke(Object proxy, Method methode, Object[] args) throws Throwable {
+            switch (methode.getName()) {
+                case "close":
+                    fermee = true;
+                    return null;
+                case "isClosed":
+                    return fermee || UnitOfWork.this.fermee;
+                case "getAutoCommit":
+                    return autoCommit;
+                case "setAutoCommit":
+                    verifierOuverte();
+                    autoCommit = (Boolean) args[0];
+                    return null;
+                case "commit":
+                case "setTransactionIsolation":
+                case "setReadOnly":
+                    verifierOuverte();
+                    return null;
+                case "rollback":
+                    verifierOuverte();
+                    if (args != null && args.length == 1) {
+                        // Retour à un point de sauvegarde posé par l'appelant lui-même : sur la connexion réelle
+                        return appeler(connexion, methode, args);
+                    }
+                    aAnnuler = true;
+                    return null;
+                case "prepareStatement":
+                    verifierOuverte();
+                    Class<?>[] types = methode.getParameterTypes();
+                    if (types.length == 1 || (types.length == 2 && types[1] == int.class)) {
+                        PreparedStatement stmt = preparee((String) args[0], types.length == 2 ? (Integer) args[1] : null);
+                        return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                                new Class<?>[] {PreparedStatement.class}, new RequetePretee(stmt));
+                    }
+                    return appeler(connexion, methode, args);
+                case "toString":
+                    return "UnitOfWork.Connexion{" + connexion + "}";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    verifierOuverte();
+                    return appeler(connexion, methode, args);
+            }
+        }
+
+        private void verifierOuverte() throws SQLException {
+            if (fermee || UnitOfWork.this.fermee) {
+                throw new SQLException("Connexion fermée");
+            }
+        }
+    }
+
+    // 🧠 Requête préparée de l'unité, prêtée à un appel : close() la remet à zéro au lieu de la fermer.
+    // ⚠️ Deux appels imbriqués sur le même texte SQL partageraient la requête (et son ResultSet) ;
+    // le repository lit toujours ses résultats en entier avant l'appel suivant.
+    private static final class RequetePretee implements InvocationHandler {
+
+        private final PreparedStatement stmt;
+        private boolean fermee;
+
+        RequetePretee(PreparedStatement stmt) {
+            this.stmt = stmt;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method methode, Object[] args) throws Throwable {
+            switch (methode.getName()) {
+                case "close":
+                    if (!fermee) {
+                        fermee = true;
+                        if (!stmt.isClosed()) {
+                            stmt.clearParameters();
+                            stmt.clearBatch();
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return fermee || stmt.isClosed();
+                case "toString":
+                    return "UnitOfWork.Requete{" + stmt + "}";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    if (fermee) {
+                        throw new SQLException("Requête fermée");
+                    }
+                    return appeler(stmt, methode, args);
+            }
+        }
+    }
+
+    // Appel sur l'objet JDBC réel, en remontant l'exception d'origine (SQLException...).
+    private static Object appeler(Object cible, Method methode, Object[] args) throws Throwable {
+        try {
+            return methode.invoke(cible, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+// 📦 Déclaration du package dans lequel se trouve cette classe
+package repository;
+
+// 🧾 Effet d'un upsert sur une ligne de la table "utilisateurs" (voir UserRepository.upsert)
+public enum UpsertResult {
+
+    // ➕ La ligne n'existait pas : elle a été insérée (l'ID est recopié sur l'objet)
+    INSERE,
+
+    // ✏️ La ligne existait avec un autre nom ou un autre email : elle a été mise à jour
+    MODIFIE,
+
+    // 💤 La ligne existait déjà avec ces valeurs : rien n'a été écrit
+    INCHANGE
+}
@@ -0,0 +1,250 @@
+// 📦 Déclaration du package dans lequel se trouve cette classe
+package repository;
+
+// 📦 Importation de la classe Utilisateur (une ligne de la table "utilisateurs")
+import model.Utilisateur;
+
+// 📦 Importation de l'interface DataSource pour obtenir les connexions
+import javax.sql.DataSource;
+
+// 📦 Importation des classes JDBC
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// 📦 Importation des classes utilitaires Java
+import java.util.List;
+
+// 🧱 Chargeur en masse de la table "utilisateurs".
+// Là où saveAll() envoie toute la liste dans un seul batch, cette classe :
+//  - découpe la liste en paquets ("chunks") de taille configurable,
+//  - valide chaque paquet séparément (PAR_CHUNK) ou tout à la fin (GLOBAL),
+//  - recopie l'ID généré sur chaque Utilisateur,
+//  - rapporte les paquets en échec au lieu de tout abandonner.
+//
+// 🚀 Pour le débit maximal avec MySQL, activer "rewriteBatchedStatements=true" sur la DataSource
+// (le driver réécrit alors le batch en un seul INSERT multi-lignes), ou utiliser le mode
+// insertionMultiLignes qui construit lui-même "INSERT ... VALUES (?, ?), (?, ?), ...".
+public class UserBulkLoader {
+
+    // 📏 Taille de paquet par défaut : assez grande pour amortir les allers-retours,
+    // assez petite pour ne pas dépasser max_allowed_packet côté MySQL
+    public static final int TAILLE_CHUNK_PAR_DEFAUT = 1000;
+
+    // 🧭 Moment où les paquets sont validés (commit)
+    public enum ModeCommit {
+        // ✅ Un commit par paquet : un paquet en échec n'annule pas les autres
+        PAR_CHUNK,
+        // 🔒 Un seul commit à la fin : tout ou rien (avec l'outbox, le chargement doit tenir dans la
+        // durée maximale de transaction des UserChangeFeed ; sinon, PAR_CHUNK)
+        GLOBAL
+    }
+
+    // 🧾 Requête d'insertion d'une ligne (utilisée en mode batch JDBC)
+    private static final String SQL_INSERT = "INSERT INTO utilisateurs (nom, email) VALUES (?, ?)";
+
+    // 🔐 Source des connexions
+    private final DataSource dataSource;
+
+    // 📏 Nombre d'utilisateurs par paquet
+    private final int tailleChunk;
+
+    // 🧭 Stratégie de validation
+    private final ModeCommit modeCommit;
+
+    // 🧱 true : un seul INSERT multi-lignes par paquet ; false : batch JDBC classique
+    private final boolean insertionMultiLignes;
+
+    // 🧾 Texte de l'INSERT multi-lignes pour un paquet complet (construit une seule fois)
+    private String sqlMultiLignesPleines;
+
+    // 📰 true : chaque paquet note aussi ses insertions dans la table outbox (voir UserOutbox)
+    private boolean outbox;
+
+    // ✍️ Écriture supplémentaire faite sur la connexion du chargement juste avant chaque commit, donc
+    // validée ou annulée avec les lignes (par exemple l'avancement d'un import, voir UserImporter)
+    @FunctionalInterface
+    interface AvantCommit {
+        void executer(Connection conn) throws SQLException;
+    }
+
+    // 🏗️ Constructeur avec les réglages par défaut (paquets de 1000, commit par paquet, batch JDBC)
+    public UserBulkLoader(DataSource dataSource) {
+        this(dataSource, TAILLE_CHUNK_PAR_DEFAUT, ModeCommit.PAR_CHUNK, false);
+    }
+
+    // 🏗️ Constructeur complet
+    public UserBulkLoader(DataSource dataSource, int tailleChunk, ModeCommit modeCommit, boolean insertionMultiLignes) {
+        if (tailleChunk <= 0) {
+            throw new IllegalArgumentException("tailleChunk doit être positive : " + tailleChunk);
+        }
+        this.dataSource = dataSource;
+        this.tailleChunk = tailleChunk;
+        this.modeCommit = modeCommit;
+        this.insertionMultiLignes = insertionMultiLignes;
+    }
+
+    // 📰 Active (ou coupe) l'outbox : les insertions d'un paquet sont notées dans
+    // "utilisateurs_changements" avant son commit, donc validées ou annulées avec lui
+    public void setOutbox(boolean outbox) {
+        this.outbox = outbox;
+    }
+
+    // 🚚 Insère tous les utilisateurs de la liste et retourne le bilan du chargement.
+    // Les ID générés sont recopiés sur les objets de la liste.
+    public BulkLoadResult charger(List<Utilisateur> utilisateurs) {
+        return charger(utilisateurs, null);
+    }
+
+    // 🚚 Même chargement ; 'avantCommit' (peut être null) est exécuté dans la transaction, juste avant
+    // chaque commit (un par paquet en PAR_CHUNK, un seul en GLOBAL)
+    BulkLoadResult charger(List<Utilisateur> utilisateurs, AvantCommit avantCommit) {
+        BulkLoadResult resultat = new BulkLoadResult();
+        long debut = System.nanoTime();
+
+        // 🔌 Une seule connexion pour tout le chargement : pas de va-et-vient avec le pool
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            // ✅ Passe à true quand plus rien n'attend de commit sur la connexion
+            boolean termine = false;
+            try {
+                // 🔁 Découpage de la liste en paquets [de, a[
+                for (int de = 0, indexChunk = 0; de < utilisateurs.size(); de += tailleChunk, indexChunk++) {
+                    int a = Math.min(de + tailleChunk, utilisateurs.size());
+                    List<Utilisateur> chunk = utilisateurs.subList(de, a);
+                    try {
+                        insererChunk(conn, chunk);
+                        if (modeCommit == ModeCommit.PAR_CHUNK) {
+                            if (avantCommit != null) {
+                                avantCommit.executer(conn);
+                            }
+                            conn.commit();
+                        }
+                        resultat.ajouterLignes(chunk.size());
+                    } catch (SQLException e) {
+                        // ❌ Paquet en échec : on annule ce qui n'a pas encore été validé
+                        annuler(conn);
+                        effacerIds(chunk);
+                        resultat.ajouterEchec(new BulkLoadResult.EchecChunk(indexChunk, de, chunk.size(), e.getMessage()));
+
+                        // 🔒 En mode GLOBAL tout est annulé : les paquets précédents aussi
+                        if (modeCommit == ModeCommit.GLOBAL) {
+                            effacerIds(utilisateurs.subList(0, de));
+                            resultat.annulerTout();
+                            return resultat.terminer(System.nanoTime() - debut);
+                        }
+                    }
+                }
+
+                // 🔒 En mode GLOBAL, un seul commit à la fin
+                if (modeCommit == ModeCommit.GLOBAL) {
+                    if (avantCommit != null) {
+                        avantCommit.executer(conn);
+                    }
+                    conn.commit();
+                }
+                termine = true;
+            } finally {
+                // 🔄 On rend la connexion au pool dans son état d'origine. setAutoCommit(true) VALIDE la
+                // transaction ouverte (spécification JDBC) : ce qui n'a pas été validé (exception au milieu
+                // d'un paquet, commit final en échec) est d'abord annulé. Si l'annulation échoue, l'autocommit
+                // n'est pas rétabli : le pool annule la transaction en reprenant la connexion.
+                boolean propre = termine || annuler(conn);
+                if (!termine && modeCommit == ModeCommit.GLOBAL) {
+                    effacerIds(utilisateurs);
+                }
+                if (propre) {
+                    conn.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException e) {
+            // ❌ Erreur de connexion ou de commit final : rien n'est garanti, on le signale
+            System.out.println("❌ Erreur dans UserBulkLoader : " + e.getMessage());
+            if (modeCommit == ModeCommit.GLOBAL) {
+                effacerIds(utilisateurs);
+                resultat.annulerTout();
+            }
+            resultat.ajouterEchec(new BulkLoadResult.EchecChunk(-1, 0, utilisateurs.size(), e.getMessage()));
+        }
+        return resultat.terminer(System.nanoTime() - debut);
+    }
+
+    // 🧱 Insère un paquet et recopie les ID générés sur les utilisateurs
+    private void insererChunk(Connection conn, List<Utilisateur> chunk) throws SQLException {
+        if (insertionMultiLignes) {
+            // 🧾 Un seul INSERT avec autant de "(?, ?)" que d'utilisateurs dans le paquet
+            try (PreparedStatement stmt = conn.prepareStatement(sqlMultiLignes(chunk.size()), Statement.RETURN_GENERATED_KEYS)) {
+                int index = 1;
+                for (Utilisateur u : chunk) {
+                    stmt.setString(index++, u.getNom());
+                    stmt.setString(index++, u.getEmail());
+                }
+                stmt.executeUpdate();
+                recopierIds(stmt, chunk);
+            }
+        } else {
+            // 📦 Batch JDBC classique (réécrit en multi-lignes par le driver si rewriteBatchedStatements=true)
+            try (PreparedStatement stmt = conn.prepareStatement(SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
+                for (Utilisateur u : chunk) {
+                    stmt.setString(1, u.getNom());
+                    stmt.setString(2, u.getEmail());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                recopierIds(stmt, chunk);
+            }
+        }
+        if (outbox) {
+            UserOutbox.noter(conn, UserOutbox.INSERTION, chunk.stream().mapToInt(Utilisateur::getId).toArray());
+        }
+    }
+
+    // 🧾 Construit "INSERT INTO utilisateurs (nom, email) VALUES (?, ?), (?, ?), ..."
+    // Le texte est mémorisé pour la taille de paquet courante (cas le plus fréquent)
+    private String sqlMultiLignes(int lignes) {
+        if (lignes == tailleChunk && sqlMultiLignesPleines != null) {
+            return sqlMultiLignesPleines;
+        }
+        StringBuilder sql = new StringBuilder(40 + lignes * 8).append("INSERT INTO utilisateurs (nom, email) VALUES ");
+        for (int i = 0; i < lignes; i++) {
+            sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+        }
+        String texte = sql.toString();
+        if (lignes == tailleChunk) {
+            sqlMultiLignesPleines = texte;
+        }
+        return texte;
+    }
+
+    // 🔁 Recopie les ID générés, dans l'ordre des insertions
+    private static void recopierIds(Statement stmt, List<Utilisateur> chunk) throws SQLException {
+        try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+            for (Utilisateur u : chunk) {
+                if (!generatedKeys.next()) {
+                    break;
+                }
+                u.setId(generatedKeys.getInt(1));
+            }
+        }
+    }
+
+    // 🧹 Remet l'ID à 0 sur des utilisateurs dont l'insertion a été annulée
+    private static void effacerIds(List<Utilisateur> utilisateurs) {
+        for (Utilisateur u : utilisateurs) {
+            u.setId(0);
+        }
+    }
+
+    // 🔄 Rollback sans masquer l'erreur d'origine ; false si l'annulation elle-même a échoué
+    private static boolean annuler(Connection conn) {
+        try {
+            conn.rollback();
+            return true;
+        } catch (SQLException rollbackEx) {
+            System.out.println("⚠️ Erreur lors de l'annulation du paquet : " + rollbackEx.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,379 @@
+// 📦 Déclaration du package dans lequel se trouve cette classe
+package repository;
+
+// 📦 Importation de la classe Utilisateur et du cache à tenir à jour
+import model.Utilisateur;
+import repository.cache.UserCache;
+
+// 📦 Importation de l'interface DataSource pour obtenir les connexions
+import javax.sql.DataSource;
+
+// 📦 Importation des classes JDBC
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+// 📦 Importation des classes utilitaires et de concurrence
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// 📰 Lecture incrémentale des changements de la table "utilisateurs" (capture par outbox).
+//
+// Les écritures faites avec l'outbox activée (voir UserOutbox) laissent une ligne par utilisateur
+// écrit dans "utilisateurs_changements". À chaque cycle, ce flux lit les lignes apparues depuis le
+// cycle précédent, relit en une fois (findByIds) la version actuelle des utilisateurs concernés et
+// la transmet aux abonnés : trouvé = inséré ou modifié, absent = supprimé. Un cycle coûte donc le
+// nombre de changements, pas la taille de la table. Relire l'état actuel plutôt que rejouer les
+// opérations rend un cycle idempotent : recevoir deux fois un changement ne fausse rien.
+//
+// Position : le plus grand seq lu. Un seq est attribué à l'insertion, pas au commit : une transaction
+// longue (UserBulkLoader en mode GLOBAL, upsertAll, unité de travail jusqu'à valider()...) peut valider
+// ses lignes bien après des seq plus grands. Chaque seq sauté est donc noté comme "trou" et relu aux
+// cycles suivants (requête "seq > plus petit trou") jusqu'à ce que sa ligne apparaisse. Un trou peut
+// aussi ne jamais se remplir : transaction annulée, valeurs d'auto-incrément perdues par le moteur.
+// Il est abandonné (getTrousAbandonnes) une fois plus vieux que 'dureeMaxTransaction'.
+//
+// ⚠️ Limite à respecter : une transaction qui écrit dans l'outbox doit être validée moins de
+// 'dureeMaxTransaction' (5 minutes par défaut) après sa première écriture ; au-delà, ses changements
+// peuvent ne jamais être transmis. Un chargement plus long se fait en mode PAR_CHUNK. Tant qu'un trou
+// est ouvert, chaque cycle relit les changements écrits depuis ce trou (déjà traités : ignorés).
+//
+// Départ : depuis(position) prend un horodatage de la base ; le premier cycle relit tous les changements
+// écrits depuis 'dureeMaxTransaction' avant cette position (les transactions en cours à ce moment-là
+// en font partie). Ceux déjà vus par la copie locale sont retransmis, sans effet (cycle idempotent).
+//
+// Retard borné : un changement validé est transmis au plus tard au cycle qui suit son commit, soit
+// un intervalle plus la durée d'un cycle. getRetardMillis() mesure l'âge du dernier cycle réussi.
+// Avec ShardedUserRepository, chaque shard a sa propre outbox : un UserChangeFeed par shard.
+//
+// Utilisation :
+//   Timestamp position = feed.positionActuelle();        // avant le chargement
+//   UserSnapshot snapshot = UserSnapshot.charger(repo, false);
+//   feed.abonner(snapshot::appliquer);
+//   feed.depuis(position);
+//   feed.demarrer();
+public class UserChangeFeed implements AutoCloseable {
+
+    // 📏 Réglages par défaut : un cycle par seconde, transactions d'écriture de 5 minutes au plus
+    public static final long INTERVALLE_MILLIS_PAR_DEFAUT = 1_000;
+    public static final long DUREE_MAX_TRANSACTION_MILLIS_PAR_DEFAUT = 300_000;
+
+    // 🧾 Requêtes
+    private static final String SQL_POSITION = "SELECT CURRENT_TIMESTAMP(3)";
+    private static final String SQL_DEPART = "SELECT COALESCE(MAX(seq), 0) FROM " + UserOutbox.TABLE
+            + " WHERE cree_le < ?";
+    private static final String SQL_CHANGEMENTS = "SELECT seq, utilisateur_id FROM " + UserOutbox.TABLE
+            + " WHERE seq > ? ORDER BY seq";
+
+    // 📬 Reçoit les changements d'un cycle : versions actuelles des utilisateurs insérés ou modifiés,
+    // et ids des utilisateurs supprimés
+    @FunctionalInterface
+    public interface Abonne {
+        void appliquer(List<Utilisateur> modifies, int[] supprimes);
+    }
+
+    // 🔐 Source des connexions, et repository qui relit les utilisateurs changés
+    private final DataSource dataSource;
+    private final UserRepository repository;
+
+    // ⏱️ Intervalle entre deux cycles et durée maximale d'une transaction d'écriture
+    private final long intervalleMillis;
+    private final long dureeMaxTransactionMillis;
+
+    // 📬 Abonnés
+    private final List<Abonne> abonnes = new CopyOnWriteArrayList<>();
+
+    // 🧭 Horodatage de départ, plus grand seq lu (-1 avant le premier cycle) et trous encore ouverts,
+    // par premier seq. Ils ne sont lus et modifiés que dans les méthodes synchronisées.
+    private Timestamp depart;
+    private long dernierLu = -1;
+    private final TreeMap<Long, Trou> trous = new TreeMap<>();
+
+    // 🧵 Thread des cycles périodiques (créé par demarrer)
+    private ScheduledExecutorService planificateur;
+
+    // 📊 Mesures
+    private volatile long debutDernierCycleReussi;
+    private volatile long dureeDernierCycleNanos;
+    private volatile long dernierSeq;
+    private final LongAdder cycles = new LongAdder();
+    private final LongAdder changements = new LongAdder();
+    private final LongAdder echecs = new LongAdder();
+    private final LongAdder trousAbandonnes = new LongAdder();
+    private volatile long trousOuverts;
+
+    // 🏗️ Constructeur avec les réglages par défaut
+    public UserChangeFeed(DataSource dataSource) {
+        this(dataSource, INTERVALLE_MILLIS_PAR_DEFAUT, DUREE_MAX_TRANSACTION_MILLIS_PAR_DEFAUT, TimeUnit.MILLISECONDS);
+    }
+
+    // 🏗️ Constructeur complet : intervalle entre deux cycles et durée maximale d'une transaction d'écriture
+    public UserChangeFeed(DataSource dataSource, long intervalle, long dureeMaxTransaction, TimeUnit unite) {
+        if (intervalle <= 0 || dureeMaxTransaction < 0) {
+            throw new IllegalArgumentException("réglages invalides");
+        }
+        this.dataSource = dataSource;
+        this.repository = new UserRepository(dataSource);
+        this.intervalleMillis = unite.toMillis(intervalle);
+        this.dureeMaxTransactionMillis = unite.toMillis(dureeMaxTransaction);
+    }
+
+    // 📬 Ajoute un abonné (par exemple snapshot::appliquer ou UserChangeFeed.invalidation(cache))
+    public void abonner(Abonne abonne) {
+        abonnes.add(abonne);
+    }
+
+    // 🧽 Abonné qui retire du cache chaque id changé (entrées négatives comprises) :
+    // la prochaine lecture ira chercher la version actuelle en base
+    public static Abonne invalidation(UserCache cache) {
+        return (modifies, supprimes) -> {
+            for (Utilisateur u : modifies) {
+                cache.invalider(u.getId());
+            }
+            for (int id : supprimes) {
+                cache.invalider(id);
+            }
+        };
+    }
+
+    // 🧭 Position actuelle de la base : à lire AVANT de charger une copie locale, puis à passer à
+    // depuis() pour ne rien manquer des écritures faites pendant le chargement
+    public Timestamp positionActuelle() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL_POSITION);
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getTimestamp(1);
+        }
+    }
+
+    // 🧭 Fixe la position de départ : seuls les changements postérieurs seront transmis
+    public synchronized void depuis(Timestamp position) {
+        this.depart = position;
+        dernierLu = -1;
+        trous.clear();
+        trousOuverts = 0;
+    }
+
+    // ▶️ Lance les cycles périodiques sur un thread dédié (la position doit avoir été fixée)
+    public synchronized void demarrer() {
+        if (depart == null) {
+            throw new IllegalStateException("Position de départ inconnue : appeler depuis() avant demarrer()");
+        }
+        if (planificateur != null) {
+            return;
+        }
+        planificateur = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "flux-changements-utilisateurs");
+            t.setDaemon(true);
+            return t;
+        });
+        planificateur.scheduleWithFixedDelay(this::cycle, 0, intervalleMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // 🔁 Un cycle lancé par le planificateur : une erreur est comptée, le cycle suivant réessaie
+    private void cycle() {
+        try {
+            synchroniser();
+        } catch (SQLException | RuntimeException e) {
+            echecs.increment();
+            System.out.println("❌ Erreur dans UserChangeFeed : " + e.getMessage());
+        }
+    }
+
+    // 🔄 Un cycle : lit les nouveaux changements, relit les utilisateurs concernés et prévient les abonnés.
+    // Retourne le nombre d'utilisateurs transmis.
+    public synchronized int synchroniser() throws SQLException {
+        if (depart == null) {
+            throw new IllegalStateException("Position de départ inconnue : appeler depuis() avant synchroniser()");
+        }
+        long debut = System.currentTimeMillis();
+        long debutNanos = System.nanoTime();
+
+        // 📥 Changements après le plus petit trou ouvert (ou le dernier seq lu) ; seuls les nouveaux seq
+        // et ceux qui comblent un trou comptent
+        int[] ids = new int[16];
+        int nombre = 0;
+        try (Connection conn = dataSource.getConnection()) {
+            if (dernierLu < 0) {
+                dernierLu = seqDepart(conn);
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(SQL_CHANGEMENTS)) {
+                stmt.setLong(1, trous.isEmpty() ? dernierLu : trous.firstKey() - 1);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        long seq = rs.getLong(1);
+                        if (seq > dernierLu) {
+                            // 🕳️ Seq sautés : transactions pas encore validées (ou annulées)
+                            if (seq > dernierLu + 1) {
+                                trous.put(dernierLu + 1, new Trou(seq - 1, debut));
+                            }
+                            dernierLu = seq;
+                        } else if (!combler(seq)) {
+                            continue;
+                        }
+                        if (nombre == ids.length) {
+                            ids = Arrays.copyOf(ids, nombre * 2);
+                        }
+                        ids[nombre++] = rs.getInt(2);
+                    }
+                }
+            }
+        }
+        dernierSeq = dernierLu;
+
+        // 🔍 Version actuelle des utilisateurs changés (une requête IN par lot de 256 ids)
+        int transmis = 0;
+        if (nombre > 0) {
+            int[] distincts = Arrays.stream(ids, 0, nombre).distinct().toArray();
+            List<Utilisateur> trouves = repository.chercherParIds(distincts);
+            List<Utilisateur> modifies = new ArrayList<>(distincts.length);
+            int[] supprimes = new int[distincts.length];
+            int nombreSupprimes = 0;
+            for (int i = 0; i < distincts.length; i++) {
+                Utilisateur u = trouves.get(i);
+                if (u != null) {
+                    modifies.add(u);
+                } else {
+                    supprimes[nombreSupprimes++] = distincts[i];
+                }
+            }
+            prevenir(modifies, Arrays.copyOf(supprimes, nombreSupprimes));
+            transmis = distincts.length;
+        }
+
+        // 🧹 Trous plus vieux que la plus longue transaction permise : jamais remplis, abandonnés
+        long oubli = debut - dureeMaxTransactionMillis;
+        long ouverts = 0;
+        for (Iterator<Map.Entry<Long, Trou>> it = trous.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, Trou> trou = it.next();
+            long taille = trou.getValue().fin - trou.getKey() + 1;
+            if (trou.getValue().detecteLe < oubli) {
+                trousAbandonnes.add(taille);
+                it.remove();
+            } else {
+                ouverts += taille;
+            }
+        }
+        trousOuverts = ouverts;
+
+        changements.add(transmis);
+        cycles.increment();
+        debutDernierCycleReussi = debut;
+        dureeDernierCycleNanos = System.nanoTime() - debutNanos;
+        return transmis;
+    }
+
+    // 🧭 Seq de départ : le dernier écrit plus de 'dureeMaxTransaction' avant la position de départ ;
+    // tout ce qui suit est relu (les transactions en cours au départ ont écrit après lui)
+    private long seqDepart(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(SQL_DEPART)) {
+            stmt.setTimestamp(1, new Timestamp(depart.getTime() - dureeMaxTransactionMillis));
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    // 🕳️ Retire 'seq' du trou qui le contient (coupé en deux au besoin) ; false s'il n'est dans aucun trou
+    // (seq déjà traité)
+    private boolean combler(long seq) {
+        Map.Entry<Long, Trou> entree = trous.floorEntry(seq);
+        if (entree == null || entree.getValue().fin < seq) {
+            return false;
+        }
+        Trou trou = entree.getValue();
+        trous.remove(entree.getKey());
+        if (entree.getKey() < seq) {
+            trous.put(entree.getKey(), new Trou(seq - 1, trou.detecteLe));
+        }
+        if (seq < trou.fin) {
+            trous.put(seq + 1, new Trou(trou.fin, trou.detecteLe));
+        }
+        return true;
+    }
+
+    // 📬 Transmet les changements à chaque abonné ; un abonné en erreur n'empêche pas les autres
+    private void prevenir(List<Utilisateur> modifies, int[] supprimes) {
+        for (Abonne abonne : abonnes) {
+            try {
+                abonne.appliquer(modifies, supprimes);
+            } catch (RuntimeException e) {
+                echecs.increment();
+                System.out.println("❌ Erreur dans UserChangeFeed (abonné) : " + e.getMessage());
+            }
+        }
+    }
+
+    // 📊 Âge du dernier cycle réussi, en millisecondes (-1 s'il n'y en a pas encore eu) :
+    // les changements validés avant ce cycle ont été transmis
+    public long getRetardMillis() {
+        long debut = debutDernierCycleReussi;
+        return debut == 0 ? -1 : System.currentTimeMillis() - debut;
+    }
+
+    // 📊 Durée du dernier cycle réussi, en nanosecondes
+    public long getDureeDernierCycleNanos() {
+        return dureeDernierCycleNanos;
+    }
+
+    // 📊 Plus grand seq lu dans l'outbox
+    public long getDernierSeq() {
+        return dernierSeq;
+    }
+
+    // 📊 Seq sautés encore attendus, et seq abandonnés (jamais apparus en 'dureeMaxTransaction') :
+    // une hausse des abandons hors transactions annulées signale une transaction trop longue
+    public long getTrousOuverts() {
+        return trousOuverts;
+    }
+
+    public long getTrousAbandonnes() {
+        return trousAbandonnes.sum();
+    }
+
+    // 📊 Nombre de cycles réussis, d'utilisateurs transmis et d'échecs (cycles ou abonnés)
+    public long getCycles() {
+        return cycles.sum();
+    }
+
+    public long getChangements() {
+        return changements.sum();
+    }
+
+    public long getEchecs() {
+        return echecs.sum();
+    }
+
+    // 🚪 Arrête les cycles périodiques (un cycle en cours se termine)
+    @Override
+    public synchronized void close() {
+        if (planificateur != null) {
+            planificateur.shutdown();
+            planificateur = null;
+        }
+    }
+
+    // 🕳️ Seq sautés, de la clé de la TreeMap jusqu'à 'fin', et moment où ils ont été vus manquants
+    private static final class Trou {
+        final long fin;
+        final long detecteLe;
+
+        Trou(long fin, long detecteLe) {
+            this.fin = fin;
+            this.detecteLe = detecteLe;
+        }
+    }
+}
@@ -0,0 +1,410 @@
+// 📦 Déclaration du package dans lequel se trouve cette classe
+package repository;
+
+// 📦 Interface de configuration de HikariCP : permet de lire la taille du pool
+import com.zaxxer.hikari.HikariConfigMXBean;
+
+// 📦 Importation de la classe Utilisateur (une ligne de la table "utilisateurs")
+import model.Utilisateur;
+
+// 📦 Importation de l'interface DataSource pour obtenir les connexions
+import javax.sql.DataSource;
+
+// 📦 Importation des classes JDBC
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// 📦 Importation des classes NIO (canaux et tampons)
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// 📦 Importation des classes utilitaires et de concurrence
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// 📤 Export de toute la table "utilisateurs" dans un fichier, en parallèle.
+//
+//  - l'espace des id [MIN(id), MAX(id)] est découpé en tranches de 'tailleTranche' id ;
+//  - les tranches sont lues en même temps (un thread virtuel par tranche, au plus 'parallelisme'
+//    requêtes simultanées, par défaut la taille du pool HikariCP), chacune sur sa connexion ;
+//  - chaque tranche est écrite dans son propre fichier "<fichier>.part-<n>" à travers un FileChannel
+//    et un tampon de 64 Ko : les threads n'ont aucun fichier à se partager ;
+//  - une tranche terminée est forcée sur le disque, puis notée dans "<fichier>.checkpoint" ;
+//  - à la fin, les morceaux sont recopiés dans l'ordre des id (transferTo, sans passer par Java)
+//    dans "<fichier>.tmp", renommé en "<fichier>" ; morceaux et checkpoint sont alors supprimés.
+//
+// 🔁 Reprise : si un export s'arrête (erreur, arrêt de la machine), le relancer vers le même fichier
+// reprend les tranches notées dans le checkpoint au lieu de les relire. Les bornes [min, max] du
+// premier essai sont conservées : les lignes ajoutées entre-temps au-delà de max ne sont pas exportées.
+//
+// 🧾 Formats :
+//  - CSV : en-tête "id,nom,email", un utilisateur par ligne, champs entre guillemets si nécessaire ;
+//  - BINAIRE : "UTIL" + version (1 octet), puis pour chaque utilisateur : id (int, 4 octets),
+//    puis nom et email en UTF-8 précédés de leur longueur (2 octets, non signée).
+public class UserExporter {
+
+    // 📏 Nombre d'id par tranche par défaut
+    public static final int TAILLE_TRANCHE_PAR_DEFAUT = 100_000;
+
+    // 📏 Parallélisme si la taille du pool ne peut pas être lue
+    public static final int PARALLELISME_PAR_DEFAUT = 4;
+
+    // 🧾 Format du fichier produit
+    public enum Format {
+        CSV,
+        BINAIRE
+    }
+
+    // 📊 État d'avancement, transmis après chaque tranche terminée (depuis le thread de la tranche)
+    public record Progression(int tranchesTerminees, int tranchesTotal, long lignes, long dureeMillis) {
+        @Override
+        public String toString() {
+            return tranchesTerminees + "/" + tranchesTotal + " tranches, " + lignes + " lignes, " + dureeMillis + " ms";
+        }
+    }
+
+    // 🧾 Bilan d'un export
+    public record Bilan(Path fichier, long lignes, int tranches, int tranchesReprises, long dureeMillis) {
+        @Override
+        public String toString() {
+            return lignes + " lignes exportées dans " + fichier + " en " + dureeMillis + " ms ("
+                    + tranches + " tranches dont " + tranchesReprises + " reprises du checkpoint)";
+        }
+    }
+
+    // 🧾 Requêtes de l'export
+    private static final String SQL_BORNES = "SELECT MIN(id), MAX(id) FROM utilisateurs";
+    private static final String SQL_TRANCHE = "SELECT " + UtilisateurRowMapper.COLONNES
+            + " FROM utilisateurs WHERE id BETWEEN ? AND ? ORDER BY id";
+
+    // 🧱 Taille du tampon d'écriture de chaque tranche
+    private static final int TAILLE_TAMPON = 64 * 1024;
+
+    // 🚚 Lignes ramenées par aller-retour réseau
+    private static final int FETCH_SIZE = 1000;
+
+    // 🔐 Source des connexions
+    private final DataSource dataSource;
+
+    // 📏 Nombre d'id par tranche
+    private final int tailleTranche;
+
+    // 🧵 Nombre maximal de tranches lues en même temps
+    private final int parallelisme;
+
+    // 🧾 Format du fichier produit
+    private final Format format;
+
+    // 🏗️ Constructeur par défaut : CSV, tranches de 100 000 id, parallélisme aligné sur la taille du pool
+    public UserExporter(DataSource dataSource) {
+        this(dataSource, Format.CSV, TAILLE_TRANCHE_PAR_DEFAUT, parallelismePour(dataSource));
+    }
+
+    // 🏗️ Constructeur complet
+    public UserExporter(DataSource dataSource, Format format, int tailleTranche, int parallelisme) {
+        if (tailleTranche <= 0) {
+            throw new IllegalArgumentException("tailleTranche doit être positive : " + tailleTranche);
+        }
+        if (parallelisme <= 0) {
+            throw new IllegalArgumentException("parallelisme doit être positif : " + parallelisme);
+        }
+        this.dataSource = dataSource;
+        this.format = format;
+        this.tailleTranche = tailleTranche;
+        this.parallelisme = parallelisme;
+    }
+
+    // 📤 Exporte la table sans suivi de l'avancement
+    public Bilan exporter(Path fichier) throws SQLException, IOException {
+        return exporter(fichier, progression -> {});
+    }
+
+    // 📤 Exporte la table vers 'fichier' ; 'suivi' reçoit l'avancement après chaque tranche
+    // (il est appelé depuis plusieurs threads). En cas d'erreur, les tranches déjà terminées
+    // restent notées : relancer l'export reprend là où il s'est arrêté.
+    public Bilan exporter(Path fichier, Consumer<Progression> suivi) throws SQLException, IOException {
+        long debut = System.nanoTime();
+        Path checkpoint = Path.of(fichier + ".checkpoint");
+
+        Checkpoint etat = ouvrirCheckpoint(checkpoint);
+        int tranches = etat.nombreTranches();
+        int reprises = etat.terminees.size();
+
+        AtomicInteger terminees = new AtomicInteger(reprises);
+        AtomicLong lignes = new AtomicLong(etat.lignesTerminees());
+
+        // 🧵 Un thread virtuel par tranche restante ; le sémaphore limite les requêtes simultanées
+        Semaphore permis = new Semaphore(parallelisme);
+        List<Future<Void>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < tranches; t++) {
+                if (etat.terminees.containsKey(t)) {
+                    continue;
+                }
+                int tranche = t;
+                futures.add(executor.submit(() -> {
+                    permis.acquire();
+                    try {
+                        long premier = etat.min + (long) tranche * tailleTranche;
+                        long dernier = Math.min(etat.max, premier + tailleTranche - 1);
+                        int lues = exporterTranche(premier, dernier, morceau(fichier, tranche));
+                        etat.noter(tranche, lues);
+                        suivi.accept(new Progression(terminees.incrementAndGet(), tranches,
+                                lignes.addAndGet(lues), (System.nanoTime() - debut) / 1_000_000));
+                    } finally {
+                        permis.release();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                attendre(future);
+            }
+        }
+
+        // 🧩 Assemblage dans l'ordre des id, puis nettoyage
+        assembler(fichier, tranches);
+        for (int t = 0; t < tranches; t++) {
+            Files.deleteIfExists(morceau(fichier, t));
+        }
+        Files.deleteIfExists(checkpoint);
+        return new Bilan(fichier, lignes.get(), tranches, reprises, (System.nanoTime() - debut) / 1_000_000);
+    }
+
+    // 🔁 Checkpoint d'un export interrompu vers le même fichier, sinon nouveau checkpoint avec les bornes actuelles
+    private Checkpoint ouvrirCheckpoint(Path checkpoint) throws SQLException, IOException {
+        Checkpoint reprise = Checkpoint.lire(checkpoint, format, tailleTranche);
+        if (reprise != null) {
+            return reprise;
+        }
+        long[] bornes = lireBornes();
+        return Checkpoint.creer(checkpoint, format, tailleTranche, bornes[0], bornes[1]);
+    }
+
+    // 📏 MIN(id) et MAX(id) ; {1, 0} (aucune tranche) si la table est vide
+    private long[] lireBornes() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL_BORNES);
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            long min = rs.getLong(1);
+            return rs.wasNull() ? new long[] {1, 0} : new long[] {min, rs.getLong(2)};
+        }
+    }
+
+    // 📄 Lit les id [premier, dernier] et les écrit dans 'cible' ; retourne le nombre de lignes
+    private int exporterTranche(long premier, long dernier, Path cible) throws SQLException, IOException {
+        int lues = 0;
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL_TRANCHE);
+             FileChannel canal = FileChannel.open(cible, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            stmt.setFetchSize(FETCH_SIZE);
+            stmt.setLong(1, premier);
+            stmt.setLong(2, dernier);
+            ByteBuffer tampon = ByteBuffer.allocateDirect(TAILLE_TAMPON);
+            try (ResultSet rs = stmt.executeQuery()) {
+                UtilisateurRowMapper mapper = UtilisateurRowMapper.pour(rs);
+                while (rs.next()) {
+                    ecrire(mapper.mapRow(rs), tampon, canal);
+                    lues++;
+                }
+            }
+            vider(tampon, canal);
+            // 💾 Sur le disque avant d'être notée dans le checkpoint
+            canal.force(false);
+        }
+        return lues;
+    }
+
+    // ✍️ Écrit une ligne dans le tampon (vidé dans le canal quand il est plein)
+    private void ecrire(Utilisateur u, ByteBuffer tampon, FileChannel canal) throws IOException {
+        int id = u.getId();
+        String nom = u.getNom();
+        String email = u.getEmail();
+        byte[] ligne;
+        if (format == Format.CSV) {
+            ligne = (id + "," + champCsv(nom) + "," + champCsv(email) + "\n").getBytes(StandardCharsets.UTF_8);
+        } else {
+            byte[] n = nom == null ? new byte[0] : nom.getBytes(StandardCharsets.UTF_8);
+            byte[] e = email == null ? new byte[0] : email.getBytes(StandardCharsets.UTF_8);
+            ligne = ByteBuffer.allocate(4 + 2 + n.length + 2 + e.length)
+                    .putInt(id).putShort((short) n.length).put(n).putShort((short) e.length).put(e)
+                    .array();
+        }
+        if (ligne.length > tampon.remaining()) {
+            vider(tampon, canal);
+        }
+        if (ligne.length > tampon.capacity()) {
+            canal.write(ByteBuffer.wrap(ligne));
+        } else {
+            tampon.put(ligne);
+        }
+    }
+
+    // 🚿 Écrit le contenu du tampon dans le canal
+    private static void vider(ByteBuffer tampon, FileChannel canal) throws IOException {
+        tampon.flip();
+        while (tampon.hasRemaining()) {
+            canal.write(tampon);
+        }
+        tampon.clear();
+    }
+
+    // 🧾 Champ CSV : entre guillemets (doublés à l'intérieur) s'il contient une virgule, un guillemet ou un saut de ligne
+    static String champCsv(String valeur) {
+        if (valeur == null) {
+            return "";
+        }
+        for (int i = 0; i < valeur.length(); i++) {
+            char c = valeur.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + valeur.replace("\"", "\"\"") + '"';
+            }
+        }
+        return valeur;
+    }
+
+    // 🧩 Écrit l'en-tête puis chaque morceau, dans l'ordre, dans "<fichier>.tmp" renommé ensuite en 'fichier'
+    private void assembler(Path fichier, int tranches) throws IOException {
+        Path temporaire = Path.of(fichier + ".tmp");
+        try (FileChannel sortie = FileChannel.open(temporaire, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            byte[] entete = format == Format.CSV
+                    ? "id,nom,email\n".getBytes(StandardCharsets.UTF_8)
+                    : new byte[] {'U', 'T', 'I', 'L', 1};
+            sortie.write(ByteBuffer.wrap(entete));
+            for (int t = 0; t < tranches; t++) {
+                try (FileChannel entree = FileChannel.open(morceau(fichier, t), StandardOpenOption.READ)) {
+                    long position = 0;
+                    long taille = entree.size();
+                    while (position < taille) {
+                        position += entree.transferTo(position, taille - position, sortie);
+                    }
+                }
+            }
+            sortie.force(false);
+        }
+        Files.move(temporaire, fichier, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // 📄 Fichier d'une tranche
+    private static Path morceau(Path fichier, int tranche) {
+        return Path.of(fichier + ".part-" + tranche);
+    }
+
+    // ⏳ Attend une tranche ; son erreur (SQL ou fichier) est relancée telle quelle
+    private static void attendre(Future<Void> future) throws SQLException, IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrompu", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sql) {
+                throw sql;
+            }
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    // 🎫 Taille du pool HikariCP, sinon le parallélisme par défaut
+    static int parallelismePour(DataSource dataSource) {
+        if (dataSource instanceof HikariConfigMXBean hikari) {
+            return hikari.getMaximumPoolSize();
+        }
+        return PARALLELISME_PAR_DEFAUT;
+    }
+
+    // 📌 Fichier de reprise : une première ligne "format tailleTranche min max", puis une ligne
+    // "tranche lignes" par tranche terminée (ajoutée et forcée sur le disque à chaque fois).
+    private static final class Checkpoint {
+
+        private final Path chemin;
+        private final long min;
+        private final long max;
+        private final int tailleTranche;
+
+        // 🗂️ Tranches terminées → nombre de lignes
+        private final Map<Integer, Integer> terminees;
+
+        private Checkpoint(Path chemin, long min, long max, int tailleTranche, Map<Integer, Integer> terminees) {
+            this.chemin = chemin;
+            this.min = min;
+            this.max = max;
+            this.tailleTranche = tailleTranche;
+            this.terminees = terminees;
+        }
+
+        // 📖 Checkpoint existant et compatible (même format, même taille de tranche), sinon null
+        static Checkpoint lire(Path chemin, Format format, int tailleTranche) throws IOException {
+            if (!Files.exists(chemin)) {
+                return null;
+            }
+            List<String> lignes = Files.readAllLines(chemin, StandardCharsets.UTF_8);
+            String[] entete = lignes.isEmpty() ? new String[0] : lignes.get(0).split(" ");
+            if (entete.length != 4 || !entete[0].equals(format.name()) || Integer.parseInt(entete[1]) != tailleTranche) {
+                return null;
+            }
+            Map<Integer, Integer> terminees = new HashMap<>();
+            for (String ligne : lignes.subList(1, lignes.size())) {
+                String[] champs = ligne.split(" ");
+                // Une ligne incomplète (arrêt pendant l'écriture) est ignorée : la tranche sera refaite.
+                if (champs.length == 2) {
+                    terminees.put(Integer.parseInt(champs[0]), Integer.parseInt(champs[1]));
+                }
+            }
+            return new Checkpoint(chemin, Long.parseLong(entete[2]), Long.parseLong(entete[3]), tailleTranche, terminees);
+        }
+
+        // 🆕 Nouveau checkpoint (remplace un checkpoint incompatible)
+        static Checkpoint creer(Path chemin, Format format, int tailleTranche, long min, long max) throws IOException {
+            Files.writeString(chemin, format.name() + " " + tailleTranche + " " + min + " " + max + "\n",
+                    StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+            return new Checkpoint(chemin, min, max, tailleTranche, new HashMap<>());
+        }
+
+        int nombreTranches() {
+            return max < min ? 0 : (int) ((max - min) / tailleTranche + 1);
+        }
+
+        long lignesTerminees() {
+            long total = 0;
+            for (int lues : terminees.values()) {
+                total += lues;
+            }
+            return total;
+        }
+
+        // ✅ Note une tranche terminée (plusieurs threads : une écriture à la fois)
+        synchronized void noter(int tranche, int lignes) throws IOException {
+            Files.writeString(chemin, tranche + " " + lignes + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        }
+    }
+}
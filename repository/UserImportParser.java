@@ -0,0 +1,535 @@
+// 📦 Déclaration du package dans lequel se trouve cette classe
+package repository;
+
+// 📦 Importation des classes NIO (canal et tampon)
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+// 📦 Importation des classes utilitaires Java
+import java.util.Arrays;
+import java.util.Locale;
+
+// ✂️ Découpage d'un fichier d'import (voir UserImporter) en enregistrements, directement sur les octets.
+//
+// Le fichier est lu à travers son FileChannel dans un tampon de 1 Mo (agrandi si un enregistrement
+// ne tient pas dedans). Chaque enregistrement est découpé sur place : les octets utiles du nom et de
+// l'email (guillemets CSV et échappements JSON retirés) sont recopiés à la suite dans le tableau
+// d'octets du LotBrut, qui note seulement leur position et leur longueur. Aucune String n'est créée
+// ici : c'est l'étape de validation qui décode le nom et l'email des enregistrements acceptés.
+//
+//  - CSV : une ligne d'en-tête facultative (elle est reconnue si l'une de ses colonnes s'appelle
+//    "email" ; les colonnes "nom" et "email" sont alors cherchées par leur nom, les autres ignorées,
+//    comme l'id des fichiers de UserExporter). Sans en-tête : "nom,email". Champs entre guillemets
+//    (guillemets doublés à l'intérieur, sauts de ligne permis), comme ceux de UserExporter.
+//  - NDJSON : un objet JSON par ligne ; seules les clés "nom" et "email" (chaînes) sont lues.
+// Les lignes vides sont ignorées. Un enregistrement illisible n'arrête rien : il reçoit un motif de rejet.
+// Un champ entre guillemets qui court sur plusieurs lignes au-delà de TAILLE_MAX_ENTRE_GUILLEMETS (guillemet
+// jamais refermé) est coupé à son premier saut de ligne et rejeté, sans attendre la fin du fichier. Seule une
+// ligne de plus de TAILLE_MAX_ENREGISTREMENT octets, sans aucun saut de ligne, arrête l'import.
+final class UserImportParser {
+
+    // 📏 Taille initiale du tampon de lecture, et taille maximale d'un enregistrement
+    private static final int TAILLE_TAMPON = 1 << 20;
+    private static final int TAILLE_MAX_ENREGISTREMENT = 16 << 20;
+
+    // 📏 Au-delà de cette taille, un enregistrement encore entre guillemets après un saut de ligne est
+    // considéré comme un guillemet jamais refermé (aucun nom ni email ne s'en approche)
+    private static final int TAILLE_MAX_ENTRE_GUILLEMETS = 64 << 10;
+
+    // ✅ Code d'un enregistrement bien découpé (sinon : ordinal du UserImporter.Rejet)
+    static final byte OK = -1;
+    private static final byte MALFORME = (byte) UserImporter.Rejet.MALFORME.ordinal();
+    private static final byte COLONNES = (byte) UserImporter.Rejet.COLONNES.ordinal();
+
+    // 🔑 Clés JSON lues
+    private static final byte[] CLE_NOM = "nom".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CLE_EMAIL = "email".getBytes(StandardCharsets.US_ASCII);
+
+    private final FileChannel canal;
+    private final UserImporter.Format format;
+
+    // 🧱 Octets lus : [position, limite[ reste à découper ; 'origine' est la position de octets[0] dans le fichier
+    private byte[] octets = new byte[TAILLE_TAMPON];
+    private int position;
+    private int limite;
+    private long origine;
+    private boolean finFichier;
+
+    // 👉 Début de l'enregistrement suivant, fixé par finEnregistrement()
+    private int suivant;
+
+    // 🧭 Colonnes CSV (indices à partir de 0 ; -1 si la colonne n'existe pas)
+    private int colonneNom = 0;
+    private int colonneEmail = 1;
+    private int nombreColonnes = 2;
+
+    UserImportParser(FileChannel canal, UserImporter.Format format) {
+        this.canal = canal;
+        this.format = format;
+    }
+
+    // 📋 Lit l'en-tête (BOM UTF-8 et, en CSV, ligne des noms de colonnes) s'il y en a un.
+    // Retourne la position du premier enregistrement de données dans le fichier.
+    long lireEntete() throws IOException {
+        positionner(0);
+        while (limite < 3 && remplir()) {
+            // 🔁 Au moins 3 octets pour reconnaître le BOM
+        }
+        if (limite >= 3 && octets[0] == (byte) 0xEF && octets[1] == (byte) 0xBB && octets[2] == (byte) 0xBF) {
+            position = 3;
+        }
+        if (format == UserImporter.Format.CSV) {
+            int fin = finEnregistrement();
+            if (fin >= 0 && lireColonnes(position, sansRetourChariot(position, fin))) {
+                position = suivant;
+            }
+        }
+        return origine + position;
+    }
+
+    // 🏷️ Reconnaît une ligne d'en-tête ; si c'en est une, retient la place des colonnes "nom" et "email"
+    private boolean lireColonnes(int debut, int fin) {
+        String[] noms = new String(octets, debut, fin - debut, StandardCharsets.UTF_8).split(",", -1);
+        int nom = -1;
+        int email = -1;
+        for (int i = 0; i < noms.length; i++) {
+            String colonne = noms[i].trim().replace("\"", "").toLowerCase(Locale.ROOT);
+            if (colonne.equals("nom")) {
+                nom = i;
+            } else if (colonne.equals("email")) {
+                email = i;
+            }
+        }
+        if (email < 0) {
+            return false;
+        }
+        colonneNom = nom;
+        colonneEmail = email;
+        nombreColonnes = noms.length;
+        return true;
+    }
+
+    // ⏩ Reprend la lecture à cette position du fichier (début d'un lot)
+    void positionner(long positionFichier) throws IOException {
+        canal.position(positionFichier);
+        origine = positionFichier;
+        position = 0;
+        limite = 0;
+        finFichier = false;
+    }
+
+    // 📦 Remplit le lot avec au plus 'taille' enregistrements ; false si la fin du fichier est atteinte
+    boolean lireLot(LotBrut lot, int taille) throws IOException {
+        while (lot.taille < taille) {
+            int fin = finEnregistrement();
+            if (fin < 0) {
+                return false;
+            }
+            int finUtile = sansRetourChariot(position, fin);
+            if (finUtile > position) {
+                int index = lot.ajouter(origine + position);
+                lot.codes[index] = format == UserImporter.Format.CSV
+                        ? decouperCsv(position, finUtile, lot, index)
+                        : decouperJson(position, finUtile, lot, index);
+            }
+            position = suivant;
+            lot.fin = origine + position;
+        }
+        return true;
+    }
+
+    // 🔎 Fin (exclue, saut de ligne non compris) de l'enregistrement qui commence à 'position',
+    // ou -1 s'il ne reste rien. En CSV, un saut de ligne entre guillemets ne termine pas l'enregistrement.
+    // Comme dans decouperCsv, un guillemet n'ouvre un champ entre guillemets qu'au début du champ :
+    // ailleurs (O"Brien,x@y) c'est un octet ordinaire, et une ligne mal formée reste un seul rejet.
+    // Un guillemet ouvrant jamais refermé n'avale pas la suite du fichier : dès que l'enregistrement dépasse
+    // TAILLE_MAX_ENTRE_GUILLEMETS (ou à la fin du fichier), il s'arrête à son premier saut de ligne (rejeté)
+    // et le découpage reprend après.
+    private int finEnregistrement() throws IOException {
+        boolean csv = format == UserImporter.Format.CSV;
+        // 🔐 Dans un champ entre guillemets ; l'octet suivant commence un champ ; '"' vu entre guillemets
+        // (l'octet suivant dit si c'est "" ou la fin du champ)
+        boolean guillemets = false;
+        boolean debutChamp = true;
+        boolean fermant = false;
+        // 📍 Premier saut de ligne vu entre guillemets, par rapport à 'position' (-1 : aucun)
+        int premierSaut = -1;
+        int decalage = 0;
+        while (true) {
+            int i = position + decalage;
+            while (i < limite) {
+                byte b = octets[i++];
+                if (csv) {
+                    if (fermant) {
+                        fermant = false;
+                        if (b == '"') {
+                            continue;
+                        }
+                        guillemets = false;
+                    }
+                    if (guillemets) {
+                        fermant = b == '"';
+                        if (b == '\n' && premierSaut < 0) {
+                            premierSaut = i - 1 - position;
+                        }
+                        if (premierSaut >= 0 && i - position > TAILLE_MAX_ENTRE_GUILLEMETS) {
+                            suivant = position + premierSaut + 1;
+                            return position + premierSaut;
+                        }
+                        continue;
+                    }
+                    if (b == '"' && debutChamp) {
+                        guillemets = true;
+                        debutChamp = false;
+                        continue;
+                    }
+                    debutChamp = b == ',';
+                }
+                if (b == '\n') {
+                    suivant = i;
+                    return i - 1;
+                }
+            }
+            decalage = i - position;
+            if (!remplir()) {
+                if (guillemets && !fermant && premierSaut >= 0) {
+                    suivant = position + premierSaut + 1;
+                    return position + premierSaut;
+                }
+                if (limite > position) {
+                    // 📄 Dernier enregistrement, sans saut de ligne final
+                    suivant = limite;
+                    return limite;
+                }
+                return -1;
+            }
+        }
+    }
+
+    // 🚚 Garde la partie non découpée en tête du tampon et lit la suite du fichier ; false à la fin du fichier
+    private boolean remplir() throws IOException {
+        if (finFichier) {
+            return false;
+        }
+        if (position > 0) {
+            System.arraycopy(octets, position, octets, 0, limite - position);
+            origine += position;
+            limite -= position;
+            position = 0;
+        }
+        if (limite == octets.length) {
+            if (octets.length >= TAILLE_MAX_ENREGISTREMENT) {
+                throw new IOException("Enregistrement de plus de " + TAILLE_MAX_ENREGISTREMENT
+                        + " octets à la position " + origine);
+            }
+            octets = Arrays.copyOf(octets, octets.length * 2);
+        }
+        int lus = canal.read(ByteBuffer.wrap(octets, limite, octets.length - limite));
+        if (lus < 0) {
+            finFichier = true;
+            return false;
+        }
+        limite += lus;
+        return true;
+    }
+
+    private int sansRetourChariot(int debut, int fin) {
+        return fin > debut && octets[fin - 1] == '\r' ? fin - 1 : fin;
+    }
+
+    // 🧾 Un enregistrement CSV : seules les colonnes du nom et de l'email sont recopiées
+    private byte decouperCsv(int debut, int fin, LotBrut lot, int index) {
+        int colonne = 0;
+        int i = debut;
+        while (true) {
+            int cible = colonne == colonneNom ? 0 : colonne == colonneEmail ? 1 : -1;
+            int champ = lot.utilises;
+            if (i < fin && octets[i] == '"') {
+                // 🔐 Champ entre guillemets : "" devient "
+                i++;
+                while (true) {
+                    if (i >= fin) {
+                        return MALFORME;
+                    }
+                    byte b = octets[i];
+                    if (b == '"') {
+                        if (i + 1 < fin && octets[i + 1] == '"') {
+                            if (cible >= 0) {
+                                lot.octet('"');
+                            }
+                            i += 2;
+                            continue;
+                        }
+                        i++;
+                        break;
+                    }
+                    if (cible >= 0) {
+                        lot.octet(b);
+                    }
+                    i++;
+                }
+                if (i < fin && octets[i] != ',') {
+                    return MALFORME;
+                }
+            } else {
+                int s = i;
+                while (i < fin && octets[i] != ',') {
+                    i++;
+                }
+                if (cible >= 0) {
+                    lot.copier(octets, s, i - s);
+                }
+            }
+            if (cible >= 0) {
+                lot.champ(index, cible, champ, lot.utilises - champ);
+            }
+            if (i >= fin) {
+                break;
+            }
+            i++;
+            colonne++;
+        }
+        return colonne + 1 == nombreColonnes ? OK : COLONNES;
+    }
+
+    // 🧾 Un objet JSON à plat : les chaînes "nom" et "email" sont recopiées, les autres valeurs sautées
+    private byte decouperJson(int debut, int fin, LotBrut lot, int index) {
+        int i = blancs(debut, fin);
+        if (i >= fin || octets[i] != '{') {
+            return MALFORME;
+        }
+        i = blancs(i + 1, fin);
+        if (i < fin && octets[i] == '}') {
+            i++;
+        } else {
+            while (true) {
+                // 🔑 Clé
+                if (i >= fin || octets[i] != '"') {
+                    return MALFORME;
+                }
+                int cleDebut = i + 1;
+                int j = cleDebut;
+                while (j < fin && octets[j] != '"') {
+                    j += octets[j] == '\\' ? 2 : 1;
+                }
+                if (j >= fin) {
+                    return MALFORME;
+                }
+                int cible = egale(cleDebut, j, CLE_NOM) ? 0 : egale(cleDebut, j, CLE_EMAIL) ? 1 : -1;
+                i = blancs(j + 1, fin);
+                if (i >= fin || octets[i] != ':') {
+                    return MALFORME;
+                }
+                i = blancs(i + 1, fin);
+
+                // 🧩 Valeur : une chaîne, ou un nombre / true / false / null (ignorés)
+                if (i < fin && octets[i] == '"') {
+                    int champ = lot.utilises;
+                    i = chaineJson(i + 1, fin, lot, cible >= 0);
+                    if (i < 0) {
+                        return MALFORME;
+                    }
+                    if (cible >= 0) {
+                        lot.champ(index, cible, champ, lot.utilises - champ);
+                    }
+                } else {
+                    int s = i;
+                    while (i < fin && octets[i] != ',' && octets[i] != '}' && !blanc(octets[i])) {
+                        i++;
+                    }
+                    if (i == s || octets[s] == '{' || octets[s] == '[') {
+                        return MALFORME;
+                    }
+                }
+                i = blancs(i, fin);
+                if (i < fin && octets[i] == ',') {
+                    i = blancs(i + 1, fin);
+                    continue;
+                }
+                if (i < fin && octets[i] == '}') {
+                    i++;
+                    break;
+                }
+                return MALFORME;
+            }
+        }
+        return blancs(i, fin) == fin ? OK : MALFORME;
+    }
+
+    // 🔤 Chaîne JSON commençant après son guillemet ; retourne la position après le guillemet fermant, ou -1
+    private int chaineJson(int i, int fin, LotBrut lot, boolean garder) {
+        while (i < fin) {
+            byte b = octets[i];
+            if (b == '"') {
+                return i + 1;
+            }
+            if ((b & 0xFF) < 0x20) {
+                return -1;
+            }
+            if (b != '\\') {
+                if (garder) {
+                    lot.octet(b);
+                }
+                i++;
+                continue;
+            }
+            if (i + 1 >= fin) {
+                return -1;
+            }
+            byte e = octets[i + 1];
+            i += 2;
+            int c;
+            switch (e) {
+                case '"', '\\', '/' -> c = e;
+                case 'b' -> c = '\b';
+                case 'f' -> c = '\f';
+                case 'n' -> c = '\n';
+                case 'r' -> c = '\r';
+                case 't' -> c = '\t';
+                case 'u' -> {
+                    c = hexadecimal(i, fin);
+                    if (c < 0) {
+                        return -1;
+                    }
+                    i += 4;
+                    // 🧬 Paire de substitution : \\uD83D\\uDE00 → un seul caractère
+                    if (Character.isHighSurrogate((char) c) && i + 6 <= fin && octets[i] == '\\' && octets[i + 1] == 'u') {
+                        int bas = hexadecimal(i + 2, fin);
+                        if (bas >= 0 && Character.isLowSurrogate((char) bas)) {
+                            c = Character.toCodePoint((char) c, (char) bas);
+                            i += 6;
+                        }
+                    }
+                }
+                default -> {
+                    return -1;
+                }
+            }
+            if (garder) {
+                lot.caractere(c);
+            }
+        }
+        return -1;
+    }
+
+    // 🔢 Quatre chiffres hexadécimaux, ou -1
+    private int hexadecimal(int i, int fin) {
+        if (i + 4 > fin) {
+            return -1;
+        }
+        int valeur = 0;
+        for (int k = i; k < i + 4; k++) {
+            int chiffre = Character.digit(octets[k], 16);
+            if (chiffre < 0) {
+                return -1;
+            }
+            valeur = valeur * 16 + chiffre;
+        }
+        return valeur;
+    }
+
+    private boolean egale(int debut, int fin, byte[] cle) {
+        return Arrays.equals(octets, debut, fin, cle, 0, cle.length);
+    }
+
+    private int blancs(int i, int fin) {
+        while (i < fin && blanc(octets[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean blanc(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    // 📦 Lot d'enregistrements découpés, réutilisé d'un lot à l'autre (ses tableaux ne sont pas réalloués)
+    static final class LotBrut {
+
+        // 📍 Position dans le fichier du premier octet du lot et de l'octet qui le suit ;
+        // numéro (à partir de 0) du premier enregistrement du lot
+        long debut;
+        long fin;
+        long premierNumero;
+
+        // 📏 Nombre d'enregistrements
+        int taille;
+
+        // 🧱 Octets du nom et de l'email, à la suite
+        byte[] octets = new byte[64 * 1024];
+        int utilises;
+
+        // 🧭 Par enregistrement : début et longueur du nom, début et longueur de l'email (-1 : absent)
+        int[] champs = new int[4 * 1024];
+
+        // 📍 Position de chaque enregistrement dans le fichier, et son code (OK ou motif de rejet)
+        long[] positions = new long[1024];
+        byte[] codes = new byte[1024];
+
+        void reinitialiser(long debut, long premierNumero) {
+            this.debut = debut;
+            this.fin = debut;
+            this.premierNumero = premierNumero;
+            this.taille = 0;
+            this.utilises = 0;
+        }
+
+        int ajouter(long position) {
+            if (taille == codes.length) {
+                int capacite = taille * 2;
+                champs = Arrays.copyOf(champs, 4 * capacite);
+                positions = Arrays.copyOf(positions, capacite);
+                codes = Arrays.copyOf(codes, capacite);
+            }
+            champs[4 * taille + 1] = -1;
+            champs[4 * taille + 3] = -1;
+            positions[taille] = position;
+            return taille++;
+        }
+
+        // ✏️ Champ 'cible' (0 : nom, 1 : email) de l'enregistrement 'index'
+        void champ(int index, int cible, int debutChamp, int longueur) {
+            champs[4 * index + 2 * cible] = debutChamp;
+            champs[4 * index + 2 * cible + 1] = longueur;
+        }
+
+        void octet(int b) {
+            reserver(1);
+            octets[utilises++] = (byte) b;
+        }
+
+        void copier(byte[] source, int debutSource, int longueur) {
+            reserver(longueur);
+            System.arraycopy(source, debutSource, octets, utilises, longueur);
+            utilises += longueur;
+        }
+
+        // 🔤 Un caractère Unicode, encodé en UTF-8
+        void caractere(int c) {
+            reserver(4);
+            if (c < 0x80) {
+                octets[utilises++] = (byte) c;
+            } else if (c < 0x800) {
+                octets[utilises++] = (byte) (0xC0 | (c >> 6));
+                octets[utilises++] = (byte) (0x80 | (c & 0x3F));
+            } else if (c < 0x10000) {
+                octets[utilises++] = (byte) (0xE0 | (c >> 12));
+                octets[utilises++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                octets[utilises++] = (byte) (0x80 | (c & 0x3F));
+            } else {
+                octets[utilises++] = (byte) (0xF0 | (c >> 18));
+                octets[utilises++] = (byte) (0x80 | ((c >> 12) & 0x3F));
+                octets[utilises++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                octets[utilises++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        private void reserver(int n) {
+            if (utilises + n > octets.length) {
+                octets = Arrays.copyOf(octets, Math.max(octets.length * 2, utilises + n));
+            }
+        }
+    }
+}
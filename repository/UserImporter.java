@@ -0,0 +1,714 @@
+// 📦 Déclaration du package dans lequel se trouve cette classe
+package repository;
+
+// 📦 Importation de la classe Utilisateur (une ligne de la table "utilisateurs")
+import model.Utilisateur;
+
+// 📦 Importation de l'interface DataSource pour obtenir les connexions
+import javax.sql.DataSource;
+
+// 📦 Importation des classes JDBC
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// 📦 Importation des classes NIO (canaux et fichiers)
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// 📦 Importation des classes utilitaires et de concurrence
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// 📥 Import d'un fichier d'utilisateurs (CSV ou NDJSON, des millions de lignes) dans la table "utilisateurs".
+//
+// Trois étapes, chacune sur son thread virtuel, reliées par des files bornées : une étape plus lente
+// que la précédente la fait attendre (le fichier n'est jamais chargé en entier en mémoire).
+//  - lecture : le fichier est lu par son FileChannel et découpé en lots de 'tailleLot' enregistrements
+//    (UserImportParser), sans créer de String ; les lots (LotBrut) sont recyclés une fois validés ;
+//  - validation : nom et email présents, email de la forme "x@y" sans espace, longueurs de la table
+//    (100 et 255 caractères) ; seuls les enregistrements acceptés sont décodés en Utilisateur ;
+//  - insertion : 'connexions' threads insèrent chacun un lot à la fois avec UserBulkLoader
+//    (un batch et un commit par lot). Un lot refusé par la base est annulé en entier et compté
+//    en rejet (ECHEC_INSERTION) ; les autres lots continuent.
+// Les enregistrements rejetés sont décrits dans "<fichier>.rejets" (numéro, position, motif).
+//
+// 🔁 Reprise : chaque lot est noté dans la table "imports_lots" (positions de début et de fin dans le
+// fichier) DANS la transaction qui insère ses lignes : un lot est en base si et seulement s'il est noté,
+// même après un arrêt brutal entre deux instructions. Relancer l'import du même fichier saute les lots
+// déjà notés et refait les autres (lots en échec ou en cours au moment de l'arrêt). Le bilan donne aussi
+// la "reprise" : la position jusqu'à laquelle tout le fichier est en base, à partir de laquelle on peut
+// découper le fichier à la main. Les lignes du fichier sont supprimées de la table quand tous ses lots
+// sont en base. La table est créée par la migration 4 (SchemaMigrations), ou à défaut par l'import
+// lui-même s'il ne la trouve pas (démarrage sans -Ddb.migrate=true).
+//
+// 🚀 Avec MySQL, activer "rewriteBatchedStatements=true" (voir UserBulkLoader).
+public class UserImporter {
+
+    // 📏 Enregistrements par lot (et donc par commit)
+    public static final int TAILLE_LOT_PAR_DEFAUT = 1000;
+
+    // 📏 Lots en attente entre la lecture et la validation
+    private static final int LOTS_EN_FILE = 4;
+
+    // 📏 Longueurs des colonnes de la table
+    private static final int NOM_MAX = 100;
+    private static final int EMAIL_MAX = 255;
+
+    // 🧾 Table de suivi des imports : un lot en base par ligne, pour un fichier (chemin absolu) et des
+    // paramètres ("format tailleLot tailleFichier") donnés ; d'autres paramètres recommencent l'import
+    public static final String TABLE_LOTS = "imports_lots";
+    public static final String SQL_CREATION = "CREATE TABLE IF NOT EXISTS " + TABLE_LOTS + " ("
+            + "fichier VARCHAR(512) NOT NULL, "
+            + "parametres VARCHAR(100) NOT NULL, "
+            + "debut BIGINT NOT NULL, "
+            + "fin BIGINT NOT NULL, "
+            + "enregistrements BIGINT NOT NULL, "
+            + "inserees BIGINT NOT NULL, "
+            + "rejetees BIGINT NOT NULL, "
+            + "PRIMARY KEY (fichier, debut))";
+
+    // 🧾 Format du fichier, déduit de son extension
+    public enum Format {
+        CSV,
+        NDJSON;
+
+        // 🔎 .ndjson, .jsonl et .json : NDJSON ; sinon CSV
+        public static Format pour(Path fichier) {
+            String nom = fichier.getFileName().toString().toLowerCase(Locale.ROOT);
+            return nom.endsWith(".ndjson") || nom.endsWith(".jsonl") || nom.endsWith(".json") ? NDJSON : CSV;
+        }
+    }
+
+    // ❌ Motifs de rejet d'un enregistrement
+    public enum Rejet {
+        MALFORME("enregistrement mal formé"),
+        COLONNES("nombre de colonnes inattendu"),
+        NOM_MANQUANT("nom manquant"),
+        NOM_TROP_LONG("nom de plus de " + NOM_MAX + " caractères"),
+        EMAIL_MANQUANT("email manquant"),
+        EMAIL_INVALIDE("email invalide"),
+        EMAIL_TROP_LONG("email de plus de " + EMAIL_MAX + " caractères"),
+        ECHEC_INSERTION("lot refusé par la base");
+
+        private final String libelle;
+
+        Rejet(String libelle) {
+            this.libelle = libelle;
+        }
+
+        public String getLibelle() {
+            return libelle;
+        }
+    }
+
+    // 📊 État d'avancement, transmis après chaque lot (depuis le thread d'insertion du lot)
+    public record Progression(long enregistrements, long inserees, long rejetees, long reprise,
+                              long tailleFichier, long dureeMillis) {
+        @Override
+        public String toString() {
+            long pourcent = tailleFichier == 0 ? 100 : reprise * 100 / tailleFichier;
+            return enregistrements + " enregistrements (" + inserees + " insérés, " + rejetees + " rejetés), "
+                    + "en base jusqu'à l'octet " + reprise + "/" + tailleFichier + " (" + pourcent + " %), "
+                    + dureeMillis + " ms";
+        }
+    }
+
+    // ❌ Lot refusé par la base : positions dans le fichier, enregistrements concernés, message d'erreur
+    public record EchecLot(long debut, long fin, long premierEnregistrement, int enregistrements, String message) {}
+
+    // 🧾 Bilan d'un import. 'rejetsParMotif' et le débit portent sur cette exécution seulement ;
+    // les autres totaux comprennent les lots repris du checkpoint.
+    public record Bilan(Path fichier, long enregistrements, long inserees, long rejetees,
+                        Map<Rejet, Long> rejetsParMotif, List<EchecLot> echecs, int lotsRepris,
+                        long enregistrementsRepris, long reprise, long dureeMillis) {
+
+        // ✅ true si tout le fichier est passé (son suivi a été supprimé de la table)
+        public boolean isComplet() {
+            return echecs.isEmpty();
+        }
+
+        // 🚀 Enregistrements traités par seconde pendant cette exécution
+        public double getLignesParSeconde() {
+            return dureeMillis == 0 ? 0 : (enregistrements - enregistrementsRepris) * 1000.0 / dureeMillis;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder texte = new StringBuilder()
+                    .append(enregistrements).append(" enregistrements lus dans ").append(fichier)
+                    .append(" en ").append(dureeMillis).append(" ms (")
+                    .append(Math.round(getLignesParSeconde())).append(" lignes/s) : ")
+                    .append(inserees).append(" insérés, ").append(rejetees).append(" rejetés");
+            rejetsParMotif.forEach((motif, nombre) -> texte.append("\n   ❌ ").append(motif.getLibelle())
+                    .append(" : ").append(nombre));
+            if (lotsRepris > 0) {
+                texte.append("\n   🔁 ").append(lotsRepris).append(" lots (").append(enregistrementsRepris)
+                        .append(" enregistrements) repris du checkpoint");
+            }
+            if (!echecs.isEmpty()) {
+                texte.append("\n   ⚠️ ").append(echecs.size()).append(" lot(s) en échec, à relancer ; en base jusqu'à l'octet ")
+                        .append(reprise);
+            }
+            return texte.toString();
+        }
+    }
+
+    // 🔐 Source des connexions
+    private final DataSource dataSource;
+
+    // 📏 Enregistrements par lot
+    private final int tailleLot;
+
+    // 🧵 Nombre de lots insérés en même temps (une connexion chacun)
+    private final int connexions;
+
+    // 📰 true : les insertions sont notées dans la table outbox (voir UserOutbox)
+    private boolean outbox;
+
+    // 🏗️ Constructeur par défaut : lots de 1000, autant d'insertions simultanées que de connexions dans le pool
+    public UserImporter(DataSource dataSource) {
+        this(dataSource, TAILLE_LOT_PAR_DEFAUT, UserExporter.parallelismePour(dataSource));
+    }
+
+    // 🏗️ Constructeur complet
+    public UserImporter(DataSource dataSource, int tailleLot, int connexions) {
+        if (tailleLot <= 0) {
+            throw new IllegalArgumentException("tailleLot doit être positive : " + tailleLot);
+        }
+        if (connexions <= 0) {
+            throw new IllegalArgumentException("connexions doit être positif : " + connexions);
+        }
+        this.dataSource = dataSource;
+        this.tailleLot = tailleLot;
+        this.connexions = connexions;
+    }
+
+    // 📰 Active (ou coupe) l'outbox pour les lots insérés
+    public void setOutbox(boolean outbox) {
+        this.outbox = outbox;
+    }
+
+    // 📥 Importe le fichier sans suivi de l'avancement
+    public Bilan importer(Path fichier) throws IOException {
+        return importer(fichier, progression -> {});
+    }
+
+    // 📥 Importe 'fichier' ; 'suivi' reçoit l'avancement après chaque lot (il est appelé depuis
+    // plusieurs threads). Une erreur de lecture arrête l'import : les lots déjà en base restent notés.
+    // Une erreur SQL sur la table de suivi est remontée en IOException.
+    public Bilan importer(Path fichier, Consumer<Progression> suivi) throws IOException {
+        long debut = System.nanoTime();
+        Format format = Format.pour(fichier);
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            long tailleFichier = canal.size();
+            UserImportParser parser = new UserImportParser(canal, format);
+            long debutDonnees = parser.lireEntete();
+
+            Checkpoint etat = Checkpoint.ouvrir(dataSource, fichier, format.name() + " " + tailleLot + " " + tailleFichier,
+                    debutDonnees);
+            Import courant;
+            try (Journal rejets = new Journal(Path.of(fichier + ".rejets"), etat.estReprise())) {
+                courant = new Import(parser, etat, rejets, tailleFichier, debut, suivi);
+                courant.executer();
+            }
+            if (courant.echecs.isEmpty()) {
+                etat.supprimer();
+            }
+            return courant.bilan(fichier);
+        } catch (SQLException e) {
+            throw new IOException("Erreur sur la table " + TABLE_LOTS + " : " + e.getMessage(), e);
+        }
+    }
+
+    // 🔄 Un import en cours : ses files, ses compteurs et ses trois étapes
+    private final class Import {
+
+        // 🏁 Marques de fin de file
+        private static final UserImportParser.LotBrut FIN_BRUT = new UserImportParser.LotBrut();
+        private static final LotValide FIN_VALIDE = new LotValide(-1, -1, -1, 0, List.of(), List.of());
+
+        private final UserImportParser parser;
+        private final Checkpoint etat;
+        private final Journal rejets;
+        private final long tailleFichier;
+        private final long debut;
+        private final Consumer<Progression> suivi;
+
+        // 📬 Files bornées : lots lus, lots validés, et lots vides prêts à être réutilisés
+        private final BlockingQueue<UserImportParser.LotBrut> bruts = new ArrayBlockingQueue<>(LOTS_EN_FILE);
+        private final BlockingQueue<LotValide> valides = new ArrayBlockingQueue<>(connexions);
+        private final BlockingQueue<UserImportParser.LotBrut> recycles = new ArrayBlockingQueue<>(LOTS_EN_FILE + 2);
+
+        // 📊 Compteurs (lots repris compris)
+        private final LongAdder enregistrements = new LongAdder();
+        private final LongAdder inserees = new LongAdder();
+        private final LongAdder rejetees = new LongAdder();
+        private final AtomicLongArray parMotif = new AtomicLongArray(Rejet.values().length);
+        private final List<EchecLot> echecs = Collections.synchronizedList(new ArrayList<>());
+        private int lotsRepris;
+        private long enregistrementsRepris;
+
+        Import(UserImportParser parser, Checkpoint etat, Journal rejets, long tailleFichier, long debut,
+               Consumer<Progression> suivi) {
+            this.parser = parser;
+            this.etat = etat;
+            this.rejets = rejets;
+            this.tailleFichier = tailleFichier;
+            this.debut = debut;
+            this.suivi = suivi;
+            for (int i = 0; i < LOTS_EN_FILE + 2; i++) {
+                recycles.add(new UserImportParser.LotBrut());
+            }
+        }
+
+        // ▶️ Lance les étapes et attend qu'elles aient toutes terminé ; à la première erreur, les autres sont arrêtées
+        void executer() throws IOException {
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                ExecutorCompletionService<Void> etapes = new ExecutorCompletionService<>(executor);
+                List<Future<Void>> futures = new ArrayList<>();
+                futures.add(etapes.submit(etape(this::lire)));
+                futures.add(etapes.submit(etape(this::valider)));
+                for (int i = 0; i < connexions; i++) {
+                    futures.add(etapes.submit(etape(this::inserer)));
+                }
+                try {
+                    for (int i = 0; i < futures.size(); i++) {
+                        etapes.take().get();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Import interrompu", e);
+                } catch (ExecutionException e) {
+                    for (Future<Void> future : futures) {
+                        future.cancel(true);
+                    }
+                    if (e.getCause() instanceof IOException io) {
+                        throw io;
+                    }
+                    if (e.getCause() instanceof RuntimeException runtime) {
+                        throw runtime;
+                    }
+                    throw new IOException(e.getCause());
+                }
+            }
+        }
+
+        // 📖 Étape 1 : lecture du fichier, lot par lot ; les lots déjà en base sont sautés
+        private void lire() throws IOException, InterruptedException {
+            try {
+                long position = etat.debutDonnees;
+                long numero = 0;
+                boolean saut = false;
+                boolean suite = true;
+                while (suite) {
+                    Checkpoint.LotTermine termine = etat.termine(position);
+                    if (termine != null) {
+                        lotsRepris++;
+                        enregistrementsRepris += termine.enregistrements();
+                        compter(termine.enregistrements(), termine.inserees(), termine.rejetees());
+                        position = termine.fin();
+                        numero += termine.enregistrements();
+                        saut = true;
+                        continue;
+                    }
+                    if (saut) {
+                        parser.positionner(position);
+                        saut = false;
+                    }
+                    UserImportParser.LotBrut lot = recycles.take();
+                    lot.reinitialiser(position, numero);
+                    suite = parser.lireLot(lot, tailleLot);
+                    if (lot.taille == 0) {
+                        break;
+                    }
+                    position = lot.fin;
+                    numero += lot.taille;
+                    bruts.put(lot);
+                }
+            } finally {
+                bruts.put(FIN_BRUT);
+            }
+        }
+
+        // 🔎 Étape 2 : validation et décodage des enregistrements acceptés
+        private void valider() throws InterruptedException {
+            try {
+                UserImportParser.LotBrut lot;
+                while ((lot = bruts.take()) != FIN_BRUT) {
+                    List<Utilisateur> acceptes = new ArrayList<>(lot.taille);
+                    List<String> lignesRejet = new ArrayList<>();
+                    for (int i = 0; i < lot.taille; i++) {
+                        Rejet motif = UserImporter.valider(lot, i, acceptes);
+                        if (motif != null) {
+                            parMotif.incrementAndGet(motif.ordinal());
+                            lignesRejet.add(ligneRejet(lot.premierNumero + i, lot.positions[i], motif.getLibelle()));
+                        }
+                    }
+                    LotValide valide = new LotValide(lot.debut, lot.fin, lot.premierNumero, lot.taille, acceptes, lignesRejet);
+                    recycles.put(lot);
+                    valides.put(valide);
+                }
+            } finally {
+                for (int i = 0; i < connexions; i++) {
+                    valides.put(FIN_VALIDE);
+                }
+            }
+        }
+
+        // 🧱 Étape 3 : insertion, un lot par commit ; le lot est noté dans la table de suivi par la même transaction
+        private void inserer() throws IOException, InterruptedException {
+            UserBulkLoader chargeur = new UserBulkLoader(dataSource, tailleLot, UserBulkLoader.ModeCommit.PAR_CHUNK, false);
+            chargeur.setOutbox(outbox);
+            LotValide lot;
+            while ((lot = valides.take()) != FIN_VALIDE) {
+                int rejetes = lot.rejets().size();
+                int inseres = lot.utilisateurs().size();
+                Checkpoint.LotTermine termine = new Checkpoint.LotTermine(lot.debut(), lot.fin(), lot.enregistrements(),
+                        inseres, rejetes);
+                BulkLoadResult resultat = inseres == 0
+                        ? etat.noterSeul(termine)
+                        : chargeur.charger(lot.utilisateurs(), conn -> etat.ecrire(conn, termine));
+                if (resultat.isSucces()) {
+                    // ✅ Lot en base (et noté) : ses rejets vont dans le journal
+                    etat.noter(termine);
+                    rejets.ecrire(lot.rejets());
+                    compter(lot.enregistrements(), inseres, rejetes);
+                } else {
+                    // ❌ Lot annulé : tous ses enregistrements sont rejetés, il sera refait à la relance
+                    String message = resultat.getEchecs().get(0).getMessage();
+                    echecs.add(new EchecLot(lot.debut(), lot.fin(), lot.premierNumero() + 1, lot.enregistrements(), message));
+                    parMotif.addAndGet(Rejet.ECHEC_INSERTION.ordinal(), lot.utilisateurs().size());
+                    List<String> lignes = new ArrayList<>(lot.rejets());
+                    lignes.add("lot des octets " + lot.debut() + " à " + lot.fin() + " (" + lot.utilisateurs().size()
+                            + " enregistrements valides) : " + Rejet.ECHEC_INSERTION.getLibelle() + " : " + message);
+                    rejets.ecrire(lignes);
+                    compter(lot.enregistrements(), 0, lot.enregistrements());
+                }
+                suivi.accept(new Progression(enregistrements.sum(), inserees.sum(), rejetees.sum(), etat.reprise(),
+                        tailleFichier, (System.nanoTime() - debut) / 1_000_000));
+            }
+        }
+
+        private void compter(long lus, long inseres, long rejetes) {
+            enregistrements.add(lus);
+            inserees.add(inseres);
+            rejetees.add(rejetes);
+        }
+
+        Bilan bilan(Path fichier) {
+            Map<Rejet, Long> motifs = new EnumMap<>(Rejet.class);
+            for (Rejet motif : Rejet.values()) {
+                long nombre = parMotif.get(motif.ordinal());
+                if (nombre > 0) {
+                    motifs.put(motif, nombre);
+                }
+            }
+            return new Bilan(fichier, enregistrements.sum(), inserees.sum(), rejetees.sum(), motifs,
+                    List.copyOf(echecs), lotsRepris, enregistrementsRepris, etat.reprise(),
+                    (System.nanoTime() - debut) / 1_000_000);
+        }
+    }
+
+    // 🔎 Valide l'enregistrement 'i' du lot ; s'il est accepté, l'ajoute à 'acceptes' et retourne null
+    private static Rejet valider(UserImportParser.LotBrut lot, int i, List<Utilisateur> acceptes) {
+        if (lot.codes[i] != UserImportParser.OK) {
+            return Rejet.values()[lot.codes[i]];
+        }
+        byte[] o = lot.octets;
+        int[] champs = lot.champs;
+
+        // ✂️ Nom et email sans les espaces autour
+        if (champs[4 * i + 1] < 0) {
+            return Rejet.NOM_MANQUANT;
+        }
+        int nomDebut = champs[4 * i];
+        int nomFin = nomDebut + champs[4 * i + 1];
+        while (nomDebut < nomFin && espace(o[nomDebut])) {
+            nomDebut++;
+        }
+        while (nomFin > nomDebut && espace(o[nomFin - 1])) {
+            nomFin--;
+        }
+        if (nomFin == nomDebut) {
+            return Rejet.NOM_MANQUANT;
+        }
+        if (champs[4 * i + 3] < 0) {
+            return Rejet.EMAIL_MANQUANT;
+        }
+        int emailDebut = champs[4 * i + 2];
+        int emailFin = emailDebut + champs[4 * i + 3];
+        while (emailDebut < emailFin && espace(o[emailDebut])) {
+            emailDebut++;
+        }
+        while (emailFin > emailDebut && espace(o[emailFin - 1])) {
+            emailFin--;
+        }
+        if (emailFin == emailDebut) {
+            return Rejet.EMAIL_MANQUANT;
+        }
+
+        // 📧 Un seul '@', avec quelque chose de chaque côté, et aucun espace ni caractère de contrôle
+        int arobase = -1;
+        for (int k = emailDebut; k < emailFin; k++) {
+            int b = o[k] & 0xFF;
+            if (b <= ' ') {
+                return Rejet.EMAIL_INVALIDE;
+            }
+            if (b == '@') {
+                if (arobase >= 0) {
+                    return Rejet.EMAIL_INVALIDE;
+                }
+                arobase = k;
+            }
+        }
+        if (arobase <= emailDebut || arobase == emailFin - 1) {
+            return Rejet.EMAIL_INVALIDE;
+        }
+
+        // 📏 Longueurs en caractères (au plus 4 octets UTF-8 par caractère : inutile de décoder au-delà)
+        if (nomFin - nomDebut > 4 * NOM_MAX) {
+            return Rejet.NOM_TROP_LONG;
+        }
+        if (emailFin - emailDebut > 4 * EMAIL_MAX) {
+            return Rejet.EMAIL_TROP_LONG;
+        }
+        String nom = new String(o, nomDebut, nomFin - nomDebut, StandardCharsets.UTF_8);
+        if (nom.length() > NOM_MAX) {
+            return Rejet.NOM_TROP_LONG;
+        }
+        String email = new String(o, emailDebut, emailFin - emailDebut, StandardCharsets.UTF_8);
+        if (email.length() > EMAIL_MAX) {
+            return Rejet.EMAIL_TROP_LONG;
+        }
+        acceptes.add(new Utilisateur(0, nom, email));
+        return null;
+    }
+
+    private static boolean espace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    // 🧾 Ligne du journal des rejets (enregistrements numérotés à partir de 1, en-tête non compris)
+    private static String ligneRejet(long numero, long position, String motif) {
+        return "enregistrement " + (numero + 1) + " (octet " + position + ") : " + motif;
+    }
+
+    // 🧵 Une étape sous forme de tâche
+    private static Callable<Void> etape(Etape etape) {
+        return () -> {
+            etape.executer();
+            return null;
+        };
+    }
+
+    @FunctionalInterface
+    private interface Etape {
+        void executer() throws IOException, InterruptedException;
+    }
+
+    // 📦 Lot validé : positions dans le fichier, utilisateurs à insérer et lignes de rejet
+    private record LotValide(long debut, long fin, long premierNumero, int enregistrements,
+                             List<Utilisateur> utilisateurs, List<String> rejets) {}
+
+    // 🧾 Journal des rejets "<fichier>.rejets", ouvert au premier rejet (plusieurs threads : une écriture à la fois).
+    // Vidé au début d'un nouvel import, complété lors d'une reprise.
+    private static final class Journal implements AutoCloseable {
+
+        private final Path chemin;
+        private final boolean reprise;
+        private BufferedWriter ecrivain;
+
+        Journal(Path chemin, boolean reprise) throws IOException {
+            this.chemin = chemin;
+            this.reprise = reprise;
+            if (!reprise) {
+                Files.deleteIfExists(chemin);
+            }
+        }
+
+        synchronized void ecrire(List<String> lignes) throws IOException {
+            if (lignes.isEmpty()) {
+                return;
+            }
+            if (ecrivain == null) {
+                ecrivain = reprise
+                        ? Files.newBufferedWriter(chemin, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)
+                        : Files.newBufferedWriter(chemin, StandardCharsets.UTF_8);
+            }
+            for (String ligne : lignes) {
+                ecrivain.write(ligne);
+                ecrivain.newLine();
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (ecrivain != null) {
+                ecrivain.close();
+            }
+        }
+    }
+
+    // 📌 Suivi d'un import dans la table "imports_lots" : les lots en base de ce fichier, par position de début.
+    // Les lots sont découpés de la même façon à chaque essai : un lot noté est reconnu à sa position de début.
+    private static final class Checkpoint {
+
+        // ✅ Un lot en base
+        record LotTermine(long debut, long fin, long enregistrements, long inserees, long rejetees) {}
+
+        // 🧾 Requêtes
+        private static final String SQL_LOTS = "SELECT parametres, debut, fin, enregistrements, inserees, rejetees FROM "
+                + TABLE_LOTS + " WHERE fichier = ?";
+        private static final String SQL_NOTER = "INSERT INTO " + TABLE_LOTS
+                + " (fichier, parametres, debut, fin, enregistrements, inserees, rejetees) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        private static final String SQL_SUPPRIMER = "DELETE FROM " + TABLE_LOTS + " WHERE fichier = ?";
+
+        private final DataSource dataSource;
+        private final String fichier;
+        private final String parametres;
+        private final long debutDonnees;
+        private final boolean reprise;
+
+        // 🗂️ Lots en base, par position de début
+        private final Map<Long, LotTermine> termines;
+
+        // 📍 Tout le fichier est en base jusqu'à cette position
+        private long filigrane;
+
+        private Checkpoint(DataSource dataSource, String fichier, String parametres, long debutDonnees,
+                           Map<Long, LotTermine> termines) {
+            this.dataSource = dataSource;
+            this.fichier = fichier;
+            this.parametres = parametres;
+            this.debutDonnees = debutDonnees;
+            this.reprise = !termines.isEmpty();
+            this.termines = termines;
+            this.filigrane = debutDonnees;
+            avancer();
+        }
+
+        // 📖 Lots déjà en base pour ce fichier s'ils ont été découpés avec les mêmes paramètres (même format,
+        // même taille de lot, fichier de même taille) ; sinon, l'ancien suivi est effacé et l'import recommence
+        static Checkpoint ouvrir(DataSource dataSource, Path chemin, String parametres, long debutDonnees)
+                throws SQLException {
+            String fichier = chemin.toAbsolutePath().normalize().toString();
+            Map<Long, LotTermine> termines = new HashMap<>();
+            boolean autresParametres = false;
+            try (Connection conn = dataSource.getConnection()) {
+                // 🧱 Table créée au besoin (même instruction que la migration 4, sans effet si elle existe)
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute(SQL_CREATION);
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(SQL_LOTS)) {
+                    stmt.setString(1, fichier);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            if (!rs.getString(1).equals(parametres)) {
+                                autresParametres = true;
+                                break;
+                            }
+                            LotTermine lot = new LotTermine(rs.getLong(2), rs.getLong(3), rs.getLong(4),
+                                    rs.getLong(5), rs.getLong(6));
+                            termines.put(lot.debut(), lot);
+                        }
+                    }
+                }
+                if (autresParametres) {
+                    termines.clear();
+                    supprimer(conn, fichier);
+                }
+            }
+            return new Checkpoint(dataSource, fichier, parametres, debutDonnees, termines);
+        }
+
+        boolean estReprise() {
+            return reprise;
+        }
+
+        synchronized LotTermine termine(long debut) {
+            return termines.get(debut);
+        }
+
+        // ✍️ Note le lot sur la connexion (et donc dans la transaction) qui insère ses lignes
+        void ecrire(Connection conn, LotTermine lot) throws SQLException {
+            try (PreparedStatement stmt = conn.prepareStatement(SQL_NOTER)) {
+                stmt.setString(1, fichier);
+                stmt.setString(2, parametres);
+                stmt.setLong(3, lot.debut());
+                stmt.setLong(4, lot.fin());
+                stmt.setLong(5, lot.enregistrements());
+                stmt.setLong(6, lot.inserees());
+                stmt.setLong(7, lot.rejetees());
+                stmt.executeUpdate();
+            }
+        }
+
+        // ✍️ Lot sans ligne à insérer (tout rejeté) : noté seul, avec le même bilan qu'un chargement
+        BulkLoadResult noterSeul(LotTermine lot) {
+            BulkLoadResult resultat = new BulkLoadResult();
+            long debut = System.nanoTime();
+            try (Connection conn = dataSource.getConnection()) {
+                ecrire(conn, lot);
+            } catch (SQLException e) {
+                resultat.ajouterEchec(new BulkLoadResult.EchecChunk(0, 0, 0, e.getMessage()));
+            }
+            return resultat.terminer(System.nanoTime() - debut);
+        }
+
+        // ✅ Lot validé en base (et déjà noté dans la table) : pris en compte pour la reprise
+        synchronized void noter(LotTermine lot) {
+            termines.put(lot.debut(), lot);
+            avancer();
+        }
+
+        synchronized long reprise() {
+            return filigrane;
+        }
+
+        // 🧹 Import terminé : son suivi n'a plus d'utilité
+        void supprimer() throws SQLException {
+            try (Connection conn = dataSource.getConnection()) {
+                supprimer(conn, fichier);
+            }
+        }
+
+        private static void supprimer(Connection conn, String fichier) throws SQLException {
+            try (PreparedStatement stmt = conn.prepareStatement(SQL_SUPPRIMER)) {
+                stmt.setString(1, fichier);
+                stmt.executeUpdate();
+            }
+        }
+
+        // 📍 Avance le filigrane sur les lots en base qui se suivent
+        private void avancer() {
+            LotTermine lot;
+            while ((lot = termines.get(filigrane)) != null) {
+                filigrane = lot.fin();
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+// 📦 Déclaration du package dans lequel se trouve cette classe
+package repository;
+
+// 📦 Importation de l'interface DataSource pour obtenir les connexions
+import javax.sql.DataSource;
+
+// 📦 Importation des classes JDBC
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+// 📦 Importation des classes utilitaires Java
+import java.util.concurrent.TimeUnit;
+
+// 📰 Table "outbox" des changements de la table "utilisateurs".
+//
+// Quand l'outbox est activée (setOutbox(true) sur UserRepository, GroupCommitUserWriter ou
+// UserBulkLoader), chaque écriture ajoute, dans la même transaction, une ligne
+// (seq, utilisateur_id, operation, cree_le) à "utilisateurs_changements". Les autres nœuds lisent
+// ces lignes (UserChangeFeed) pour mettre à jour leurs copies locales sans tout relire.
+// ⚠️ Une transaction qui écrit dans l'outbox doit être validée en moins de la durée maximale réglée sur
+// les UserChangeFeed (5 minutes par défaut) : au-delà, ses changements peuvent ne pas être transmis.
+// La table ne fait que grandir : purger() retire les lignes plus anciennes que la rétention voulue.
+public final class UserOutbox {
+
+    // 🏷️ Nom de la table et types d'opération
+    public static final String TABLE = "utilisateurs_changements";
+    public static final char INSERTION = 'I';
+    public static final char MODIFICATION = 'U';
+    public static final char SUPPRESSION = 'D';
+
+    // 🧾 Création de la table (MySQL et H2 en mode MySQL) ; l'index sur cree_le sert à la lecture
+    // des changements récents (UserChangeFeed) et à la purge
+    public static final String SQL_CREATION = "CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+            + "seq BIGINT AUTO_INCREMENT PRIMARY KEY, "
+            + "utilisateur_id INT NOT NULL, "
+            + "operation CHAR(1) NOT NULL, "
+            + "cree_le TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3), "
+            + "INDEX idx_changements_cree_le (cree_le))";
+
+    private static final String SQL_INSERT = "INSERT INTO " + TABLE + " (utilisateur_id, operation) VALUES (?, ?)";
+    private static final String SQL_PURGE = "DELETE FROM " + TABLE + " WHERE cree_le < ?";
+
+    // 🚫 Classe utilitaire : pas d'instance
+    private UserOutbox() {}
+
+    // 🏗️ Crée la table si elle n'existe pas
+    public static void creerTable(DataSource dataSource) throws SQLException {
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute(SQL_CREATION);
+        }
+    }
+
+    // 🧹 Supprime les changements plus anciens que 'retention' ; retourne le nombre de lignes supprimées.
+    // La rétention doit rester bien plus longue que l'intervalle de lecture des UserChangeFeed.
+    public static int purger(DataSource dataSource, long retention, TimeUnit unite) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL_PURGE)) {
+            stmt.setTimestamp(1, new Timestamp(System.currentTimeMillis() - unite.toMillis(retention)));
+            return stmt.executeUpdate();
+        }
+    }
+
+    // ✍️ Note le changement des utilisateurs donnés, sur la connexion (et donc dans la transaction) de l'écriture
+    static void noter(Connection conn, char operation, int... ids) throws SQLException {
+        if (ids.length == 0) {
+            return;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(SQL_INSERT)) {
+            String op = String.valueOf(operation);
+            for (int id : ids) {
+                stmt.setInt(1, id);
+                stmt.setString(2, op);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+}
@@ -3,8 +3,13 @@
 package repository;
 
 // 📦 Importation de la classe Utilisateur
-// Elle représente un utilisateur dans ton application Java
+// Elle représente un utilisateur dans ton application Java (UtilisateurImmuable : sa version en lecture seule)
 import model.Utilisateur;
+import model.UtilisateurImmuable;
+
+// 📦 Importation de la table à clés int (sans boxing des ID) et de la table de déduplication des noms
+import repository.cache.ChainesPartagees;
+import repository.cache.ConcurrentIntObjectMap;
 
 // 📦 Importation de l'interface DataSource
 // Elle permet de gérer les connexions à la base de données
@@ -25,7 +30,19 @@ import java.sql.Statement;
 // List : pour stocker plusieurs utilisateurs
 // ArrayList : une implémentation concrète de List
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+
+// 📦 Importation des classes nécessaires au parcours en flux (streaming)
+// Spliterator : source d'éléments qui alimente un Stream au fur et à mesure
+// Consumer : fonction appelée pour chaque utilisateur lu
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 // 🧱 Déclaration de la classe UserRepository
 // Cette classe contient toutes les méthodes pour accéder à la table "utilisateurs"
@@ -35,30 +52,218 @@ public class UserRepository {
     // Il permet d'obtenir des connexions à la base de données
     private final DataSource dataSource;
 
+    // 📏 Nombre d'utilisateurs lus par page lors d'un parcours en flux (streamAll)
+    public static final int TAILLE_PAGE_PAR_DEFAUT = 1000;
+
+    // 🚚 Nombre de lignes que le driver JDBC ramène à chaque aller-retour réseau
+    // Par défaut on l'aligne sur la taille de page : une page = un aller-retour
+    private int fetchSize = TAILLE_PAGE_PAR_DEFAUT;
+
+    // 🔭 Reçoit la mesure de chaque opération (obtention, exécution, mapping, lignes) ; null = pas de mesure
+    private volatile QueryTracer tracer;
+
+    // 📰 true : chaque écriture note aussi le changement dans la table outbox (voir UserOutbox)
+    private volatile boolean outbox;
+
+    // 🗣️ Dialecte SQL de la base, pour l'upsert (détecté sur la première connexion s'il n'est pas fixé)
+    private volatile SqlDialect dialecte;
+
+    // 🔗 Déduplication des noms dans les lectures immuables ; null = pas de déduplication
+    private volatile ChainesPartagees nomsPartages;
+
+    // 🧾 Requêtes du repository (colonnes explicites, lues par position par UtilisateurRowMapper)
+    private static final String SQL_TOUT = "SELECT " + UtilisateurRowMapper.COLONNES + " FROM utilisateurs";
+    private static final String SQL_PAGE = SQL_TOUT + " WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String SQL_PAR_ID = SQL_TOUT + " WHERE id = ?";
+    private static final String SQL_PAR_EMAIL = SQL_TOUT + " WHERE email = ? ORDER BY id LIMIT 1";
+    private static final String SQL_PREFIXE_EMAIL = SQL_TOUT + " WHERE email LIKE ? ESCAPE '!' ORDER BY email, id LIMIT ?";
+    // ✍️ Écritures : aussi utilisées par GroupCommitUserWriter (même package), pour n'avoir qu'une version
+    static final String SQL_INSERT = "INSERT INTO utilisateurs (nom, email) VALUES (?, ?)";
+    static final String SQL_UPDATE = "UPDATE utilisateurs SET nom = ?, email = ? WHERE id = ?";
+    static final String SQL_DELETE = "DELETE FROM utilisateurs WHERE id = ?";
+
+    // 🪣 Tailles de lot possibles pour "WHERE id IN (...)" dans findByIds.
+    // Chaque lot est complété jusqu'à l'une de ces tailles : seules 5 requêtes différentes
+    // existent, ce qui garde le cache de requêtes préparées du serveur efficace.
+    private static final int[] TAILLES_LOT_IN = {1, 4, 16, 64, 256};
+
+    // 🧾 Texte SQL de chaque taille de lot, construit une seule fois
+    // (et sa variante verrouillante, lue par upsertAll dans sa transaction)
+    private static final String[] SQL_LOT_IN = new String[TAILLES_LOT_IN.length];
+    private static final String[] SQL_LOT_IN_VERROU = new String[TAILLES_LOT_IN.length];
+
+    static {
+        for (int i = 0; i < TAILLES_LOT_IN.length; i++) {
+            StringBuilder sql = new StringBuilder(SQL_TOUT + " WHERE id IN (");
+            for (int j = 0; j < TAILLES_LOT_IN[i]; j++) {
+                sql.append(j == 0 ? "?" : ", ?");
+            }
+            SQL_LOT_IN[i] = sql.append(')').toString();
+            SQL_LOT_IN_VERROU[i] = SQL_LOT_IN[i] + " FOR UPDATE";
+        }
+    }
+
+    // 📏 Nombre d'utilisateurs par paquet d'upsertAll (la taille du plus grand lot "IN")
+    public static final int TAILLE_LOT_UPSERT = 256;
+
+    // 🔥 Textes SQL de toutes les requêtes du repository, pour les préparer à l'avance sur chaque
+    // connexion du pool (préchauffage au démarrage, voir HikariDataSourceExample.prechauffer)
+    public static List<String> requetesAPreparer() {
+        List<String> requetes = new ArrayList<>(List.of(SQL_TOUT, SQL_PAGE, SQL_PAR_ID,
+                SQL_PAR_EMAIL, SQL_PREFIXE_EMAIL, SQL_INSERT, SQL_UPDATE, SQL_DELETE));
+        requetes.addAll(Arrays.asList(SQL_LOT_IN));
+        return requetes;
+    }
+
     // 🏗️ Constructeur de la classe
     // Il reçoit une DataSource en paramètre et l'assigne à l'attribut
     public UserRepository(DataSource dataSource) {
         this.dataSource = dataSource;
     }
 
+    // ⚙️ Permet de régler la taille de fetch JDBC utilisée par les parcours en flux
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("fetchSize doit être positif : " + fetchSize);
+        }
+        this.fetchSize = fetchSize;
+    }
+
+    // 🔭 Branche (ou retire, avec null) le tracer qui reçoit la mesure de chaque opération.
+    // Sans tracer, les opérations ne mesurent rien (aucun appel à System.nanoTime()).
+    public void setTracer(QueryTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    // 📰 Active (ou coupe) l'outbox : save, update, delete et saveAll notent alors chaque utilisateur
+    // écrit dans "utilisateurs_changements", dans la même transaction que l'écriture elle-même.
+    // La table doit exister (UserOutbox.creerTable) ; les autres nœuds la lisent avec UserChangeFeed.
+    public void setOutbox(boolean outbox) {
+        this.outbox = outbox;
+    }
+
+    public boolean isOutbox() {
+        return outbox;
+    }
+
+    // 🗣️ Fixe le dialecte SQL (sinon il est détecté d'après la base de la première connexion)
+    public void setDialecte(SqlDialect dialecte) {
+        this.dialecte = dialecte;
+    }
+
+    // 🔗 Branche (ou retire, avec null) la table qui déduplique les noms lus par findAllImmuables
+    // et findByIdImmuable : utile quand beaucoup d'utilisateurs lus restent en mémoire
+    public void setNomsPartages(ChainesPartagees nomsPartages) {
+        this.nomsPartages = nomsPartages;
+    }
+
+    // 🗣️ Dialecte fixé, ou détecté (une seule fois) sur cette connexion
+    private SqlDialect dialecte(Connection conn) throws SQLException {
+        SqlDialect d = dialecte;
+        if (d == null) {
+            d = SqlDialect.detecter(conn);
+            dialecte = d;
+        }
+        return d;
+    }
+
+    // 🔌 Connexion d'une opération : celle de l'unité de travail ouverte sur ce thread pour cette
+    // DataSource (voir UnitOfWork), sinon une connexion empruntée au pool
+    private Connection connexion() throws SQLException {
+        return UnitOfWork.connexion(dataSource);
+    }
+
+    // 🧺 true si le thread courant a une unité de travail ouverte sur la DataSource de ce repository
+    boolean dansUniteDeTravail() {
+        return UnitOfWork.estOuverte(dataSource);
+    }
+
+    // 🔔 Lance 'action' après le commit de l'unité de travail en cours (tout de suite s'il n'y en a pas)
+    void apresValidation(Runnable action) {
+        UnitOfWork.apresValidation(dataSource, action);
+    }
+
+    // 🪝 Opérations de l'API publique, sans capturer les erreurs SQL : findById, findByIds, findAll, save,
+    // update, delete et saveAll les appellent et se contentent d'afficher l'erreur. Une sous-classe qui
+    // ajoute un comportement (cache, regroupement des lectures) le redéfinit ici, une seule fois : il vaut
+    // alors aussi pour AsyncUserRepository, qui les appelle pour faire remonter l'erreur dans le future.
+    // chercherParId, inserer... restent l'accès direct à la base.
+    protected Utilisateur lireParId(int id) throws SQLException {
+        return chercherParId(id);
+    }
+
+    protected List<Utilisateur> lireParIds(int... ids) throws SQLException {
+        return chercherParIds(ids);
+    }
+
+    protected List<Utilisateur> lireTout() throws SQLException {
+        return chercherTout();
+    }
+
+    protected boolean enregistrer(Utilisateur u) throws SQLException {
+        return inserer(u);
+    }
+
+    protected boolean mettreAJour(Utilisateur u) throws SQLException {
+        return modifier(u);
+    }
+
+    protected boolean effacer(int id) throws SQLException {
+        return supprimer(id);
+    }
+
+    // Retourne le nombre d'utilisateurs insérés
+    protected int enregistrerTout(List<Utilisateur> utilisateurs) throws SQLException {
+        return insererTout(utilisateurs);
+    }
+
+    // 🔭 Démarre la mesure d'une opération (trace inactive si aucun tracer n'est branché)
+    private QueryTrace tracer(String operation, String sql, Object... parametres) {
+        return QueryTrace.demarrer(tracer, operation, sql, parametres);
+    }
+
     // Déclaration de la méthode publique 'findAll'.
 // Elle ne prend aucun paramètre et retourne une liste d'objets 'Utilisateur'.
     public List<Utilisateur> findAll() {
+        // La lecture est faite par 'lireTout' ; ici on capture une éventuelle erreur SQL.
+        try {
+            return lireTout();
+
+            // Un bloc 'catch' qui capture les erreurs de type 'SQLException'.
+            // Si une erreur liée à la base de données se produit, le code dans ce bloc est exécuté.
+        } catch (SQLException e) {
+
+            // Affiche un message d'erreur sur la console, y compris le message
+            // spécifique de l'exception.
+            System.out.println("❌ Erreur dans findAll : " + e.getMessage());
+        }
+
+        // En cas d'erreur, on retourne une liste vide.
+        return new ArrayList<>();
+    }
+
+    // Lecture de toute la table, sans capturer les erreurs SQL.
+    // Elle est réservée au package (utilisée par findAll, via lireTout).
+    List<Utilisateur> chercherTout() throws SQLException {
 
         // Crée une nouvelle instance de la classe 'ArrayList' pour stocker les utilisateurs.
         // Cette liste est initialement vide.
         List<Utilisateur> utilisateurs = new ArrayList<>();
 
         // Déclare une chaîne de caractères (String) contenant la requête SQL.
-        // La requête sélectionne toutes les colonnes ('*') de la table 'utilisateurs'.
-        String sql = "SELECT * FROM utilisateurs";
+        // La requête sélectionne explicitement les colonnes id, nom et email de la table 'utilisateurs'.
+        String sql = SQL_TOUT;
 
         // Débute un bloc 'try-with-resources'. C'est une fonctionnalité de Java qui assure que
         // les ressources créées entre les parenthèses (ici, la connexion, le statement et le result set)
         // seront automatiquement fermées à la fin du bloc, qu'il y ait une erreur ou non.
         try (
-                // Obtient une connexion à la base de données à partir du pool de connexions 'dataSource'.
-                Connection conn = dataSource.getConnection();
+                // Démarre la mesure de l'opération (fermée en dernier, après la connexion).
+                QueryTrace trace = tracer("findAll", sql);
+
+                // Obtient une connexion à la base de données à partir du pool de connexions 'dataSource'
+                // (ou celle de l'unité de travail ouverte sur ce thread, voir UnitOfWork).
+                Connection conn = trace.connexion(connexion());
 
                 // Crée un 'PreparedStatement' à partir de la connexion et de la requête SQL.
                 // Cela prépare la requête pour l'exécution.
@@ -66,44 +271,197 @@ public class UserRepository {
 
                 // Exécute la requête SQL et stocke les résultats dans un objet 'ResultSet'.
                 // Le 'ResultSet' agit comme un curseur qui pointe vers les lignes de résultats.
-                ResultSet rs = stmt.executeQuery()
+                ResultSet rs = trace.executee(stmt.executeQuery())
         ) {
 
+            // Prépare le 'RowMapper' : la position des colonnes est lue une seule fois pour tout le résultat.
+            UtilisateurRowMapper mapper = UtilisateurRowMapper.pour(rs);
+
             // Une boucle 'while' qui s'exécute tant qu'il y a des lignes dans le 'ResultSet'.
             // La méthode 'rs.next()' déplace le curseur à la ligne suivante.
             while (rs.next()) {
 
-                // Appelle la méthode 'mapResultSetToUtilisateur()' pour convertir la ligne
-                // actuelle du 'ResultSet' en un objet 'Utilisateur'.
+                // Appelle le 'mapper' pour convertir la ligne actuelle du 'ResultSet'
+                // en un objet 'Utilisateur', en lisant les colonnes par position.
                 // L'objet 'Utilisateur' est ensuite ajouté à la liste 'utilisateurs'.
-                utilisateurs.add(mapResultSetToUtilisateur(rs));
+                utilisateurs.add(mapper.mapRow(rs));
             }
+            trace.lignes(utilisateurs.size());
+            trace.reussie();
+        }
 
-            // Un bloc 'catch' qui capture les erreurs de type 'SQLException'.
-            // Si une erreur liée à la base de données se produit, le code dans ce bloc est exécuté.
+        // Retourne la liste 'utilisateurs' qui contient tous les utilisateurs trouvés dans la base de données.
+        return utilisateurs;
+    }
+
+    // 🧊 Toute la table en utilisateurs immuables : chaque ligne est construite en une fois, et la liste
+    // peut être gardée et partagée entre threads sans copie. Liste vide en cas d'erreur, comme findAll.
+    public List<UtilisateurImmuable> findAllImmuables() {
+        List<UtilisateurImmuable> utilisateurs = new ArrayList<>();
+        try (QueryTrace trace = tracer("findAllImmuables", SQL_TOUT);
+             Connection conn = trace.connexion(connexion());
+             PreparedStatement stmt = conn.prepareStatement(SQL_TOUT);
+             ResultSet rs = trace.executee(stmt.executeQuery())) {
+            RowMapper<UtilisateurImmuable> mapper = UtilisateurRowMapper.pour(rs).immuable(nomsPartages);
+            while (rs.next()) {
+                utilisateurs.add(mapper.mapRow(rs));
+            }
+            trace.lignes(utilisateurs.size());
+            trace.reussie();
+            return utilisateurs;
         } catch (SQLException e) {
+            System.out.println("❌ Erreur dans findAllImmuables : " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
 
-            // Affiche un message d'erreur sur la console, y compris le message
-            // spécifique de l'exception.
-            System.out.println("❌ Erreur dans findAll : " + e.getMessage());
+    // 🌊 Parcours de TOUTE la table sous forme de flux, page par page.
+    // Contrairement à findAll(), la mémoire utilisée ne dépend pas de la taille de la table :
+    // seule la page courante (TAILLE_PAGE_PAR_DEFAUT utilisateurs) est en mémoire.
+    // ⚠️ Le flux doit être consommé (ou fermé) par l'appelant ; une erreur SQL lève une RepositoryException.
+    public Stream<Utilisateur> streamAll() {
+        return streamAll(TAILLE_PAGE_PAR_DEFAUT);
+    }
+
+    // 🌊 Même chose avec une taille de page choisie par l'appelant
+    public Stream<Utilisateur> streamAll(int taillePage) {
+        if (taillePage <= 0) {
+            throw new IllegalArgumentException("taillePage doit être positive : " + taillePage);
         }
+        // 🔁 Le Spliterator charge les pages à la demande, au rythme de la consommation du flux
+        return StreamSupport.stream(new PageSpliterator(taillePage), false);
+    }
 
-        // Retourne la liste 'utilisateurs' qui contient tous les utilisateurs trouvés dans la base de données.
-        return utilisateurs;
+    // 🔂 Variante "callback" : l'action est appelée pour chaque utilisateur, dans l'ordre des id
+    public void forEachUtilisateur(Consumer<? super Utilisateur> action) {
+        forEachUtilisateur(TAILLE_PAGE_PAR_DEFAUT, action);
+    }
+
+    // 🔂 Variante "callback" avec une taille de page choisie par l'appelant
+    public void forEachUtilisateur(int taillePage, Consumer<? super Utilisateur> action) {
+        try (Stream<Utilisateur> flux = streamAll(taillePage)) {
+            flux.forEach(action);
+        }
+    }
+
+    // 📄 Charge une page de la table grâce à la pagination par clé (keyset) :
+    // on reprend juste après le dernier id lu au lieu d'utiliser OFFSET.
+    // Avec OFFSET, MySQL devrait relire et ignorer toutes les lignes précédentes à chaque page ;
+    // ici l'index de la clé primaire permet de sauter directement au bon endroit.
+    private void chargerPage(int apresId, int taillePage, List<Utilisateur> page) throws SQLException {
+        // 🧾 Colonnes explicites + tri par id pour que la page suivante reparte du bon endroit
+        String sql = SQL_PAGE;
+
+        try (
+                QueryTrace trace = tracer("streamAll", sql, apresId, taillePage);
+                // 🔌 Une connexion par page : elle retourne au pool entre deux pages
+                Connection conn = trace.connexion(connexion());
+                PreparedStatement stmt = conn.prepareStatement(sql)
+        ) {
+            // 🚚 Nombre de lignes ramenées par aller-retour réseau
+            stmt.setFetchSize(Math.min(fetchSize, taillePage));
+            stmt.setInt(1, apresId);
+            stmt.setInt(2, taillePage);
+
+            try (ResultSet rs = trace.executee(stmt.executeQuery())) {
+                UtilisateurRowMapper mapper = UtilisateurRowMapper.pour(rs);
+                while (rs.next()) {
+                    page.add(mapper.mapRow(rs));
+                }
+            }
+            trace.lignes(page.size());
+            trace.reussie();
+        }
+    }
+
+    // 🧭 Source du flux de streamAll() : elle garde en mémoire une seule page à la fois
+    private final class PageSpliterator extends Spliterators.AbstractSpliterator<Utilisateur> {
+
+        // 📏 Nombre d'utilisateurs demandés par page
+        private final int taillePage;
+
+        // 📄 Page courante (réutilisée d'une page à l'autre pour éviter les allocations)
+        private final List<Utilisateur> page;
+
+        // 👉 Position de la prochaine ligne à rendre dans la page courante
+        private int position;
+
+        // 🔑 Dernier id rendu : point de départ de la page suivante
+        private int dernierId = Integer.MIN_VALUE;
+
+        // 🏁 Passe à true quand la dernière page (incomplète) a été chargée
+        private boolean termine;
+
+        PageSpliterator(int taillePage) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+            this.taillePage = taillePage;
+            this.page = new ArrayList<>(taillePage);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Utilisateur> action) {
+            // 📄 Page courante épuisée : on charge la suivante si elle existe
+            if (position >= page.size()) {
+                if (termine) {
+                    return false;
+                }
+                page.clear();
+                position = 0;
+                try {
+                    chargerPage(dernierId, taillePage, page);
+                } catch (SQLException e) {
+                    // ❌ Un flux ne peut pas lever d'exception vérifiée : on l'enveloppe
+                    termine = true;
+                    throw new RepositoryException("Erreur dans streamAll : " + e.getMessage(), e);
+                }
+                // 🏁 Une page incomplète signifie qu'il n'y a plus rien après
+                termine = page.size() < taillePage;
+                if (page.isEmpty()) {
+                    return false;
+                }
+            }
+
+            // ➡️ On rend l'utilisateur suivant et on retient son id pour la page d'après
+            Utilisateur u = page.get(position++);
+            dernierId = u.getId();
+            action.accept(u);
+            return true;
+        }
     }
 
     // 📦 Déclaration de la méthode publique 'findById'.
 // Elle prend un entier (int) 'id' en paramètre et renvoie un objet 'Utilisateur'.
     public Utilisateur findById(int id) {
+        // 🧱 La lecture elle-même est faite par 'lireParId' ; ici on se contente
+        // de capturer une éventuelle erreur SQL et de l'afficher.
+        try {
+            return lireParId(id);
+        } catch (SQLException e) {
+            // ❌ Si une erreur SQL se produit (par exemple, problème de connexion),
+            // ce bloc la capture et affiche le message d'erreur.
+            System.out.println("❌ Erreur dans findById : " + e.getMessage());
+        }
+
+        // ⛔ Si une erreur a été capturée, la méthode renvoie 'null'.
+        return null;
+    }
+
+    // 🔍 Lecture d'un utilisateur par son ID, sans capturer les erreurs SQL.
+    // Elle renvoie 'null' uniquement si l'utilisateur n'existe pas, ce qui permet aux classes
+    // du package (comme CachedUserRepository) de distinguer "absent" de "erreur".
+    Utilisateur chercherParId(int id) throws SQLException {
         // 🧾 Déclaration de la requête SQL. Le '?' est un espace réservé (paramètre).
         // Cela protège le code contre les injections SQL.
-        String sql = "SELECT * FROM utilisateurs WHERE id = ?";
+        String sql = SQL_PAR_ID;
 
         // 🧱 Début du bloc 'try-with-resources'. Les ressources (connexion et statement)
         // sont automatiquement fermées à la fin du bloc, même en cas d'erreur.
         try (
+                // ⏱️ Démarre la mesure de l'opération (fermée en dernier, après la connexion).
+                QueryTrace trace = tracer("findById", sql, id);
+
                 // 🔌 Obtient une connexion à la base de données à partir du pool de connexions.
-                Connection conn = dataSource.getConnection();
+                Connection conn = trace.connexion(connexion());
 
                 // 🧠 Prépare la requête SQL pour être exécutée.
                 // C'est un 'PreparedStatement' car il a des paramètres.
@@ -114,38 +472,242 @@ public class UserRepository {
             stmt.setInt(1, id);
 
             // 🧱 Un second 'try-with-resources' pour le 'ResultSet'.
-            try (ResultSet rs = stmt.executeQuery()) {
+            try (ResultSet rs = trace.executee(stmt.executeQuery())) {
 
                 // ✅ Vérifie si la requête a renvoyé au moins une ligne.
-                // Si c'est le cas, cela signifie que l'utilisateur a été trouvé.
-                if (rs.next()) {
+                // Si c'est le cas, on appelle le 'RowMapper' pour transformer la ligne
+                // du 'ResultSet' en un objet 'Utilisateur' complet.
+                // ⛔ Sinon, l'utilisateur n'existe pas : on renvoie 'null'.
+                Utilisateur u = rs.next() ? UtilisateurRowMapper.pour(rs).mapRow(rs) : null;
+                trace.lignes(u == null ? 0 : 1);
+                trace.reussie();
+                return u;
+            }
+        }
+    }
+
+    // 🧊 Lecture par ID en utilisateur immuable ; null si l'utilisateur n'existe pas ou en cas d'erreur
+    public UtilisateurImmuable findByIdImmuable(int id) {
+        try {
+            return chercherImmuableParId(id);
+        } catch (SQLException e) {
+            System.out.println("❌ Erreur dans findByIdImmuable : " + e.getMessage());
+            return null;
+        }
+    }
+
+    // 🧊 Même lecture que chercherParId, construite directement en UtilisateurImmuable
+    UtilisateurImmuable chercherImmuableParId(int id) throws SQLException {
+        try (QueryTrace trace = tracer("findByIdImmuable", SQL_PAR_ID, id);
+             Connection conn = trace.connexion(connexion());
+             PreparedStatement stmt = conn.prepareStatement(SQL_PAR_ID)) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = trace.executee(stmt.executeQuery())) {
+                UtilisateurImmuable u = rs.next() ? UtilisateurRowMapper.pour(rs).immuable(nomsPartages).mapRow(rs) : null;
+                trace.lignes(u == null ? 0 : 1);
+                trace.reussie();
+                return u;
+            }
+        }
+    }
+
+    // 📧 Recherche d'un utilisateur par son email exact (celui d'ID le plus petit si l'email est en double).
+    // Elle s'appuie sur l'index idx_utilisateurs_email (voir SchemaMigrations) ; sans lui, MySQL
+    // parcourt toute la table. Renvoie 'null' si aucun utilisateur n'a cet email ou en cas d'erreur.
+    public Utilisateur findByEmail(String email) {
+        try {
+            return chercherParEmail(email);
+        } catch (SQLException e) {
+            System.out.println("❌ Erreur dans findByEmail : " + e.getMessage());
+        }
+        return null;
+    }
 
-                    // ➡️ Appelle la méthode 'mapResultSetToUtilisateur' pour transformer la ligne
-                    // du 'ResultSet' en un objet 'Utilisateur' complet.
-                    return mapResultSetToUtilisateur(rs);
+    // 📧 Recherche par email, sans capturer les erreurs SQL
+    Utilisateur chercherParEmail(String email) throws SQLException {
+        String sql = SQL_PAR_EMAIL;
+        try (
+                QueryTrace trace = tracer("findByEmail", sql, email);
+                Connection conn = trace.connexion(connexion());
+                PreparedStatement stmt = conn.prepareStatement(sql)
+        ) {
+            stmt.setString(1, email);
+            try (ResultSet rs = trace.executee(stmt.executeQuery())) {
+                Utilisateur u = rs.next() ? UtilisateurRowMapper.pour(rs).mapRow(rs) : null;
+                trace.lignes(u == null ? 0 : 1);
+                trace.reussie();
+                return u;
+            }
+        }
+    }
+
+    // 📧 Utilisateurs dont l'email commence par 'prefixe', triés par email, 'limite' au plus.
+    // "LIKE 'debut%'" parcourt une seule plage de l'index et s'arrête après 'limite' entrées ;
+    // les caractères spéciaux de LIKE (% et _) du préfixe sont pris littéralement.
+    // En cas d'erreur, la liste est vide.
+    public List<Utilisateur> findByEmailPrefix(String prefixe, int limite) {
+        try {
+            return chercherParPrefixeEmail(prefixe, limite);
+        } catch (SQLException e) {
+            System.out.println("❌ Erreur dans findByEmailPrefix : " + e.getMessage());
+        }
+        return new ArrayList<>();
+    }
+
+    // 📧 Recherche par préfixe d'email, sans capturer les erreurs SQL
+    List<Utilisateur> chercherParPrefixeEmail(String prefixe, int limite) throws SQLException {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("limite doit être positive : " + limite);
+        }
+        String sql = SQL_PREFIXE_EMAIL;
+        List<Utilisateur> utilisateurs = new ArrayList<>(Math.min(limite, fetchSize));
+        try (
+                QueryTrace trace = tracer("findByEmailPrefix", sql, prefixe, limite);
+                Connection conn = trace.connexion(connexion());
+                PreparedStatement stmt = conn.prepareStatement(sql)
+        ) {
+            stmt.setFetchSize(Math.min(fetchSize, limite));
+            stmt.setString(1, motifPrefixe(prefixe));
+            stmt.setInt(2, limite);
+            try (ResultSet rs = trace.executee(stmt.executeQuery())) {
+                UtilisateurRowMapper mapper = UtilisateurRowMapper.pour(rs);
+                while (rs.next()) {
+                    utilisateurs.add(mapper.mapRow(rs));
                 }
             }
+            trace.lignes(utilisateurs.size());
+            trace.reussie();
+        }
+        return utilisateurs;
+    }
+
+    // 🧩 Motif LIKE "prefixe%" : '!' (caractère d'échappement déclaré dans la requête), '%' et '_' sont échappés
+    static String motifPrefixe(String prefixe) {
+        StringBuilder motif = new StringBuilder(prefixe.length() + 4);
+        for (int i = 0; i < prefixe.length(); i++) {
+            char c = prefixe.charAt(i);
+            if (c == '!' || c == '%' || c == '_') {
+                motif.append('!');
+            }
+            motif.append(c);
+        }
+        return motif.append('%').toString();
+    }
+
+    // 🔍🔍 Lecture de plusieurs utilisateurs en une fois.
+    // Au lieu de N appels à findById (N connexions empruntées, N allers-retours), les ID sont
+    // regroupés dans des requêtes "WHERE id IN (...)" de 256 ID au plus, sur une seule connexion.
+    // La liste renvoyée suit l'ordre des ID demandés : un ID introuvable donne 'null' à sa position.
+    // Un même ID demandé deux fois donne le même objet aux deux positions.
+    public List<Utilisateur> findByIds(int... ids) {
+        try {
+            return lireParIds(ids);
         } catch (SQLException e) {
-            // ❌ Si une erreur SQL se produit (par exemple, problème de connexion),
-            // ce bloc la capture et affiche le message d'erreur.
-            System.out.println("❌ Erreur dans findById : " + e.getMessage());
+            // ❌ En cas d'erreur, comme findById, on affiche le message et aucun utilisateur n'est trouvé
+            System.out.println("❌ Erreur dans findByIds : " + e.getMessage());
+            return Arrays.asList(new Utilisateur[ids.length]);
         }
+    }
 
-        // ⛔ Si la requête n'a renvoyé aucune ligne (l'utilisateur n'existe pas)
-        // ou si une erreur a été capturée, la méthode renvoie 'null'.
-        return null;
+    // 🔍🔍 Lecture de plusieurs utilisateurs, sans capturer les erreurs SQL
+    List<Utilisateur> chercherParIds(int... ids) throws SQLException {
+        // 🧮 ID distincts, triés : chaque ID n'est demandé qu'une fois à la base
+        int[] distincts = ids.clone();
+        Arrays.sort(distincts);
+        int nombre = 0;
+        for (int i = 0; i < distincts.length; i++) {
+            if (i == 0 || distincts[i] != distincts[i - 1]) {
+                distincts[nombre++] = distincts[i];
+            }
+        }
+
+        // 🗂️ Utilisateurs trouvés, indexés par ID
+        ConcurrentIntObjectMap<Utilisateur> trouves = new ConcurrentIntObjectMap<>(nombre, 1);
+
+        if (nombre > 0) {
+            // ⏱️ La trace retient le SQL du premier lot (le plus grand)
+            try (QueryTrace trace = tracer("findByIds", SQL_LOT_IN[indexTailleLot(nombre)], ids);
+                 Connection conn = trace.connexion(connexion())) {
+                lireParLots(conn, trace, SQL_LOT_IN, distincts, nombre, trouves);
+                trace.reussie();
+            }
+        }
+
+        // 📋 Résultat dans l'ordre de la demande, 'null' pour les ID introuvables
+        List<Utilisateur> resultat = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            resultat.add(trouves.get(id));
+        }
+        return resultat;
+    }
+
+    // 🪣 Lit les 'nombre' premiers ID (distincts) de 'ids' par requêtes "WHERE id IN (...)" et range
+    // les utilisateurs trouvés dans 'trouves'
+    private static void lireParLots(Connection conn, QueryTrace trace, String[] sqlLots, int[] ids, int nombre,
+                                    ConcurrentIntObjectMap<Utilisateur> trouves) throws SQLException {
+        int position = 0;
+        while (position < nombre) {
+            // 🪣 Plus petite taille de lot qui contient les ID restants (ou la plus grande)
+            int restants = nombre - position;
+            int indexTaille = indexTailleLot(restants);
+            int tailleLot = TAILLES_LOT_IN[indexTaille];
+            int dansCeLot = Math.min(restants, tailleLot);
+
+            try (PreparedStatement stmt = conn.prepareStatement(sqlLots[indexTaille])) {
+                // 🧩 Les ID du lot, puis le dernier ID répété pour compléter les '?' restants
+                for (int j = 0; j < tailleLot; j++) {
+                    stmt.setInt(j + 1, ids[position + Math.min(j, dansCeLot - 1)]);
+                }
+                try (ResultSet rs = trace.executee(stmt.executeQuery())) {
+                    UtilisateurRowMapper mapper = UtilisateurRowMapper.pour(rs);
+                    int lues = 0;
+                    while (rs.next()) {
+                        Utilisateur u = mapper.mapRow(rs);
+                        trouves.put(u.getId(), u);
+                        lues++;
+                    }
+                    trace.lignes(lues);
+                }
+            }
+            position += dansCeLot;
+        }
+    }
+
+    // 🪣 Indice de la plus petite taille de lot qui contient 'restants' ID (ou de la plus grande)
+    private static int indexTailleLot(int restants) {
+        int indexTaille = 0;
+        while (indexTaille < TAILLES_LOT_IN.length - 1 && TAILLES_LOT_IN[indexTaille] < restants) {
+            indexTaille++;
+        }
+        return indexTaille;
     }
 
     // ➕ Méthode pour ajouter un nouvel utilisateur dans la base
     // Elle retourne true si l'ajout a réussi, false sinon
     public boolean save(Utilisateur u) {
+        try {
+            return enregistrer(u);
+        } catch (SQLException e) {
+            // ⚠️ Affichage de l'erreur SQL
+            System.out.println("❌ Erreur dans save : " + e.getMessage());
+        }
+
+        // ❌ Échec de l'insertion
+        return false;
+    }
+
+    // ➕ Insertion d'un utilisateur, sans capturer les erreurs SQL
+    boolean inserer(Utilisateur u) throws SQLException {
         // 🧾 Requête SQL d'insertion avec deux paramètres
-        String sql = "INSERT INTO utilisateurs (nom, email) VALUES (?, ?)";
+        String sql = SQL_INSERT;
 
         // 🔁 Bloc try-with-resources
         try (
+                // ⏱️ Mesure de l'opération
+                QueryTrace trace = tracer("save", sql, u.getNom(), u.getEmail());
+
                 // 🔌 Connexion à la base
-                Connection conn = dataSource.getConnection();
+                Connection conn = trace.connexion(connexion());
 
                 // 🧠 Préparation de la requête avec récupération des clés générées
                 PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
@@ -154,39 +716,56 @@ public class UserRepository {
             stmt.setString(1, u.getNom());
             stmt.setString(2, u.getEmail());
 
-            // ▶️ Exécution de la requête
-            int affectedRows = stmt.executeUpdate();
+            // ▶️ Exécution de la requête (notée dans l'outbox si elle est activée)
+            int affectedRows = ecrire(conn, UserOutbox.INSERTION, u::getId, () -> {
+                int lignes = trace.executee(stmt.executeUpdate());
 
-            // ✅ Si au moins une ligne a été insérée
-            if (affectedRows > 0) {
-                // 🔁 Récupération de l'ID généré automatiquement
-                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        // 🧱 Mise à jour de l'objet Java avec l'ID généré
-                        u.setId(generatedKeys.getInt(1));
+                // ✅ Si au moins une ligne a été insérée
+                if (lignes > 0) {
+                    // 🔁 Récupération de l'ID généré automatiquement
+                    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            // 🧱 Mise à jour de l'objet Java avec l'ID généré
+                            u.setId(generatedKeys.getInt(1));
+                        }
                     }
                 }
-                return true; // ✅ Insertion réussie
-            }
+                return lignes;
+            });
+            trace.lignes(affectedRows);
+            trace.reussie();
+
+            // ✅ Insertion réussie si au moins une ligne a été insérée
+            return affectedRows > 0;
+        }
+    }
+
+    // ✏️ Méthode pour modifier un utilisateur existant
+    // Elle retourne true si la mise à jour a réussi
+    public boolean update(Utilisateur u) {
+        try {
+            return mettreAJour(u);
         } catch (SQLException e) {
             // ⚠️ Affichage de l'erreur SQL
-            System.out.println("❌ Erreur dans save : " + e.getMessage());
+            System.out.println("❌ Erreur dans update : " + e.getMessage());
         }
 
-        // ❌ Échec de l'insertion
+        // ❌ Échec de la mise à jour
         return false;
     }
 
-    // ✏️ Méthode pour modifier un utilisateur existant
-    // Elle retourne true si la mise à jour a réussi
-    public boolean update(Utilisateur u) {
+    // ✏️ Mise à jour d'un utilisateur, sans capturer les erreurs SQL
+    boolean modifier(Utilisateur u) throws SQLException {
         // 🧾 Requête SQL de mise à jour avec trois paramètres
-        String sql = "UPDATE utilisateurs SET nom = ?, email = ? WHERE id = ?";
+        String sql = SQL_UPDATE;
 
         // 🔁 Bloc try-with-resources
         try (
+                // ⏱️ Mesure de l'opération
+                QueryTrace trace = tracer("update", sql, u.getNom(), u.getEmail(), u.getId());
+
                 // 🔌 Connexion à la base
-                Connection conn = dataSource.getConnection();
+                Connection conn = trace.connexion(connexion());
 
                 // 🧠 Préparation de la requête SQL
                 PreparedStatement stmt = conn.prepareStatement(sql)
@@ -196,27 +775,41 @@ public class UserRepository {
             stmt.setString(2, u.getEmail());
             stmt.setInt(3, u.getId());
 
-            // ▶️ Exécution de la requête
-            return stmt.executeUpdate() > 0; // ✅ true si au moins une ligne modifiée
+            // ▶️ Exécution de la requête (notée dans l'outbox si elle est activée)
+            int lignes = ecrire(conn, UserOutbox.MODIFICATION, u::getId, () -> trace.executee(stmt.executeUpdate()));
+            trace.lignes(lignes);
+            trace.reussie();
+            return lignes > 0; // ✅ true si au moins une ligne modifiée
+        }
+    }
+
+    // ❌ Méthode pour supprimer un utilisateur par son ID
+    // Elle retourne true si la suppression a réussi
+    public boolean delete(int id) {
+        try {
+            return effacer(id);
         } catch (SQLException e) {
             // ⚠️ Affichage de l'erreur SQL
-            System.out.println("❌ Erreur dans update : " + e.getMessage());
+            System.out.println("❌ Erreur dans delete : " + e.getMessage());
         }
 
-        // ❌ Échec de la mise à jour
+        // ❌ Échec de la suppression
         return false;
+
     }
 
-    // ❌ Méthode pour supprimer un utilisateur par son ID
-    // Elle retourne true si la suppression a réussi
-    public boolean delete(int id) {
+    // ❌ Suppression d'un utilisateur, sans capturer les erreurs SQL
+    boolean supprimer(int id) throws SQLException {
         // 🧾 Requête SQL de suppression avec un paramètre
-        String sql = "DELETE FROM utilisateurs WHERE id = ?";
+        String sql = SQL_DELETE;
 
         // 🔁 Bloc try-with-resources
         try (
+                // ⏱️ Mesure de l'opération
+                QueryTrace trace = tracer("delete", sql, id);
+
                 // 🔌 Connexion à la base
-                Connection conn = dataSource.getConnection();
+                Connection conn = trace.connexion(connexion());
 
                 // 🧠 Préparation de la requête SQL
                 PreparedStatement stmt = conn.prepareStatement(sql)
@@ -224,125 +817,364 @@ public class UserRepository {
             // 🧩 Remplacement du ? par l'ID à supprimer
             stmt.setInt(1, id);
 
-            // ▶️ Exécution de la requête
-            return stmt.executeUpdate() > 0; // ✅ true si une ligne supprimée
-        } catch (SQLException e) {
-            // ⚠️ Affichage de l'erreur SQL
-            System.out.println("❌ Erreur dans delete : " + e.getMessage());
+            // ▶️ Exécution de la requête (notée dans l'outbox si elle est activée)
+            int lignes = ecrire(conn, UserOutbox.SUPPRESSION, () -> id, () -> trace.executee(stmt.executeUpdate()));
+            trace.lignes(lignes);
+            trace.reussie();
+            return lignes > 0; // ✅ true si une ligne supprimée
         }
+    }
 
-        // ❌ Échec de la suppression
-        return false;
+    // 📰 Une écriture d'une ligne : retourne le nombre de lignes touchées
+    @FunctionalInterface
+    private interface Ecriture {
+        int executer() throws SQLException;
+    }
 
+    // 📰 Exécute l'écriture telle quelle, ou, si l'outbox est activée, dans une transaction qui note
+    // aussi le changement de l'utilisateur 'id' (lu après l'écriture : l'ID d'une insertion est généré)
+    private int ecrire(Connection conn, char operation, IntSupplier id, Ecriture ecriture) throws SQLException {
+        if (!outbox) {
+            return ecriture.executer();
+        }
+        conn.setAutoCommit(false);
+        try {
+            int lignes = ecriture.executer();
+            if (lignes > 0) {
+                UserOutbox.noter(conn, operation, id.getAsInt());
+            }
+            conn.commit();
+            return lignes;
+        } catch (SQLException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException rollbackEx) {
+                e.addSuppressed(rollbackEx);
+            }
+            throw e;
+        }
     }
 
     // Déclaration de la méthode publique 'saveAll'.
     // Elle retourne 'true' si l'opération a réussi, 'false' sinon.
     // Elle prend en paramètre une liste d'objets 'Utilisateur' à sauvegarder.
     public boolean saveAll(List<Utilisateur> utilisateurs) {
+        // Début d'un bloc 'try'. La transaction elle-même est faite par 'enregistrerTout'.
+        try {
+            int inseres = enregistrerTout(utilisateurs);
+
+            // Affiche un message de succès sur la console avec le nombre d'utilisateurs insérés.
+            System.out.println("✅ Transaction réussie. " + inseres + " utilisateurs insérés.");
+
+            // Retourne 'true' pour indiquer que l'opération a réussi.
+            return true;
+
+            // Début du bloc 'catch', qui sera exécuté si une 'SQLException' se produit.
+            // À ce stade, 'enregistrerTout' a déjà annulé la transaction (rollback).
+        } catch (SQLException e) {
+            // Affiche un message d'erreur sur la console, avec les détails de l'erreur.
+            System.out.println("❌ Erreur de transaction : " + e.getMessage());
+            System.out.println("🔄 Transaction annulée (rollback).");
+
+            // Retourne 'false' pour indiquer que l'opération a échoué.
+            return false;
+        }
+    }
+
+    // Insertion d'une liste d'utilisateurs en une seule transaction, sans capturer les erreurs SQL.
+    // En cas d'erreur, la transaction est annulée (rollback) puis l'erreur est relancée.
+    // Elle retourne le nombre d'utilisateurs insérés.
+    int insererTout(List<Utilisateur> utilisateurs) throws SQLException {
         // Déclaration d'une chaîne de caractères (String) qui contient la requête SQL.
         // '?' est un espace réservé pour les valeurs qui seront ajoutées plus tard.
-        String sql = "INSERT INTO utilisateurs (nom, email) VALUES (?, ?)";
+        String sql = SQL_INSERT;
 
-        // Déclaration d'une variable de type 'Connection'.
-        // Elle est initialisée à 'null' (vide).
-        // On la déclare ici pour qu'elle soit accessible dans tous les blocs (try, catch, finally).
-        Connection conn = null;
-
-        // Début d'un bloc 'try'. Le code à l'intérieur de ce bloc va être exécuté.
-        // Si une erreur (une exception) se produit, l'exécution est transférée au bloc 'catch'.
-        try {
-            // Obtient une connexion à la base de données depuis le pool de connexions (dataSource).
-            // Cette connexion est assignée à la variable 'conn'.
-            conn = dataSource.getConnection();
+        // Obtient une connexion à la base de données depuis le pool de connexions (dataSource).
+        // Le try-with-resources la ferme (et la remet dans le pool HikariCP) dans tous les cas.
+        // La mesure de l'opération (déclarée en premier) est rapportée après la fermeture de la connexion.
+        try (QueryTrace trace = tracer("saveAll", sql, utilisateurs);
+             Connection conn = trace.connexion(connexion())) {
 
             // Désactive le mode d'auto-validation (auto-commit).
             // Par défaut, chaque requête SQL est automatiquement validée.
             // Ici, nous voulons valider toutes les requêtes ensemble, à la fin, pour la transaction.
             conn.setAutoCommit(false);
 
-            // Crée un objet 'PreparedStatement' pour exécuter la requête SQL.
-            // Un 'PreparedStatement' est plus sûr et plus rapide qu'un 'Statement' simple.
-            // 'Statement.RETURN_GENERATED_KEYS' permet de récupérer les clés (ID) générées.
-            PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-
-            // Début d'une boucle 'for' qui parcourt chaque 'Utilisateur' de la liste 'utilisateurs'.
-            for (Utilisateur u : utilisateurs) {
-                // Associe le nom de l'utilisateur ('u.getNom()') au premier '?' de la requête SQL.
-                // C'est une méthode sécurisée pour éviter les injections SQL.
-                stmt.setString(1, u.getNom());
-                // Associe l'email de l'utilisateur ('u.getEmail()') au deuxième '?' de la requête SQL.
-                stmt.setString(2, u.getEmail());
-
-                // Ajoute la requête préparée au "batch", une sorte de "lot" de requêtes.
-                // Au lieu d'envoyer une requête à la base de données à chaque tour de boucle,
-                // on les regroupe pour les envoyer toutes en une seule fois.
-                stmt.addBatch();
-            }
+            // Début d'un bloc 'try' : si une erreur se produit, la transaction est annulée.
+            try {
+                // Crée un objet 'PreparedStatement' pour exécuter la requête SQL.
+                // Un 'PreparedStatement' est plus sûr et plus rapide qu'un 'Statement' simple.
+                // 'Statement.RETURN_GENERATED_KEYS' permet de récupérer les clés (ID) générées.
+                // Le statement est déclaré dans un try-with-resources pour être fermé même en cas d'erreur.
+                int[] result;
+                try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
-            // Exécute toutes les requêtes qui ont été ajoutées au batch.
-            // 'executeBatch()' est beaucoup plus performant que 'executeUpdate()' dans une boucle.
-            // Le résultat est un tableau d'entiers qui indique le nombre de lignes affectées par chaque requête.
-            int[] result = stmt.executeBatch();
+                    // Début d'une boucle 'for' qui parcourt chaque 'Utilisateur' de la liste 'utilisateurs'.
+                    for (Utilisateur u : utilisateurs) {
+                        // Associe le nom de l'utilisateur ('u.getNom()') au premier '?' de la requête SQL.
+                        // C'est une méthode sécurisée pour éviter les injections SQL.
+                        stmt.setString(1, u.getNom());
+                        // Associe l'email de l'utilisateur ('u.getEmail()') au deuxième '?' de la requête SQL.
+                        stmt.setString(2, u.getEmail());
 
-            // Valide la transaction.
-            // Toutes les modifications qui ont été regroupées depuis 'setAutoCommit(false)' sont maintenant
-            // rendues permanentes dans la base de données.
-            conn.commit();
+                        // Ajoute la requête préparée au "batch", une sorte de "lot" de requêtes.
+                        // Au lieu d'envoyer une requête à la base de données à chaque tour de boucle,
+                        // on les regroupe pour les envoyer toutes en une seule fois.
+                        stmt.addBatch();
+                    }
 
-            // Affiche un message de succès sur la console.
-            // 'result.length' donne le nombre d'utilisateurs qui ont été insérés.
-            System.out.println("✅ Transaction réussie. " + result.length + " utilisateurs insérés.");
+                    // Exécute toutes les requêtes qui ont été ajoutées au batch.
+                    // 'executeBatch()' est beaucoup plus performant que 'executeUpdate()' dans une boucle.
+                    // Le résultat est un tableau d'entiers qui indique le nombre de lignes affectées par chaque requête.
+                    result = trace.executee(stmt.executeBatch());
 
-            // Retourne 'true' pour indiquer que l'opération a réussi.
-            return true;
+                    // 🔁 Récupération des ID générés, dans l'ordre des insertions,
+                    // pour les recopier sur chaque objet 'Utilisateur' de la liste.
+                    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                        for (Utilisateur u : utilisateurs) {
+                            if (!generatedKeys.next()) {
+                                break;
+                            }
+                            u.setId(generatedKeys.getInt(1));
+                        }
+                    }
+                }
 
-            // Début du bloc 'catch', qui sera exécuté si une 'SQLException' se produit dans le bloc 'try'.
-        } catch (SQLException e) {
-            // Affiche un message d'erreur sur la console, avec les détails de l'erreur.
-            System.out.println("❌ Erreur de transaction : " + e.getMessage());
+                // 📰 Avec l'outbox, les insertions sont notées dans la même transaction.
+                if (outbox) {
+                    UserOutbox.noter(conn, UserOutbox.INSERTION, utilisateurs.stream().mapToInt(Utilisateur::getId).toArray());
+                }
+
+                // Valide la transaction.
+                // Toutes les modifications qui ont été regroupées depuis 'setAutoCommit(false)' sont maintenant
+                // rendues permanentes dans la base de données.
+                conn.commit();
+                trace.lignes(result.length);
+                trace.reussie();
 
-            // Vérifie si la connexion a été établie avec succès (n'est pas 'null').
-            if (conn != null) {
-                // Début d'un nouveau bloc 'try' pour le 'rollback'.
+                // 'result.length' donne le nombre d'utilisateurs qui ont été insérés.
+                return result.length;
+
+            } catch (SQLException e) {
+                // Annule toutes les modifications qui ont été effectuées
+                // depuis le début de la transaction.
+                // La base de données est remise dans son état initial.
                 try {
-                    // Annule toutes les modifications qui ont été effectuées
-                    // depuis le début de la transaction.
-                    // La base de données est remise dans son état initial.
                     conn.rollback();
-                    // Affiche un message pour indiquer que la transaction a été annulée.
-                    System.out.println("🔄 Transaction annulée (rollback).");
                     // Un bloc 'catch' interne pour gérer les erreurs qui pourraient survenir lors du 'rollback'.
                 } catch (SQLException rollbackEx) {
-                    System.out.println("⚠️ Erreur lors de l'annulation de la transaction : " + rollbackEx.getMessage());
+                    e.addSuppressed(rollbackEx);
+                }
+                // Les ID recopiés avant l'échec ne correspondent plus à aucune ligne.
+                for (Utilisateur u : utilisateurs) {
+                    u.setId(0);
                 }
+                // L'erreur d'origine est relancée vers l'appelant.
+                throw e;
             }
-            // Retourne 'false' pour indiquer que l'opération a échoué.
-            return false;
+        }
+    }
+
+    // 🔀 Insère l'utilisateur, ou le met à jour si son ID existe déjà, en une seule transaction.
+    // Un ID à 0 (ou négatif) signifie "nouvel utilisateur" : l'ID généré est recopié sur l'objet.
+    // Retourne l'effet sur la ligne, ou null en cas d'erreur.
+    public UpsertResult upsert(Utilisateur u) {
+        try {
+            return fusionner("upsert", List.of(u)).get(0);
+        } catch (SQLException e) {
+            System.out.println("❌ Erreur dans upsert : " + e.getMessage());
+        }
+        return null;
+    }
 
-            // Début du bloc 'finally'. Ce bloc est TOUJOURS exécuté,
-            // que le code ait réussi ('try') ou qu'une erreur ait été gérée ('catch').
-        } finally {
-            // Vérifie si la connexion est valide.
-            if (conn != null) {
-                // Tente de fermer la connexion à la base de données.
-                // Cela libère les ressources et remet la connexion dans le pool HikariCP.
+    // 🔀 upsert de toute une liste, en une seule transaction (tout ou rien, comme saveAll).
+    // Retourne l'effet sur chaque ligne, dans l'ordre de la liste ; en cas d'erreur, rien n'est
+    // écrit et la liste retournée ne contient que des null.
+    public List<UpsertResult> upsertAll(List<Utilisateur> utilisateurs) {
+        try {
+            return fusionner("upsertAll", utilisateurs);
+        } catch (SQLException e) {
+            System.out.println("❌ Erreur dans upsertAll : " + e.getMessage());
+            return Arrays.asList(new UpsertResult[utilisateurs.size()]);
+        }
+    }
+
+    // 🔀 Upsert d'une liste, sans capturer les erreurs SQL.
+    //
+    // Par paquets de TAILLE_LOT_UPSERT, dans une seule transaction :
+    //  1. les lignes existantes du paquet sont lues et verrouillées (SELECT ... WHERE id IN (...) FOR UPDATE) ;
+    //  2. chaque utilisateur est classé : INSERE, MODIFIE, ou INCHANGE s'il a déjà ces valeurs ;
+    //  3. les nouveaux utilisateurs sans ID partent dans un batch d'INSERT (ID générés), les autres
+    //     à écrire dans un batch d'upsert du dialecte (ON DUPLICATE KEY UPDATE / MERGE).
+    // Soit deux allers-retours par paquet au lieu de deux par utilisateur.
+    // Le nombre de lignes touchées ne suffit pas à classer une ligne : avec Connector/J (CLIENT_FOUND_ROWS
+    // par défaut), une ligne inchangée compte 1, comme une insertion ; d'où la lecture de l'étape 1,
+    // qui évite en plus d'écrire les lignes inchangées.
+    //
+    // ⚠️ Concurrence : le classement est "au mieux", pas garanti.
+    //  - Un ID absent à l'étape 1 n'est pas verrouillé : si une autre transaction insère cette ligne
+    //    avant l'étape 3, l'upsert la met à jour (pas d'échec). L'utilisateur classé INSERE est alors
+    //    reclassé MODIFIE quand le driver compte 2 lignes touchées (MySQL : "mise à jour" pour
+    //    ON DUPLICATE KEY UPDATE) ; sans ce compte (batch réécrit, MERGE de H2), il reste INSERE.
+    //  - Sous InnoDB en REPEATABLE READ, le FOR UPDATE sur des ID absents pose des verrous de trou
+    //    ("gap locks") : deux upserts concurrents qui insèrent dans le même trou peuvent s'interbloquer.
+    //    InnoDB annule alors l'un des deux (erreur 1213) : tout son upsert est annulé, comme pour toute
+    //    autre erreur (null / liste de null), et l'appelant peut le relancer.
+    List<UpsertResult> fusionner(String operation, List<Utilisateur> utilisateurs) throws SQLException {
+        UpsertResult[] resultats = new UpsertResult[utilisateurs.size()];
+        if (utilisateurs.isEmpty()) {
+            return Arrays.asList(resultats);
+        }
+        try (QueryTrace trace = tracer(operation, SQL_LOT_IN_VERROU[indexTailleLot(utilisateurs.size())], utilisateurs);
+             Connection conn = trace.connexion(connexion())) {
+            SqlDialect d = dialecte(conn);
+            int[] idsOrigine = utilisateurs.stream().mapToInt(Utilisateur::getId).toArray();
+            conn.setAutoCommit(false);
+            try {
+                for (int de = 0; de < utilisateurs.size(); de += TAILLE_LOT_UPSERT) {
+                    int a = Math.min(de + TAILLE_LOT_UPSERT, utilisateurs.size());
+                    fusionnerLot(conn, trace, d, utilisateurs.subList(de, a), resultats, de);
+                }
+                conn.commit();
+            } catch (SQLException e) {
                 try {
-                    conn.close();
-                    // Gère les erreurs qui pourraient survenir lors de la fermeture de la connexion.
-                } catch (SQLException closeEx) {
-                    System.out.println("⚠️ Erreur lors de la fermeture de la connexion : " + closeEx.getMessage());
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    e.addSuppressed(rollbackEx);
+                }
+                // Les ID générés avant l'échec ne correspondent plus à aucune ligne.
+                for (int i = 0; i < idsOrigine.length; i++) {
+                    utilisateurs.get(i).setId(idsOrigine[i]);
+                }
+                throw e;
+            }
+            trace.reussie();
+        }
+        return Arrays.asList(resultats);
+    }
+
+    // 🔀 Un paquet d'upsert (voir fusionner) ; 'resultats' est rempli à partir de 'decalage'
+    private void fusionnerLot(Connection conn, QueryTrace trace, SqlDialect d, List<Utilisateur> lot,
+                              UpsertResult[] resultats, int decalage) throws SQLException {
+        // 1️⃣ Lignes existantes du paquet, lues et verrouillées
+        int[] ids = new int[lot.size()];
+        int nombre = 0;
+        for (Utilisateur u : lot) {
+            if (u.getId() > 0) {
+                ids[nombre++] = u.getId();
+            }
+        }
+        Arrays.sort(ids, 0, nombre);
+        int distincts = 0;
+        for (int i = 0; i < nombre; i++) {
+            if (i == 0 || ids[i] != ids[i - 1]) {
+                ids[distincts++] = ids[i];
+            }
+        }
+        ConcurrentIntObjectMap<Utilisateur> existants = new ConcurrentIntObjectMap<>(distincts, 1);
+        lireParLots(conn, trace, SQL_LOT_IN_VERROU, ids, distincts, existants);
+
+        // 2️⃣ Classement ; un ID présent deux fois dans le paquet est comparé à sa version précédente
+        List<Utilisateur> nouveaux = new ArrayList<>();
+        List<Utilisateur> aEcrire = new ArrayList<>();
+        for (int i = 0; i < lot.size(); i++) {
+            Utilisateur u = lot.get(i);
+            UpsertResult resultat;
+            if (u.getId() <= 0) {
+                resultat = UpsertResult.INSERE;
+                nouveaux.add(u);
+            } else {
+                Utilisateur existant = existants.get(u.getId());
+                if (existant == null) {
+                    resultat = UpsertResult.INSERE;
+                } else if (Objects.equals(existant.getNom(), u.getNom()) && Objects.equals(existant.getEmail(), u.getEmail())) {
+                    resultat = UpsertResult.INCHANGE;
+                } else {
+                    resultat = UpsertResult.MODIFIE;
+                }
+                if (resultat != UpsertResult.INCHANGE) {
+                    aEcrire.add(u);
+                    existants.put(u.getId(), new Utilisateur(u.getId(), u.getNom(), u.getEmail()));
                 }
             }
+            resultats[decalage + i] = resultat;
+        }
+
+        // 3️⃣ Écritures en batch : insertions à ID généré, puis upserts par ID
+        if (!nouveaux.isEmpty()) {
+            try (PreparedStatement stmt = conn.prepareStatement(SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
+                for (Utilisateur u : nouveaux) {
+                    stmt.setString(1, u.getNom());
+                    stmt.setString(2, u.getEmail());
+                    stmt.addBatch();
+                }
+                trace.executee(stmt.executeBatch());
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    for (Utilisateur u : nouveaux) {
+                        if (!generatedKeys.next()) {
+                            break;
+                        }
+                        u.setId(generatedKeys.getInt(1));
+                    }
+                }
+                trace.lignes(nouveaux.size());
+            }
+        }
+        if (!aEcrire.isEmpty()) {
+            try (PreparedStatement stmt = conn.prepareStatement(d.getSqlUpsert())) {
+                for (Utilisateur u : aEcrire) {
+                    stmt.setInt(1, u.getId());
+                    stmt.setString(2, u.getNom());
+                    stmt.setString(3, u.getEmail());
+                    stmt.addBatch();
+                }
+                int[] comptes = trace.executee(stmt.executeBatch());
+                trace.lignes(aEcrire.size());
+                // 🔁 Ligne insérée par un autre depuis l'étape 1 : le driver signale une mise à jour (2)
+                for (int i = 0; i < comptes.length && i < aEcrire.size(); i++) {
+                    if (comptes[i] == 2) {
+                        reclasser(lot, aEcrire.get(i), resultats, decalage);
+                    }
+                }
+            }
+        }
+
+        // 📰 Avec l'outbox, les lignes écrites sont notées dans la même transaction
+        if (outbox) {
+            int[] inseres = new int[lot.size()];
+            int[] modifies = new int[lot.size()];
+            int nombreInseres = 0;
+            int nombreModifies = 0;
+            for (int i = 0; i < lot.size(); i++) {
+                if (resultats[decalage + i] == UpsertResult.INSERE) {
+                    inseres[nombreInseres++] = lot.get(i).getId();
+                } else if (resultats[decalage + i] == UpsertResult.MODIFIE) {
+                    modifies[nombreModifies++] = lot.get(i).getId();
+                }
+            }
+            UserOutbox.noter(conn, UserOutbox.INSERTION, Arrays.copyOf(inseres, nombreInseres));
+            UserOutbox.noter(conn, UserOutbox.MODIFICATION, Arrays.copyOf(modifies, nombreModifies));
+        }
+    }
+
+    // 🔁 Un utilisateur classé INSERE a en fait mis à jour une ligne existante : il devient MODIFIE
+    private static void reclasser(List<Utilisateur> lot, Utilisateur u, UpsertResult[] resultats, int decalage) {
+        for (int i = 0; i < lot.size(); i++) {
+            if (lot.get(i) == u && resultats[decalage + i] == UpsertResult.INSERE) {
+                resultats[decalage + i] = UpsertResult.MODIFIE;
+                return;
+            }
         }
     }
 
-    // Déclaration de la méthode. Elle est 'private', ce qui signifie qu'elle ne peut être appelée
-    // que depuis l'intérieur de la classe 'UserRepository'.
+    // Déclaration de la méthode. Elle est 'public static' : elle n'utilise aucun attribut du repository
+    // et peut être appelée depuis l'extérieur (par exemple par les benchmarks du package 'benchmark').
+    // ⚠️ Les requêtes du repository utilisent désormais UtilisateurRowMapper (lecture par position) ;
+    // cette lecture par nom de colonne reste disponible pour les ResultSet dont on ignore la forme.
     // Elle retourne un objet de type 'Utilisateur'.
     // Elle prend en paramètre un objet 'ResultSet', qui contient les résultats de la requête SQL.
     // Le mot-clé 'throws SQLException' indique que la méthode peut générer une erreur liée à la base de données.
-    private Utilisateur mapResultSetToUtilisateur(ResultSet rs) throws SQLException {
+    public static Utilisateur mapResultSetToUtilisateur(ResultSet rs) throws SQLException {
 
         // Crée une nouvelle instance de la classe 'Utilisateur'. C'est l'objet
         // que nous allons remplir avec les données de la base de données.
@@ -0,0 +1,78 @@
+// 📦 Déclaration du package dans lequel se trouve cette classe
+package repository;
+
+// 📦 Importation des classes Utilisateur et UtilisateurImmuable, et de la table de déduplication
+import model.Utilisateur;
+import model.UtilisateurImmuable;
+import repository.cache.ChainesPartagees;
+
+// 📦 Importation des classes JDBC
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+// 🧩 Conversion d'une ligne de la table "utilisateurs" en objet Utilisateur, par position de colonne.
+//
+// rs.getString("nom") oblige le driver à rechercher le libellé "nom" parmi les colonnes à CHAQUE ligne.
+// Ici, la position des colonnes id, nom et email est lue une seule fois dans les métadonnées du
+// ResultSet, puis chaque ligne est lue avec rs.getInt(1), rs.getString(2)...
+// Chaque objet est construit en une fois, avec ses trois valeurs. immuable() lit les mêmes positions
+// et construit des UtilisateurImmuable (lectures partagées, sans copie défensive).
+public final class UtilisateurRowMapper implements RowMapper<Utilisateur> {
+
+    // 🧾 Liste explicite des colonnes lues par le repository (au lieu de "SELECT *")
+    public static final String COLONNES = "id, nom, email";
+
+    // 🔢 Position (à partir de 1) de chaque colonne dans le ResultSet
+    private final int indexId;
+    private final int indexNom;
+    private final int indexEmail;
+
+    private UtilisateurRowMapper(int indexId, int indexNom, int indexEmail) {
+        this.indexId = indexId;
+        this.indexNom = indexNom;
+        this.indexEmail = indexEmail;
+    }
+
+    // 🔎 Prépare un mapper pour ce ResultSet : les positions sont lues dans ses métadonnées
+    public static UtilisateurRowMapper pour(ResultSet rs) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int indexId = 0;
+        int indexNom = 0;
+        int indexEmail = 0;
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            String libelle = meta.getColumnLabel(i);
+            if (indexId == 0 && "id".equalsIgnoreCase(libelle)) {
+                indexId = i;
+            } else if (indexNom == 0 && "nom".equalsIgnoreCase(libelle)) {
+                indexNom = i;
+            } else if (indexEmail == 0 && "email".equalsIgnoreCase(libelle)) {
+                indexEmail = i;
+            }
+        }
+        if (indexId == 0 || indexNom == 0 || indexEmail == 0) {
+            throw new SQLException("Colonnes attendues absentes du résultat : " + COLONNES);
+        }
+        return new UtilisateurRowMapper(indexId, indexNom, indexEmail);
+    }
+
+    // ➡️ Conversion de la ligne courante, par position
+    @Override
+    public Utilisateur mapRow(ResultSet rs) throws SQLException {
+        return new Utilisateur(rs.getInt(indexId), rs.getString(indexNom), rs.getString(indexEmail));
+    }
+
+    // 🧊 Même lecture, en UtilisateurImmuable
+    public RowMapper<UtilisateurImmuable> immuable() {
+        return rs -> new UtilisateurImmuable(rs.getInt(indexId), rs.getString(indexNom), rs.getString(indexEmail));
+    }
+
+    // 🧊 Même lecture, en UtilisateurImmuable dont le nom est dédupliqué par 'noms' (null : pas de déduplication)
+    public RowMapper<UtilisateurImmuable> immuable(ChainesPartagees noms) {
+        if (noms == null) {
+            return immuable();
+        }
+        return rs -> new UtilisateurImmuable(rs.getInt(indexId), noms.partager(rs.getString(indexNom)),
+                rs.getString(indexEmail));
+    }
+}
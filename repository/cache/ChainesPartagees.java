@@ -0,0 +1,72 @@
+// 📦 Déclaration du package des caches du repository
+package repository.cache;
+
+// 📦 Importation des classes de concurrence
+import java.util.concurrent.atomic.LongAdder;
+
+// 🔗 Table de déduplication des valeurs texte qui reviennent souvent (noms courants...).
+//
+// Le driver crée une nouvelle String pour chaque colonne de chaque ligne : 100 000 lignes où
+// "Jean Martin" apparaît 300 fois donnent 300 String identiques, toutes gardées en mémoire si les
+// utilisateurs le sont (cache, liste conservée). partager() rend la String déjà connue quand elle est
+// égale : les copies meurent jeunes et une seule reste.
+//
+// Table de taille fixe, une valeur par case (la case est choisie par le hash) : une nouvelle valeur
+// remplace l'ancienne de sa case, sans liste ni éviction à gérer. Lectures et écritures sans verrou :
+// deux threads peuvent écrire la même case en même temps, l'un des deux gagne, et comme une String est
+// immuable (champs finaux), un thread qui lit la case voit toujours une String complète.
+// Les valeurs plus longues que LONGUEUR_MAX ne sont pas partagées (rarement répétées).
+public final class ChainesPartagees {
+
+    // 📏 Nombre de cases par défaut et longueur maximale d'une valeur partagée
+    public static final int TAILLE_PAR_DEFAUT = 4096;
+    public static final int LONGUEUR_MAX = 64;
+
+    private final String[] cases;
+    private final int masque;
+
+    // 📊 Valeurs rendues depuis la table (doublons évités)
+    private final LongAdder partagees = new LongAdder();
+
+    // 🏗️ Constructeur par défaut : 4096 cases
+    public ChainesPartagees() {
+        this(TAILLE_PAR_DEFAUT);
+    }
+
+    // 🏗️ Constructeur avec un nombre de cases (arrondi à la puissance de 2 supérieure)
+    public ChainesPartagees(int taille) {
+        if (taille <= 0) {
+            throw new IllegalArgumentException("taille doit être positive : " + taille);
+        }
+        int n = Integer.highestOneBit(taille);
+        n = n < taille ? n << 1 : n;
+        this.cases = new String[n];
+        this.masque = n - 1;
+    }
+
+    // 🔗 La String égale déjà connue, sinon 'valeur' (qui prend la case)
+    public String partager(String valeur) {
+        if (valeur == null || valeur.length() > LONGUEUR_MAX) {
+            return valeur;
+        }
+        int h = valeur.hashCode();
+        int index = (h ^ (h >>> 16)) & masque;
+        String connue = cases[index];
+        if (connue != null && connue.equals(valeur)) {
+            partagees.increment();
+            return connue;
+        }
+        cases[index] = valeur;
+        return valeur;
+    }
+
+    // 📊 Nombre de valeurs rendues depuis la table
+    public long getPartagees() {
+        return partagees.sum();
+    }
+
+    // 📏 Nombre de cases
+    public int taille() {
+        return cases.length;
+    }
+}
@@ -0,0 +1,349 @@
+// 📦 Déclaration du package des caches du repository
+package repository.cache;
+
+// 📦 VarHandle : lectures/écritures avec barrières mémoire sur des éléments de tableau
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// 🗂️ Table de hachage concurrente à clés "int", en adressage ouvert.
+//
+// Pourquoi pas un Map<Integer, V> ?
+//  - chaque clé y est un objet Integer (boxing) et chaque entrée un objet Node : environ 50 à 60 octets
+//    par entrée, case du tableau comprise (Node 32 + Integer 16 + case à 75 % de remplissage) ;
+//  - ici les clés sont rangées dans un int[] et les valeurs dans un Object[] : 8 octets par case avec
+//    les références compressées (12 sans), aucun objet par entrée. La table est tenue entre 25 et 50 %
+//    de remplissage (CHARGE_MAX, capacité doublée à la reconstruction) : 16 à 32 octets par entrée
+//    vivante (24 à 48 sans compression), davantage tant que des tombes occupent des cases.
+// Dans les deux cas, l'objet valeur lui-même s'ajoute.
+//
+// Concurrence :
+//  - get(int) ne prend aucun verrou et n'alloue rien ;
+//  - les écritures verrouillent un seul segment (la table est découpée en segments indépendants).
+//
+// Une clé, une fois placée dans une case, n'en bouge plus tant que la table n'est pas reconstruite :
+// une suppression remet seulement la valeur à null (case "tombe"). Les tombes sont purgées à la
+// reconstruction suivante.
+public class ConcurrentIntObjectMap<V> {
+
+    // 🧮 Accès avec barrières mémoire (acquire/release) aux éléments des tableaux
+    private static final VarHandle CLES = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle VALEURS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    // 🕳️ Clé réservée pour marquer une case vide ; la vraie clé 0 est rangée à part
+    private static final int VIDE = 0;
+
+    // 📏 Taux de remplissage maximal (cases occupées, tombes comprises) avant reconstruction
+    private static final float CHARGE_MAX = 0.5f;
+
+    // 🧩 Segments indépendants (nombre puissance de 2)
+    private final Segment<V>[] segments;
+
+    // 🎭 Masque et décalage pour choisir le segment à partir des bits de poids fort du hash
+    private final int masqueSegment;
+    private final int decalageSegment;
+
+    // 0️⃣ Valeur associée à la clé 0 (null si absente)
+    private volatile V valeurZero;
+
+    // 🏗️ Constructeur par défaut : 16 segments, petite capacité initiale
+    public ConcurrentIntObjectMap() {
+        this(64, 16);
+    }
+
+    // 🏗️ Constructeur avec une capacité attendue (évite les reconstructions pendant le remplissage)
+    public ConcurrentIntObjectMap(int capaciteAttendue) {
+        this(capaciteAttendue, 16);
+    }
+
+    // 🏗️ Constructeur complet : capacité attendue et nombre de segments (arrondi à une puissance de 2)
+    @SuppressWarnings("unchecked")
+    public ConcurrentIntObjectMap(int capaciteAttendue, int nombreSegments) {
+        int n = puissanceDeDeux(Math.max(1, nombreSegments));
+        this.segments = (Segment<V>[]) new Segment<?>[n];
+        this.masqueSegment = n - 1;
+        this.decalageSegment = 32 - Integer.numberOfTrailingZeros(n);
+        int parSegment = Math.max(1, capaciteAttendue / n);
+        for (int i = 0; i < n; i++) {
+            segments[i] = new Segment<>(capacitePour(parSegment));
+        }
+    }
+
+    // 🔍 Valeur associée à la clé, ou null. Sans verrou et sans allocation.
+    public V get(int cle) {
+        if (cle == VIDE) {
+            return valeurZero;
+        }
+        int h = melanger(cle);
+        return segmentPour(h).get(cle, h);
+    }
+
+    // ✅ true si la clé est présente
+    public boolean containsKey(int cle) {
+        return get(cle) != null;
+    }
+
+    // 💾 Associe la valeur à la clé et retourne l'ancienne valeur (ou null)
+    public V put(int cle, V valeur) {
+        exigerValeur(valeur);
+        if (cle == VIDE) {
+            synchronized (this) {
+                V ancienne = valeurZero;
+                valeurZero = valeur;
+                return ancienne;
+            }
+        }
+        int h = melanger(cle);
+        return segmentPour(h).put(cle, h, valeur, false);
+    }
+
+    // 💾 Associe la valeur seulement si la clé est absente ; retourne la valeur déjà présente sinon
+    public V putIfAbsent(int cle, V valeur) {
+        exigerValeur(valeur);
+        if (cle == VIDE) {
+            synchronized (this) {
+                V ancienne = valeurZero;
+                if (ancienne == null) {
+                    valeurZero = valeur;
+                }
+                return ancienne;
+            }
+        }
+        int h = melanger(cle);
+        return segmentPour(h).put(cle, h, valeur, true);
+    }
+
+    // 🧽 Retire la clé et retourne l'ancienne valeur (ou null)
+    public V remove(int cle) {
+        if (cle == VIDE) {
+            synchronized (this) {
+                V ancienne = valeurZero;
+                valeurZero = null;
+                return ancienne;
+            }
+        }
+        int h = melanger(cle);
+        return segmentPour(h).remove(cle, h, null);
+    }
+
+    // 🧽 Retire la clé seulement si elle est encore associée à cette valeur précise (comparaison ==)
+    public boolean remove(int cle, V valeur) {
+        if (cle == VIDE) {
+            synchronized (this) {
+                if (valeurZero != valeur) {
+                    return false;
+                }
+                valeurZero = null;
+                return true;
+            }
+        }
+        int h = melanger(cle);
+        return segmentPour(h).remove(cle, h, valeur) != null;
+    }
+
+    // 📏 Nombre de clés présentes (approximatif pendant des écritures concurrentes)
+    public int taille() {
+        int total = valeurZero != null ? 1 : 0;
+        for (Segment<V> segment : segments) {
+            total += segment.vivantes;
+        }
+        return total;
+    }
+
+    // 🫙 true si la table ne contient aucune clé
+    public boolean estVide() {
+        return taille() == 0;
+    }
+
+    // 🧽 Retire toutes les clés
+    public void clear() {
+        synchronized (this) {
+            valeurZero = null;
+        }
+        for (Segment<V> segment : segments) {
+            segment.vider();
+        }
+    }
+
+    // 🔁 Parcourt toutes les associations (vue cohérente par segment, pas globalement)
+    public void forEach(IntObjectConsumer<? super V> action) {
+        V zero = valeurZero;
+        if (zero != null) {
+            action.accept(VIDE, zero);
+        }
+        for (Segment<V> segment : segments) {
+            segment.forEach(action);
+        }
+    }
+
+    // 🧩 Fonction appelée pour chaque association par forEach (clé non boxée)
+    @FunctionalInterface
+    public interface IntObjectConsumer<V> {
+        void accept(int cle, V valeur);
+    }
+
+    // 🎲 Mélange des bits de la clé : des ID consécutifs se répartissent sur toute la table
+    private static int melanger(int cle) {
+        int h = cle * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private Segment<V> segmentPour(int h) {
+        return segments[(h >>> decalageSegment) & masqueSegment];
+    }
+
+    private static void exigerValeur(Object valeur) {
+        if (valeur == null) {
+            throw new NullPointerException("valeur null interdite");
+        }
+    }
+
+    // 📐 Nombre de cases nécessaire pour ranger n clés sous le taux de remplissage maximal
+    private static int capacitePour(int n) {
+        return puissanceDeDeux(Math.max(4, (int) Math.ceil(n / CHARGE_MAX) + 1));
+    }
+
+    private static int puissanceDeDeux(int n) {
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    // 🧩 Un segment : une table à adressage ouvert (sondage linéaire) protégée par son propre verrou
+    private static final class Segment<V> {
+
+        // 📄 Table courante ; remplacée en bloc lors d'une reconstruction
+        private volatile Table table;
+
+        // 📏 Nombre de clés présentes et de cases occupées (tombes comprises), modifiés sous verrou
+        private volatile int vivantes;
+        private int occupees;
+
+        Segment(int capacite) {
+            this.table = new Table(capacite);
+        }
+
+        @SuppressWarnings("unchecked")
+        V get(int cle, int h) {
+            Table t = table;
+            int[] cles = t.cles;
+            int masque = cles.length - 1;
+            for (int i = h & masque; ; i = (i + 1) & masque) {
+                int k = (int) CLES.getAcquire(cles, i);
+                if (k == cle) {
+                    return (V) VALEURS.getAcquire(t.valeurs, i);
+                }
+                if (k == VIDE) {
+                    return null;
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized V put(int cle, int h, V valeur, boolean siAbsente) {
+            Table t = table;
+            int[] cles = t.cles;
+            int masque = cles.length - 1;
+            for (int i = h & masque; ; i = (i + 1) & masque) {
+                int k = cles[i];
+                if (k == cle) {
+                    // 🔁 Clé déjà placée (éventuellement dans une tombe) : on remplace la valeur
+                    V ancienne = (V) t.valeurs[i];
+                    if (ancienne == null || !siAbsente) {
+                        VALEURS.setRelease(t.valeurs, i, valeur);
+                        if (ancienne == null) {
+                            vivantes++;
+                        }
+                    }
+                    return ancienne;
+                }
+                if (k == VIDE) {
+                    // 🏗️ Table trop pleine : on la reconstruit puis on recommence
+                    if (occupees + 1 > cles.length * CHARGE_MAX) {
+                        reconstruire(vivantes + 1);
+                        return put(cle, h, valeur, siAbsente);
+                    }
+                    // ✍️ La valeur est publiée AVANT la clé : un lecteur qui voit la clé voit la valeur
+                    VALEURS.setRelease(t.valeurs, i, valeur);
+                    CLES.setRelease(cles, i, cle);
+                    occupees++;
+                    vivantes++;
+                    return null;
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized V remove(int cle, int h, V attendue) {
+            Table t = table;
+            int[] cles = t.cles;
+            int masque = cles.length - 1;
+            for (int i = h & masque; ; i = (i + 1) & masque) {
+                int k = cles[i];
+                if (k == cle) {
+                    V ancienne = (V) t.valeurs[i];
+                    if (ancienne == null || (attendue != null && ancienne != attendue)) {
+                        return null;
+                    }
+                    // 🪦 La clé reste en place (tombe), seule la valeur disparaît
+                    VALEURS.setRelease(t.valeurs, i, null);
+                    vivantes--;
+                    return ancienne;
+                }
+                if (k == VIDE) {
+                    return null;
+                }
+            }
+        }
+
+        synchronized void vider() {
+            table = new Table(table.cles.length);
+            vivantes = 0;
+            occupees = 0;
+        }
+
+        void forEach(IntObjectConsumer<? super V> action) {
+            Table t = table;
+            for (int i = 0; i < t.cles.length; i++) {
+                int k = (int) CLES.getAcquire(t.cles, i);
+                if (k != VIDE) {
+                    @SuppressWarnings("unchecked")
+                    V v = (V) VALEURS.getAcquire(t.valeurs, i);
+                    if (v != null) {
+                        action.accept(k, v);
+                    }
+                }
+            }
+        }
+
+        // 🏗️ Recopie les clés vivantes dans une nouvelle table (les tombes disparaissent)
+        private void reconstruire(int vivantesAttendues) {
+            Table ancienne = table;
+            Table nouvelle = new Table(capacitePour(Math.max(vivantesAttendues, ancienne.cles.length / 4)));
+            int masque = nouvelle.cles.length - 1;
+            for (int j = 0; j < ancienne.cles.length; j++) {
+                int k = ancienne.cles[j];
+                Object v = ancienne.valeurs[j];
+                if (k != VIDE && v != null) {
+                    int i = melanger(k) & masque;
+                    while (nouvelle.cles[i] != VIDE) {
+                        i = (i + 1) & masque;
+                    }
+                    nouvelle.cles[i] = k;
+                    nouvelle.valeurs[i] = v;
+                }
+            }
+            occupees = vivantes;
+            // 📢 Publication de la nouvelle table (écriture volatile)
+            table = nouvelle;
+        }
+    }
+
+    // 📄 Tableaux parallèles des clés et des valeurs
+    private static final class Table {
+        final int[] cles;
+        final Object[] valeurs;
+
+        Table(int capacite) {
+            this.cles = new int[capacite];
+            this.valeurs = new Object[capacite];
+        }
+    }
+}
@@ -0,0 +1,156 @@
+// 📦 Déclaration du package des caches du repository
+package repository.cache;
+
+// 📦 Importation de la classe Utilisateur et du repository qui lit la table
+import model.Utilisateur;
+import repository.UserRepository;
+
+// 📦 Importation des classes utilitaires et de concurrence
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+// 📧 Index en mémoire des emails de la table "utilisateurs", pour savoir en quelques centaines de
+// nanosecondes si un email est déjà pris (par exemple pendant un pic d'inscriptions), sans requête.
+//
+// Les emails sont normalisés (espaces retirés, minuscules) puis rangés dans un tableau trié, sans
+// doublon : contient() est une recherche par dichotomie (une vingtaine de comparaisons pour un
+// million d'emails, aucune allocation hormis la normalisation) et prefixe() parcourt une plage
+// contiguë du tableau. Les emails ajoutés ou retirés après le chargement sont rangés à part, dans
+// deux petits ensembles triés consultés avant le tableau ; un nouveau chargement les fusionne.
+//
+// ⚠️ L'index est un filtre rapide, pas la vérité : un email ajouté par un autre nœud n'y est qu'après
+// appliquer() (abonnement à un UserChangeFeed) ou un nouveau chargement, et l'ancien email d'un
+// utilisateur modifié ailleurs y reste jusqu'au rechargement. La décision finale revient à la base
+// (findByEmail, ou une contrainte d'unicité).
+public final class EmailIndex {
+
+    // 📚 Emails chargés : normalisés, triés, distincts
+    private final String[] tries;
+
+    // ➕➖ Changements depuis le chargement
+    private final NavigableSet<String> ajoutes = new ConcurrentSkipListSet<>();
+    private final NavigableSet<String> retires = new ConcurrentSkipListSet<>();
+
+    private EmailIndex(String[] tries) {
+        this.tries = tries;
+    }
+
+    // 📥 Charge les emails de toute la table à travers streamAll (une page en mémoire à la fois).
+    // Une erreur SQL lève une RepositoryException.
+    public static EmailIndex charger(UserRepository repository) {
+        try (Stream<Utilisateur> flux = repository.streamAll()) {
+            return de(flux.map(Utilisateur::getEmail).toList());
+        }
+    }
+
+    // 🏗️ Index construit à partir d'une collection d'emails (null ignorés)
+    public static EmailIndex de(Collection<String> emails) {
+        String[] normalises = emails.stream()
+                .filter(email -> email != null)
+                .map(EmailIndex::normaliser)
+                .sorted()
+                .distinct()
+                .toArray(String[]::new);
+        return new EmailIndex(normalises);
+    }
+
+    // 🧽 Forme normalisée d'un email : sans espaces autour, en minuscules
+    public static String normaliser(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // 🔍 true si l'email (normalisé) est dans l'index
+    public boolean contient(String email) {
+        String cle = normaliser(email);
+        if (!ajoutes.isEmpty() && ajoutes.contains(cle)) {
+            return true;
+        }
+        if (!retires.isEmpty() && retires.contains(cle)) {
+            return false;
+        }
+        return Arrays.binarySearch(tries, cle) >= 0;
+    }
+
+    // ➕ Ajoute un email (par exemple juste après une inscription réussie)
+    public void ajouter(String email) {
+        String cle = normaliser(email);
+        retires.remove(cle);
+        if (Arrays.binarySearch(tries, cle) < 0) {
+            ajoutes.add(cle);
+        }
+    }
+
+    // ➖ Retire un email (par exemple après la suppression de son utilisateur)
+    public void retirer(String email) {
+        String cle = normaliser(email);
+        ajoutes.remove(cle);
+        if (Arrays.binarySearch(tries, cle) >= 0) {
+            retires.add(cle);
+        }
+    }
+
+    // 📰 Ajoute les emails des utilisateurs insérés ou modifiés. Les ids supprimés sont ignorés :
+    // l'index ne sait pas à quel email ils correspondaient (il faut recharger pour les oublier).
+    // La signature correspond à UserChangeFeed.Abonne : index::appliquer.
+    public void appliquer(List<Utilisateur> modifies, int[] supprimes) {
+        for (Utilisateur u : modifies) {
+            if (u.getEmail() != null) {
+                ajouter(u.getEmail());
+            }
+        }
+    }
+
+    // 📧 Emails (normalisés) qui commencent par 'prefixe', dans l'ordre, 'limite' au plus
+    public List<String> prefixe(String prefixe, int limite) {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("limite doit être positive : " + limite);
+        }
+        String debut = normaliser(prefixe);
+        List<String> resultat = new ArrayList<>(Math.min(limite, 64));
+
+        // 🧩 Fusion de la plage du tableau et de celle des ajouts, toutes deux triées
+        int position = Arrays.binarySearch(tries, debut);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        Iterator<String> suiteAjouts = ajoutes.tailSet(debut, true).iterator();
+        String ajout = suivant(suiteAjouts, debut);
+        while (resultat.size() < limite) {
+            String base = position < tries.length && tries[position].startsWith(debut) ? tries[position] : null;
+            if (base == null && ajout == null) {
+                break;
+            }
+            if (base != null && (ajout == null || base.compareTo(ajout) < 0)) {
+                position++;
+                if (!retires.contains(base)) {
+                    resultat.add(base);
+                }
+            } else {
+                resultat.add(ajout);
+                ajout = suivant(suiteAjouts, debut);
+            }
+        }
+        return resultat;
+    }
+
+    // ➡️ Ajout suivant qui a encore le bon préfixe, ou null
+    private static String suivant(Iterator<String> suite, String debut) {
+        if (suite.hasNext()) {
+            String email = suite.next();
+            return email.startsWith(debut) ? email : null;
+        }
+        return null;
+    }
+
+    // 🔢 Nombre d'emails distincts dans l'index
+    public int taille() {
+        return tries.length + ajoutes.size() - retires.size();
+    }
+}
@@ -0,0 +1,289 @@
+// 📦 Déclaration du package des caches du repository
+package repository.cache;
+
+// 📦 Importation de la classe Utilisateur (une ligne de la table "utilisateurs") et de sa version immuable
+import model.Utilisateur;
+import model.UtilisateurImmuable;
+
+// 📦 Importation des classes utilitaires Java
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// 🧠 Cache mémoire borné des utilisateurs, indexé par ID.
+//  - taille maximale avec éviction LRU approchée par l'algorithme CLOCK ("seconde chance"),
+//  - durée de vie (TTL) des entrées,
+//  - cache "négatif" : un ID absent de la base est mémorisé pour éviter de le redemander,
+//  - compteurs de hits / misses / évictions pour régler la taille et le TTL.
+//
+// Lecture "read-through" sans valeur périmée : une lecture en base prend un jeton(id) AVANT sa requête,
+// puis range son résultat avec mettre(u, jeton) / mettreAbsent(id, jeton). Une écriture (mettre(u),
+// invalider) faite entre-temps sur cet ID change le jeton : le résultat, peut-être lu avant l'écriture,
+// n'est alors pas rangé. Les jetons sont partagés par groupes d'ID (GROUPES_JETONS) : une écriture sur
+// un ID voisin fait seulement manquer une mise en cache, jamais ranger une valeur périmée.
+// Les entrées sont des UtilisateurImmuable : Entree.getUtilisateur() les rend telles quelles, à
+// partager sans copie ; Entree.copie() en fait un Utilisateur modifiable propre à l'appelant.
+public class UserCache {
+
+    // 📏 Nombre maximal d'entrées (positives et négatives confondues)
+    private final int tailleMax;
+
+    // ⏳ Durée de vie d'une entrée positive et d'une entrée négative, en nanosecondes
+    private final long ttlNanos;
+    private final long ttlNegatifNanos;
+
+    // 🗂️ Table à clés int : pas de boxing des ID, lecture sans verrou ni allocation
+    private final ConcurrentIntObjectMap<Entree> entrees;
+
+    // ⏰ Anneau CLOCK : l'ID rangé dans chaque "case" du cache, et l'aiguille qui le parcourt.
+    // Une lecture marque seulement l'entrée comme "référencée" (pas de liste à réordonner) ;
+    // pour faire de la place, l'aiguille retire le premier ID non référencé depuis son dernier passage.
+    // Ces champs ne sont modifiés que sous le verrou de l'anneau (écritures uniquement).
+    private final int[] anneau;
+    private int casesUtilisees;
+    private int aiguille;
+
+    // 🎟️ Génération de chaque groupe d'ID, augmentée (sous le verrou de l'anneau) à chaque écriture
+    private static final int GROUPES_JETONS = 4096;
+    private final AtomicLongArray generations = new AtomicLongArray(GROUPES_JETONS);
+
+    // 📊 Compteurs (LongAdder : peu de contention entre threads)
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder hitsNegatifs = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    // 🏗️ Constructeur : taille maximale, TTL des entrées et TTL du cache négatif
+    public UserCache(int tailleMax, long ttl, long ttlNegatif, TimeUnit unite) {
+        if (tailleMax <= 0) {
+            throw new IllegalArgumentException("tailleMax doit être positive : " + tailleMax);
+        }
+        this.tailleMax = tailleMax;
+        this.ttlNanos = unite.toNanos(ttl);
+        this.ttlNegatifNanos = unite.toNanos(ttlNegatif);
+        this.entrees = new ConcurrentIntObjectMap<>(tailleMax);
+        this.anneau = new int[tailleMax];
+    }
+
+    // 🔍 Cherche un ID dans le cache.
+    // Retourne null si l'ID est inconnu (ou expiré) : il faut alors interroger la base.
+    public Entree lire(int id) {
+        Entree entree = entrees.get(id);
+        if (entree != null) {
+            if (entree.expireA - System.nanoTime() <= 0) {
+                // ⌛ Entrée expirée : on la retire (si personne ne l'a remplacée entre-temps) et c'est un miss
+                if (entrees.remove(id, entree)) {
+                    expirations.increment();
+                }
+                entree = null;
+            } else if (!entree.reference) {
+                // ⏰ Seconde chance pour l'algorithme CLOCK (on n'écrit que si nécessaire)
+                entree.reference = true;
+            }
+        }
+        if (entree == null) {
+            misses.increment();
+        } else if (entree.isAbsent()) {
+            hitsNegatifs.increment();
+        } else {
+            hits.increment();
+        }
+        return entree;
+    }
+
+    // 🎟️ Jeton à prendre AVANT de lire un ID en base, à rendre à mettre(u, jeton) / mettreAbsent(id, jeton)
+    public long jeton(int id) {
+        return generations.get(groupe(id));
+    }
+
+    // 💾 Écriture : mémorise (une copie immuable de) l'utilisateur, en remplaçant une éventuelle entrée
+    // précédente ; les lectures en cours sur cet ID ne pourront plus ranger leur résultat.
+    // ⚠️ Sans jeton, le dernier appel gagne quel que soit l'ordre des commits : à réserver aux ID qu'une
+    // seule écriture peut viser (insertion). Après une modification, invalider() puis relire sous jeton.
+    public void mettre(Utilisateur u) {
+        ranger(u.getId(), UtilisateurImmuable.de(u), ttlNanos, AUCUN_JETON);
+    }
+
+    // 💾 Écriture, avec un utilisateur immuable (rangé tel quel, sans copie)
+    public void mettre(UtilisateurImmuable u) {
+        ranger(u.id(), u, ttlNanos, AUCUN_JETON);
+    }
+
+    // 💾 Résultat d'une lecture en base : rangé seulement si aucune écriture n'a touché l'ID depuis 'jeton'.
+    // Retourne true s'il a été rangé.
+    public boolean mettre(Utilisateur u, long jeton) {
+        return ranger(u.getId(), UtilisateurImmuable.de(u), ttlNanos, jeton);
+    }
+
+    public boolean mettre(UtilisateurImmuable u, long jeton) {
+        return ranger(u.id(), u, ttlNanos, jeton);
+    }
+
+    // 🚫 Mémorise qu'un ID n'existe pas en base (cache négatif), d'après une lecture faite depuis 'jeton'
+    public boolean mettreAbsent(int id, long jeton) {
+        if (ttlNegatifNanos <= 0) {
+            return false;
+        }
+        return ranger(id, null, ttlNegatifNanos, jeton);
+    }
+
+    // 🧽 Retire un ID du cache (sa case de l'anneau sera récupérée par l'aiguille) ;
+    // les lectures en cours sur cet ID ne pourront plus ranger leur résultat
+    public void invalider(int id) {
+        synchronized (anneau) {
+            generations.incrementAndGet(groupe(id));
+            entrees.remove(id);
+        }
+    }
+
+    // 🧽 Vide entièrement le cache
+    public void invaliderTout() {
+        synchronized (anneau) {
+            for (int i = 0; i < GROUPES_JETONS; i++) {
+                generations.incrementAndGet(i);
+            }
+            entrees.clear();
+            casesUtilisees = 0;
+            aiguille = 0;
+        }
+    }
+
+    // 🎟️ Groupe de jetons d'un ID
+    private static int groupe(int id) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (GROUPES_JETONS - 1);
+    }
+
+    // 🎟️ Jeton d'une écriture : toujours rangée, et change la génération du groupe
+    private static final long AUCUN_JETON = -1;
+
+    // 🗄️ Range une entrée : réutilise la case de l'ancienne entrée du même ID, sinon une case libre,
+    // sinon la case libérée par l'aiguille CLOCK. Avec un jeton, l'entrée n'est rangée que si la
+    // génération de son groupe n'a pas changé ; sans jeton (écriture), la génération avance.
+    private boolean ranger(int id, UtilisateurImmuable utilisateur, long ttl, long jeton) {
+        long expireA = System.nanoTime() + ttl;
+        synchronized (anneau) {
+            if (jeton == AUCUN_JETON) {
+                generations.incrementAndGet(groupe(id));
+            } else if (generations.get(groupe(id)) != jeton) {
+                return false;
+            }
+            Entree precedente = entrees.get(id);
+            int caseAnneau;
+            if (precedente != null) {
+                caseAnneau = precedente.caseAnneau;
+            } else if (casesUtilisees < anneau.length) {
+                caseAnneau = casesUtilisees++;
+            } else {
+                caseAnneau = libererUneCase();
+            }
+            anneau[caseAnneau] = id;
+            entrees.put(id, new Entree(utilisateur, expireA, caseAnneau));
+        }
+        return true;
+    }
+
+    // ⏰ Fait tourner l'aiguille jusqu'à trouver une case à réutiliser (appelée sous le verrou de l'anneau)
+    private int libererUneCase() {
+        while (true) {
+            int caseAnneau = aiguille;
+            aiguille = (aiguille + 1) % anneau.length;
+            int id = anneau[caseAnneau];
+            Entree entree = entrees.get(id);
+            if (entree == null || entree.caseAnneau != caseAnneau) {
+                // 🪦 Case orpheline (ID invalidé, expiré ou rangé ailleurs) : libre sans éviction
+                return caseAnneau;
+            }
+            if (entree.reference) {
+                // 🔄 Lue depuis le dernier passage : on lui laisse une seconde chance
+                entree.reference = false;
+            } else {
+                // 🧹 Pas lue depuis un tour complet : éviction
+                entrees.remove(id, entree);
+                evictions.increment();
+                return caseAnneau;
+            }
+        }
+    }
+
+    // 📏 Nombre d'entrées actuellement en cache
+    public int taille() {
+        return entrees.taille();
+    }
+
+    // 📊 Getters des compteurs
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getHitsNegatifs() {
+        return hitsNegatifs.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    // 📈 Taux de réussite : part des lectures servies par le cache (positives ou négatives)
+    public double getTauxHit() {
+        long servies = getHits() + getHitsNegatifs();
+        long total = servies + getMisses();
+        return total == 0 ? 0 : (double) servies / total;
+    }
+
+    @Override
+    public String toString() {
+        return "UserCache[taille=" + taille() + "/" + tailleMax
+                + ", hits=" + getHits() + ", hitsNegatifs=" + getHitsNegatifs()
+                + ", misses=" + getMisses() + ", evictions=" + getEvictions()
+                + ", expirations=" + getExpirations()
+                + ", tauxHit=" + String.format("%.1f%%", getTauxHit() * 100) + "]";
+    }
+
+    // 📄 Entrée du cache : un utilisateur (ou "absent"), sa date d'expiration et sa case dans l'anneau
+    public static final class Entree {
+
+        // 👤 Utilisateur mémorisé, ou null pour une entrée négative
+        private final UtilisateurImmuable utilisateur;
+
+        // ⏳ Date d'expiration (valeur de System.nanoTime())
+        private final long expireA;
+
+        // ⏰ Case de l'anneau CLOCK occupée par cette entrée
+        private final int caseAnneau;
+
+        // 👆 Bit "référencée" de l'algorithme CLOCK
+        private volatile boolean reference;
+
+        private Entree(UtilisateurImmuable utilisateur, long expireA, int caseAnneau) {
+            this.utilisateur = utilisateur;
+            this.expireA = expireA;
+            this.caseAnneau = caseAnneau;
+        }
+
+        // 🚫 true si l'entrée mémorise que l'ID n'existe pas en base
+        public boolean isAbsent() {
+            return utilisateur == null;
+        }
+
+        // 👤 Utilisateur mémorisé, partagé avec les autres lecteurs (null pour une entrée négative)
+        public UtilisateurImmuable getUtilisateur() {
+            return utilisateur;
+        }
+
+        // 🧬 Copie modifiable de l'utilisateur mémorisé (null pour une entrée négative) :
+        // l'appelant peut la modifier sans toucher au cache
+        public Utilisateur copie() {
+            return utilisateur == null ? null : utilisateur.enUtilisateur();
+        }
+    }
+}
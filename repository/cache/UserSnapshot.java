@@ -0,0 +1,348 @@
+// 📦 Déclaration du package des caches du repository
+package repository.cache;
+
+// 📦 Importation de la classe Utilisateur et du repository qui lit la table
+import model.Utilisateur;
+import repository.UserRepository;
+
+// 📦 Importation des tampons NIO (colonnes sur le tas ou hors du tas)
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+// 📦 Importation des classes utilitaires Java
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// 🧊 Copie en mémoire de toute la table "utilisateurs", rangée par colonnes.
+//
+// Une List<Utilisateur> coûte environ 100 à 170 octets par utilisateur : l'objet, deux String et
+// leurs tableaux d'octets, et la référence dans la liste. Ici, il n'y a que quatre colonnes :
+//  - ids          : int[n], triés (recherche par dichotomie) ;
+//  - finNom       : int[n], position de fin du nom de chaque utilisateur dans 'noms' ;
+//  - finEmail     : int[n], même chose pour les emails ;
+//  - noms, emails : octets UTF-8 de tous les noms (et de tous les emails), mis bout à bout.
+// Soit 12 octets par utilisateur plus ses textes en UTF-8, sans aucun objet par ligne ; un parcours
+// lit des tableaux contigus. Avec 'horsTas', les colonnes sont allouées hors du tas Java
+// (ByteBuffer.allocateDirect) : le GC n'a plus à les parcourir ni à les déplacer.
+//
+// Les lignes sont lues sous forme de "vues" : un Utilisateur qui ne contient rien et lit ses
+// champs dans les colonnes à la demande (le texte n'est décodé qu'à l'appel de getNom / getEmail).
+// Les colonnes sont figées : une vue refuse les setters. Les écritures faites ensuite dans la base
+// arrivent par appliquer() (par exemple abonné à un UserChangeFeed) et sont rangées dans une petite
+// surcouche (id → dernière version, ou suppression) consultée avant les colonnes : rafraîchir coûte
+// le nombre de changements, pas la taille de la table. Quand la surcouche devient grosse
+// (getModifications), un nouveau chargement la remet à zéro.
+// ⚠️ nom et email sont NOT NULL dans la table ; une valeur null serait relue comme une chaîne vide.
+public final class UserSnapshot {
+
+    private final int taille;
+    private final IntBuffer ids;
+    private final IntBuffer finNom;
+    private final IntBuffer finEmail;
+    private final ByteBuffer noms;
+    private final ByteBuffer emails;
+    private final boolean horsTas;
+
+    // 🩹 Changements reçus depuis le chargement : copie de la dernière version, ou SUPPRIME
+    private final ConcurrentIntObjectMap<Utilisateur> modifications = new ConcurrentIntObjectMap<>();
+    private static final Utilisateur SUPPRIME = new Utilisateur(0, "", "");
+
+    private UserSnapshot(int taille, IntBuffer ids, IntBuffer finNom, IntBuffer finEmail,
+                         ByteBuffer noms, ByteBuffer emails, boolean horsTas) {
+        this.taille = taille;
+        this.ids = ids;
+        this.finNom = finNom;
+        this.finEmail = finEmail;
+        this.noms = noms;
+        this.emails = emails;
+        this.horsTas = horsTas;
+    }
+
+    // 📥 Charge toute la table à travers streamAll (pagination par clé : une page en mémoire à la fois,
+    // et les lignes arrivent triées par id). Une erreur SQL lève une RepositoryException.
+    public static UserSnapshot charger(UserRepository repository, boolean horsTas) {
+        Constructeur constructeur = new Constructeur();
+        try (Stream<Utilisateur> flux = repository.streamAll()) {
+            flux.forEach(constructeur::ajouter);
+        }
+        return constructeur.construire(horsTas);
+    }
+
+    // 🔢 Nombre d'utilisateurs (changements reçus compris)
+    public int taille() {
+        int[] ajustement = new int[1];
+        modifications.forEach((id, u) -> {
+            boolean dansColonnes = position(id) >= 0;
+            if (u == SUPPRIME && dansColonnes) {
+                ajustement[0]--;
+            } else if (u != SUPPRIME && !dansColonnes) {
+                ajustement[0]++;
+            }
+        });
+        return taille + ajustement[0];
+    }
+
+    // 🩹 Applique des changements venus de la base : 'modifies' sont les versions actuelles
+    // d'utilisateurs insérés ou modifiés, 'supprimes' les ids supprimés.
+    // La signature correspond à UserChangeFeed.Abonne : snapshot::appliquer.
+    public void appliquer(List<Utilisateur> modifies, int[] supprimes) {
+        for (Utilisateur u : modifies) {
+            modifications.put(u.getId(), new Utilisateur(u.getId(), u.getNom(), u.getEmail()));
+        }
+        for (int id : supprimes) {
+            modifications.put(id, SUPPRIME);
+        }
+    }
+
+    // 🩹 Nombre d'ids dont la version vient de la surcouche et non des colonnes
+    public int getModifications() {
+        return modifications.taille();
+    }
+
+    // 📏 Mémoire occupée par les colonnes, en octets
+    public long getOctets() {
+        return 3L * 4 * taille + noms.capacity() + emails.capacity();
+    }
+
+    // 🧠 true si les colonnes sont hors du tas Java
+    public boolean isHorsTas() {
+        return horsTas;
+    }
+
+    // 🔍 Position de l'utilisateur d'id donné dans les colonnes du chargement (0 à getTailleColonnes() - 1),
+    // ou -1 s'il n'y est pas. Les accès par position ignorent les changements reçus depuis.
+    public int position(int id) {
+        int bas = 0;
+        int haut = taille - 1;
+        while (bas <= haut) {
+            int milieu = (bas + haut) >>> 1;
+            int idMilieu = ids.get(milieu);
+            if (idMilieu < id) {
+                bas = milieu + 1;
+            } else if (idMilieu > id) {
+                haut = milieu - 1;
+            } else {
+                return milieu;
+            }
+        }
+        return -1;
+    }
+
+    // 🔢 Nombre de lignes dans les colonnes du chargement
+    public int getTailleColonnes() {
+        return taille;
+    }
+
+    // 🔎 Champs de l'utilisateur à une position donnée
+    public int getId(int position) {
+        return ids.get(position);
+    }
+
+    public String getNom(int position) {
+        return texte(noms, position == 0 ? 0 : finNom.get(position - 1), finNom.get(position));
+    }
+
+    public String getEmail(int position) {
+        return texte(emails, position == 0 ? 0 : finEmail.get(position - 1), finEmail.get(position));
+    }
+
+    // 👓 Vue sur l'utilisateur d'id donné, ou null s'il n'existe pas
+    public Utilisateur vue(int id) {
+        Utilisateur modifie = modifications.get(id);
+        if (modifie != null) {
+            return modifie == SUPPRIME ? null : new Vue(modifie);
+        }
+        int position = position(id);
+        return position < 0 ? null : new Vue(position);
+    }
+
+    // 📋 Copie modifiable de l'utilisateur d'id donné, ou null s'il n'existe pas
+    public Utilisateur findById(int id) {
+        Utilisateur modifie = modifications.get(id);
+        if (modifie != null) {
+            return modifie == SUPPRIME ? null : new Utilisateur(modifie.getId(), modifie.getNom(), modifie.getEmail());
+        }
+        int position = position(id);
+        return position < 0 ? null : new Utilisateur(getId(position), getNom(position), getEmail(position));
+    }
+
+    // 🔂 Parcours de tous les utilisateurs dans l'ordre des id (changements reçus compris).
+    // ⚠️ La même vue est déplacée de ligne en ligne : elle ne doit pas être gardée après l'appel
+    // (utiliser findById pour conserver un utilisateur).
+    public void forEach(Consumer<? super Utilisateur> action) {
+        // 🩹 Ids de la surcouche, triés, fusionnés avec les colonnes au fil du parcours
+        int[] idsModifies = new int[modifications.taille()];
+        int[] nombre = new int[1];
+        modifications.forEach((id, u) -> {
+            if (nombre[0] < idsModifies.length) {
+                idsModifies[nombre[0]++] = id;
+            }
+        });
+        Arrays.sort(idsModifies, 0, nombre[0]);
+
+        Vue vue = new Vue(0);
+        int suivant = 0;
+        for (int position = 0; position < taille; position++) {
+            int id = ids.get(position);
+            while (suivant < nombre[0] && idsModifies[suivant] <= id) {
+                int idModifie = idsModifies[suivant++];
+                if (idModifie < id) {
+                    rendre(idModifie, vue, action);
+                }
+            }
+            Utilisateur modifie = modifications.get(id);
+            if (modifie == null) {
+                vue.position = position;
+                vue.modifie = null;
+                action.accept(vue);
+            } else {
+                rendre(id, vue, action);
+            }
+        }
+        while (suivant < nombre[0]) {
+            rendre(idsModifies[suivant++], vue, action);
+        }
+    }
+
+    // 🩹 Rend la version de la surcouche (sauf suppression) à travers la vue
+    private void rendre(int id, Vue vue, Consumer<? super Utilisateur> action) {
+        Utilisateur modifie = modifications.get(id);
+        if (modifie != null && modifie != SUPPRIME) {
+            vue.modifie = modifie;
+            action.accept(vue);
+        }
+    }
+
+    // 🔤 Décode en UTF-8 les octets [debut, fin) d'une colonne de texte
+    private static String texte(ByteBuffer colonne, int debut, int fin) {
+        if (colonne.hasArray()) {
+            return new String(colonne.array(), colonne.arrayOffset() + debut, fin - debut, StandardCharsets.UTF_8);
+        }
+        byte[] octets = new byte[fin - debut];
+        colonne.get(debut, octets);
+        return new String(octets, StandardCharsets.UTF_8);
+    }
+
+    // 👓 Utilisateur "poids plume" : il ne garde que sa position dans les colonnes
+    // (ou la version de la surcouche qu'il montre)
+    private final class Vue extends Utilisateur {
+
+        private int position;
+        private Utilisateur modifie;
+
+        Vue(int position) {
+            this.position = position;
+        }
+
+        Vue(Utilisateur modifie) {
+            this.modifie = modifie;
+        }
+
+        @Override
+        public int getId() {
+            return modifie != null ? modifie.getId() : ids.get(position);
+        }
+
+        @Override
+        public String getNom() {
+            return modifie != null ? modifie.getNom() : UserSnapshot.this.getNom(position);
+        }
+
+        @Override
+        public String getEmail() {
+            return modifie != null ? modifie.getEmail() : UserSnapshot.this.getEmail(position);
+        }
+
+        @Override
+        public void setId(int id) {
+            throw new UnsupportedOperationException("Vue en lecture seule d'un UserSnapshot");
+        }
+
+        @Override
+        public void setNom(String nom) {
+            throw new UnsupportedOperationException("Vue en lecture seule d'un UserSnapshot");
+        }
+
+        @Override
+        public void setEmail(String email) {
+            throw new UnsupportedOperationException("Vue en lecture seule d'un UserSnapshot");
+        }
+    }
+
+    // 🏗️ Remplit des colonnes qui grandissent au fil du chargement, puis les fige à la bonne taille
+    private static final class Constructeur {
+
+        private int taille;
+        private int[] ids = new int[1024];
+        private int[] finNom = new int[1024];
+        private int[] finEmail = new int[1024];
+        private byte[] noms = new byte[16 * 1024];
+        private byte[] emails = new byte[32 * 1024];
+        private int tailleNoms;
+        private int tailleEmails;
+
+        void ajouter(Utilisateur u) {
+            if (taille > 0 && u.getId() <= ids[taille - 1]) {
+                throw new IllegalStateException("Les utilisateurs doivent arriver triés par id : " + u.getId());
+            }
+            if (taille == ids.length) {
+                int capacite = taille * 2;
+                ids = Arrays.copyOf(ids, capacite);
+                finNom = Arrays.copyOf(finNom, capacite);
+                finEmail = Arrays.copyOf(finEmail, capacite);
+            }
+            byte[] nom = octets(u.getNom());
+            byte[] email = octets(u.getEmail());
+            noms = agrandir(noms, tailleNoms + nom.length);
+            System.arraycopy(nom, 0, noms, tailleNoms, nom.length);
+            tailleNoms += nom.length;
+            emails = agrandir(emails, tailleEmails + email.length);
+            System.arraycopy(email, 0, emails, tailleEmails, email.length);
+            tailleEmails += email.length;
+
+            ids[taille] = u.getId();
+            finNom[taille] = tailleNoms;
+            finEmail[taille] = tailleEmails;
+            taille++;
+        }
+
+        UserSnapshot construire(boolean horsTas) {
+            return new UserSnapshot(taille,
+                    colonne(ids, taille, horsTas), colonne(finNom, taille, horsTas), colonne(finEmail, taille, horsTas),
+                    colonne(noms, tailleNoms, horsTas), colonne(emails, tailleEmails, horsTas), horsTas);
+        }
+
+        private static byte[] octets(String texte) {
+            return texte == null ? new byte[0] : texte.getBytes(StandardCharsets.UTF_8);
+        }
+
+        private static byte[] agrandir(byte[] tableau, int tailleMin) {
+            if (tailleMin <= tableau.length) {
+                return tableau;
+            }
+            return Arrays.copyOf(tableau, Math.max(tailleMin, tableau.length * 2));
+        }
+
+        private static IntBuffer colonne(int[] valeurs, int taille, boolean horsTas) {
+            if (!horsTas) {
+                return IntBuffer.wrap(Arrays.copyOf(valeurs, taille));
+            }
+            IntBuffer colonne = ByteBuffer.allocateDirect(taille * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+            colonne.put(valeurs, 0, taille);
+            return colonne.clear();
+        }
+
+        private static ByteBuffer colonne(byte[] valeurs, int taille, boolean horsTas) {
+            if (!horsTas) {
+                return ByteBuffer.wrap(Arrays.copyOf(valeurs, taille));
+            }
+            ByteBuffer colonne = ByteBuffer.allocateDirect(taille);
+            colonne.put(valeurs, 0, taille);
+            return colonne.clear();
+        }
+    }
+}